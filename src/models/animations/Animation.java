@@ -40,6 +40,12 @@ public abstract class Animation extends Point
 	protected boolean estTerminee;
     protected int hauteur = HAUTEUR_AIR;
     
+    /**
+     * Distance maximum entre la position d'une animation et ce qu'elle 
+     * dessine, si elle ne redefinit pas {@link #estVisible(Rectangle)}
+     */
+    protected static final int MARGE_AFFICHAGE = 100;
+    
 	/**
 	 * Constructeur de l'animation.
 	 * 
@@ -85,4 +91,20 @@ public abstract class Animation extends Point
     {
         return hauteur;
     }
+    
+    /**
+     * Permet de savoir si l'animation peut etre visible dans une zone.
+     * <br>
+     * Par defaut, l'animation ne dessine pas a plus de 
+     * {@link #MARGE_AFFICHAGE} pixels de sa position. Les animations plus 
+     * grandes ou dessinees ailleurs redefinissent cette methode.
+     * 
+     * @param zone la zone visible du terrain
+     * @return false si l'animation est entierement hors de la zone
+     */
+    public boolean estVisible(Rectangle zone)
+    {
+        return zone.intersects(x - MARGE_AFFICHAGE, y - MARGE_AFFICHAGE, 
+                               2 * MARGE_AFFICHAGE, 2 * MARGE_AFFICHAGE);
+    }
 }
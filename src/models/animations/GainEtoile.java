@@ -25,6 +25,7 @@ import java.awt.Color;
 import java.awt.Font;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 import vues.GestionnaireDesPolices;
 
@@ -84,6 +85,13 @@ public class GainEtoile extends Animation
 		g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.f));
 		g2.setFont(ancienne);
 	}
+	
+	@Override
+	public boolean estVisible(Rectangle zone)
+	{
+	    // message au milieu du terrain, toujours dessine
+	    return true;
+	}
 
     @Override
     public void animer(long tempsPasse)
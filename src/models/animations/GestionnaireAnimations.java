@@ -19,6 +19,7 @@
 package models.animations;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.util.ArrayList;
 import java.util.Enumeration;
 import java.util.NoSuchElementException;
@@ -29,23 +30,17 @@ import models.outils.Outils;
 /**
  * Classe d'encapsulation des animations.
  * 
- * Permet de faire vivre toutes les animation sous le meme thread et ainsi 
- * alléger le processeur.
- * 
- * Toutes les animations tournent sous le meme clock.
+ * Les animations sont animees a chaque pas de la boucle de jeu, toutes
+ * avec le meme temps ecoule.
  * 
  * @author Aurelien Da Campo
  * @version 1.1 | juin 2010
  * @since jdk1.6.0_16
  */
-public class GestionnaireAnimations implements Runnable
+public class GestionnaireAnimations
 {
-    private static final long TEMPS_ATTENTE = 50;
     private Vector<Animation> animations = new Vector<Animation>();
-    private Thread thread;
-    private boolean gestionEnCours;
-    private boolean enPause = false;
-    private Object pause = new Object();
+    private ArrayList<Animation> animationsASupprimer = new ArrayList<Animation>();
     private Jeu jeu;
     private long tempsAvantNuages = 0;
     
@@ -57,15 +52,6 @@ public class GestionnaireAnimations implements Runnable
         this.jeu = jeu;
     }
     
-    /**
-     * Permet de demarrer la gestion
-     */
-    public void demarrer()
-    {
-        thread = new Thread(this);
-        thread.start();
-    }
-    
     /**
      * Permet d'ajouter une animation
      * 
@@ -80,6 +66,18 @@ public class GestionnaireAnimations implements Runnable
      * Permet de dessiner toutes les animations
      */
     public void dessinerAnimations(Graphics2D g2, int hauteur)
+    {
+        dessinerAnimations(g2, hauteur, null);
+    }
+    
+    /**
+     * Permet de dessiner les animations visibles dans une zone
+     * 
+     * @param g2 le Graphics2D
+     * @param hauteur la hauteur des animations
+     * @param zone la zone visible du terrain, null pour tout dessiner
+     */
+    public void dessinerAnimations(Graphics2D g2, int hauteur, Rectangle zone)
     {
         try
         {
@@ -89,14 +87,15 @@ public class GestionnaireAnimations implements Runnable
             {
                 animation = eAnimations.nextElement();
                 
-                // seulement pour l'hauteur passée
-                if(animation.getHauteur() == hauteur)
+                // seulement pour l'hauteur passée, et si elle est visible
+                if(animation.getHauteur() == hauteur
+                && (zone == null || animation.estVisible(zone)))
                     animation.dessiner(g2);
             }
         }
         
         // Cette erreur vient de la suppression d'une animation
-        // dans la méthode run. J'ai essayé d'utiliser un objet Iterator 
+        // dans la méthode mettreAJour. J'ai essayé d'utiliser un objet Iterator 
         // pour pouvoir supprimmer proprement l'animation du vecteur
         // mais des erreurs de concurrence surviennent! Même en englobant 
         // l'iterateur d'un synchronized(animations)... pourtant cette structure
@@ -107,137 +106,54 @@ public class GestionnaireAnimations implements Runnable
         }
     }
 
-    @Override
-    public void run()
-    {
-       gestionEnCours = true;
-        
-       /*
-       // CECI NE MARCHE PAS :
-       // Poutant Iterator doit normalement gérer cela ?!?
-       // Une erreur de concurrence est levée 
-       // j'utilise alors un tableau temporaire de suppression
-       while(gestionEnCours)
-       {
-           Iterator<Animation> iAnimations = animations.iterator();
-           synchronized(animations)
-           {
-               Animation animation;
-              
-               while(iAnimations.hasNext())
-               {
-                   animation = iAnimations.next();
-                   
-                   // detruit l'animation si elle est terminee
-                   if(animation.estTerminee())
-                       iAnimations.remove();
-                   else
-                   {
-                       // anime l'animation
-                       animation.animer(TEMPS_ATTENTE);
-                   }
-               }
-           }
-           
-       */
-       
-
-       ArrayList<Animation> animationsASupprimer = new ArrayList<Animation>();
-       Animation animation;
-       
-       while(gestionEnCours)
-       {
-           tempsAvantNuages -= TEMPS_ATTENTE;
-           
-           if(tempsAvantNuages < 0)
-           { 
-               for(int i=0;i<5;i++)
-                   jeu.ajouterAnimation(new Nuage(jeu));
-               
-               tempsAvantNuages = Outils.tirerNombrePseudoAleatoire(10000, 20000);
-           }
-
-           try
-           {
-               //System.out.println(animations.size());
-               
-               Enumeration<Animation> eAnimations = animations.elements();
-               while(eAnimations.hasMoreElements())
-               {
-                   animation = eAnimations.nextElement();
-
-                   // detruit l'animation si elle est terminee
-                   if(animation.estTerminee())
-                       animationsASupprimer.add(animation);
-                   else
-                       // anime l'animation
-                       animation.animer((long)(TEMPS_ATTENTE*jeu.getCoeffVitesse()));
-               }
-           }
-           catch(NoSuchElementException nse)
-           {
-               System.err.println("[ERREUR] Animation introuvable");
-           }
- 
-           // suppression des créatures
-           for(Animation animationASupprimer : animationsASupprimer)
-               animations.remove(animationASupprimer);
-           animationsASupprimer.clear();
-         
-           // gestion de la pause
-           try
-           {
-               synchronized (pause)
-               {
-                   if(enPause)
-                       pause.wait();
-               } 
-           } 
-           catch (InterruptedException e1)
-           {
-               e1.printStackTrace();
-           }
-           
-           try{
-                Thread.sleep(TEMPS_ATTENTE);
-           } 
-           catch (InterruptedException e){
-                e.printStackTrace();
-           }
-       }
-    }
-
     /**
-     * Permet d'arreter toutes les animations
+     * Permet d'animer toutes les animations pendant un pas de simulation
+     * et de supprimer celles qui sont terminees.
+     * 
+     * @param tempsEcoule le temps de jeu ecoule depuis le dernier pas (ms)
      */
-    public void arreterAnimations()
+    public void mettreAJour(long tempsEcoule)
     {
-        gestionEnCours = false;
-    }
+        tempsAvantNuages -= tempsEcoule;
+        
+        if(tempsAvantNuages < 0)
+        { 
+            for(int i=0;i<5;i++)
+                jeu.ajouterAnimation(new Nuage(jeu));
+            
+            tempsAvantNuages = Outils.tirerNombrePseudoAleatoire(10000, 20000);
+        }
 
-    /**
-     * Permet de mettre les animations en pause.
-     */
-    public void mettreEnPause()
-    {
-        enPause = true;
-    }
-    
-    /**
-     * Permet de sortir les animations de la pause.
-     */
-    public void sortirDeLaPause()
-    { 
-        synchronized (pause)
+        Animation animation;
+        
+        try
         {
-            enPause = false;
-            pause.notify();
+            Enumeration<Animation> eAnimations = animations.elements();
+            while(eAnimations.hasMoreElements())
+            {
+                animation = eAnimations.nextElement();
+
+                // detruit l'animation si elle est terminee
+                if(animation.estTerminee())
+                    animationsASupprimer.add(animation);
+                else
+                    // anime l'animation
+                    animation.animer(tempsEcoule);
+            }
         }
+        catch(NoSuchElementException nse)
+        {
+            System.err.println("[ERREUR] Animation introuvable");
+        }
+
+        // suppression des animations terminees
+        for(Animation animationASupprimer : animationsASupprimer)
+            animations.remove(animationASupprimer);
+        animationsASupprimer.clear();
     }
 
     public void detruire()
     {
-        arreterAnimations();
         animations.clear();
     }
 }
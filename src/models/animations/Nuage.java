@@ -21,6 +21,7 @@ package models.animations;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 
 import models.jeu.Jeu;
@@ -82,6 +83,19 @@ public class Nuage extends Animation
 		g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.f));
 	}
 
+    @Override
+    public boolean estVisible(Rectangle zone)
+    {
+        int largeur = IMAGE.getWidth(null);
+        int hauteur = IMAGE.getHeight(null);
+        
+        // taille inconnue tant que l'image n'est pas chargee
+        if(largeur < 0 || hauteur < 0)
+            return true;
+        
+        return zone.intersects(x, y, largeur, hauteur);
+    }
+
     @Override
     public void animer(long tempsPasse)
     {
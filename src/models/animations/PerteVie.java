@@ -21,6 +21,7 @@ package models.animations;
 import java.awt.AlphaComposite;
 import java.awt.Graphics2D;
 import java.awt.Image;
+import java.awt.Rectangle;
 import java.awt.Toolkit;
 
 /**
@@ -72,6 +73,12 @@ public class PerteVie extends Animation
 		// retabli la transparence
 		g2.setComposite(AlphaComposite.getInstance(AlphaComposite.SRC_OVER, 1.f));
 	}
+	
+	@Override
+	public boolean estVisible(Rectangle zone)
+	{
+	    return zone.intersects(x, y, largeur, hauteur);
+	}
 
     @Override
     public void animer(long tempsPasse)
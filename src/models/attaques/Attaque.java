@@ -19,8 +19,9 @@
 package models.attaques;
 
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.util.ArrayList;
-import java.util.Enumeration;
+import java.util.Iterator;
 import models.animations.*;
 import models.creatures.Creature;
 import models.jeu.Jeu;
@@ -65,6 +66,26 @@ abstract public class Attaque extends Animation
         this.cible      = cible;
     }
     
+    /**
+     * L'attaque est dessinee entre la tour et sa cible
+     */
+    @Override
+    public boolean estVisible(Rectangle zone)
+    {
+        if(super.estVisible(zone))
+            return true;
+        
+        if(attaquant == null || cible == null)
+            return true;
+        
+        double xMin = Math.min(attaquant.getX(), cible.getX()) - MARGE_AFFICHAGE;
+        double yMin = Math.min(attaquant.getY(), cible.getY()) - MARGE_AFFICHAGE;
+        double xMax = Math.max(attaquant.getMaxX(), cible.getMaxX()) + MARGE_AFFICHAGE;
+        double yMax = Math.max(attaquant.getMaxY(), cible.getMaxY()) + MARGE_AFFICHAGE;
+        
+        return zone.intersects(xMin, yMin, xMax - xMin, yMax - yMin);
+    }
+    
     /**
      * Permet d'effectuer toutes les operations necessaire pour blesser la creature
      * en fonction de la valeur des attributs.
@@ -100,11 +121,14 @@ abstract public class Attaque extends Animation
         long degatsFinal;
         double distanceImpact;
         
-        Enumeration<Creature> eCreatures = jeu.getCreatures().elements();
+        // seules les creatures autour de l'impact peuvent etre touchees
+        Iterator<Creature> eCreatures = jeu.getCreaturesDansLaZone(
+                impact.x - rayonImpact, impact.y - rayonImpact,
+                impact.x + rayonImpact, impact.y + rayonImpact).iterator();
         Creature tmpCreature;
-        while(eCreatures.hasMoreElements())
+        while(eCreatures.hasNext())
         {
-            tmpCreature = eCreatures.nextElement();
+            tmpCreature = eCreatures.next();
             
             if(tmpCreature.peutEtreAttaquee(attaquant))
             {
@@ -23,6 +23,7 @@ import i18n.Langue;
 import java.awt.*;
 import java.util.*;
 import models.joueurs.*;
+import models.maillage.ChampDeVecteurs;
 import models.tours.Tour;
 
 /**
@@ -98,6 +99,34 @@ public abstract class Creature extends Rectangle
      */
 	private int indiceCourantChemin;
 	
+	/**
+	 * Champ de vecteurs suivi par la creature (creatures terriennes).
+	 * <br>
+	 * Lorsqu'il est defini, il remplace le chemin.
+	 */
+	private ChampDeVecteurs champDeVecteurs;
+	
+	/**
+	 * Noeud vers lequel se dirige la creature sur le champ de vecteurs
+	 */
+	private Point noeudCible;
+	
+	/**
+	 * Version du champ de vecteurs lors du choix du noeud cible
+	 */
+	private int versionChampDeVecteurs;
+	
+	/**
+	 * La creature a atteint la sortie du champ de vecteurs
+	 */
+	private boolean arriveeSurChamp;
+	
+	/**
+	 * Indice de la cellule de la creature dans la grille de son gestionnaire
+	 * (-1 si elle n'y est pas)
+	 */
+	transient int indiceCellule = -1;
+	
 	/**
 	 * sante de la creature, si la sante est <= 0, la creature est morte. 
 	 * A ce moment la, elle donne au joueur ses pieces d'or
@@ -165,6 +194,31 @@ public abstract class Creature extends Rectangle
      * la détruire chez le client.
      */
     private boolean invincible = false;
+    
+    /**
+     * Utiliser pour les clients réseau.
+     * 
+     * La créature avance localement sur son chemin entre deux états reçus
+     * du serveur, mais c'est le serveur qui annonce son arrivée.
+     */
+    private boolean simulationLocale = false;
+    
+    /**
+     * Ecart restant a rattraper entre la position simulee localement et 
+     * la derniere position recue du serveur
+     */
+    private double correctionX, correctionY;
+    
+    /**
+     * Duree sur laquelle un ecart avec le serveur est rattrape (ms)
+     */
+    private static final double DUREE_CORRECTION = 200.0;
+    
+    /**
+     * Au-dela de cet ecart (en pixels), la position du serveur est prise 
+     * telle quelle
+     */
+    private static final double ECART_MAX_CORRECTION = 40.0;
 
     private final double LARGEUR_MOITIE;
     private final double HAUTEUR_MOITIE;
@@ -430,6 +484,31 @@ public abstract class Creature extends Rectangle
 	    this.chemin = chemin;
 	}
 	
+	/**
+	 * Permet de modifier le champ de vecteurs suivi par la creature.
+	 * <br>
+	 * Le champ remplace le chemin : la creature se dirige de noeud en noeud
+	 * en consultant le champ, sans calcul de chemin individuel.
+	 * 
+	 * @param champDeVecteurs le champ de vecteurs, null pour suivre le chemin
+	 */
+	public void setChampDeVecteurs(ChampDeVecteurs champDeVecteurs)
+	{
+	    this.champDeVecteurs = champDeVecteurs;
+	    noeudCible           = null;
+	    arriveeSurChamp      = false;
+	}
+	
+	/**
+	 * Permet de recuperer le champ de vecteurs suivi par la creature
+	 * 
+	 * @return le champ de vecteurs ou null si la creature suit un chemin
+	 */
+	public ChampDeVecteurs getChampDeVecteurs()
+	{
+	    return champDeVecteurs;
+	}
+	
 	/**
 	 * Permet de recuperer l'indice du point courant sur le chemin
 	 * 
@@ -450,9 +529,12 @@ public abstract class Creature extends Rectangle
 	    // avance la creature
 	    avancerSurChemin(tempsPasse);
 	    
+	    // rattrape l'ecart avec le serveur
+	    if(correctionX != 0.0 || correctionY != 0.0)
+	        appliquerCorrection(tempsPasse);
+	    
 	    // la creature est arrivee a destination !
-        if(chemin != null && indiceCourantChemin == chemin.size() 
-           && !aDetruire && !estMorte())
+        if(!simulationLocale && estArriveeADestination() && !aDetruire && !estMorte())
         {
             aDetruire = true;
 
@@ -463,6 +545,95 @@ public abstract class Creature extends Rectangle
         }
 	}
 	
+	/**
+	 * Permet de corriger la position de la creature avec celle recue du 
+	 * serveur.
+	 * <br>
+	 * La creature continue d'avancer localement et l'ecart est rattrape 
+	 * progressivement lors des prochaines actions. Un ecart trop grand est
+	 * corrige immediatement.
+	 * 
+	 * @param x la position sur l'axe X recue
+	 * @param y la position sur l'axe Y recue
+	 */
+	public void corrigerPosition(int x, int y)
+	{
+	    double ecartX = x - xReel;
+	    double ecartY = y - yReel;
+	    
+	    if(Math.hypot(ecartX, ecartY) > ECART_MAX_CORRECTION)
+	    {
+	        setX(x);
+	        setY(y);
+	        
+	        correctionX = 0.0;
+	        correctionY = 0.0;
+	        
+	        // le noeud vise n'est peut-etre plus le bon
+	        noeudCible = null;
+	    }
+	    else
+	    {
+	        correctionX = ecartX;
+	        correctionY = ecartY;
+	    }
+	}
+	
+	/**
+	 * Permet de rattraper une partie de l'ecart avec le serveur
+	 * 
+	 * @param tempsEcoule le temps ecoule depuis le dernier appel
+	 */
+	private void appliquerCorrection(long tempsEcoule)
+	{
+	    double part = Math.min(1.0, tempsEcoule / DUREE_CORRECTION);
+	    
+	    double dx = correctionX * part;
+	    double dy = correctionY * part;
+	    
+	    xReel += dx;
+	    yReel += dy;
+	    correctionX -= dx;
+	    correctionY -= dy;
+	    
+	    // moins d'un pixel d'ecart
+	    if(Math.abs(correctionX) < 0.5 && Math.abs(correctionY) < 0.5)
+	    {
+	        xReel += correctionX;
+	        yReel += correctionY;
+	        correctionX = 0.0;
+	        correctionY = 0.0;
+	    }
+	    
+	    x = (int) Math.round(xReel);
+	    y = (int) Math.round(yReel);
+	}
+	
+	/**
+	 * Permet d'indiquer que la creature est simulee localement pour un 
+	 * client reseau : elle avance sur son chemin mais n'annonce pas 
+	 * son arrivee.
+	 * 
+	 * @param simulationLocale true si la creature est simulee localement
+	 */
+	public void setSimulationLocale(boolean simulationLocale)
+	{
+	    this.simulationLocale = simulationLocale;
+	}
+	
+	/**
+	 * Permet de savoir si la creature a atteint la fin de son chemin
+	 * 
+	 * @return true si elle l'a atteinte, false sinon
+	 */
+	private boolean estArriveeADestination()
+	{
+	    if(champDeVecteurs != null)
+	        return arriveeSurChamp;
+	    
+	    return chemin != null && indiceCourantChemin == chemin.size();
+	}
+	
 	/**
      * Permet de faire avancer la creature sur son chemin.
      * 
@@ -472,6 +643,12 @@ public abstract class Creature extends Rectangle
      */
     protected void avancerSurChemin(long tempsEcoule)
     {
+        if(champDeVecteurs != null)
+        {
+            avancerSurChamp(tempsEcoule);
+            return;
+        }
+        
         // si la creature a un chemin et que le chemin n'est pas terminee, 
         // elle avance...
         if(chemin != null && indiceCourantChemin < chemin.size())
@@ -539,6 +716,77 @@ public abstract class Creature extends Rectangle
     }
 	
 	/**
+     * Permet de faire avancer la creature sur son champ de vecteurs.
+     * 
+     * La creature se dirige vers son noeud cible, puis demande au champ
+     * le noeud suivant. Si le champ a change depuis le choix de la cible, 
+     * une nouvelle cible est choisie depuis la position courante.
+     * 
+     * @param tempsEcoule le temps ecoule depuis le dernier appel
+     */
+    private void avancerSurChamp(long tempsEcoule)
+    {
+        if(arriveeSurChamp)
+            return;
+        
+        // le champ a ete modifie (tour posee ou vendue)
+        int version = champDeVecteurs.getVersion();
+        if(noeudCible == null || version != versionChampDeVecteurs)
+        {
+            versionChampDeVecteurs = version;
+            noeudCible = champDeVecteurs.getNoeudSuivant(
+                    (int) Math.round(xReel + LARGEUR_MOITIE), 
+                    (int) Math.round(yReel + HAUTEUR_MOITIE));
+        }
+        
+        // calcul de la distance a parcourir
+        double distanceAParcourir = getVitesseReelle() * ((double) tempsEcoule / 1000.0);
+        
+        while(distanceAParcourir > 0 && noeudCible != null)
+        {
+            // calcul du centre de la creature
+            double centreX = xReel + LARGEUR_MOITIE;
+            double centreY = yReel + HAUTEUR_MOITIE;
+            
+            // /!\ Math.atan2(y,x) /!\
+            angle = Math.atan2(centreY - noeudCible.y,centreX - noeudCible.x);
+            
+            double distanceCreatureNoeudCible = Point.distance(
+                    centreX, centreY,
+                    noeudCible.x, noeudCible.y);
+            
+            // noeud cible atteint
+            if(distanceAParcourir >= distanceCreatureNoeudCible)
+            {
+                xReel = noeudCible.x - LARGEUR_MOITIE;
+                yReel = noeudCible.y - HAUTEUR_MOITIE;
+                
+                distanceAParcourir -= distanceCreatureNoeudCible;
+                
+                // le champ donne le noeud suivant
+                noeudCible = champDeVecteurs.getNoeudSuivant(noeudCible.x, noeudCible.y);
+            }
+            else
+            {
+                xReel -= Math.cos(angle)*distanceAParcourir; // x
+                yReel -= Math.sin(angle)*distanceAParcourir; // y
+                
+                distanceAParcourir = 0;
+            }
+        }
+        
+        // mise a jour des coordonnees entieres
+        x = (int) Math.round(xReel);
+        y = (int) Math.round(yReel);
+        
+        // plus de noeud suivant : sortie atteinte ou aucun chemin
+        if(noeudCible == null)
+            arriveeSurChamp = champDeVecteurs.estUneSortie(
+                    (int) Math.round(xReel + LARGEUR_MOITIE), 
+                    (int) Math.round(yReel + HAUTEUR_MOITIE));
+    }
+	
+	/**
 	 * Permet de faire subir des degats sur la creature
 	 * 
 	 * L'attaque pouvant venir de plusieurs tours en meme temps, cette 
@@ -25,10 +25,12 @@ import java.util.Enumeration;
 import java.util.NoSuchElementException;
 import java.util.Vector;
 
+import models.jeu.BoucleDeJeu;
 import models.jeu.Jeu;
 import models.joueurs.Equipe;
 import models.joueurs.GestionnaireDeRevenu;
 import models.joueurs.Joueur;
+import models.maillage.ChampDeVecteurs;
 import models.maillage.PathNotFoundException;
 import models.outils.Outils;
 
@@ -45,15 +47,36 @@ import models.outils.Outils;
  * @since jdk1.6.0_16
  * @see Creature
  */
-public class GestionnaireCreatures implements Runnable
+public class GestionnaireCreatures
 {
-    private static final long TEMPS_ATTENTE = 50; // ms
     private static final int MARGES_LANCEMENT_ALEA = 5; // pixel
     
     private Vector<Creature> creatures = new Vector<Creature>();
-    private boolean gestionEnCours;
-    private boolean enPause = false;
-    private Object pause = new Object();
+    
+    /**
+     * Copie de la collection des creatures partagee par tous les lecteurs.
+     * <br>
+     * Elle est recreee uniquement apres un ajout ou une suppression de 
+     * creature (null en attendant la prochaine lecture).
+     */
+    private volatile Vector<Creature> instantane;
+    
+    /**
+     * Version de la collection, incrementee a chaque ajout ou suppression
+     */
+    private volatile int version;
+    
+    /**
+     * Index spatial des creatures, reconstruit a chaque tour de boucle
+     */
+    private GrilleDeCreatures grille = new GrilleDeCreatures();
+    
+    /**
+     * Vagues en cours de lancement
+     */
+    private Vector<LancementDeVague> lancements = new Vector<LancementDeVague>();
+    
+    private ArrayList<Creature> creaturesASupprimer = new ArrayList<Creature>();
     private Jeu jeu;
 
     /**
@@ -64,15 +87,6 @@ public class GestionnaireCreatures implements Runnable
         this.jeu = jeu;
     }
     
-    /**
-     * Permet de demarrer la gestion
-     */
-    public void demarrer()
-    {
-        Thread thread = new Thread(this);
-        thread.start();
-    }
-    
     /**
      * Permet d'ajouter une creature
      * 
@@ -83,7 +97,13 @@ public class GestionnaireCreatures implements Runnable
         if (creature == null)
             throw new IllegalArgumentException("Creature nulle");
         
-        creatures.add(creature);
+        synchronized (creatures)
+        {
+            creatures.add(creature);
+            collectionModifiee();
+        }
+        
+        grille.ajouter(creature);
     }
     
     /**
@@ -92,101 +112,158 @@ public class GestionnaireCreatures implements Runnable
     public void supprimerCreature(Creature creature)
     {
         if (creature != null)
-            creatures.remove(creature);  
+        {
+            retirerCreature(creature);
+            grille.retirer(creature);
+        }
+    }
+    
+    /**
+     * Retire une creature de la collection
+     */
+    private void retirerCreature(Creature creature)
+    {
+        synchronized (creatures)
+        {
+            if(creatures.remove(creature))
+                collectionModifiee();
+        }
+    }
+    
+    /**
+     * Invalide la copie partagee apres une modification de la collection.
+     * <br>
+     * Doit etre appelee avec le verrou de la collection.
+     */
+    private void collectionModifiee()
+    {
+        version++;
+        instantane = null;
     }
 
-    @Override
-    public void run()
+    /**
+     * Permet de faire avancer les creatures d'un pas de simulation.
+     * <br>
+     * Les vagues en cours de lancement sont traitees en premier, puis les
+     * creatures agissent et l'index spatial est reconstruit pour les tours.
+     * 
+     * @param tempsEcoule le temps de jeu ecoule depuis le dernier pas (ms)
+     */
+    public void mettreAJour(long tempsEcoule)
     {
-        gestionEnCours = true;
+        lancerCreatures(tempsEcoule);
         
-        ArrayList<Creature> creaturesASupprimer = new ArrayList<Creature>();
         Creature creature;
         
-        while(gestionEnCours)
-        { 
-            try
-            {
-               
-                Enumeration<Creature> eCreatures = creatures.elements();
-                while(eCreatures.hasMoreElements())
-                {
-                    creature = eCreatures.nextElement();
-                    
-                    creature.effacerSiPasMisAJour();
-                    
-                    // efface les creatures mortes
-                    if(creature.aDetruire())
-                        // ajout dans la liste des créatures à supprimer
-                        creaturesASupprimer.add(creature);
-                    else
-                        // anime la creature
-                        creature.action((long)(TEMPS_ATTENTE*jeu.getCoeffVitesse()));
-                }
-            }
-            catch(NoSuchElementException nse)
-            {
-                System.err.println("[ERREUR] Créature introuvable");
-            }
-            
-            // suppression des créatures
-            for(Creature creatureASupprimer : creaturesASupprimer)
-                creatures.remove(creatureASupprimer);
-            creaturesASupprimer.clear();
-            
-            // gestion de la pause
-            try
+        try
+        {
+            Enumeration<Creature> eCreatures = creatures.elements();
+            while(eCreatures.hasMoreElements())
             {
-                synchronized (pause)
-                {
-                    if(enPause)
-                        pause.wait();
-                } 
-            
-                Thread.sleep(TEMPS_ATTENTE);
-            } 
-            catch (InterruptedException e){
-                 e.printStackTrace();
+                creature = eCreatures.nextElement();
+                
+                creature.effacerSiPasMisAJour();
+                
+                // efface les creatures mortes
+                if(creature.aDetruire())
+                    // ajout dans la liste des créatures à supprimer
+                    creaturesASupprimer.add(creature);
+                else
+                    // anime la creature
+                    creature.action(tempsEcoule);
             }
         }
+        catch(NoSuchElementException nse)
+        {
+            System.err.println("[ERREUR] Créature introuvable");
+        }
+        
+        // suppression des créatures
+        for(Creature creatureASupprimer : creaturesASupprimer)
+        {
+            retirerCreature(creatureASupprimer);
+            grille.retirer(creatureASupprimer);
+        }
+        creaturesASupprimer.clear();
+        
+        // mise a jour de l'index spatial
+        reconstruireGrille(tempsEcoule);
     }
     
     /**
-     * Permet d'arreter toutes les creatures
+     * Permet de reconstruire l'index spatial avec la position actuelle 
+     * des creatures.
+     * 
+     * @param tempsEcoule le temps de jeu entre deux pas de simulation (ms)
      */
-    public void arreterCreatures()
+    private void reconstruireGrille(long tempsEcoule)
     {
-        gestionEnCours = false;
+        grille.reconstruire(creatures, 
+                jeu.getTerrain().getLargeur(), jeu.getTerrain().getHauteur(),
+                tempsEcoule);
     }
     
     /**
-     * Permet de recuperer une copie de la collection des creatures
+     * Permet de recuperer les creatures dont le rectangle touche une zone
+     * (bords compris).
+     * <br>
+     * La recherche se fait dans l'index spatial, seules les creatures
+     * proches de la zone sont testees.
+     * 
+     * @param xMin le bord gauche de la zone
+     * @param yMin le bord haut de la zone
+     * @param xMax le bord droit de la zone
+     * @param yMax le bord bas de la zone
+     * @return les creatures trouvees
      */
-    @SuppressWarnings("unchecked")
-    public Vector<Creature> getCreatures()
+    public ArrayList<Creature> getCreaturesDansLaZone(double xMin, double yMin, 
+                                                      double xMax, double yMax)
     {
-        return (Vector<Creature>) creatures.clone();
+        if(!grille.estConstruite())
+            reconstruireGrille(BoucleDeJeu.PAS * (long) Math.ceil(jeu.getCoeffVitesse()));
+        
+        return grille.getCreaturesDansLaZone(xMin, yMin, xMax, yMax);
     }
     
+    
     /**
-     * Permet de mettre les créatures en pause.
+     * Permet de recuperer une copie de la collection des creatures.
+     * <br>
+     * La copie est partagee entre tous les appels tant que la collection
+     * n'est pas modifiee : elle ne doit donc pas etre modifiee par 
+     * l'appelant. Une lecture ne coute aucune allocation.
+     * 
+     * @return la copie de la collection
      */
-    public void mettreEnPause()
+    public Vector<Creature> getCreatures()
     {
-        enPause = true;
+        Vector<Creature> copie = instantane;
+        
+        if(copie != null)
+            return copie;
+        
+        synchronized (creatures)
+        {
+            if(instantane == null)
+                instantane = new Vector<Creature>(creatures);
+            
+            return instantane;
+        }
     }
     
     /**
-     * Permet de sortir les créatures de la pause.
+     * Permet de recuperer la version de la collection des creatures.
+     * <br>
+     * Elle change a chaque ajout ou suppression de creature, deux copies
+     * de meme version sont identiques.
+     * 
+     * @return la version de la collection
      */
-    public void sortirDeLaPause()
-    { 
-        synchronized (pause)
-        {
-            enPause = false;
-            pause.notifyAll();
-        }
+    public int getVersionCreatures()
+    {
+        return version;
     }
+    
 
     /**
      * Permet de recupérer le créatures qui intersectent un rectangle
@@ -198,21 +275,11 @@ public class GestionnaireCreatures implements Runnable
     {
         Vector<Creature> creaturesIntersectees = new Vector<Creature>();
         
-        try
+        for(Creature creature : getCreaturesDansLaZone(rectangle.getMinX(), 
+                rectangle.getMinY(), rectangle.getMaxX(), rectangle.getMaxY()))
         {
-            Creature creature;
-            Enumeration<Creature> eCreatures = creatures.elements();
-            while(eCreatures.hasMoreElements())
-            {
-                creature = eCreatures.nextElement();
-        
-                if(creature.intersects(rectangle))
-                    creaturesIntersectees.add(creature);
-            }
-        }
-        catch(NoSuchElementException nse)
-        {
-            System.err.println("[ERREUR] Créature introuvable");
+            if(creature.intersects(rectangle))
+                creaturesIntersectees.add(creature);
         }
 
         return creaturesIntersectees;
@@ -229,25 +296,23 @@ public class GestionnaireCreatures implements Runnable
     {
         Vector<Creature> creaturesIntersctees = new Vector<Creature>();
         
-        try
-        {
-            Creature creature;
-            Enumeration<Creature> eCreatures = creatures.elements();
-            while(eCreatures.hasMoreElements())
-            {
-                creature = eCreatures.nextElement();
-    
-                Point pCreature = new Point((int)creature.getCenterX(), 
-                                            (int)creature.getCenterY());
-                Point pCercle = new Point(x,y);
-                
-                if(pCreature.distance(pCercle) < rayon + creature.getWidth() / 2)
-                    creaturesIntersctees.add(creature);
-            }
-        }
-        catch(NoSuchElementException nse)
+        Point pCercle = new Point(x,y);
+        
+        // le centre d'une creature touchee est dans le carre englobant
+        // elargi de la demi-taille des creatures (+1 pour l'arrondi du centre)
+        if(!grille.estConstruite())
+            reconstruireGrille(BoucleDeJeu.PAS * (long) Math.ceil(jeu.getCoeffVitesse()));
+        
+        double demiCote = rayon + grille.getDemiTailleMax() + 1;
+        
+        for(Creature creature : getCreaturesDansLaZone(x - demiCote, y - demiCote, 
+                                                      x + demiCote, y + demiCote))
         {
-            System.err.println("[ERREUR] Créature introuvable");
+            Point pCreature = new Point((int)creature.getCenterX(), 
+                                        (int)creature.getCenterY());
+            
+            if(pCreature.distance(pCercle) < rayon + creature.getWidth() / 2)
+                creaturesIntersctees.add(creature);
         }
         
         return creaturesIntersctees;
@@ -283,14 +348,51 @@ public class GestionnaireCreatures implements Runnable
 
     public void detruire()
     {
-        arreterCreatures();
+        lancements.clear();
+        
+        synchronized (creatures)
+        {
+            creatures.clear();
+            collectionModifiee();
+        }
         
-        creatures.clear();
+        grille.vider();
     }
     
     
+    /**
+     * Vague en cours de lancement.
+     * <br>
+     * Les creatures sont lancees une a une par la boucle de jeu, en temps 
+     * de jeu : le lancement suit la pause et le coefficient de vitesse.
+     */
+    private static class LancementDeVague
+    {
+        final VagueDeCreatures vague;
+        final Joueur lanceur;
+        final Equipe equipeCiblee;
+        final EcouteurDeVague edv;
+        final EcouteurDeCreature edc;
+        
+        int nbCreaturesLancees = 0;
+        long tempsAvantProchaineCreature = 0; // ms
+        
+        LancementDeVague(VagueDeCreatures vague, Joueur lanceur,
+                         Equipe equipeCiblee, EcouteurDeVague edv,
+                         EcouteurDeCreature edc)
+        {
+            this.vague        = vague;
+            this.lanceur      = lanceur;
+            this.equipeCiblee = equipeCiblee;
+            this.edv          = edv;
+            this.edc          = edc;
+        }
+    }
+    
     /**
      * Permet de lancer la vague de creature sur le terrain
+     * <br>
+     * Les creatures sont lancees par les pas suivants de la boucle de jeu.
      * 
      * @param terrain le terrain en question
      * @param edc l'ecouteur de creature fourni a chaque creature creee
@@ -301,103 +403,117 @@ public class GestionnaireCreatures implements Runnable
                             final EcouteurDeVague edv,
                             final EcouteurDeCreature edc)
     {
-
-        new Thread(
-        new Runnable()
+        lancements.add(new LancementDeVague(vague, lanceur, equipeCiblee, edv, edc));
+    }
+    
+    /**
+     * Lance les creatures des vagues dont le temps d'attente est ecoule
+     * 
+     * @param tempsEcoule le temps de jeu ecoule depuis le dernier pas (ms)
+     */
+    private void lancerCreatures(long tempsEcoule)
+    {
+        if(lancements.isEmpty())
+            return;
+        
+        for(LancementDeVague lancement : lancements.toArray(new LancementDeVague[0]))
         {
-            @Override
-            public void run()
-            {
-                // creation des creatures de la vague
-                for (int i = 0; i < vague.getNbCreatures() && jeu.estDemarre(); i++)
-                {
-                    
-                    // recuperation des zones
-                    // FIXME pour chaque zone de depart, lancer la vague...
-                    // for(final Rectangle ZONE_DEPART : equipeCiblee.getZonesDepartCreatures())
-                    
-                    // Actuellement c'est un random sur le nombre de zone
-                    final Rectangle ZONE_DEPART = equipeCiblee.getZoneDepartCreatures(Outils.tirerNombrePseudoAleatoire(0, equipeCiblee.getNbZonesDepart()-1));
-                    final Rectangle ZONE_ARRIVEE = equipeCiblee.getZoneArriveeCreatures();
-                    
-                    int xDepart = (int) ZONE_DEPART.getCenterX();
-                    int yDepart = (int) ZONE_DEPART.getCenterY();
-                    
-                    // gestion de la pause
-                    try
-                    {
-                        synchronized (pause)
-                        {
-                            if(enPause)
-                                pause.wait();
-                        } 
-                    } 
-                    catch (InterruptedException e1)
-                    {
-                        e1.printStackTrace();
-                    }
-                      
-                    if(jeu.estDemarre())
-                    {
-                    
-                        // calcul d'une position aleatoire de la creature dans la zone de
-                        // depart
-                       
-                        if (jeu.getModeDePositionnnementDesCreatures() == Jeu.MODE_POSITIONNNEMENT_ALETOIRE)
-                        {
-
-                            xDepart = Outils.tirerNombrePseudoAleatoire(0, 
-                                    (int) ZONE_DEPART.width-MARGES_LANCEMENT_ALEA*2) + ZONE_DEPART.x+MARGES_LANCEMENT_ALEA;
-                            yDepart = Outils.tirerNombrePseudoAleatoire(0, 
-                                    (int) ZONE_DEPART.height-MARGES_LANCEMENT_ALEA*2) + ZONE_DEPART.y+MARGES_LANCEMENT_ALEA;
-                        }
-            
-                        // creation d'une nouvelle instance de la creature
-                        // et affectation de diverses proprietes
-                        Creature creature = vague.getNouvelleCreature();
-                        creature.setX(xDepart-creature.width/2);
-                        creature.setY(yDepart-creature.height/2);
-                        creature.setProprietaire(lanceur);
-                        creature.setEquipeCiblee(equipeCiblee);
-                        creature.ajouterEcouteurDeCreature(edc);
+            lancement.tempsAvantProchaineCreature -= tempsEcoule;
             
-                        try
-                        {    
-                            creature.setChemin(jeu.getTerrain().getCheminLePlusCourt(xDepart,
-                                    yDepart, (int) ZONE_ARRIVEE.getCenterX(),
-                                    (int) ZONE_ARRIVEE.getCenterY(), creature.getType()));
-                            
-                        }
-                        catch (PathNotFoundException e1) 
-                        {
-                            // le chemin reste nul.
-                        }
-            
-                        lanceur.ajouterRevenu(creature.getNbPiecesDOr()
-                                *GestionnaireDeRevenu.POURCENTAGE_NB_PIECES_OR_CREATURE);
-                        
-                        ajouterCreature(creature);
-                        jeu.creatureAjoutee(creature);
+            while(lancement.tempsAvantProchaineCreature <= 0
+               && lancement.nbCreaturesLancees < lancement.vague.getNbCreatures()
+               && jeu.estDemarre())
+            {
+                Creature creature = lancerCreature(lancement);
+                lancement.nbCreaturesLancees++;
+                
+                // temps d'attente entre chaque creature
+                lancement.tempsAvantProchaineCreature += 
+                    VagueDeCreatures.getTempsLancement(creature.getVitesseNormale());
+            }
             
-                        // temps d'attente entre chaque creature
-                        try
-                        {
-                            Thread.sleep((long)(VagueDeCreatures.getTempsLancement(creature.getVitesseNormale()) / jeu.getCoeffVitesse()));
-                        } catch (InterruptedException e)
-                        {
-                            e.printStackTrace();
-                        }
-                    }
-                }
-
-                if (edv != null)
-                    edv.vagueEntierementLancee(vague); 
+            // la vague est entierement lancee apres l'attente de la derniere
+            if(lancement.nbCreaturesLancees >= lancement.vague.getNbCreatures()
+            && lancement.tempsAvantProchaineCreature <= 0
+            || !jeu.estDemarre())
+            {
+                lancements.remove(lancement);
+                
+                if (lancement.edv != null)
+                    lancement.edv.vagueEntierementLancee(lancement.vague); 
             }
-        }).start();
-  
-        
+        }
     }
+    
+    /**
+     * Cree et ajoute la prochaine creature d'une vague
+     * 
+     * @param lancement la vague en cours de lancement
+     * @return la creature lancee
+     */
+    private Creature lancerCreature(LancementDeVague lancement)
+    {
+        Equipe equipeCiblee = lancement.equipeCiblee;
+        
+        // recuperation des zones
+        // FIXME pour chaque zone de depart, lancer la vague...
+        // for(final Rectangle ZONE_DEPART : equipeCiblee.getZonesDepartCreatures())
+        
+        // Actuellement c'est un random sur le nombre de zone
+        final Rectangle ZONE_DEPART = equipeCiblee.getZoneDepartCreatures(Outils.tirerNombrePseudoAleatoire(0, equipeCiblee.getNbZonesDepart()-1));
+        final Rectangle ZONE_ARRIVEE = equipeCiblee.getZoneArriveeCreatures();
+        
+        int xDepart = (int) ZONE_DEPART.getCenterX();
+        int yDepart = (int) ZONE_DEPART.getCenterY();
+        
+        // calcul d'une position aleatoire de la creature dans la zone de
+        // depart
+        if (jeu.getModeDePositionnnementDesCreatures() == Jeu.MODE_POSITIONNNEMENT_ALETOIRE)
+        {
+            xDepart = Outils.tirerNombrePseudoAleatoire(0, 
+                    (int) ZONE_DEPART.width-MARGES_LANCEMENT_ALEA*2) + ZONE_DEPART.x+MARGES_LANCEMENT_ALEA;
+            yDepart = Outils.tirerNombrePseudoAleatoire(0, 
+                    (int) ZONE_DEPART.height-MARGES_LANCEMENT_ALEA*2) + ZONE_DEPART.y+MARGES_LANCEMENT_ALEA;
+        }
 
+        // creation d'une nouvelle instance de la creature
+        // et affectation de diverses proprietes
+        Creature creature = lancement.vague.getNouvelleCreature();
+        creature.setX(xDepart-creature.width/2);
+        creature.setY(yDepart-creature.height/2);
+        creature.setProprietaire(lancement.lanceur);
+        creature.setEquipeCiblee(equipeCiblee);
+        creature.ajouterEcouteurDeCreature(lancement.edc);
 
-    
+        // les creatures terriennes suivent le champ de vecteurs
+        // de l'equipe ciblee, les autres un chemin calcule
+        ChampDeVecteurs champ = null;
+        if(creature.getType() == Creature.TYPE_TERRIENNE)
+            champ = jeu.getTerrain().getChampDeVecteurs(equipeCiblee);
+        
+        if(champ != null)
+            creature.setChampDeVecteurs(champ);
+        else
+        {
+            try
+            {    
+                creature.setChemin(jeu.getTerrain().getCheminLePlusCourt(xDepart,
+                        yDepart, (int) ZONE_ARRIVEE.getCenterX(),
+                        (int) ZONE_ARRIVEE.getCenterY(), creature.getType()));
+                
+            }
+            catch (PathNotFoundException e1) 
+            {
+                // le chemin reste nul.
+            }
+        }
+
+        lancement.lanceur.ajouterRevenu(creature.getNbPiecesDOr()
+                *GestionnaireDeRevenu.POURCENTAGE_NB_PIECES_OR_CREATURE);
+        
+        ajouterCreature(creature);
+        jeu.creatureAjoutee(creature);
+        
+        return creature;
+    }
 }
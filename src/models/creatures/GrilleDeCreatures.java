@@ -0,0 +1,263 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.creatures;
+
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.Vector;
+
+/**
+ * Index spatial des creatures par grille uniforme.
+ * <p>
+ * Le terrain est decoupe en cellules carrees, chaque creature est rangee
+ * dans la cellule de son centre. La grille est reconstruite une fois par 
+ * tour de boucle des creatures. Entre deux reconstructions, les creatures 
+ * bougent : les recherches elargissent donc les cellules parcourues de la 
+ * demi-taille de la plus grande creature et du deplacement maximum possible,
+ * puis testent la position reelle de chaque creature candidate.
+ * <p>
+ * Le resultat est donc le meme qu'un parcours de toutes les creatures,
+ * en ne visitant que les cellules voisines de la zone.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see GestionnaireCreatures
+ */
+public class GrilleDeCreatures
+{
+    /**
+     * Taille d'une cellule en pixels
+     */
+    private static final int TAILLE_CELLULE = 40;
+    
+    /**
+     * Nombre de reconstructions manquees toleree dans la marge de deplacement
+     */
+    private static final int NB_TOURS_DE_MARGE = 2;
+    
+    private int nbColonnes, nbLignes;
+    private ArrayList<ArrayList<Creature>> cellules = new ArrayList<ArrayList<Creature>>();
+    
+    /**
+     * Demi-taille de la plus grande creature rangee
+     */
+    private double demiTailleMax;
+    
+    /**
+     * Deplacement maximum d'une creature entre deux reconstructions
+     */
+    private double deplacementMax;
+    
+    /**
+     * Duree entre deux reconstructions en ms (temps de jeu)
+     */
+    private long dureeEntreReconstructions;
+    
+    /**
+     * Permet de reconstruire la grille a partir de la position actuelle
+     * des creatures.
+     * 
+     * @param creatures les creatures
+     * @param largeur la largeur du terrain en pixels
+     * @param hauteur la hauteur du terrain en pixels
+     * @param dureeEntreReconstructions le temps de jeu (ms) jusqu'a la 
+     *        prochaine reconstruction
+     */
+    synchronized public void reconstruire(Vector<Creature> creatures, 
+                                          int largeur, int hauteur,
+                                          long dureeEntreReconstructions)
+    {
+        redimensionner(largeur, hauteur);
+        
+        for(ArrayList<Creature> cellule : cellules)
+            cellule.clear();
+        
+        this.dureeEntreReconstructions = dureeEntreReconstructions;
+        demiTailleMax  = 0;
+        deplacementMax = 0;
+        
+        try
+        {
+            Enumeration<Creature> eCreatures = creatures.elements();
+            while(eCreatures.hasMoreElements())
+                ranger(eCreatures.nextElement());
+        }
+        catch(NoSuchElementException nse)
+        {
+            System.err.println("[ERREUR] Créature introuvable");
+        }
+    }
+    
+    /**
+     * Permet d'ajouter une creature entre deux reconstructions
+     * 
+     * @param creature la creature
+     */
+    synchronized public void ajouter(Creature creature)
+    {
+        if(cellules.isEmpty() || creature.indiceCellule != -1)
+            return;
+        
+        ranger(creature);
+    }
+    
+    /**
+     * Permet de retirer une creature entre deux reconstructions
+     * 
+     * @param creature la creature
+     */
+    synchronized public void retirer(Creature creature)
+    {
+        if(creature.indiceCellule == -1)
+            return;
+        
+        if(creature.indiceCellule < cellules.size())
+            cellules.get(creature.indiceCellule).remove(creature);
+        
+        creature.indiceCellule = -1;
+    }
+    
+    /**
+     * Permet de vider la grille
+     */
+    synchronized public void vider()
+    {
+        for(ArrayList<Creature> cellule : cellules)
+        {
+            for(Creature creature : cellule)
+                creature.indiceCellule = -1;
+            
+            cellule.clear();
+        }
+    }
+    
+    /**
+     * Permet de savoir si la grille a deja ete construite
+     * 
+     * @return true si elle l'a ete, false sinon
+     */
+    synchronized public boolean estConstruite()
+    {
+        return !cellules.isEmpty();
+    }
+    
+    /**
+     * Permet de recuperer la demi-taille de la plus grande creature rangee
+     * 
+     * @return la demi-taille en pixels
+     */
+    synchronized public double getDemiTailleMax()
+    {
+        return demiTailleMax;
+    }
+    
+    /**
+     * Permet de recuperer les creatures dont le rectangle touche une zone
+     * (bords compris).
+     * 
+     * @param xMin le bord gauche de la zone
+     * @param yMin le bord haut de la zone
+     * @param xMax le bord droit de la zone
+     * @param yMax le bord bas de la zone
+     * @return les creatures trouvees
+     */
+    synchronized public ArrayList<Creature> getCreaturesDansLaZone(
+            double xMin, double yMin, double xMax, double yMax)
+    {
+        ArrayList<Creature> resultat = new ArrayList<Creature>();
+        
+        if(cellules.isEmpty())
+            return resultat;
+        
+        double marge = demiTailleMax + deplacementMax;
+        
+        int iMin = colonne(xMin - marge);
+        int iMax = colonne(xMax + marge);
+        int jMin = ligne(yMin - marge);
+        int jMax = ligne(yMax + marge);
+        
+        for(int i=iMin;i<=iMax;i++)
+        {
+            for(int j=jMin;j<=jMax;j++)
+            {
+                for(Creature creature : cellules.get(i * nbLignes + j))
+                {
+                    if(creature.getX() <= xMax 
+                    && creature.getX() + creature.getWidth() >= xMin
+                    && creature.getY() <= yMax 
+                    && creature.getY() + creature.getHeight() >= yMin)
+                        resultat.add(creature);
+                }
+            }
+        }
+        
+        return resultat;
+    }
+    
+    /**
+     * Range une creature dans la cellule de son centre et met a jour
+     * les marges.
+     */
+    private void ranger(Creature creature)
+    {
+        int indice = colonne(creature.getCenterX()) * nbLignes 
+                   + ligne(creature.getCenterY());
+        
+        cellules.get(indice).add(creature);
+        creature.indiceCellule = indice;
+        
+        demiTailleMax  = Math.max(demiTailleMax, 
+                Math.max(creature.getWidth(), creature.getHeight()) / 2.0);
+        
+        deplacementMax = Math.max(deplacementMax, creature.getVitesseNormale() 
+                * dureeEntreReconstructions / 1000.0 * NB_TOURS_DE_MARGE);
+    }
+    
+    private void redimensionner(int largeur, int hauteur)
+    {
+        int colonnes = Math.max(1, (largeur + TAILLE_CELLULE - 1) / TAILLE_CELLULE);
+        int lignes   = Math.max(1, (hauteur + TAILLE_CELLULE - 1) / TAILLE_CELLULE);
+        
+        if(colonnes == nbColonnes && lignes == nbLignes)
+            return;
+        
+        nbColonnes = colonnes;
+        nbLignes   = lignes;
+        
+        cellules.clear();
+        for(int i=0;i<nbColonnes * nbLignes;i++)
+            cellules.add(new ArrayList<Creature>());
+    }
+    
+    /**
+     * Les positions hors du terrain sont ramenees sur les cellules du bord,
+     * aussi bien pour ranger que pour chercher.
+     */
+    private int colonne(double x)
+    {
+        return Math.max(0, Math.min(nbColonnes - 1, (int) Math.floor(x / TAILLE_CELLULE)));
+    }
+    
+    private int ligne(double y)
+    {
+        return Math.max(0, Math.min(nbLignes - 1, (int) Math.floor(y / TAILLE_CELLULE)));
+    }
+}
@@ -0,0 +1,162 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.creatures;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Random;
+import java.util.Set;
+import java.util.Vector;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class GrilleDeCreaturesTest
+{
+   private static final int LARGEUR = 800;
+   private static final int HAUTEUR = 600;
+   
+   /**
+    * Duree entre deux reconstructions (ms) et vitesse des creatures 
+    * (pixels par seconde)
+    */
+   private static final long DUREE  = 100;
+   private static final double VITESSE = 50;
+   
+   /**
+    * Ensemble par identite : deux creatures de meme rectangle sont egales
+    * au sens de {@link java.awt.Rectangle#equals(Object)}
+    */
+   private Set<Creature> ensemble(Collection<Creature> creatures)
+   {
+      Set<Creature> ensemble = Collections.newSetFromMap(new IdentityHashMap<Creature, Boolean>());
+      ensemble.addAll(creatures);
+      return ensemble;
+   }
+   
+   /**
+    * Les creatures trouvees par un parcours de toutes les creatures
+    */
+   private Set<Creature> parcours(Vector<Creature> creatures, 
+         double xMin, double yMin, double xMax, double yMax)
+   {
+      Set<Creature> resultat = ensemble(Collections.<Creature>emptyList());
+      
+      for(Creature creature : creatures)
+         if(creature.getX() <= xMax 
+         && creature.getX() + creature.getWidth() >= xMin
+         && creature.getY() <= yMax 
+         && creature.getY() + creature.getHeight() >= yMin)
+            resultat.add(creature);
+      
+      return resultat;
+   }
+   
+   /**
+    * Test method for {@link GrilleDeCreatures#getCreaturesDansLaZone(double, double, double, double)}.
+    * <br>
+    * Meme resultat qu'un parcours de toutes les creatures, meme si elles
+    * ont bouge depuis la reconstruction.
+    */
+   @Test
+   public void testGetCreaturesDansLaZone()
+   {
+      Random alea = new Random(7);
+      Vector<Creature> creatures = new Vector<Creature>();
+      
+      for(int i = 0; i < 300; i++)
+         creatures.add(new Mouton(alea.nextInt(LARGEUR), alea.nextInt(HAUTEUR), 10, 1, VITESSE));
+      
+      GrilleDeCreatures grille = new GrilleDeCreatures();
+      grille.reconstruire(creatures, LARGEUR, HAUTEUR, DUREE);
+      
+      // deplacement sur deux tours de boucle au plus
+      int deplacement = (int) (VITESSE * DUREE / 1000.0 * 2);
+      for(Creature creature : creatures)
+         creature.translate(alea.nextInt(2 * deplacement + 1) - deplacement,
+                            alea.nextInt(2 * deplacement + 1) - deplacement);
+      
+      for(int i = 0; i < 500; i++)
+      {
+         double xMin = alea.nextInt(LARGEUR + 100) - 50;
+         double yMin = alea.nextInt(HAUTEUR + 100) - 50;
+         double xMax = xMin + alea.nextInt(200);
+         double yMax = yMin + alea.nextInt(200);
+         
+         ArrayList<Creature> trouvees = grille.getCreaturesDansLaZone(xMin, yMin, xMax, yMax);
+         
+         // chaque creature une seule fois
+         assertEquals(ensemble(trouvees).size(), trouvees.size());
+         assertEquals(parcours(creatures, xMin, yMin, xMax, yMax), ensemble(trouvees));
+      }
+   }
+   
+   /**
+    * Test method for {@link GrilleDeCreatures#ajouter(Creature)} et 
+    * {@link GrilleDeCreatures#retirer(Creature)}.
+    */
+   @Test
+   public void testAjouterRetirer()
+   {
+      GrilleDeCreatures grille = new GrilleDeCreatures();
+      Creature creature = new Mouton(100, 100, 10, 1, VITESSE);
+      
+      // grille pas encore construite
+      grille.ajouter(creature);
+      assertTrue(grille.getCreaturesDansLaZone(0, 0, LARGEUR, HAUTEUR).isEmpty());
+      
+      grille.reconstruire(new Vector<Creature>(), LARGEUR, HAUTEUR, DUREE);
+      assertTrue(grille.estConstruite());
+      
+      grille.ajouter(creature);
+      assertEquals(1, grille.getCreaturesDansLaZone(90, 90, 110, 110).size());
+      assertTrue(grille.getCreaturesDansLaZone(300, 300, 400, 400).isEmpty());
+      
+      grille.retirer(creature);
+      assertTrue(grille.getCreaturesDansLaZone(90, 90, 110, 110).isEmpty());
+      
+      grille.ajouter(creature);
+      grille.vider();
+      assertTrue(grille.getCreaturesDansLaZone(0, 0, LARGEUR, HAUTEUR).isEmpty());
+   }
+   
+   /**
+    * Les creatures hors du terrain sont rangees et trouvees dans les 
+    * cellules du bord.
+    */
+   @Test
+   public void testCreatureHorsDuTerrain()
+   {
+      Vector<Creature> creatures = new Vector<Creature>();
+      Creature creature = new Mouton(-30, HAUTEUR + 20, 10, 1, VITESSE);
+      creatures.add(creature);
+      
+      GrilleDeCreatures grille = new GrilleDeCreatures();
+      grille.reconstruire(creatures, LARGEUR, HAUTEUR, DUREE);
+      
+      assertTrue(grille.getCreaturesDansLaZone(-40, HAUTEUR + 10, -20, HAUTEUR + 30).contains(creature));
+      assertTrue(grille.getCreaturesDansLaZone(0, 0, 100, 100).isEmpty());
+   }
+}
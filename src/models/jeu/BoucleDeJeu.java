@@ -0,0 +1,314 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.jeu;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Boucle de simulation de la partie.
+ * <p>
+ * Un seul thread fait avancer tous les elements du jeu par pas de temps
+ * fixes, dans un ordre defini (voir {@link Jeu#avancer(long)}). Le temps 
+ * reel ecoule est accumule et autant de pas que necessaire sont joues : 
+ * la simulation ne derive pas avec les retards de l'ordonnanceur et deux 
+ * parties identiques jouent les memes pas.
+ * <p>
+ * Un processus qui heberge beaucoup de parties peut faire jouer toutes les
+ * boucles par un ordonnanceur commun (voir 
+ * {@link #utiliserOrdonnanceurCommun(int)}) plutot que par un thread 
+ * chacune.
+ * 
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Jeu
+ */
+public class BoucleDeJeu implements Runnable
+{
+    /**
+     * Duree d'un pas de simulation en ms (temps reel)
+     */
+    public static final long PAS = 50;
+    
+    /**
+     * Nombre maximum de pas joues d'affilee pour rattraper un retard.
+     * Au dela, le retard est abandonne pour ne pas geler la partie.
+     */
+    private static final int NB_PAS_MAX_RATTRAPAGE = 5;
+    
+    private static final long PAS_EN_NANOS = PAS * 1000000L;
+    
+    /**
+     * Ordonnanceur partage par toutes les boucles, null si chaque boucle
+     * a son thread
+     */
+    private static ScheduledExecutorService ordonnanceurCommun;
+    
+    private Jeu jeu;
+    private Thread thread;
+    private ScheduledFuture<?> tache;
+    private volatile boolean enCours;
+    private boolean enPause = false;
+    private Object pause = new Object();
+    
+    /**
+     * Temps reel accumule et pas encore joue, et date du dernier decompte
+     */
+    private long accumulateur;
+    private long precedent;
+    
+    /**
+     * Nombre de pas joues depuis le demarrage
+     */
+    private volatile long nbPas = 0;
+    
+    /**
+     * Duree moyenne de calcul d'un pas (ns)
+     */
+    private volatile double dureeMoyennePas = 0.0;
+    
+    /**
+     * Constructeur
+     * 
+     * @param jeu le jeu a faire avancer
+     */
+    public BoucleDeJeu(Jeu jeu)
+    {
+        this.jeu = jeu;
+    }
+    
+    /**
+     * Permet de faire jouer toutes les boucles demarrees ensuite par un 
+     * groupe de threads commun.
+     * <br>
+     * Sans effet si l'ordonnanceur commun existe deja.
+     * 
+     * @param nbThreads le nombre de threads de l'ordonnanceur
+     */
+    synchronized public static void utiliserOrdonnanceurCommun(int nbThreads)
+    {
+        if(ordonnanceurCommun != null)
+            return;
+        
+        ordonnanceurCommun = Executors.newScheduledThreadPool(nbThreads, 
+            new ThreadFactory()
+            {
+                private int numero = 0;
+                
+                public Thread newThread(Runnable r)
+                {
+                    Thread t = new Thread(r, "Boucles de jeu-" + (numero++));
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    }
+    
+    /**
+     * Permet de recuperer l'ordonnanceur commun des boucles
+     * 
+     * @return l'ordonnanceur ou null si chaque boucle a son thread
+     */
+    synchronized public static ScheduledExecutorService getOrdonnanceurCommun()
+    {
+        return ordonnanceurCommun;
+    }
+    
+    /**
+     * Permet de demarrer la boucle
+     */
+    public void demarrer()
+    {
+        enCours      = true;
+        accumulateur = 0;
+        precedent    = System.nanoTime();
+        
+        ScheduledExecutorService ordonnanceur = getOrdonnanceurCommun();
+        
+        if(ordonnanceur != null)
+        {
+            // une execution par pas, jamais deux en meme temps
+            tache = ordonnanceur.scheduleAtFixedRate(new Runnable()
+            {
+                public void run()
+                {
+                    synchronized (pause)
+                    {
+                        // le temps de pause n'est pas rattrape
+                        if(enPause)
+                        {
+                            precedent = System.nanoTime();
+                            return;
+                        }
+                    }
+                    
+                    jouerLesPasEcoules();
+                }
+            }, PAS, PAS, TimeUnit.MILLISECONDS);
+        }
+        else
+        {
+            thread = new Thread(this, "Boucle de jeu");
+            thread.start();
+        }
+    }
+    
+    /**
+     * Permet d'arreter la boucle
+     */
+    public void arreter()
+    {
+        enCours = false;
+        
+        if(tache != null)
+            tache.cancel(false);
+        
+        sortirDeLaPause();
+    }
+    
+    /**
+     * Permet de mettre la boucle en pause.
+     */
+    public void mettreEnPause()
+    {
+        synchronized (pause)
+        {
+            enPause = true;
+        }
+    }
+    
+    /**
+     * Permet de sortir la boucle de la pause.
+     */
+    public void sortirDeLaPause()
+    { 
+        synchronized (pause)
+        {
+            enPause = false;
+            pause.notifyAll();
+        }
+    }
+    
+    /**
+     * Permet de recuperer le nombre de pas joues depuis le demarrage
+     * 
+     * @return le nombre de pas
+     */
+    public long getNbPas()
+    {
+        return nbPas;
+    }
+    
+    /**
+     * Permet de connaitre la charge de la partie : la part du temps 
+     * d'un pas passee a le calculer, en moyenne.
+     * 
+     * @return la charge (1.0 = la partie ne tient plus le rythme)
+     */
+    public double getCharge()
+    {
+        return dureeMoyennePas / PAS_EN_NANOS;
+    }
+    
+    @Override
+    public void run()
+    {
+        while(enCours)
+        {
+            // gestion de la pause
+            try
+            {
+                synchronized (pause)
+                {
+                    if(enPause)
+                    {
+                        while(enPause && enCours)
+                            pause.wait();
+                        
+                        // le temps de pause n'est pas rattrape
+                        precedent = System.nanoTime();
+                    }
+                }
+            }
+            catch (InterruptedException e)
+            {
+                e.printStackTrace();
+            }
+            
+            jouerLesPasEcoules();
+            
+            // attente du prochain pas
+            try
+            {
+                long attente = (PAS_EN_NANOS - accumulateur) / 1000000L;
+                
+                if(attente > 0)
+                    Thread.sleep(attente);
+            } 
+            catch (InterruptedException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Permet de jouer les pas correspondant au temps ecoule depuis le 
+     * dernier appel
+     */
+    private void jouerLesPasEcoules()
+    {
+        long maintenant = System.nanoTime();
+        accumulateur += maintenant - precedent;
+        precedent = maintenant;
+        
+        // joue les pas ecoules
+        int nbPasJoues = 0;
+        while(accumulateur >= PAS_EN_NANOS && enCours)
+        {
+            if(nbPasJoues == NB_PAS_MAX_RATTRAPAGE)
+            {
+                accumulateur = 0;
+                break;
+            }
+            
+            long debut = System.nanoTime();
+            
+            try
+            {
+                jeu.avancer(PAS);
+            }
+            catch(RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+            
+            // moyenne glissante sur une vingtaine de pas
+            dureeMoyennePas += (System.nanoTime() - debut - dureeMoyennePas) / 20.0;
+            
+            accumulateur -= PAS_EN_NANOS;
+            nbPas++;
+            nbPasJoues++;
+        }
+    }
+}
@@ -21,6 +21,7 @@ package models.jeu;
 import i18n.Langue;
 
 import java.awt.Graphics2D;
+import java.awt.Rectangle;
 import java.util.*;
 import outils.myTimer;
 import exceptions.*;
@@ -171,6 +172,16 @@ public abstract class Jeu implements EcouteurDeJoueur,
      */
     protected myTimer timer = new myTimer(1000,null);
 
+    /**
+     * Boucle de simulation qui fait avancer tous les gestionnaires
+     */
+    protected BoucleDeJeu boucle = new BoucleDeJeu(this);
+
+    /**
+     * Nombre de pas joues sans affichage (voir {@link #simuler(long)})
+     */
+    private long nbPasSimules;
+    
     /**
      * Coefficient de vitesse de déroulement de la partie.
      * 
@@ -213,6 +224,7 @@ public abstract class Jeu implements EcouteurDeJoueur,
         estDetruit          = false;
         vagueCourante       = null;
         coeffVitesse        = 1.0;
+        nbPasSimules        = 0;
         
         // initialisation des valeurs par defaut
         for(Equipe equipe : equipes)
@@ -247,10 +259,9 @@ public abstract class Jeu implements EcouteurDeJoueur,
         initialiser();
         
         
-        // arret des gestionnaires
-        gestionnaireTours.arreterTours();
-        gestionnaireCreatures.arreterCreatures();
-        gestionnaireAnimations.arreterAnimations();
+        // arret de la boucle de jeu
+        boucle.arreter();
+        boucle = new BoucleDeJeu(this);
         
         gestionnaireTours = new GestionnaireTours(this);
         gestionnaireCreatures = new GestionnaireCreatures(this);
@@ -289,10 +300,8 @@ public abstract class Jeu implements EcouteurDeJoueur,
         if(estDemarre)
             throw new IllegalStateException("Le jeu est déjà démarré");
         
-        // demarrage des gestionnaires
-        gestionnaireTours.demarrer();
-        gestionnaireCreatures.demarrer();
-        gestionnaireAnimations.demarrer();
+        // demarrage de la boucle de jeu
+        boucle.demarrer();
         
         timer.start();
         
@@ -303,6 +312,84 @@ public abstract class Jeu implements EcouteurDeJoueur,
             edj.partieDemarree();
     }
     
+    /**
+     * Permet de jouer la partie sans affichage, le plus vite possible.
+     * <p>
+     * Les pas sont joues dans le thread appelant, sans attente et avec la
+     * meme duree que ceux de la boucle de jeu ({@link BoucleDeJeu#PAS}) : 
+     * le deroulement est identique a celui d'une partie en temps reel, 
+     * sans Swing ni son. Au premier appel, la partie est demarree sans 
+     * boucle ni timer. Les appels peuvent s'enchainer, par exemple pour 
+     * lancer une vague ou poser une tour entre deux simulations.
+     * <br>
+     * Le timer n'avance pas : ce qui en depend (le temps de jeu affiche, 
+     * les niveaux du serveur) reste en temps reel.
+     * 
+     * @param nbPasMax le nombre maximum de pas a jouer
+     * @return le nombre de pas joues, moins que nbPasMax si la partie 
+     *         s'est terminee
+     */
+    public long simuler(long nbPasMax)
+    {
+        if(!estInitialise)
+            throw new IllegalStateException("Le jeu n'est pas initialisé");
+        
+        if(!estDemarre)
+        {
+            estDemarre = true;
+            
+            // notification
+            if(edj != null)
+                edj.partieDemarree();
+        }
+        
+        long nbPas = 0;
+        while(nbPas < nbPasMax && !estTermine && !estDetruit)
+        {
+            avancer(BoucleDeJeu.PAS);
+            nbPas++;
+        }
+        
+        nbPasSimules += nbPas;
+        
+        return nbPas;
+    }
+    
+    /**
+     * Permet de recuperer le nombre de pas joues sans affichage
+     * 
+     * @return le nombre de pas joues par {@link #simuler(long)}
+     */
+    public long getNbPasSimules()
+    {
+        return nbPasSimules;
+    }
+    
+    /**
+     * Permet de recuperer le nombre de pas joues, par la boucle de jeu ou
+     * sans affichage.
+     * <br>
+     * Le nombre change a chaque pas : l'affichage s'en sert pour savoir si 
+     * la partie a avance depuis la derniere image.
+     * 
+     * @return le nombre de pas joues
+     */
+    public long getNbPas()
+    {
+        return boucle.getNbPas() + nbPasSimules;
+    }
+    
+    /**
+     * Permet de connaitre la charge de la simulation
+     * 
+     * @return la part du temps d'un pas passee a le calculer
+     * @see BoucleDeJeu#getCharge()
+     */
+    public double getCharge()
+    {
+        return boucle.getCharge();
+    }
+    
     /**
      * Indique au jeu qu'une vague veut etre lancée
      * 
@@ -319,8 +406,9 @@ public abstract class Jeu implements EcouteurDeJoueur,
      * 
      * @param tour la tour
      * @throws Exception si c'est pas possible
+     * @throws JoueurHorsJeu si le joueur a deja perdu
      */
-    public void poserTour(Tour tour) throws ArgentInsuffisantException, ZoneInaccessibleException, CheminBloqueException
+    public void poserTour(Tour tour) throws ArgentInsuffisantException, ZoneInaccessibleException, CheminBloqueException, JoueurHorsJeu
     {
         // c'est bien une tour valide ?
         if (tour == null)
@@ -367,8 +455,9 @@ public abstract class Jeu implements EcouteurDeJoueur,
      * 
      * @param tour la tour a vendre
      * @throws ActionNonAutoriseeException 
+     * @throws JoueurHorsJeu si le joueur a deja perdu
      */
-    public void vendreTour(Tour tour) throws ActionNonAutoriseeException
+    public void vendreTour(Tour tour) throws ActionNonAutoriseeException, JoueurHorsJeu
     {
         // supprime la tour
         gestionnaireTours.supprimerTour(tour);
@@ -522,20 +611,43 @@ public abstract class Jeu implements EcouteurDeJoueur,
     {
         return gestionnaireCreatures.getCreatures();
     }
+    
+    /**
+     * Permet de recuperer la version de la collection des creatures
+     * 
+     * @return la version, qui change a chaque ajout ou suppression de creature
+     */
+    public int getVersionCreatures()
+    {
+        return gestionnaireCreatures.getVersionCreatures();
+    }
 
+    /**
+     * Permet de faire avancer la partie d'un pas de simulation.
+     * <br>
+     * Ordre : creatures, tours, animations (dont les attaques). Le temps
+     * donne aux elements est multiplie par le coefficient de vitesse.
+     * <br>
+     * Appelee par la boucle de jeu uniquement.
+     * 
+     * @param pas la duree du pas en ms (temps reel)
+     */
+    protected void avancer(long pas)
+    {
+        long tempsDeJeu = (long) (pas * getCoeffVitesse());
+        
+        gestionnaireCreatures.mettreAJour(tempsDeJeu);
+        gestionnaireTours.mettreAJour(tempsDeJeu);
+        gestionnaireAnimations.mettreAJour(tempsDeJeu);
+    }
+    
     /**
      * Permet de stope tous les threads des elements
      */
     protected void arreterTout()
     {
-        // arret de toutes les tours
-        gestionnaireTours.arreterTours();
-
-        // arret de toutes les creatures
-        gestionnaireCreatures.arreterCreatures();
-
-        // arret de toutes les animations
-        gestionnaireAnimations.arreterAnimations();
+        // arret de la boucle de jeu
+        boucle.arreter();
         
         // arret du timer
         timer.stop();
@@ -550,16 +662,12 @@ public abstract class Jeu implements EcouteurDeJoueur,
     {
         if(enPause)
         {
-            gestionnaireTours.sortirDeLaPause();
-            gestionnaireCreatures.sortirDeLaPause();
-            gestionnaireAnimations.sortirDeLaPause();
+            boucle.sortirDeLaPause();
             timer.play();
         }
         else
         {
-            gestionnaireTours.mettreEnPause();
-            gestionnaireCreatures.mettreEnPause();
-            gestionnaireAnimations.mettreEnPause();
+            boucle.mettreEnPause();
             timer.pause();
         }
         
@@ -812,6 +920,22 @@ public abstract class Jeu implements EcouteurDeJoueur,
     {
         return gestionnaireCreatures.getCreaturesQuiIntersectent(centerX, centreY, rayon);
     }
+    
+    /**
+     * Permet de récupérer les créatures dont le rectangle touche une zone
+     * (bords compris), grace a l'index spatial des creatures.
+     * 
+     * @param xMin le bord gauche de la zone
+     * @param yMin le bord haut de la zone
+     * @param xMax le bord droit de la zone
+     * @param yMax le bord bas de la zone
+     * @return Une collection de créatures
+     */
+    public ArrayList<Creature> getCreaturesDansLaZone(double xMin, double yMin,
+            double xMax, double yMax)
+    {
+        return gestionnaireCreatures.getCreaturesDansLaZone(xMin, yMin, xMax, yMax);
+    }
 
     /**
      * Permet de nofifier le jeu qu'un créature à été ajoutée
@@ -849,6 +973,19 @@ public abstract class Jeu implements EcouteurDeJoueur,
         gestionnaireAnimations.dessinerAnimations(g2,hauteur);
     }
     
+    /**
+     * Permet de dessiner les animations visibles dans une zone du terrain
+     * 
+     * @param g2 le Graphics2D
+     * @param hauteur la hauteur des animations
+     * @param zone la zone visible du terrain, null pour tout dessiner
+     * @see Animation#estVisible(Rectangle)
+     */
+    public void dessinerAnimations(Graphics2D g2, int hauteur, Rectangle zone)
+    {
+        gestionnaireAnimations.dessinerAnimations(g2,hauteur,zone);
+    }
+    
     /**
      * Permet de recuperer un joueur grace a son identificateur
      * 
@@ -1010,6 +1147,8 @@ public abstract class Jeu implements EcouteurDeJoueur,
     {
         estDetruit = true;
         
+        boucle.arreter();
+        
         gestionnaireCreatures.detruire();
         gestionnaireTours.detruire();
         gestionnaireAnimations.detruire();
@@ -22,6 +22,7 @@ import exceptions.*;
 import reseau.CanalException;
 import reseau.jeu.client.ClientJeu;
 import reseau.jeu.client.EcouteurDeClientJeu;
+import reseau.jeu.client.Requete;
 import models.creatures.*;
 import models.joueurs.*;
 import models.tours.Tour;
@@ -46,11 +47,11 @@ public class Jeu_Client extends Jeu
     }
 
     @Override
-    public void poserTour(Tour tour) throws ArgentInsuffisantException, ZoneInaccessibleException
+    public void poserTour(Tour tour) throws ArgentInsuffisantException, ZoneInaccessibleException, JoueurHorsJeu
     {
         try
         {
-            clientJeu.demanderPoseTour(tour);
+            ClientJeu.verifierPoseTour(clientJeu.demanderPoseTour(tour).getStatus());
         } 
         catch (CanalException e)
         {
@@ -59,11 +60,11 @@ public class Jeu_Client extends Jeu
     }
 
     @Override
-    public void vendreTour(Tour tour) throws ActionNonAutoriseeException
+    public void vendreTour(Tour tour) throws ActionNonAutoriseeException, JoueurHorsJeu
     {
         try
         {
-            clientJeu.demanderVenteTour(tour);
+            ClientJeu.verifierVenteTour(clientJeu.demanderVenteTour(tour).getStatus());
         }
         catch (CanalException e)
         {
@@ -77,7 +78,7 @@ public class Jeu_Client extends Jeu
     {
         try
         {
-            clientJeu.demanderAmeliorationTour(tour);
+            ClientJeu.verifierAmeliorationTour(clientJeu.demanderAmeliorationTour(tour).getStatus());
         } 
         catch (CanalException e)
         {
@@ -90,7 +91,7 @@ public class Jeu_Client extends Jeu
     {
         try
         {
-            clientJeu.envoyerVague(vague);
+            ClientJeu.verifierVague(clientJeu.envoyerVague(vague).getStatus());
         } 
         catch (CanalException e)
         {
@@ -98,6 +99,56 @@ public class Jeu_Client extends Jeu
         } 
     }
     
+    /**
+     * Permet de demander la pose d'une tour sans attendre la réponse.
+     * <br>
+     * La tour est posée tout de suite et retirée si le serveur refuse.
+     * 
+     * @param tour la tour
+     * @return la requête en cours (voir {@link ClientJeu#verifierPoseTour(int)})
+     * @throws CanalException
+     */
+    public Requete demanderPoseTour(Tour tour) throws CanalException
+    {
+        return clientJeu.demanderPoseTour(tour);
+    }
+    
+    /**
+     * Permet de demander la vente d'une tour sans attendre la réponse
+     * 
+     * @param tour la tour
+     * @return la requête en cours (voir {@link ClientJeu#verifierVenteTour(int)})
+     * @throws CanalException
+     */
+    public Requete demanderVenteTour(Tour tour) throws CanalException
+    {
+        return clientJeu.demanderVenteTour(tour);
+    }
+    
+    /**
+     * Permet de demander l'amélioration d'une tour sans attendre la réponse
+     * 
+     * @param tour la tour
+     * @return la requête en cours (voir {@link ClientJeu#verifierAmeliorationTour(int)})
+     * @throws CanalException
+     */
+    public Requete demanderAmeliorationTour(Tour tour) throws CanalException
+    {
+        return clientJeu.demanderAmeliorationTour(tour);
+    }
+    
+    /**
+     * Permet de demander le lancement d'une vague sans attendre la réponse
+     * 
+     * @param vague la vague
+     * @return la requête en cours (voir {@link ClientJeu#verifierVague(int)})
+     * @throws CanalException
+     */
+    public Requete demanderLancementVague(VagueDeCreatures vague) throws CanalException
+    {
+        return clientJeu.envoyerVague(vague);
+    }
+    
     /**
      * Permet d'établir la connexion avec le serveur.
      * 
@@ -113,6 +164,23 @@ public class Jeu_Client extends Jeu
     {
         clientJeu.etablirConnexion(IP, port);
     }
+    
+    /**
+     * Permet d'établir la connexion avec une partie d'un hébergeur de parties.
+     * 
+     * @param IP l'IP de l'hébergeur
+     * @param port le port de l'hébergeur
+     * @param idPartie l'identificateur de la partie
+     * 
+     * @throws ConnectException
+     * @throws CanalException
+     * @throws AucunEmplacementDisponibleException
+     */
+    public void connexionAvecLeServeur(String IP, int port, int idPartie) 
+        throws ConnectException, CanalException, AucunEmplacementDisponibleException
+    {
+        clientJeu.etablirConnexion(IP, port, idPartie);
+    }
 
     /**
      * Permet de poser une tour directement (sans contrôle)
@@ -126,6 +194,9 @@ public class Jeu_Client extends Jeu
             tour.mettreEnJeu();
             tour.setJeu(this);
             
+            // les creatures simulees localement contournent la tour
+            terrain.desactiverZone(tour, true);
+            
             gestionnaireTours.ajouterTour(tour);
         }
     }
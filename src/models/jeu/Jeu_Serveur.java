@@ -22,6 +22,8 @@ import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.io.IOException;
 import java.net.ConnectException;
+import java.util.Timer;
+import java.util.TimerTask;
 
 import models.creatures.Creature;
 import models.joueurs.GestionnaireDeRevenu;
@@ -32,9 +34,11 @@ import org.json.JSONObject;
 import outils.Configuration;
 import reseau.CanalTCP;
 import reseau.CanalException;
+import reseau.jeu.serveur.HebergeurDeParties;
 import reseau.jeu.serveur.ServeurJeu;
 import serveur.enregistrement.CodeEnregistrement;
 import serveur.enregistrement.RequeteEnregistrement;
+import serveur.enregistrement.SEInscription;
 
 /**
  * Classe de gestion du moteur de jeu réseau.
@@ -60,7 +64,14 @@ public class Jeu_Serveur extends Jeu
     /**
      * Permet de savoir si l'enregistrement au SE a réussi
      */
-    private boolean enregistrementReussie = false;
+    private volatile boolean enregistrementReussie = false;
+    
+    /**
+     * Renouvellement periodique de l'enregistrement au SE
+     * 
+     * L'enregistrement est un bail qui expire s'il n'est pas mis a jour.
+     */
+    private Timer timerSE;
     
     /**
      * Gestionnaire de revenu.
@@ -80,8 +91,6 @@ public class Jeu_Serveur extends Jeu
     {
         super.demarrer();
         
-        gRevenus.demarrer();
-        
         
         // gestionnaire des niveaux (applé toutes les secondes de jeu)
         timer.addActionListener(new ActionListener()
@@ -105,6 +114,18 @@ public class Jeu_Serveur extends Jeu
         });
     }
     
+    /**
+     * Les revenus sont donnés après les éléments du jeu, en temps réel
+     * (le coefficient de vitesse ne les accélère pas).
+     */
+    @Override
+    protected void avancer(long pas)
+    {
+        super.avancer(pas);
+        
+        gRevenus.mettreAJour(pas);
+    }
+    
     @Override
     synchronized public void creatureTuee(Creature creature, Joueur tueur)
     {
@@ -139,6 +160,20 @@ public class Jeu_Serveur extends Jeu
     {
         serveurDeJeu = new ServeurJeu(this);
     }
+    
+    /**
+     * Permet d'établir le serveur chez un hébergeur de parties, sans 
+     * port propre.
+     * 
+     * @param hebergeur l'hébergeur
+     * @return l'identificateur de la partie chez l'hébergeur
+     */
+    public int etablissementDuServeur(HebergeurDeParties hebergeur)
+    {
+        serveurDeJeu = new ServeurJeu(this, hebergeur);
+        
+        return serveurDeJeu.getIdPartie();
+    }
 
     /**
      * Permet de stopper le serveur de jeu
@@ -186,6 +221,19 @@ public class Jeu_Serveur extends Jeu
                 if(jsonResultat.getInt("status") == CodeEnregistrement.OK)
                 {
                     enregistrementReussie = true;
+                    
+                    // renouvellement du bail bien avant son expiration
+                    long periode = SEInscription.DUREE_BAIL / 3;
+                    timerSE = new Timer("Renouvellement SE", true);
+                    timerSE.schedule(new TimerTask()
+                    {
+                        @Override
+                        public void run()
+                        {
+                            miseAJourSE();
+                        }
+                    }, periode, periode);
+                    
                     return true;
                 }
                 else
@@ -207,14 +255,22 @@ public class Jeu_Serveur extends Jeu
      */
     public void desenregistrerSurSE()
     {
+        if(timerSE != null)
+            timerSE.cancel();
+        
         // fermeture du canal s'il est ouvert
         if (canalServeurEnregistrement != null && estEnregisterSurSE())
         {
             try
             {
                 // désenregistrement du serveur
-                canalServeurEnregistrement.envoyerString(RequeteEnregistrement.DESENREGISTRER);
-                canalServeurEnregistrement.recevoirString();
+                synchronized (canalServeurEnregistrement)
+                {
+                    enregistrementReussie = false;
+                    
+                    canalServeurEnregistrement.envoyerString(RequeteEnregistrement.DESENREGISTRER);
+                    canalServeurEnregistrement.recevoirString();
+                }
 
                 // fermeture propre du canal
                 //canalServeurEnregistrement.envoyerString(RequeteEnregistrement.STOP);
@@ -232,6 +288,8 @@ public class Jeu_Serveur extends Jeu
     
     /**
      * Permet de mettre à jour les infos du jeu sur le SE
+     * 
+     * La mise a jour renouvelle aussi le bail de l'enregistrement.
      */
     public void miseAJourSE()
     {
@@ -242,11 +300,18 @@ public class Jeu_Serveur extends Jeu
     
             try
             {
-                // Envoie de la requete 
-                canalServeurEnregistrement.envoyerString(requete);
-            
-                // Attente du résultat
-                canalServeurEnregistrement.recevoirString();
+                // la mise a jour periodique et celle des joueurs partagent le canal
+                synchronized (canalServeurEnregistrement)
+                {
+                    if(!enregistrementReussie)
+                        return;
+                    
+                    // Envoie de la requete 
+                    canalServeurEnregistrement.envoyerString(requete);
+                
+                    // Attente du résultat
+                    canalServeurEnregistrement.recevoirString();
+                }
             } 
             catch (CanalException e)
             {
@@ -0,0 +1,147 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.jeu;
+
+import java.io.File;
+import java.util.ArrayList;
+import models.joueurs.Joueur;
+import models.terrains.Terrain;
+
+/**
+ * Simulation de parties solo sans affichage.
+ * <p>
+ * Chaque terrain est joue sans tour : une vague est lancee a intervalle
+ * regulier jusqu'a ce que le joueur n'ait plus de vie. Un terrain dont les
+ * creatures n'atteignent jamais la zone d'arrivee est donc signale en
+ * echec. Les parties sont jouees avec {@link Jeu#simuler(long)}, sans
+ * Swing ni son, et durent quelques secondes.
+ * <p>
+ * Utilisation : java models.jeu.SimulationSansAffichage [fichiers .map]
+ * <br>
+ * Sans argument, tous les terrains de {@link Terrain#EMPLACEMENT_TERRAINS_SOLO}
+ * sont simules. Le code de retour vaut 1 si au moins un terrain echoue.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Jeu#simuler(long)
+ */
+public class SimulationSansAffichage
+{
+    /**
+     * Nombre de pas entre deux vagues (10 secondes de jeu)
+     */
+    private static final long PAS_ENTRE_VAGUES = 10000 / BoucleDeJeu.PAS;
+
+    /**
+     * Nombre maximum de vagues lancees avant de declarer l'echec
+     */
+    private static final int NB_VAGUES_MAX = 100;
+
+    /**
+     * Permet de simuler une partie sur un terrain
+     *
+     * @param fichier le fichier du terrain
+     * @return true si la partie s'est terminee, false sinon
+     * @throws Exception si le terrain ne peut pas etre charge ou joue
+     */
+    public static boolean simuler(File fichier) throws Exception
+    {
+        Terrain terrain = Terrain.charger(fichier);
+
+        Jeu_Solo jeu = new Jeu_Solo();
+        jeu.setTerrain(terrain);
+        terrain.setJeu(jeu);
+
+        Joueur joueur = new Joueur("Simulation");
+        jeu.setJoueurPrincipal(joueur);
+        jeu.ajouterJoueur(joueur);
+
+        terrain.setLargeurMaillage(terrain.getLargeur());
+        terrain.setHauteurMaillage(terrain.getHauteur());
+        terrain.initialiser();
+        jeu.initialiser();
+
+        long debut = System.currentTimeMillis();
+
+        int nbVagues = 0;
+        while(!jeu.estTermine() && nbVagues < NB_VAGUES_MAX)
+        {
+            jeu.lancerVagueSuivante(joueur, joueur.getEquipe());
+            nbVagues++;
+
+            jeu.simuler(PAS_ENTRE_VAGUES);
+        }
+
+        long duree = System.currentTimeMillis() - debut;
+
+        jeu.detruire();
+
+        System.out.println(fichier.getName()
+                + " : " + (jeu.estTermine() ? "ok" : "ECHEC")
+                + ", " + nbVagues + " vague(s)"
+                + ", " + (jeu.getNbPasSimules() * BoucleDeJeu.PAS / 1000) + " s de jeu"
+                + " en " + duree + " ms");
+
+        return jeu.estTermine();
+    }
+
+    /**
+     * Point d'entree
+     *
+     * @param args les fichiers des terrains a simuler
+     */
+    public static void main(String[] args)
+    {
+        System.setProperty("java.awt.headless", "true");
+
+        ArrayList<File> fichiers = new ArrayList<File>();
+
+        if(args.length > 0)
+            for(String arg : args)
+                fichiers.add(new File(arg));
+        else
+        {
+            File[] contenu = new File(Terrain.EMPLACEMENT_TERRAINS_SOLO).listFiles();
+
+            if(contenu != null)
+                for(File fichier : contenu)
+                    if(fichier.getName().endsWith("."+Terrain.EXTENSION_FICHIER))
+                        fichiers.add(fichier);
+        }
+
+        boolean echec = false;
+
+        for(File fichier : fichiers)
+        {
+            try
+            {
+                if(!simuler(fichier))
+                    echec = true;
+            }
+            catch(Exception e)
+            {
+                System.out.println(fichier.getName() + " : ERREUR " + e);
+                echec = true;
+            }
+        }
+
+        System.exit(echec ? 1 : 0);
+    }
+}
@@ -28,13 +28,11 @@ import models.joueurs.Joueur;
  * @version 1.0 | mai 2010
  * @since jdk1.6.0_16
  */
-public class GestionnaireDeRevenu implements Runnable
+public class GestionnaireDeRevenu
 {
     public static final double POURCENTAGE_NB_PIECES_OR_CREATURE = 0.01;
     private static final long TEMPS_REVENU_CREATURE = 1000; // ms
-    private boolean gestionEnCours;
-    private boolean enPause = false;
-    private Object pause = new Object();
+    private long tempsAvantRevenu = 0; // ms
     private Jeu jeu;
 
     /**
@@ -46,69 +44,25 @@ public class GestionnaireDeRevenu implements Runnable
     }
     
     /**
-     * Permet de demarrer la gestion
+     * Permet de donner les revenus aux joueurs a chaque periode ecoulee.
+     * <br>
+     * Appelee a chaque pas de la boucle de jeu.
+     * 
+     * @param tempsEcoule le temps ecoule depuis le dernier pas (ms)
      */
-    public void demarrer()
+    public void mettreAJour(long tempsEcoule)
     {
-        Thread thread = new Thread(this);
-        thread.start();
-    }
- 
-    @Override
-    public void run()
-    {
-        gestionEnCours = true;
+        tempsAvantRevenu -= tempsEcoule;
         
-        while(gestionEnCours)
+        while(tempsAvantRevenu <= 0)
         {
             // donne de l'argent
             // pas de problème de concurrence car c'est une copie.
             for(Joueur joueur : jeu.getJoueurs())
                 if(!joueur.aPerdu() && !joueur.estHorsJeu())
                     joueur.donnerRevenu(TEMPS_REVENU_CREATURE);
-              
-            // gestion de la pause
-            try
-            {
-                synchronized (pause)
-                {
-                    if(enPause)
-                        pause.wait();
-                } 
-                
-                Thread.sleep(TEMPS_REVENU_CREATURE);
-            } 
-            catch (InterruptedException e){
-                 e.printStackTrace();
-            }
-        }
-    }
-    
-    /**
-     * Permet d'arreter toutes les creatures
-     */
-    public void arreterCreatures()
-    {
-        gestionEnCours = false;
-    }
-    
-    /**
-     * Permet de mettre les créatures en pause.
-     */
-    public void mettreEnPause()
-    {
-        enPause = true;
-    }
-    
-    /**
-     * Permet de sortir les créatures de la pause.
-     */
-    public void sortirDeLaPause()
-    { 
-        synchronized (pause)
-        {
-            enPause = false;
-            pause.notify(); 
+            
+            tempsAvantRevenu += TEMPS_REVENU_CREATURE;
         }
     }
 }
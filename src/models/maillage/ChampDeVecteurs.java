@@ -0,0 +1,66 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.maillage;
+
+import java.awt.Point;
+
+/**
+ * Champ de vecteurs (flow field) vers une destination commune.
+ * <p>
+ * Chaque noeud du maillage connait le noeud suivant sur le chemin le plus
+ * court jusqu'a la destination. Toutes les creatures qui se rendent au
+ * meme endroit partagent donc le meme champ et le suivent en temps
+ * constant, sans calculer de chemin individuel.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Maillage_v2
+ */
+public interface ChampDeVecteurs
+{
+    /**
+     * Permet de recuperer le prochain noeud a atteindre depuis une position.
+     *
+     * @param x la position x en pixels
+     * @param y la position y en pixels
+     * @return le centre du prochain noeud ou null si la position est
+     *         deja sur la destination ou qu'aucun chemin n'existe.
+     */
+    public Point getNoeudSuivant(int x, int y);
+
+    /**
+     * Permet de savoir si une position est sur la destination du champ.
+     *
+     * @param x la position x en pixels
+     * @param y la position y en pixels
+     * @return true si le noeud le plus proche est une sortie
+     */
+    public boolean estUneSortie(int x, int y);
+
+    /**
+     * Permet de recuperer la version du champ.
+     * <br>
+     * La version change a chaque modification du champ, ce qui permet aux
+     * creatures de savoir qu'il faut reconsiderer leur noeud cible.
+     *
+     * @return la version du champ
+     */
+    public int getVersion();
+}
@@ -33,7 +33,7 @@ import models.outils.Outils;
  * 
  * @author Dark
  */
-public class Maillage_v2 implements Maillage
+public class Maillage_v2 implements Maillage, ChampDeVecteurs
 {
 	
     /*
@@ -64,6 +64,16 @@ public class Maillage_v2 implements Maillage
 	 */
 	private final int NB_NOEUDS_LARGEUR, NB_NOEUDS_HAUTEUR;
 
+	/**
+	 * Algorithme de Dijkstra avec recherche linéaire du noeud suivant
+	 */
+	public static final int DIJKSTRA_RECHERCHE_LINEAIRE = 0;
+	
+	/**
+	 * Algorithme de Dijkstra avec tas binaire indexé
+	 */
+	public static final int DIJKSTRA_TAS_BINAIRE = 1;
+	
 	/*
 	 * Attributs
 	 */
@@ -104,6 +114,11 @@ public class Maillage_v2 implements Maillage
 	 * Le decalage de base.
 	 */
 	private int xOffset, yOffset;
+	
+	/**
+	 * Algorithme utilisé pour construire l'arbre des chemins
+	 */
+	private int algorithme;
    
 
 	/**
@@ -127,6 +142,38 @@ public class Maillage_v2 implements Maillage
 			final int largeurDuNoeud, int xOffset, int yOffset)
 			throws IllegalArgumentException
 	{
+	    this(largeurPixels, hauteurPixels, largeurDuNoeud, xOffset, yOffset, 
+	            DIJKSTRA_TAS_BINAIRE);
+	}
+	
+	/**
+     * Un maillage dynamique représentant une aire de jeu.
+     * 
+     * @param largeurPixels
+     *            Largeur en pixel de la zone.
+     * @param hauteurPixels
+     *            Hauteur en pixel de la zone.
+     * @param largeurDuNoeud
+     *            La largeur en pixel de chaque maille.
+     * @param xOffset
+     *            Le décalage en x du maillage, en pixels.
+     * @param yOffset
+     *            Le décalage en y du maillage, en pixels.
+     * @param algorithme
+     *            DIJKSTRA_RECHERCHE_LINEAIRE ou DIJKSTRA_TAS_BINAIRE
+     * @throws IllegalArgumentException
+     *             Levé si les dimensions ne correspondent pas.
+     */
+	public Maillage_v2(final int largeurPixels, final int hauteurPixels,
+            final int largeurDuNoeud, int xOffset, int yOffset, int algorithme)
+            throws IllegalArgumentException
+    {
+	    if(algorithme != DIJKSTRA_RECHERCHE_LINEAIRE 
+	    && algorithme != DIJKSTRA_TAS_BINAIRE)
+	        throw new IllegalArgumentException("Algorithme inconnu");
+	    
+	    this.algorithme = algorithme;
+	    
 
 		// Assignation de la largeur du noeud (ou de la maille).
 		LARGEUR_NOEUD = largeurDuNoeud;
@@ -169,37 +216,184 @@ public class Maillage_v2 implements Maillage
 
 	/**
 	 * Permet de trouver l'indice d'un noeud le plus proche d'une coordonnée.
+	 * <br>
+	 * Les noeuds étant répartis régulièrement, la colonne et la ligne 
+	 * les plus proches sont calculées directement. En cas d'égalité, 
+	 * le noeud d'indice le plus faible est retourné.
 	 * 
 	 * @param x
 	 * @param y
 	 * @return
 	 */
-	synchronized private int getIndiceNoeud(int x, int y)
+	private int getIndiceNoeud(int x, int y)
     { 
-        if(noeuds.length == 0)
+        if(NB_NOEUDS_LARGEUR == 0 || NB_NOEUDS_HAUTEUR == 0)
             throw new IllegalArgumentException("Pas de noeud");
         
-        Noeud n;
-        int iNoeudLePlusProche = -1;
-        double distance;
-        double distMax = Integer.MAX_VALUE;
-        Point cible = new Point(x,y);
+        // centre du premier noeud (le noeud 0 est la sortie commune)
+        Noeud premier = noeuds[1];
         
-        for(int i=1;i<NB_NOEUDS;i++)
-        {
-            n = noeuds[i];
-            
-            distance = cible.distance(n);
-            
-            if(distance < distMax)
-            {
-                iNoeudLePlusProche = i;
-                distMax = distance;
-            }
-        }
-             
-        return iNoeudLePlusProche;
+        int colonne = (int) Math.ceil((x - premier.x) / (double) LARGEUR_NOEUD - 0.5);
+        int ligne   = (int) Math.ceil((y - premier.y) / (double) LARGEUR_NOEUD - 0.5);
+        
+        colonne = Math.max(0, Math.min(NB_NOEUDS_LARGEUR - 1, colonne));
+        ligne   = Math.max(0, Math.min(NB_NOEUDS_HAUTEUR - 1, ligne));
+        
+        return 1 + colonne * NB_NOEUDS_HAUTEUR + ligne;
     }
+	
+	/**
+	 * Lit l'instantané publié, sans verrou : le calcul de l'arbre 
+	 * ne bloque pas les créatures qui suivent le champ.
+	 */
+	@Override
+	public Point getNoeudSuivant(int x, int y)
+	{
+	    Instantane arbre = instantane;
+	    
+	    if(arbre == null)
+	        return null;
+	    
+	    int iNoeud = getIndiceNoeud(x, y);
+	    
+	    // noeud inaccessible, on se dirige vers le meilleur voisin
+	    if(!arbre.actif[iNoeud] || arbre.dist[iNoeud] == Integer.MAX_VALUE)
+	    {
+	        int iMeilleur = -1;
+	        for(int j=0;j<nbVoisins[iNoeud];j++)
+	        {
+	            int iVoisin = voisins[iNoeud][j];
+	            
+	            if(iVoisin != 0 
+	            && arbre.actif[iVoisin]
+	            && (iMeilleur == -1 || arbre.dist[iVoisin] < arbre.dist[iMeilleur]))
+	                iMeilleur = iVoisin;
+	        }
+	        
+	        if(iMeilleur == -1 || arbre.dist[iMeilleur] == Integer.MAX_VALUE)
+	            return null;
+	        
+	        return noeuds[iMeilleur];
+	    }
+	    
+	    // sur une sortie, il reste à rejoindre son centre
+	    if(arbre.pred[iNoeud] == 0)
+	    {
+	        Noeud sortie = noeuds[iNoeud];
+	        
+	        if(sortie.x == x && sortie.y == y)
+	            return null;
+	        
+	        return sortie;
+	    }
+	    
+	    return noeuds[arbre.pred[iNoeud]];
+	}
+	
+	@Override
+	public boolean estUneSortie(int x, int y)
+	{
+	    Instantane arbre = instantane;
+	    
+	    if(arbre == null)
+	        return false;
+	    
+	    return arbre.pred[getIndiceNoeud(x, y)] == 0;
+	}
+	
+	/**
+	 * Permet de calculer la longueur du chemin le plus court depuis une 
+	 * position jusqu'a la sortie si une zone etait desactivée, sans modifier 
+	 * le maillage.
+	 * <br>
+	 * Le calcul se fait sur l'instantané publié, sans verrou. Si le chemin 
+	 * actuel ne traverse pas la zone, il reste le plus court. Sinon, un A* 
+	 * est lancé en ignorant les noeuds de la zone, avec pour heuristique la 
+	 * distance de l'arbre actuel (la desactivation ne peut que l'allonger).
+	 * 
+	 * @param xDepart la position x de depart
+	 * @param yDepart la position y de depart
+	 * @param zone la zone a ignorer
+	 * @return la longueur du chemin ou -1 s'il n'en existe pas
+	 */
+	public int getLongueurCheminSansLaZone(int xDepart, int yDepart, Rectangle zone)
+	{
+	    Instantane arbre = instantane;
+	    
+	    if(arbre == null)
+	        return -1;
+	    
+	    int iDepart = getIndiceNoeud(xDepart, yDepart);
+	    
+	    if(!arbre.actif[iDepart] 
+	    || arbre.dist[iDepart] == Integer.MAX_VALUE
+	    || zone.contains(noeuds[iDepart]))
+	        return -1;
+	    
+	    // le chemin actuel evite la zone ?
+	    int iNoeud = iDepart;
+	    while(iNoeud != 0 && !zone.contains(noeuds[iNoeud]))
+	        iNoeud = arbre.pred[iNoeud];
+	    
+	    if(iNoeud == 0)
+	        return arbre.dist[iDepart];
+	    
+	    // A* jusqu'a la sortie commune
+	    int[] g         = new int[NB_NOEUDS];
+	    int[] f         = new int[NB_NOEUDS];
+	    boolean[] ferme = new boolean[NB_NOEUDS];
+	    TasBinaireIndexe ouverts = new TasBinaireIndexe(f);
+	    
+	    for(int i=0;i<NB_NOEUDS;i++)
+	        g[i] = Integer.MAX_VALUE;
+	    
+	    g[iDepart] = 0;
+	    f[iDepart] = arbre.dist[iDepart];
+	    ouverts.inserer(iDepart);
+	    
+	    while(!ouverts.estVide())
+	    {
+	        int courant = ouverts.extraireMin();
+	        
+	        if(courant == 0)
+	            return g[0];
+	        
+	        ferme[courant] = true;
+	        
+	        for(int j=0;j<nbVoisins[courant];j++)
+	        {
+	            int iVoisin = voisins[courant][j];
+	            
+	            // inaccessible meme sans la zone
+	            if(ferme[iVoisin]
+	            || !arbre.actif[iVoisin] 
+	            || arbre.dist[iVoisin] == Integer.MAX_VALUE)
+	                continue;
+	            
+	            if(iVoisin != 0 && zone.contains(noeuds[iVoisin]))
+	                continue;
+	            
+	            int alt = g[courant] + poids[courant][j];
+	            
+	            if(alt < g[iVoisin])
+	            {
+	                g[iVoisin] = alt;
+	                f[iVoisin] = alt + arbre.dist[iVoisin];
+	                ouverts.inserer(iVoisin);
+	            }
+	        }
+	    }
+	    
+	    return -1;
+	}
+	
+	@Override
+	public int getVersion()
+	{
+	    Instantane arbre = instantane;
+	    
+	    return arbre == null ? 0 : arbre.version;
+	}
 
     synchronized private void construireGraphe()
     {
@@ -314,7 +508,7 @@ public class Maillage_v2 implements Maillage
 	    
         while(in != -1)
         {
-            int pred = infoNoeuds[in].pred;
+            int pred = this.pred[in];
             
             if(pred == -1)
                 break;
@@ -337,30 +531,20 @@ public class Maillage_v2 implements Maillage
 	synchronized public void activerZone(Rectangle rectangle, boolean miseAJour)
 			throws IllegalArgumentException
 	{
-	    Noeud n;
-        // on touche pas au noeud de sorti
-        for(int i=1;i<NB_NOEUDS;i++)
+	    int nbModifies = changerEtatZone(rectangle, true);
+        
+        if(miseAJour)
         {
-            n = noeuds[i];
-            
-            if(rectangle.contains(n))
+            if(peutEtreRepare())
             {
-                n.setActif(true);
-                
-                //System.out.println("noeud ["+n.x+","+n.y+"] activé");
-                
-                // pour tous les arcs
-                /*
-                for(int j=0;j<nbVoisins[i];j++)
-                {
-                    poids[i][j] = Integer.MAX_VALUE;
-                    nbArcsActifs-=2; // bidirection
-                }*/           
+                reparerArbreApresActivation(nbModifies);
+                publier();
             }
+            else
+                contruireArbreDijkstra();
         }
-        
-        if(miseAJour)
-            contruireArbreDijkstra();
+        else if(nbModifies > 0)
+            arbreAJour = false;
 	}
 	
 	synchronized public void miseAJourTDA()
@@ -372,43 +556,66 @@ public class Maillage_v2 implements Maillage
 	synchronized public void desactiverZone(Rectangle rectangle, boolean miseAJour)
 			throws IllegalArgumentException
 	{ 
+	    int nbModifies = changerEtatZone(rectangle, false);
+	    
+	    if(miseAJour)
+	    {
+	        if(peutEtreRepare())
+	        {
+	            reparerArbreApresDesactivation(nbModifies);
+	            publier();
+	        }
+	        else
+	            contruireArbreDijkstra();
+	    }
+	    else if(nbModifies > 0)
+	        arbreAJour = false;
+	}
+	
+	/**
+	 * Permet de changer l'etat des noeuds contenus dans une zone.
+	 * <br>
+	 * Seules les colonnes et lignes de noeuds couvertes par le rectangle
+	 * sont parcourues. Les indices des noeuds qui ont reellement changé 
+	 * d'etat sont stockés dans <tt>noeudsModifies</tt>.
+	 * 
+	 * @param rectangle la zone
+	 * @param actif le nouvel etat des noeuds
+	 * @return le nombre de noeuds qui ont changé d'etat
+	 */
+	private int changerEtatZone(Rectangle rectangle, boolean actif)
+	{
+	    if(noeudsModifies == null)
+	        noeudsModifies = new int[NB_NOEUDS];
+	    
+	    // colonnes et lignes potentiellement touchées (+/- 1 pour le centrage)
+	    int iMin = Math.max(0, (rectangle.x - xOffset) / LARGEUR_NOEUD - 1);
+	    int iMax = Math.min(NB_NOEUDS_LARGEUR - 1, 
+	            (rectangle.x + rectangle.width - xOffset) / LARGEUR_NOEUD + 1);
+	    int jMin = Math.max(0, (rectangle.y - yOffset) / LARGEUR_NOEUD - 1);
+        int jMax = Math.min(NB_NOEUDS_HAUTEUR - 1, 
+                (rectangle.y + rectangle.height - yOffset) / LARGEUR_NOEUD + 1);
+	    
+	    int nbModifies = 0;
 	    Noeud n;
-	    int min = Integer.MAX_VALUE;
-	    // on touche pas au noeud de sorti
-	    for(int i=1;i<NB_NOEUDS;i++)
+	    
+	    // on touche pas au noeud de sorti (indice 0)
+	    for(int i=iMin;i<=iMax;i++)
 	    {
-	        n = noeuds[i];
-
-	        if(rectangle.contains(n))
+	        for(int j=jMin;j<=jMax;j++)
 	        {
-	            n.setActif(false);
-	            
-	            
-	            // TODO test optimisation
-	            //if(infoNoeuds[i].distArrivee < min)
-	            //    min = infoNoeuds[i].distArrivee;
-	            
-	            
-	            //System.out.println("noeud ["+n.x+","+n.y+"] désactivé");
+	            int iNoeud = 1 + i * NB_NOEUDS_HAUTEUR + j;
+	            n = noeuds[iNoeud];
 	            
-	            // pour tous les arcs
-	            /*
-	            for(int j=0;j<nbVoisins[i];j++)
+	            if(rectangle.contains(n) && n.isActif() != actif)
 	            {
-	                poids[i][j] = Integer.MAX_VALUE;
-	                //nbArcsActifs-=2; // bidirection
-	            }*/          
+	                n.setActif(actif);
+	                noeudsModifies[nbModifies++] = iNoeud;
+	            }
 	        }
 	    }
 	    
-	    if(miseAJour)
-	        contruireArbreDijkstra();
-	        
-	    
-	    // TODO test optimisation
-	    //if(miseAJour)
-	    //    contruireArbreDijkstraOptimise(min);
-	    
+	    return nbModifies;
 	}
 
 	@Override
@@ -469,31 +676,134 @@ public class Maillage_v2 implements Maillage
     
     /**
      * Arbre des chemins les plus courts.
+     * <br>
+     * Note : l'indice du tableau spécifie le numéro du noeud
      */
-    private InfoNoeud[] infoNoeuds;
-       
+    private int[] distArrivee;
+    private int[] pred;
+    private boolean[] visite;
+    
     /**
-     * Dijkstra's algorithm to find shortest path from iNoeudArrive 
-     * to all other nodes
-     * 
-     * @param iNoeudArrive
+     * File de priorité du Dijkstra par tas binaire
      */
-    synchronized private void contruireArbreDijkstra()
+    private TasBinaireIndexe tas;
+    
+    /**
+     * Permet de savoir si l'arbre correspond à l'etat courant des noeuds.
+     * <br>
+     * Faux lorsqu'une zone a été modifiée sans mise à jour, l'arbre
+     * doit alors être entièrement reconstruit.
+     */
+    private boolean arbreAJour = false;
+    
+    /**
+     * Version de l'arbre, incrémentée à chaque modification
+     */
+    private int version = 0;
+    
+    /**
+     * Etat du champ figé à un instant donné : noeuds actifs et arbre
+     * des chemins les plus courts.
+     * <br>
+     * Il n'est jamais modifié une fois publié, il peut donc être lu
+     * par plusieurs threads sans synchronisation.
+     */
+    private static final class Instantane
     {
-        if(infoNoeuds == null)
+        final int version;
+        final boolean[] actif;
+        final int[] dist;
+        final int[] pred;
+        
+        Instantane(int version, boolean[] actif, int[] dist, int[] pred)
         {
-            infoNoeuds = new InfoNoeud[NB_NOEUDS];
-            
-            // creation des noeuds d'information
-            for(int i=0;i<NB_NOEUDS;i++)
-                infoNoeuds[i] = new InfoNoeud(i,noeuds[i]);
+            this.version = version;
+            this.actif   = actif;
+            this.dist    = dist;
+            this.pred    = pred;
+        }
+    }
+    
+    /**
+     * Dernier instantané publié
+     */
+    private volatile Instantane instantane;
+    
+    /**
+     * Tampons de la réparation incrémentale (alloués une seule fois)
+     */
+    private int[] noeudsModifies;
+    private int[] noeudsAVoir;
+    private boolean[] invalide;
+    
+    /**
+     * Permet de publier l'etat courant de l'arbre.
+     * <br>
+     * Les tableaux sont copiés puis le nouvel instantané remplace l'ancien
+     * en une seule écriture : un lecteur voit soit l'ancien arbre complet, 
+     * soit le nouveau, jamais un arbre en cours de réparation.
+     */
+    private void publier()
+    {
+        boolean[] actif = new boolean[NB_NOEUDS];
+        for(int i=0;i<NB_NOEUDS;i++)
+            actif[i] = noeuds[i].isActif();
+        
+        version++;
+        
+        instantane = new Instantane(version, actif, 
+                                    distArrivee.clone(), pred.clone());
+    }
+    
+    /**
+     * Permet d'allouer une fois pour toute les tableaux de l'arbre
+     * et de les remettre à zéro.
+     */
+    private void reinitialiserArbre()
+    {
+        if(distArrivee == null)
+        {
+            distArrivee = new int[NB_NOEUDS];
+            pred        = new int[NB_NOEUDS];
+            visite      = new boolean[NB_NOEUDS];
+            tas         = new TasBinaireIndexe(distArrivee);
+        }
+        
+        for(int i=0;i<NB_NOEUDS;i++)
+        {
+            distArrivee[i] = Integer.MAX_VALUE;
+            pred[i]        = -1;
+            visite[i]      = false;
         }
+    }
+    
+    /**
+     * Construit l'arbre des chemins les plus courts jusqu'au point de sortie
+     * commun avec l'algorithme choisi.
+     */
+    synchronized private void contruireArbreDijkstra()
+    {
+        if(algorithme == DIJKSTRA_TAS_BINAIRE)
+            contruireArbreDijkstraTas();
         else
-            for(int i=0;i<NB_NOEUDS;i++)
-                infoNoeuds[i].reset();
+            contruireArbreDijkstraLineaire();
+        
+        arbreAJour = true;
+        publier();
+    }
+    
+    /**
+     * Dijkstra's algorithm to find shortest path from iNoeudArrive 
+     * to all other nodes
+     * 
+     * Recherche du minimum par parcours de tous les noeuds : O(V²)
+     */
+    synchronized private void contruireArbreDijkstraLineaire()
+    {
+        reinitialiserArbre();
                 
         // Sommet de départ à zéro
-        infoNoeuds[0].distArrivee = 0;
+        distArrivee[0] = 0;
         
         // Pour chaque noeuds
         for (int i = 0; i < NB_NOEUDS; i++)
@@ -501,124 +811,275 @@ public class Maillage_v2 implements Maillage
             if(noeuds[i].isActif())
             {
                 // Cherche le noeud suivant à traiter
-                final int next = minVertex(infoNoeuds);
+                final int next = minVertex();
                 
                 if(next != -1)
                 {
                     // Traitement du noeud
-                    infoNoeuds[next].visite = true;
+                    visite[next] = true;
 
-                    // Pour tous les voisins du noeud
-                    for (int j = 0; j < nbVoisins[next]; j++)
-                    {
-                        if(noeuds[voisins[next][j]].isActif())
-                        {
-                            final int iVoisin = voisins[next][j];
-                            final int distArrivee = infoNoeuds[next].distArrivee + poids[next][j];
-                            if (infoNoeuds[iVoisin].distArrivee > distArrivee)
-                            {
-                                infoNoeuds[iVoisin].distArrivee = distArrivee;
-                                infoNoeuds[iVoisin].pred = next;
-                            }
-                        }
-                    }
+                    relacherVoisins(next);
                 }
             }
         }
-
-        //this.infoNoeuds = infoNoeuds; // (ignore pred[s]==0!)
     }
     
-    
-    
-    
-    
     /**
      * Dijkstra's algorithm to find shortest path from iNoeudArrive 
      * to all other nodes
      * 
-     * @param iNoeudArrive
+     * Recherche du minimum dans un tas binaire indexé : O((V+E) log V)
+     * <br>
+     * L'ordre de traitement est le même que pour la version linéaire,
+     * l'arbre produit est donc identique.
      */
-    synchronized private void contruireArbreDijkstraOptimise(int poidsMin)
+    synchronized private void contruireArbreDijkstraTas()
     {
-        if(infoNoeuds == null)
+        reinitialiserArbre();
+        tas.vider();
+        
+        // Sommet de départ à zéro
+        distArrivee[0] = 0;
+        tas.inserer(0);
+        
+        int next;
+        while((next = tas.extraireMin()) != -1)
         {
-            infoNoeuds = new InfoNoeud[NB_NOEUDS];
+            // Traitement du noeud
+            visite[next] = true;
             
-            // creation des noeuds d'information
-            for(int i=0;i<NB_NOEUDS;i++)
-                infoNoeuds[i] = new InfoNoeud(i,noeuds[i]);
-        }
-        else
-            for(int i=0;i<NB_NOEUDS;i++)
+            // Pour tous les voisins du noeud
+            for (int j = 0; j < nbVoisins[next]; j++)
             {
-                if(infoNoeuds[i].distArrivee < poidsMin-15)
+                final int iVoisin = voisins[next][j];
+                
+                if(noeuds[iVoisin].isActif() && !visite[iVoisin])
                 {
-                    // Les noeuds avant gardent les mêmes prédécésseurs
-                    // et sont déjà traités
-                    infoNoeuds[i].visite = true;
+                    final int dist = distArrivee[next] + poids[next][j];
+                    if (distArrivee[iVoisin] > dist)
+                    {
+                        distArrivee[iVoisin] = dist;
+                        pred[iVoisin] = next;
+                        tas.inserer(iVoisin);
+                    }
                 }
-                else
+            }
+        }
+    }
+    
+    /**
+     * Met à jour la distance des voisins actifs d'un noeud traité.
+     * 
+     * @param next le noeud traité
+     */
+    private void relacherVoisins(int next)
+    {
+        // Pour tous les voisins du noeud
+        for (int j = 0; j < nbVoisins[next]; j++)
+        {
+            if(noeuds[voisins[next][j]].isActif())
+            {
+                final int iVoisin = voisins[next][j];
+                final int dist = distArrivee[next] + poids[next][j];
+                if (distArrivee[iVoisin] > dist)
                 {
-                    if(infoNoeuds[i].distArrivee >= poidsMin)
-                        infoNoeuds[i].distArrivee = Integer.MAX_VALUE;
-                    
-                    //infoNoeuds[i].pred = -1;
-                    infoNoeuds[i].visite = false;
+                    distArrivee[iVoisin] = dist;
+                    pred[iVoisin] = next;
                 }
             }
+        }
+    }
+    
+    /**
+     * Permet de savoir si l'arbre courant peut être réparé localement.
+     * 
+     * @return true si l'arbre est à jour et que le tas est utilisé
+     */
+    private boolean peutEtreRepare()
+    {
+        return algorithme == DIJKSTRA_TAS_BINAIRE 
+            && arbreAJour
+            && distArrivee != null;
+    }
+    
+    /**
+     * Réparation de l'arbre après la désactivation de noeuds.
+     * <p>
+     * Seuls les noeuds dont le chemin jusqu'à la sortie passait par un noeud
+     * désactivé (sous-arbres des noeuds désactivés) sont invalidés. Leurs 
+     * distances sont ensuite recalculées par Dijkstra à partir de leurs 
+     * voisins restés valides. Les distances des autres noeuds ne peuvent 
+     * pas changer car un retrait de noeuds ne fait qu'allonger les chemins.
+     * 
+     * @param nbModifies le nombre de noeuds désactivés dans noeudsModifies
+     */
+    private void reparerArbreApresDesactivation(int nbModifies)
+    {
+        if(nbModifies == 0)
+            return;
+        
+        if(invalide == null)
+        {
+            invalide    = new boolean[NB_NOEUDS];
+            noeudsAVoir = new int[NB_NOEUDS];
+        }
+        
+        // 1. collecte des sous-arbres (parcours en largeur des enfants)
+        int nbInvalides = 0;
+        for(int k=0;k<nbModifies;k++)
+        {
+            int iNoeud = noeudsModifies[k];
+            invalide[iNoeud] = true;
+            noeudsAVoir[nbInvalides++] = iNoeud;
+        }
+        
+        for(int k=0;k<nbInvalides;k++)
+        {
+            int courant = noeudsAVoir[k];
+            
+            // les enfants sont des voisins dont le prédécesseur est le courant
+            for(int j=0;j<nbVoisins[courant];j++)
+            {
+                int iVoisin = voisins[courant][j];
                 
-                
-        // Sommet de départ à zéro
-        infoNoeuds[0].distArrivee = 0;
+                if(!invalide[iVoisin] && pred[iVoisin] == courant)
+                {
+                    invalide[iVoisin] = true;
+                    noeudsAVoir[nbInvalides++] = iVoisin;
+                }
+            }
+        }
         
-        // Pour chaque noeuds
-        for (int i = 0; i < NB_NOEUDS; i++)
+        // 2. invalidation
+        for(int k=0;k<nbInvalides;k++)
         {
-            if(noeuds[i].isActif())
+            int iNoeud = noeudsAVoir[k];
+            distArrivee[iNoeud] = Integer.MAX_VALUE;
+            pred[iNoeud]        = -1;
+        }
+        
+        // 3. initialisation depuis la frontière valide
+        tas.vider();
+        for(int k=0;k<nbInvalides;k++)
+        {
+            int iNoeud = noeudsAVoir[k];
+            
+            if(!noeuds[iNoeud].isActif())
+                continue;
+            
+            for(int j=0;j<nbVoisins[iNoeud];j++)
             {
-                // Cherche le noeud suivant à traiter
-                final int next = minVertex(infoNoeuds);
+                int iVoisin = voisins[iNoeud][j];
                 
-                if(next != -1)
+                if(!invalide[iVoisin] 
+                && noeuds[iVoisin].isActif()
+                && distArrivee[iVoisin] != Integer.MAX_VALUE)
                 {
-                    // Traitement du noeud
-                    infoNoeuds[next].visite = true;
-
-                    // Pour tous les voisins du noeud
-                    for (int j = 0; j < nbVoisins[next]; j++)
+                    final int dist = distArrivee[iVoisin] + poids[iNoeud][j];
+                    if(distArrivee[iNoeud] > dist)
                     {
-                        if(noeuds[voisins[next][j]].isActif())
-                        {
-                            final int iVoisin = voisins[next][j];
-                            final int distArrivee = infoNoeuds[next].distArrivee + poids[next][j];
-                            if (infoNoeuds[iVoisin].distArrivee > distArrivee)
-                            {
-                                infoNoeuds[iVoisin].distArrivee = distArrivee;
-                                infoNoeuds[iVoisin].pred = next;
-                            }
-                        }
+                        distArrivee[iNoeud] = dist;
+                        pred[iNoeud] = iVoisin;
                     }
                 }
             }
+            
+            if(distArrivee[iNoeud] != Integer.MAX_VALUE)
+                tas.inserer(iNoeud);
         }
-
-        //this.infoNoeuds = infoNoeuds; // (ignore pred[s]==0!)
+        
+        // 4. Dijkstra limité à la zone invalidée
+        propager();
+        
+        for(int k=0;k<nbInvalides;k++)
+            invalide[noeudsAVoir[k]] = false;
     }
     
+    /**
+     * Réparation de l'arbre après l'activation de noeuds.
+     * <p>
+     * Un ajout de noeuds ne peut que raccourcir les chemins. Les noeuds 
+     * activés sont initialisés depuis leurs voisins puis les diminutions 
+     * de distance sont propagées. Les noeuds dont la distance ne change 
+     * pas ne sont pas touchés.
+     * 
+     * @param nbModifies le nombre de noeuds activés dans noeudsModifies
+     */
+    private void reparerArbreApresActivation(int nbModifies)
+    {
+        if(nbModifies == 0)
+            return;
+        
+        tas.vider();
+        for(int k=0;k<nbModifies;k++)
+        {
+            int iNoeud = noeudsModifies[k];
+            
+            distArrivee[iNoeud] = Integer.MAX_VALUE;
+            pred[iNoeud]        = -1;
+            
+            for(int j=0;j<nbVoisins[iNoeud];j++)
+            {
+                int iVoisin = voisins[iNoeud][j];
+                
+                if(noeuds[iVoisin].isActif() 
+                && distArrivee[iVoisin] != Integer.MAX_VALUE)
+                {
+                    final int dist = distArrivee[iVoisin] + poids[iNoeud][j];
+                    if(distArrivee[iNoeud] > dist)
+                    {
+                        distArrivee[iNoeud] = dist;
+                        pred[iNoeud] = iVoisin;
+                    }
+                }
+            }
+        }
+        
+        // les noeuds activés peuvent s'être atteint entre eux 
+        for(int k=0;k<nbModifies;k++)
+            if(distArrivee[noeudsModifies[k]] != Integer.MAX_VALUE)
+                tas.inserer(noeudsModifies[k]);
+        
+        propager();
+    }
     
-    
+    /**
+     * Propage les diminutions de distance depuis les noeuds du tas.
+     * <br>
+     * Seuls les voisins dont la distance diminue strictement sont
+     * modifiés et ajoutés au tas.
+     */
+    private void propager()
+    {
+        int next;
+        while((next = tas.extraireMin()) != -1)
+        {
+            for (int j = 0; j < nbVoisins[next]; j++)
+            {
+                final int iVoisin = voisins[next][j];
+                
+                if(noeuds[iVoisin].isActif())
+                {
+                    final int dist = distArrivee[next] + poids[next][j];
+                    if (distArrivee[iVoisin] > dist)
+                    {
+                        distArrivee[iVoisin] = dist;
+                        pred[iVoisin] = next;
+                        tas.inserer(iVoisin);
+                    }
+                }
+            }
+        }
+    }
    
     /**
      * Retour l'indice du noeud non visité dont la distance est la plus faible avec
      * l'arrivée. 
      * 
-     * @param dist les distances depuis le noeud de départ
-     * @param visite les noeuds visités
      * @return l'indice du noeud le dont la distance est la plus faible.
      *          ou -1 s'il n'y en a pas
      */
-    private int minVertex(InfoNoeud[] infoNoeuds)
+    private int minVertex()
     {
         int x = Integer.MAX_VALUE;
         int y = -1; // graph not connected, or no unvisited vertices
@@ -629,10 +1090,10 @@ public class Maillage_v2 implements Maillage
             if(noeuds[i].isActif())
             {
                 // Si pas visité et la distance est plus faible 
-                if (!infoNoeuds[i].visite && infoNoeuds[i].distArrivee < x)
+                if (!visite[i] && distArrivee[i] < x)
                 {
                     y = i;
-                    x = infoNoeuds[i].distArrivee;
+                    x = distArrivee[i];
                 }
             }
         }
@@ -645,28 +1106,33 @@ public class Maillage_v2 implements Maillage
     {
         return NB_NOEUDS;
     }
-
     
-    public static class InfoNoeud
+    /**
+     * Permet de choisir l'algorithme de construction de l'arbre des 
+     * chemins les plus courts.
+     * 
+     * L'arbre est reconstruit avec le nouvel algorithme.
+     * 
+     * @param algorithme DIJKSTRA_RECHERCHE_LINEAIRE ou DIJKSTRA_TAS_BINAIRE
+     */
+    synchronized public void setAlgorithme(int algorithme)
     {
-        int id;
-        Noeud noeud;
-        int distArrivee = Integer.MAX_VALUE;
-        int pred = -1;
-        boolean visite = false;
+        if(algorithme != DIJKSTRA_RECHERCHE_LINEAIRE 
+        && algorithme != DIJKSTRA_TAS_BINAIRE)
+            throw new IllegalArgumentException("Algorithme inconnu");
         
-        public InfoNoeud(int id,Noeud noeud)
-        {
-            this.id     = id;
-            this.noeud  = noeud;
-        }
-        
-        public void reset()
-        {
-            distArrivee = Integer.MAX_VALUE;
-            pred = -1;
-            visite = false;
-        }
+        this.algorithme = algorithme;
         
+        contruireArbreDijkstra();
+    }
+    
+    /**
+     * Permet de recuperer l'algorithme utilisé
+     * 
+     * @return l'algorithme utilisé
+     */
+    public int getAlgorithme()
+    {
+        return algorithme;
     }
-}
+}
\ No newline at end of file
@@ -0,0 +1,219 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.maillage;
+
+/**
+ * Tas binaire minimum indexe sur des indices de noeuds.
+ * <p>
+ * Les priorites ne sont pas copiees : le tas lit directement le tableau
+ * des distances fourni a la construction. Apres avoir diminue la distance
+ * d'un noeud deja present, il faut appeler {@link #diminuerCle(int)}.
+ * <p>
+ * A distance egale, le noeud d'indice le plus faible sort en premier.
+ * L'ordre d'extraction est donc le meme que celui de la recherche lineaire
+ * du minimum (minVertex) et l'arbre des predecesseurs produit est identique.
+ * <p>
+ * Aucune allocation n'est faite apres la construction.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Maillage_v2
+ */
+public class TasBinaireIndexe
+{
+    /**
+     * Le tas : position -> indice du noeud
+     */
+    private final int[] tas;
+
+    /**
+     * Position de chaque noeud dans le tas, -1 s'il n'y est pas
+     */
+    private final int[] position;
+
+    /**
+     * Priorites des noeuds (partagees avec l'appelant)
+     */
+    private final int[] priorites;
+
+    /**
+     * Nombre d'elements dans le tas
+     */
+    private int taille;
+
+    /**
+     * Constructeur
+     *
+     * @param priorites le tableau des priorites, indexe par noeud
+     */
+    public TasBinaireIndexe(int[] priorites)
+    {
+        this.priorites = priorites;
+
+        tas      = new int[priorites.length];
+        position = new int[priorites.length];
+
+        for(int i=0;i<position.length;i++)
+            position[i] = -1;
+    }
+
+    /**
+     * Permet de vider le tas.
+     */
+    public void vider()
+    {
+        for(int i=0;i<taille;i++)
+            position[tas[i]] = -1;
+
+        taille = 0;
+    }
+
+    /**
+     * Permet de savoir si le tas est vide
+     *
+     * @return true s'il l'est, false sinon
+     */
+    public boolean estVide()
+    {
+        return taille == 0;
+    }
+
+    /**
+     * Permet de savoir si un noeud est dans le tas
+     *
+     * @param iNoeud l'indice du noeud
+     * @return true s'il y est, false sinon
+     */
+    public boolean contient(int iNoeud)
+    {
+        return position[iNoeud] != -1;
+    }
+
+    /**
+     * Permet d'inserer un noeud, ou de remonter sa position s'il est
+     * deja present.
+     *
+     * @param iNoeud l'indice du noeud
+     */
+    public void inserer(int iNoeud)
+    {
+        if(position[iNoeud] != -1)
+        {
+            diminuerCle(iNoeud);
+            return;
+        }
+
+        tas[taille] = iNoeud;
+        position[iNoeud] = taille;
+        taille++;
+
+        remonter(taille-1);
+    }
+
+    /**
+     * Permet de mettre a jour la position d'un noeud dont
+     * la priorite vient de diminuer.
+     *
+     * @param iNoeud l'indice du noeud
+     */
+    public void diminuerCle(int iNoeud)
+    {
+        remonter(position[iNoeud]);
+    }
+
+    /**
+     * Permet de retirer le noeud de plus faible priorite.
+     *
+     * @return l'indice du noeud ou -1 si le tas est vide
+     */
+    public int extraireMin()
+    {
+        if(taille == 0)
+            return -1;
+
+        int min = tas[0];
+        position[min] = -1;
+        taille--;
+
+        if(taille > 0)
+        {
+            tas[0] = tas[taille];
+            position[tas[0]] = 0;
+            descendre(0);
+        }
+
+        return min;
+    }
+
+    /**
+     * Compare deux noeuds (priorite puis indice).
+     */
+    private boolean plusPetit(int a, int b)
+    {
+        return priorites[a] < priorites[b]
+            || (priorites[a] == priorites[b] && a < b);
+    }
+
+    private void remonter(int pos)
+    {
+        int iNoeud = tas[pos];
+
+        while(pos > 0)
+        {
+            int parent = (pos - 1) >> 1;
+
+            if(!plusPetit(iNoeud, tas[parent]))
+                break;
+
+            tas[pos] = tas[parent];
+            position[tas[pos]] = pos;
+            pos = parent;
+        }
+
+        tas[pos] = iNoeud;
+        position[iNoeud] = pos;
+    }
+
+    private void descendre(int pos)
+    {
+        int iNoeud = tas[pos];
+
+        while(true)
+        {
+            int enfant = 2 * pos + 1;
+
+            if(enfant >= taille)
+                break;
+
+            if(enfant + 1 < taille && plusPetit(tas[enfant + 1], tas[enfant]))
+                enfant++;
+
+            if(!plusPetit(tas[enfant], iNoeud))
+                break;
+
+            tas[pos] = tas[enfant];
+            position[tas[pos]] = pos;
+            pos = enfant;
+        }
+
+        tas[pos] = iNoeud;
+        position[iNoeud] = pos;
+    }
+}
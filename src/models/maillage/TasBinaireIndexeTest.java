@@ -0,0 +1,125 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.maillage;
+
+import static org.junit.Assert.*;
+
+import java.util.Random;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class TasBinaireIndexeTest
+{
+   /**
+    * Test method for {@link TasBinaireIndexe#extraireMin()}.
+    * <br>
+    * Les noeuds sortent par priorite croissante, a egalite par indice 
+    * croissant.
+    */
+   @Test
+   public void testExtraireMinDansLOrdre()
+   {
+      final int NB_NOEUDS = 1000;
+      
+      Random alea = new Random(42);
+      int[] priorites = new int[NB_NOEUDS];
+      TasBinaireIndexe tas = new TasBinaireIndexe(priorites);
+      
+      for(int i = 0; i < NB_NOEUDS; i++)
+      {
+         priorites[i] = alea.nextInt(100);
+         tas.inserer(i);
+      }
+      
+      int precedent = tas.extraireMin();
+      
+      for(int i = 1; i < NB_NOEUDS; i++)
+      {
+         int noeud = tas.extraireMin();
+         
+         assertTrue(priorites[precedent] < priorites[noeud] 
+                || (priorites[precedent] == priorites[noeud] && precedent < noeud));
+         
+         precedent = noeud;
+      }
+      
+      assertTrue(tas.estVide());
+      assertEquals(-1, tas.extraireMin());
+   }
+   
+   /**
+    * Test method for {@link TasBinaireIndexe#diminuerCle(int)}.
+    */
+   @Test
+   public void testDiminuerCle()
+   {
+      int[] priorites = {10, 20, 30, 40};
+      TasBinaireIndexe tas = new TasBinaireIndexe(priorites);
+      
+      for(int i = 0; i < priorites.length; i++)
+         tas.inserer(i);
+      
+      priorites[3] = 5;
+      tas.diminuerCle(3);
+      
+      assertEquals(3, tas.extraireMin());
+      
+      // inserer un noeud deja present diminue sa cle
+      priorites[2] = 1;
+      tas.inserer(2);
+      
+      assertEquals(2, tas.extraireMin());
+      assertEquals(0, tas.extraireMin());
+      assertEquals(1, tas.extraireMin());
+      assertTrue(tas.estVide());
+   }
+   
+   /**
+    * Test method for {@link TasBinaireIndexe#contient(int)} et 
+    * {@link TasBinaireIndexe#vider()}.
+    */
+   @Test
+   public void testContientEtVider()
+   {
+      int[] priorites = {3, 2, 1};
+      TasBinaireIndexe tas = new TasBinaireIndexe(priorites);
+      
+      tas.inserer(0);
+      tas.inserer(2);
+      
+      assertTrue(tas.contient(0));
+      assertFalse(tas.contient(1));
+      assertTrue(tas.contient(2));
+      
+      assertEquals(2, tas.extraireMin());
+      assertFalse(tas.contient(2));
+      
+      tas.vider();
+      
+      assertTrue(tas.estVide());
+      assertFalse(tas.contient(0));
+      
+      // le tas est reutilisable apres avoir ete vide
+      tas.inserer(1);
+      assertEquals(1, tas.extraireMin());
+   }
+}
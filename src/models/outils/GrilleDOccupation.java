@@ -0,0 +1,175 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.outils;
+
+import java.awt.Rectangle;
+
+/**
+ * Grille d'occupation d'une surface.
+ * <p>
+ * La surface est decoupee en cellules carrees. Chaque cellule compte le
+ * nombre d'obstacles qui la recouvrent, meme partiellement. Les obstacles
+ * peuvent donc se chevaucher et etre retires dans n'importe quel ordre.
+ * <p>
+ * Pour une zone alignee sur les cellules, savoir si elle intersecte un
+ * obstacle revient a tester les quelques cellules qu'elle recouvre : le
+ * resultat est le meme que celui de Rectangle.intersects sur chaque
+ * obstacle, sans les parcourir.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class GrilleDOccupation
+{
+    /**
+     * Taille d'une cellule en pixels
+     */
+    private final int TAILLE_CELLULE;
+
+    /**
+     * Nombre de cellules en largeur et en hauteur
+     */
+    private final int NB_COLONNES, NB_LIGNES;
+
+    /**
+     * Nombre d'obstacles par cellule (indice : colonne * NB_LIGNES + ligne)
+     */
+    private final int[] occupation;
+
+    /**
+     * Constructeur
+     *
+     * @param largeur la largeur de la surface en pixels
+     * @param hauteur la hauteur de la surface en pixels
+     * @param tailleCellule la taille d'une cellule en pixels
+     */
+    public GrilleDOccupation(int largeur, int hauteur, int tailleCellule)
+    {
+        if(tailleCellule <= 0)
+            throw new IllegalArgumentException("Taille de cellule invalide");
+
+        TAILLE_CELLULE = tailleCellule;
+        NB_COLONNES    = Math.max(0, (largeur + tailleCellule - 1) / tailleCellule);
+        NB_LIGNES      = Math.max(0, (hauteur + tailleCellule - 1) / tailleCellule);
+        occupation     = new int[NB_COLONNES * NB_LIGNES];
+    }
+
+    /**
+     * Permet d'ajouter un obstacle
+     *
+     * @param zone la zone de l'obstacle
+     */
+    synchronized public void occuper(Rectangle zone)
+    {
+        modifier(zone, 1);
+    }
+
+    /**
+     * Permet de retirer un obstacle ajoute avec {@link #occuper(Rectangle)}
+     *
+     * @param zone la zone de l'obstacle
+     */
+    synchronized public void liberer(Rectangle zone)
+    {
+        modifier(zone, -1);
+    }
+
+    /**
+     * Permet de retirer tous les obstacles
+     */
+    synchronized public void vider()
+    {
+        for(int i=0;i<occupation.length;i++)
+            occupation[i] = 0;
+    }
+
+    /**
+     * Permet de savoir si une zone peut etre testee par la grille,
+     * c'est-a-dire si elle est alignee sur les cellules et contenue
+     * dans la surface.
+     *
+     * @param zone la zone
+     * @return true si elle peut l'etre, false sinon
+     */
+    public boolean peutTester(Rectangle zone)
+    {
+        return zone.width > 0 && zone.height > 0
+            && zone.x >= 0 && zone.y >= 0
+            && zone.x % TAILLE_CELLULE == 0
+            && zone.y % TAILLE_CELLULE == 0
+            && zone.width % TAILLE_CELLULE == 0
+            && zone.height % TAILLE_CELLULE == 0
+            && (zone.x + zone.width)  / TAILLE_CELLULE <= NB_COLONNES
+            && (zone.y + zone.height) / TAILLE_CELLULE <= NB_LIGNES;
+    }
+
+    /**
+     * Permet de savoir si une zone n'intersecte aucun obstacle.
+     * <br>
+     * La zone doit pouvoir etre testee (voir {@link #peutTester(Rectangle)}).
+     *
+     * @param zone la zone
+     * @return true si aucun obstacle ne l'intersecte, false sinon
+     */
+    synchronized public boolean estLibre(Rectangle zone)
+    {
+        int iMin = zone.x / TAILLE_CELLULE;
+        int iMax = (zone.x + zone.width) / TAILLE_CELLULE - 1;
+        int jMin = zone.y / TAILLE_CELLULE;
+        int jMax = (zone.y + zone.height) / TAILLE_CELLULE - 1;
+
+        for(int i=iMin;i<=iMax;i++)
+            for(int j=jMin;j<=jMax;j++)
+                if(occupation[i * NB_LIGNES + j] > 0)
+                    return false;
+
+        return true;
+    }
+
+    /**
+     * Ajoute un increment a toutes les cellules que la zone intersecte.
+     */
+    private void modifier(Rectangle zone, int increment)
+    {
+        // une zone vide n'intersecte rien
+        if(zone.width <= 0 || zone.height <= 0)
+            return;
+
+        // cellules dont l'interieur intersecte la zone
+        int iMin = Math.max(0, plancher(zone.x));
+        int iMax = Math.min(NB_COLONNES - 1, plafond(zone.x + zone.width) - 1);
+        int jMin = Math.max(0, plancher(zone.y));
+        int jMax = Math.min(NB_LIGNES - 1, plafond(zone.y + zone.height) - 1);
+
+        for(int i=iMin;i<=iMax;i++)
+            for(int j=jMin;j<=jMax;j++)
+                occupation[i * NB_LIGNES + j] += increment;
+    }
+
+    private int plancher(int pixels)
+    {
+        return (int) Math.floor(pixels / (double) TAILLE_CELLULE);
+    }
+
+    private int plafond(int pixels)
+    {
+        return (int) Math.ceil(pixels / (double) TAILLE_CELLULE);
+    }
+}
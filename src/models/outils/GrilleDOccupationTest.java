@@ -0,0 +1,133 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.outils;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class GrilleDOccupationTest
+{
+   GrilleDOccupation grille = new GrilleDOccupation(100, 50, 10);
+   
+   /**
+    * Test method for {@link GrilleDOccupation#occuper(Rectangle)}.
+    */
+   @Test
+   public void testOccuper()
+   {
+      Rectangle obstacle = new Rectangle(20, 10, 20, 20);
+      grille.occuper(obstacle);
+      
+      assertFalse(grille.estLibre(obstacle));
+      assertFalse(grille.estLibre(new Rectangle(30, 20, 10, 10)));
+      assertTrue(grille.estLibre(new Rectangle(40, 10, 10, 10)));
+      assertTrue(grille.estLibre(new Rectangle(0, 0, 20, 10)));
+   }
+   
+   /**
+    * Un obstacle non aligne occupe toutes les cellules qu'il touche.
+    */
+   @Test
+   public void testOccuperNonAligne()
+   {
+      grille.occuper(new Rectangle(15, 15, 10, 10));
+      
+      assertFalse(grille.estLibre(new Rectangle(10, 10, 10, 10)));
+      assertFalse(grille.estLibre(new Rectangle(20, 20, 10, 10)));
+      assertTrue(grille.estLibre(new Rectangle(30, 10, 10, 10)));
+      assertTrue(grille.estLibre(new Rectangle(0, 0, 10, 10)));
+   }
+   
+   /**
+    * Test method for {@link GrilleDOccupation#liberer(Rectangle)}.
+    */
+   @Test
+   public void testLiberer()
+   {
+      Rectangle obstacle = new Rectangle(20, 10, 20, 20);
+      grille.occuper(obstacle);
+      grille.liberer(obstacle);
+      
+      assertTrue(grille.estLibre(obstacle));
+   }
+   
+   /**
+    * Les obstacles qui se chevauchent sont comptes : la cellule commune 
+    * reste occupee tant qu'un obstacle la recouvre.
+    */
+   @Test
+   public void testChevauchement()
+   {
+      Rectangle a = new Rectangle(0, 0, 20, 20);
+      Rectangle b = new Rectangle(10, 10, 20, 20);
+      Rectangle commune = new Rectangle(10, 10, 10, 10);
+      
+      grille.occuper(a);
+      grille.occuper(b);
+      grille.liberer(a);
+      
+      assertFalse(grille.estLibre(commune));
+      assertTrue(grille.estLibre(new Rectangle(0, 0, 10, 10)));
+      
+      grille.liberer(b);
+      
+      assertTrue(grille.estLibre(commune));
+   }
+   
+   /**
+    * Test method for {@link GrilleDOccupation#vider()}.
+    */
+   @Test
+   public void testVider()
+   {
+      grille.occuper(new Rectangle(0, 0, 100, 50));
+      grille.occuper(new Rectangle(0, 0, 100, 50));
+      grille.vider();
+      
+      assertTrue(grille.estLibre(new Rectangle(0, 0, 100, 50)));
+   }
+   
+   /**
+    * Test method for {@link GrilleDOccupation#peutTester(Rectangle)}.
+    */
+   @Test
+   public void testPeutTester()
+   {
+      assertTrue(grille.peutTester(new Rectangle(0, 0, 10, 10)));
+      assertTrue(grille.peutTester(new Rectangle(90, 40, 10, 10)));
+      
+      // non aligne
+      assertFalse(grille.peutTester(new Rectangle(5, 0, 10, 10)));
+      assertFalse(grille.peutTester(new Rectangle(0, 0, 15, 10)));
+      
+      // hors de la surface
+      assertFalse(grille.peutTester(new Rectangle(-10, 0, 10, 10)));
+      assertFalse(grille.peutTester(new Rectangle(100, 0, 10, 10)));
+      assertFalse(grille.peutTester(new Rectangle(0, 40, 10, 20)));
+      
+      // vide
+      assertFalse(grille.peutTester(new Rectangle(0, 0, 0, 10)));
+   }
+}
@@ -22,6 +22,7 @@ import java.awt.*;
 import java.awt.geom.Line2D;
 import java.io.*;
 import java.util.*;
+import java.util.concurrent.*;
 import javax.swing.*;
 import models.creatures.*;
 import models.jeu.Jeu;
@@ -29,6 +30,7 @@ import models.jeu.ModeDeJeu;
 import models.joueurs.Equipe;
 import models.maillage.*;
 import models.outils.GestionnaireSons;
+import models.outils.GrilleDOccupation;
 import models.outils.Son;
 import models.tours.Tour;
 
@@ -103,6 +105,27 @@ public class Terrain implements Serializable
      * precision du maillage, espace entre deux noeuds
      */
     private final int PRECISION_MAILLAGE = 10; // pixels
+    
+    /**
+     * Taille des cellules de la grille d'occupation (grille de pose des tours)
+     */
+    public static final int PRECISION_OCCUPATION = 10; // pixels
+    
+    /**
+     * Grille d'occupation des murs et des zones de depart et d'arrivee.
+     * <br>
+     * Elle permet de savoir en temps constant si une tour alignee sur la 
+     * grille de pose peut etre posee, sans parcourir tous les murs et toutes 
+     * les zones.
+     */
+    transient private GrilleDOccupation grilleDOccupation;
+
+    /**
+     * Version du decor (fond, murs, dimensions), incrementee a chaque 
+     * modification. Elle permet aux vues de savoir si leur rendu du decor
+     * est encore valide.
+     */
+    transient private volatile int versionDecor;
 
     /**
      * Le maillage permet de definir les chemins des creatures sur le terrain.
@@ -114,6 +137,35 @@ public class Terrain implements Serializable
     transient private Maillage MAILLAGE_TERRESTRE;
     transient private Maillage MAILLAGE_AERIEN;
     
+    /**
+     * Champs de vecteurs des creatures terriennes, un par equipe.
+     * <br>
+     * Toutes les creatures qui attaquent une equipe se rendent a la meme zone
+     * d'arrivee. Un seul arbre des chemins les plus courts est donc calcule 
+     * par equipe depuis sa zone d'arrivee, et les creatures le suivent.
+     */
+    transient private HashMap<Equipe,Maillage_v2> champsDeVecteurs;
+    
+    /**
+     * Threads de calcul des champs de vecteurs.
+     * <br>
+     * Les champs des equipes sont independants, ils sont donc construits et 
+     * repares en parallele. Chaque champ publie son nouvel arbre d'un seul
+     * coup une fois le calcul termine.
+     */
+    private static final ExecutorService CALCUL_DES_CHAMPS = 
+        Executors.newFixedThreadPool(
+            Runtime.getRuntime().availableProcessors(), 
+            new ThreadFactory()
+            {
+                public Thread newThread(Runnable r)
+                {
+                    Thread t = new Thread(r, "Calcul des champs de vecteurs");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+    
     /**
      * Dimention du maillage
      */
@@ -279,6 +331,149 @@ public class Terrain implements Serializable
             MAILLAGE_TERRESTRE.ajouterPointdeSortie((int) zoneArrivee.getCenterX(), (int) zoneArrivee.getCenterY());
             MAILLAGE_AERIEN.ajouterPointdeSortie((int) zoneArrivee.getCenterX(), (int) zoneArrivee.getCenterY());
         }
+        
+        // creation de la grille d'occupation
+        GrilleDOccupation grille = new GrilleDOccupation(largeur, hauteur, 
+                                                         PRECISION_OCCUPATION);
+        synchronized (murs)
+        {
+            for(Rectangle mur : murs)
+                grille.occuper(mur);
+        }
+        
+        for(Equipe equipe : equipes)
+        {
+            for(int i=0;i<equipe.getNbZonesDepart();i++)
+                grille.occuper(equipe.getZoneDepartCreatures(i));
+            
+            if(equipe.getZoneArriveeCreatures() != null)
+                grille.occuper(equipe.getZoneArriveeCreatures());
+        }
+        
+        grilleDOccupation = grille;
+        
+        // creation des champs de vecteurs des equipes (en parallele)
+        ArrayList<Equipe> equipesAvecArrivee = new ArrayList<Equipe>();
+        ArrayList<Callable<Maillage_v2>> taches = new ArrayList<Callable<Maillage_v2>>();
+        
+        for(Equipe equipe : equipes)
+        {
+            final Rectangle ARRIVEE = equipe.getZoneArriveeCreatures();
+            
+            if(ARRIVEE == null)
+                continue;
+            
+            equipesAvecArrivee.add(equipe);
+            taches.add(new Callable<Maillage_v2>()
+            {
+                public Maillage_v2 call()
+                {
+                    Maillage_v2 champ = new Maillage_v2(largeurMaillage, hauteurMaillage,
+                            PRECISION_MAILLAGE, positionMaillageX, positionMaillageY);
+                    
+                    for(Rectangle mur : murs)
+                        champ.desactiverZone(mur, false);
+                    
+                    // construit l'arbre depuis la zone d'arrivee
+                    champ.ajouterPointdeSortie((int) ARRIVEE.getCenterX(), 
+                                               (int) ARRIVEE.getCenterY());
+                    return champ;
+                }
+            });
+        }
+        
+        ArrayList<Maillage_v2> champs = executerEnParallele(taches);
+        
+        HashMap<Equipe,Maillage_v2> nouveauxChamps = new HashMap<Equipe,Maillage_v2>();
+        for(int i=0;i<champs.size();i++)
+            if(champs.get(i) != null)
+                nouveauxChamps.put(equipesAvecArrivee.get(i), champs.get(i));
+        
+        champsDeVecteurs = nouveauxChamps;
+    }
+    
+    /**
+     * Permet d'activer ou de desactiver une zone dans tous les champs de 
+     * vecteurs. Les champs sont repares en parallele et la methode retourne
+     * quand tous sont a jour.
+     * 
+     * @param zone la zone
+     * @param activer true pour activer, false pour desactiver
+     */
+    private void miseAJourDesChampsDeVecteurs(final Rectangle zone, final boolean activer)
+    {
+        if(champsDeVecteurs == null)
+            return;
+        
+        ArrayList<Callable<Maillage_v2>> taches = new ArrayList<Callable<Maillage_v2>>();
+        
+        for(final Maillage_v2 champ : champsDeVecteurs.values())
+        {
+            taches.add(new Callable<Maillage_v2>()
+            {
+                public Maillage_v2 call()
+                {
+                    if(activer)
+                        champ.activerZone(zone, true);
+                    else
+                        champ.desactiverZone(zone, true);
+                    return champ;
+                }
+            });
+        }
+        
+        executerEnParallele(taches);
+    }
+    
+    /**
+     * Permet d'executer des taches de calcul en parallele et d'attendre 
+     * leurs resultats.
+     * <br>
+     * Une tache seule est executee directement dans le thread appelant.
+     * 
+     * @param taches les taches
+     * @return les resultats dans l'ordre des taches (null si la tache a echoue)
+     */
+    private static <T> ArrayList<T> executerEnParallele(ArrayList<Callable<T>> taches)
+    {
+        ArrayList<T> resultats = new ArrayList<T>(taches.size());
+        
+        if(taches.size() == 1)
+        {
+            try
+            {
+                resultats.add(taches.get(0).call());
+            }
+            catch (Exception e)
+            {
+                e.printStackTrace();
+                resultats.add(null);
+            }
+            
+            return resultats;
+        }
+        
+        try
+        {
+            for(Future<T> resultat : CALCUL_DES_CHAMPS.invokeAll(taches))
+            {
+                try
+                {
+                    resultats.add(resultat.get());
+                }
+                catch (ExecutionException e)
+                {
+                    e.getCause().printStackTrace();
+                    resultats.add(null);
+                }
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        
+        return resultats;
     }
     
     public void reinitialiser()
@@ -338,6 +533,8 @@ public class Terrain implements Serializable
             iconImageDeFond = null;
         else
             iconImageDeFond = new ImageIcon(imageDeFond); 
+        
+        versionDecor++;
     }
     
     /**
@@ -414,9 +611,15 @@ public class Terrain implements Serializable
         
         if(MAILLAGE_AERIEN != null)
             MAILLAGE_AERIEN.desactiverZone(mur,false);
+        
+        miseAJourDesChampsDeVecteurs(mur, false);
+        
+        if(grilleDOccupation != null)
+            grilleDOccupation.occuper(mur);
 
         // ajout du mur
         murs.add(mur);
+        versionDecor++;
 
         /*
          * Recalculation du chemin des créatures volantes
@@ -465,6 +668,16 @@ public class Terrain implements Serializable
         return couleurMurs;
     }
     
+    /**
+     * Permet de recuperer la version du decor (fond, murs, dimensions)
+     * 
+     * @return la version, modifiee a chaque changement du decor
+     */
+    public int getVersionDecor()
+    {
+        return versionDecor;
+    }
+    
     /**
      * Permet de recuperer les équipes initiales du terrain
      * 
@@ -511,7 +724,12 @@ public class Terrain implements Serializable
         if (tour.getX() < 0 || tour.getX() > largeur-tour.width
          || tour.getY() < 0 || tour.getY() > hauteur-tour.height)
             return false;
-            
+        
+        // il n'y a ni mur, ni zone de depart ou d'arrivee (test direct)
+        GrilleDOccupation grille = grilleDOccupation;
+        if(grille != null && grille.peutTester(tour))
+            return grille.estLibre(tour);
+        
         // il n'y a pas un mur
         synchronized (murs)
         {
@@ -540,6 +758,10 @@ public class Terrain implements Serializable
     /**
      * Permet de savoir si apres la pose d'une tour en parametre le chemin
      * deviendra bloque ?
+     * <br>
+     * La verification se fait sur le champ de vecteurs de l'equipe, sans
+     * modifier de maillage : elle ne bloque ni les creatures, ni les
+     * autres poses de tours.
      * 
      * @param tour la tour a testee si elle bloquera le chemin
      * @return true si elle le bloquera lors de la pose, false sinon
@@ -549,7 +771,54 @@ public class Terrain implements Serializable
         // c'est une tour valide ?
         if (tour == null)
             return false;
-
+        
+        // FIXME on part du principe que le joueur ne peu blocker que son chemin
+        // car il construit sur son troncon... A VOIR!
+        Equipe equipe = tour.getPrioprietaire().getEquipe();
+        
+        Maillage_v2 champ = null;
+        if(champsDeVecteurs != null)
+            champ = champsDeVecteurs.get(equipe);
+        
+        if(champ == null)
+            return laTourBloqueraLeCheminDuMaillage(tour);
+        
+        // chaque zone de depart doit garder un chemin
+        int longueur = -1;
+        for(int i=0;i<equipe.getNbZonesDepart();i++)
+        {
+            Rectangle zoneDepart = equipe.getZoneDepartCreatures(i);
+            
+            int longueurDepuisZone = champ.getLongueurCheminSansLaZone(
+                    (int) zoneDepart.getCenterX(),
+                    (int) zoneDepart.getCenterY(), tour);
+            
+            if(longueurDepuisZone < 0)
+                return true;
+            
+            if(i == 0)
+                longueur = longueurDepuisZone;
+        }
+        
+        // mise a jour du chemin
+        if(longueur >= 0)
+            equipe.setLongueurChemin(longueur);
+        
+        return false;
+    }
+    
+    /**
+     * Permet de savoir si apres la pose d'une tour en parametre le chemin
+     * deviendra bloque en desactivant temporairement la zone dans le 
+     * maillage terrestre.
+     * <br>
+     * Utilise lorsque l'equipe n'a pas de champ de vecteurs.
+     * 
+     * @param tour la tour a testee si elle bloquera le chemin
+     * @return true si elle le bloquera lors de la pose, false sinon
+     */
+    private boolean laTourBloqueraLeCheminDuMaillage(Tour tour)
+    {
         // si l'on construit la tour, il existe toujours un chemin
         desactiverZone(tour, false);
 
@@ -652,7 +921,11 @@ public class Terrain implements Serializable
             
             // mise a jour des chemins si necessaire
             if (miseAJourDesCheminsDesCreatures)
+            {
+                miseAJourDesChampsDeVecteurs(zone, true);
+                
                 miseAJourDesCheminsDesCreatures();
+            }
         }
     }
 
@@ -672,12 +945,19 @@ public class Terrain implements Serializable
         
         // mise a jour des chemins si necessaire
         if (miseAJourDesCheminsDesCreatures)
+        {
+            miseAJourDesChampsDeVecteurs(zone, false);
+            
             miseAJourDesCheminsDesCreatures();
+        }
     }
 
     /**
      * Permet de mettre a jour les chemins des creatures lors de la modification
      * du maillage.
+     * <br>
+     * Les creatures qui suivent un champ de vecteurs ne sont pas concernees,
+     * leur champ a deja ete mis a jour.
      */
     synchronized private void miseAJourDesCheminsDesCreatures()
     {
@@ -690,7 +970,8 @@ public class Terrain implements Serializable
             creature = eCreatures.nextElement();
         
             // les tours n'affecte que le chemin des creatures terriennes
-            if (creature.getType() == Creature.TYPE_TERRIENNE)   
+            if (creature.getType() == Creature.TYPE_TERRIENNE
+             && creature.getChampDeVecteurs() == null)   
             {
                 Rectangle zoneArrivee = creature.getEquipeCiblee().getZoneArriveeCreatures();
                 
@@ -769,6 +1050,21 @@ public class Terrain implements Serializable
                     xArrivee, yArrivee);
     }
 
+    /**
+     * Permet de recuperer le champ de vecteurs qui mene les creatures
+     * terriennes jusqu'a la zone d'arrivee d'une equipe.
+     * 
+     * @param equipe l'equipe ciblee
+     * @return le champ de vecteurs ou null si le terrain n'est pas initialise
+     */
+    public ChampDeVecteurs getChampDeVecteurs(Equipe equipe)
+    {
+        if(champsDeVecteurs == null)
+            return null;
+        
+        return champsDeVecteurs.get(equipe);
+    }
+    
     /**
      * Permet de recuperer la liste des arcs actifs du maillage terrestre.
      * 
@@ -906,6 +1202,7 @@ public class Terrain implements Serializable
     public void setCouleurDeFond(Color couleurDeFond)
     {
         this.couleurDeFond = couleurDeFond;
+        versionDecor++;
     }
 
     public void setLargeurMaillage(int largeurMaillage)
@@ -926,7 +1223,10 @@ public class Terrain implements Serializable
 
     public void supprimerMur(Rectangle mur)
     {
-        murs.remove(mur);
+        if(murs.remove(mur) && grilleDOccupation != null)
+            grilleDOccupation.liberer(mur);
+        
+        versionDecor++;
     }
 
     public String getNomFichier()
@@ -942,6 +1242,7 @@ public class Terrain implements Serializable
     public void setCouleurMurs(Color couleur)
     {
         couleurMurs = couleur;
+        versionDecor++;
     }
 
     public void setBreveDescription(String breveDescription)
@@ -956,6 +1257,7 @@ public class Terrain implements Serializable
             throw new IllegalArgumentException("la largeur doit être > 0");
 
         this.largeur = largeur;
+        versionDecor++;
     }
 
     public void setHauteur(int hauteur)
@@ -964,6 +1266,7 @@ public class Terrain implements Serializable
             throw new IllegalArgumentException("la hauteur doit être > 0");
         
         this.hauteur = hauteur;
+        versionDecor++;
     }
 
     public void setNbPiecesOrInitiales(int nbPiecesOrInitiales)
@@ -990,6 +1293,7 @@ public class Terrain implements Serializable
     public void setOpaciteMurs(float opaciteMurs)
     {
         this.opaciteMurs = opaciteMurs;
+        versionDecor++;
     }
 
     public void setModeDeJeu(int modeDeJeu)
@@ -1000,4 +1304,4 @@ public class Terrain implements Serializable
     public void setFichierMusiqueDAmbiance(File fichierMusiqueDAmbiance) {
         this.fichierMusiqueDAmbiance = fichierMusiqueDAmbiance;
     }
-}
\ No newline at end of file
+}
\ No newline at end of file
@@ -22,44 +22,39 @@ import java.util.Enumeration;
 import java.util.Vector;
 import models.creatures.Creature;
 import models.jeu.Jeu;
+import models.outils.GrilleDOccupation;
+import models.terrains.Terrain;
 
 /**
  * Classe d'encapsulation des tours.
  * 
- * Permet de faire vivre toutes les tours sous le meme thread et ainsi 
- * aleger le processeur.
- * 
- * Toutes les tours tournent sous le meme clock.
+ * Les tours agissent a chaque pas de la boucle de jeu, toutes avec
+ * le meme temps ecoule.
  * 
  * @author Aurélien Da Campo
  * @version 1.1 | juin 2010
  * @since jdk1.6.0_16
  * @see Tour
  */
-public class GestionnaireTours implements Runnable
+public class GestionnaireTours
 {
-    private static final long TEMPS_ATTENTE = 50;
     private Vector<Tour> tours = new Vector<Tour>();
-    private boolean gestionEnCours;
     private Jeu jeu;
-    private boolean enPause = false;
-    private Object pause = new Object();
     
     /**
-     * Constructeur du gestionnaire des animations
+     * Grille d'occupation des tours, creee a la premiere utilisation.
+     * <br>
+     * Elle est modifiee avec la collection des tours, sous le verrou de 
+     * la collection.
      */
-    public GestionnaireTours(Jeu jeu)
-    {
-        this.jeu = jeu; 
-    }
+    private GrilleDOccupation grilleDOccupation;
     
     /**
-     * Permet de demarrer la gestion
+     * Constructeur du gestionnaire des animations
      */
-    public void demarrer()
+    public GestionnaireTours(Jeu jeu)
     {
-        Thread thread = new Thread(this);
-        thread.start();
+        this.jeu = jeu; 
     }
     
     /**
@@ -77,7 +72,11 @@ public class GestionnaireTours implements Runnable
         // arret du thread
         tour.arreter();
 
-        tours.remove(tour);
+        synchronized (tours)
+        {
+            if(tours.remove(tour) && grilleDOccupation != null)
+                grilleDOccupation.liberer(tour);
+        }
         
         // reactive la zone dans le maillage qui correspond a la tour
         jeu.getTerrain().activerZone(tour, true);
@@ -90,54 +89,58 @@ public class GestionnaireTours implements Runnable
      */
     public void ajouterTour(Tour tour)
     {
-        tours.add(tour);
+        synchronized (tours)
+        {
+            // la grille est creee avant l'ajout : elle ne compte la tour 
+            // qu'une seule fois
+            GrilleDOccupation grille = getGrilleDOccupation();
+            
+            tours.add(tour);
+            grille.occuper(tour);
+        }
     }
     
-    @Override
-    public void run()
+    /**
+     * Permet de recuperer la grille d'occupation des tours, a la taille
+     * du terrain.
+     * 
+     * @return la grille d'occupation
+     */
+    private GrilleDOccupation getGrilleDOccupation()
     {
-        gestionEnCours = true;
-        
-        while(gestionEnCours)
+        synchronized (tours)
         {
-            Tour tour;
-            Enumeration<Tour> eTours = tours.elements();
-            while(eTours.hasMoreElements())
+            if(grilleDOccupation == null)
             {
-                tour = eTours.nextElement();
-  
-                // anime l'animation
-                if(tour.estEnJeu())
-                    tour.action((long)(TEMPS_ATTENTE*jeu.getCoeffVitesse())); 
-            }
-          
-            // gestion de la pause
-            try{
-                synchronized (pause)
-                {
-                    if(enPause)
-                        pause.wait();
-                } 
-            } 
-            catch (InterruptedException e1){
-                e1.printStackTrace();
+                grilleDOccupation = new GrilleDOccupation(
+                        jeu.getTerrain().getLargeur(),
+                        jeu.getTerrain().getHauteur(),
+                        Terrain.PRECISION_OCCUPATION);
+                
+                for(Tour tour : tours)
+                    grilleDOccupation.occuper(tour);
             }
             
-            try{
-                 Thread.sleep(TEMPS_ATTENTE);
-            } 
-            catch (InterruptedException e){
-                 e.printStackTrace();
-            }
+            return grilleDOccupation;
         }
     }
     
     /**
-     * Permet d'arreter toutes les tours
+     * Permet de faire agir toutes les tours pendant un pas de simulation
+     * 
+     * @param tempsEcoule le temps de jeu ecoule depuis le dernier pas (ms)
      */
-    public void arreterTours()
+    public void mettreAJour(long tempsEcoule)
     {
-        gestionEnCours = false;
+        Tour tour;
+        Enumeration<Tour> eTours = tours.elements();
+        while(eTours.hasMoreElements())
+        {
+            tour = eTours.nextElement();
+
+            if(tour.estEnJeu())
+                tour.action(tempsEcoule); 
+        }
     }
     
     /**
@@ -149,26 +152,6 @@ public class GestionnaireTours implements Runnable
         return (Vector<Tour>) tours.clone();
     }
 
-    /**
-     * Permet de mettre les tours en pause.
-     */
-    public void mettreEnPause()
-    {
-        enPause = true;
-    }
-    
-    /**
-     * Permet de sortir les tours de la pause.
-     */
-    public void sortirDeLaPause()
-    { 
-        synchronized (pause)
-        {
-            enPause = false;
-            pause.notify(); 
-        }
-    }
-
     /**
      * Permet de savoir si une tour peut etre posee.
      * 
@@ -190,15 +173,24 @@ public class GestionnaireTours implements Runnable
             return false;
         
         // il n'y a pas deja une tour
-        Tour tourCourante;
-        Enumeration<Tour> eTours = tours.elements();
-        while(eTours.hasMoreElements())
+        GrilleDOccupation grille = getGrilleDOccupation();
+        if(grille.peutTester(tour))
         {
-            tourCourante = eTours.nextElement();
-
-            if (tour.intersects(tourCourante))
+            if(!grille.estLibre(tour))
                 return false;
         }
+        else
+        {
+            Tour tourCourante;
+            Enumeration<Tour> eTours = tours.elements();
+            while(eTours.hasMoreElements())
+            {
+                tourCourante = eTours.nextElement();
+    
+                if (tour.intersects(tourCourante))
+                    return false;
+            }
+        }
         
         // elle est dans la zone de construction du joueur
         if(!tour.getPrioprietaire().getEmplacement().getZoneDeConstruction().contains(tour))
@@ -209,12 +201,9 @@ public class GestionnaireTours implements Runnable
             return false;
 
         // il n'y a pas deja une creature
-        Creature creature;
-        Enumeration<Creature> eCreatures = jeu.getCreatures().elements();
-        while(eCreatures.hasMoreElements())
+        for(Creature creature : jeu.getCreaturesDansLaZone(tour.getMinX(), 
+                tour.getMinY(), tour.getMaxX(), tour.getMaxY()))
         {
-            creature = eCreatures.nextElement();
-        
             if (tour.intersects(creature))
                 return false;
         }
@@ -260,7 +249,10 @@ public class GestionnaireTours implements Runnable
 
     public void detruire()
     {
-        arreterTours();
-        tours.clear();
+        synchronized (tours)
+        {
+            tours.clear();
+            grilleDOccupation = null;
+        }
     }
 }
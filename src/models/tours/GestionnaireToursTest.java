@@ -0,0 +1,131 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package models.tours;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import models.jeu.Jeu;
+import models.jeu.Jeu_Solo;
+import models.joueurs.Equipe;
+import models.joueurs.Joueur;
+import models.terrains.ElementTD;
+import models.terrains.Terrain;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class GestionnaireToursTest
+{
+   Jeu jeu;
+   Joueur joueur;
+   
+   @Before
+   public void setUp() throws Exception
+   {
+      jeu = new Jeu_Solo();
+      
+      Terrain terrain = new ElementTD(jeu);
+      terrain.initialiser();
+      jeu.setTerrain(terrain);
+      
+      Equipe equipe = jeu.getEquipes().get(0);
+      joueur = new Joueur("joueur");
+      equipe.ajouterJoueur(joueur);
+      jeu.setJoueurPrincipal(joueur);
+      jeu.initialiser();
+      
+      joueur.setNbPiecesDOr(1000000);
+   }
+   
+   @After
+   public void tearDown()
+   {
+      jeu.detruire();
+   }
+   
+   /**
+    * Permet de trouver une tour qui peut etre posee sur un terrain vide
+    */
+   private Tour getTourPosable()
+   {
+      GestionnaireTours vide = new GestionnaireTours(jeu);
+      Rectangle zone = joueur.getEmplacement().getZoneDeConstruction();
+      
+      for(int x = zone.x - zone.x % 10 + 10; x < zone.getMaxX(); x += 10)
+         for(int y = zone.y - zone.y % 10 + 10; y < zone.getMaxY(); y += 10)
+         {
+            Tour tour = nouvelleTour(x, y);
+            
+            if(vide.laTourPeutEtrePosee(tour))
+               return tour;
+         }
+      
+      fail("Aucune position libre");
+      return null;
+   }
+   
+   private Tour nouvelleTour(int x, int y)
+   {
+      Tour tour = new TourArcher();
+      tour.setLocation(x, y);
+      tour.setProprietaire(joueur);
+      return tour;
+   }
+   
+   /**
+    * Une tour ajoutee avant la creation de la grille d'occupation n'y est 
+    * comptee qu'une fois : la place est libre apres sa suppression.
+    */
+   @Test
+   public void testSupprimerTourApresAjoutSansGrille()
+   {
+      Tour tour = getTourPosable();
+      GestionnaireTours gt = new GestionnaireTours(jeu);
+      
+      gt.ajouterTour(tour);
+      assertFalse(gt.laTourPeutEtrePosee(nouvelleTour(tour.x, tour.y)));
+      
+      gt.supprimerTour(tour);
+      assertTrue(gt.laTourPeutEtrePosee(nouvelleTour(tour.x, tour.y)));
+   }
+   
+   /**
+    * Test method for {@link GestionnaireTours#ajouterTour(Tour)} 
+    * et {@link GestionnaireTours#supprimerTour(Tour)}.
+    */
+   @Test
+   public void testAjouterSupprimerTour()
+   {
+      Tour tour = getTourPosable();
+      GestionnaireTours gt = new GestionnaireTours(jeu);
+      
+      assertTrue(gt.laTourPeutEtrePosee(tour));
+      
+      gt.ajouterTour(tour);
+      assertEquals(1, gt.getTours().size());
+      assertFalse(gt.laTourPeutEtrePosee(nouvelleTour(tour.x, tour.y)));
+      
+      gt.supprimerTour(tour);
+      assertEquals(0, gt.getTours().size());
+      assertTrue(gt.laTourPeutEtrePosee(nouvelleTour(tour.x, tour.y)));
+   }
+}
@@ -21,7 +21,8 @@ package models.tours;
 import i18n.Langue;
 
 import java.awt.*;
-import java.util.Enumeration;
+import java.util.ArrayList;
+import java.util.Iterator;
 import models.creatures.Creature;
 import models.jeu.Jeu;
 import models.joueurs.Joueur;
@@ -556,14 +557,14 @@ public abstract class Tour extends Rectangle
 		
 		double tmpDistance = 0;
 
-		// bloque la reference vers la collection des creatures
+		// seules les creatures autour de la tour peuvent etre a portee
 		Creature creature;
-        Enumeration<Creature> eCreatures = jeu.getCreatures().elements();
-        while(eCreatures.hasMoreElements())
+        Iterator<Creature> eCreatures = getCreaturesAutour().iterator();
+        while(eCreatures.hasNext())
         {
             try{
                 
-                creature = eCreatures.nextElement();
+                creature = eCreatures.next();
                 
         		// si la creature est accessible
         	    if (creature.peutEtreAttaquee(this))
@@ -615,14 +616,14 @@ public abstract class Tour extends Rectangle
         if(plusFaible) 
             santeMinMax = Long.MAX_VALUE;
 
-        // bloque la reference vers la collection des creatures
+        // seules les creatures autour de la tour peuvent etre a portee
         Creature creature;
-        Enumeration<Creature> eCreatures = jeu.getCreatures().elements();
-        while(eCreatures.hasMoreElements())
+        Iterator<Creature> eCreatures = getCreaturesAutour().iterator();
+        while(eCreatures.hasNext())
         {
             try{
                 
-                creature = eCreatures.nextElement();
+                creature = eCreatures.next();
                 
                 // si la creature est accessible
                 if (creature.peutEtreAttaquee(this))
@@ -665,6 +666,18 @@ public abstract class Tour extends Rectangle
 		return Point.distance(x, y, creature.x, creature.y);
 	}
 	
+	/**
+	 * Permet de recuperer les creatures qui peuvent etre a portee de la tour,
+	 * c'est-a-dire celles qui touchent le carre de la portee.
+	 * 
+	 * @return les creatures autour de la tour
+	 */
+	private ArrayList<Creature> getCreaturesAutour()
+	{
+	    return jeu.getCreaturesDansLaZone(x - rayonPortee, y - rayonPortee,
+	                                      x + rayonPortee, y + rayonPortee);
+	}
+	
     /**
      * Permet de recuperer le temps ecouler depuis le dernier appel de cette meme 
      * fonction
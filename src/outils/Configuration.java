@@ -50,6 +50,11 @@ public class Configuration
     public static final String COULEUR_TEXTE_S      = "COULEUR_TEXTE_S";
     public static final String COULEUR_TEXTE_B      = "COULEUR_TEXTE_B";
     
+    // AFFICHAGE
+    public static final String RENDU_ACTIF          = "RENDU_ACTIF";
+    public static final String FPS_MAX              = "FPS_MAX";
+    public static final String SYNCHRO_VERTICALE    = "SYNCHRO_VERTICALE";
+    
     // RESEAU
     private static String IP_SE;
     private static int PORT_SE;
@@ -148,4 +153,61 @@ public class Configuration
     {
         return Integer.parseInt(config.getProperty(cle));
     }
+    
+    /**
+     * Permet de savoir si le terrain doit etre dessine en rendu actif
+     * (voir vues.commun.Panel_Terrain)
+     * 
+     * @return true si le rendu actif est demande, false sinon ou si la cle
+     *         est absente du fichier de configuration
+     */
+    public static boolean getRenduActif()
+    {
+        try
+        {
+            return Boolean.parseBoolean(config.getProperty(RENDU_ACTIF));
+        }
+        catch(IllegalArgumentException e)
+        {
+            // fichier de configuration d'une version precedente
+            return false;
+        }
+    }
+    
+    /**
+     * Permet de recuperer le nombre maximum d'images par seconde du terrain
+     * (voir vues.commun.Panel_Terrain)
+     * 
+     * @param defaut la valeur si la cle est absente ou invalide
+     * @return le nombre maximum d'images par seconde
+     */
+    public static int getFpsMax(int defaut)
+    {
+        String valeur = config.getProperty(FPS_MAX);
+        
+        // fichier de configuration d'une version precedente
+        if(valeur == null)
+            return defaut;
+        
+        try
+        {
+            return Integer.parseInt(valeur.trim());
+        }
+        catch(NumberFormatException e)
+        {
+            return defaut;
+        }
+    }
+    
+    /**
+     * Permet de savoir si le terrain doit etre synchronise avec l'ecran
+     * (voir vues.commun.Panel_Terrain)
+     * 
+     * @return true si la synchronisation verticale est demandee, false 
+     *         sinon ou si la cle est absente du fichier de configuration
+     */
+    public static boolean getSynchroVerticale()
+    {
+        return Boolean.parseBoolean(config.getProperty(SYNCHRO_VERTICALE));
+    }
 }
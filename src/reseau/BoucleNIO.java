@@ -0,0 +1,178 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * Boucle d'evenements reseau : un thread et un selecteur NIO.
+ * <p>
+ * Les boucles forment un groupe fixe partage par tout le processus
+ * (voir {@link #getBoucle()}) : les serveurs et les connexions y sont
+ * repartis a tour de role. Le nombre de threads ne depend donc ni du nombre
+ * de joueurs ni du nombre de parties hebergees.
+ * <p>
+ * Les selecteurs ne sont manipules que depuis leur thread. Les autres
+ * threads passent par {@link #executer(Runnable)}.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see ServeurNIO
+ * @see ConnexionNIO
+ */
+public class BoucleNIO implements Runnable
+{
+    /**
+     * Nombre de boucles du groupe
+     */
+    public static final int NB_BOUCLES = Math.max(2, Runtime.getRuntime().availableProcessors());
+
+    /**
+     * Le groupe de boucles, cree a la premiere utilisation
+     */
+    private static BoucleNIO[] boucles;
+
+    /**
+     * Indice de la prochaine boucle attribuee
+     */
+    private static int prochaineBoucle = 0;
+
+    /**
+     * Le selecteur de la boucle
+     */
+    private final Selector selecteur;
+
+    /**
+     * Taches a executer dans le thread de la boucle
+     */
+    private final ConcurrentLinkedQueue<Runnable> taches = new ConcurrentLinkedQueue<Runnable>();
+
+    /**
+     * Permet de recuperer une boucle du groupe, a tour de role
+     *
+     * @return la boucle
+     * @throws IOException si le selecteur ne peut pas etre ouvert
+     */
+    synchronized public static BoucleNIO getBoucle() throws IOException
+    {
+        if(boucles == null)
+        {
+            BoucleNIO[] nouvellesBoucles = new BoucleNIO[NB_BOUCLES];
+
+            for(int i = 0; i < NB_BOUCLES; i++)
+                nouvellesBoucles[i] = new BoucleNIO(i);
+
+            boucles = nouvellesBoucles;
+        }
+
+        BoucleNIO boucle = boucles[prochaineBoucle];
+        prochaineBoucle = (prochaineBoucle + 1) % NB_BOUCLES;
+
+        return boucle;
+    }
+
+    /**
+     * Constructeur
+     *
+     * @param numero le numero de la boucle
+     * @throws IOException si le selecteur ne peut pas etre ouvert
+     */
+    private BoucleNIO(int numero) throws IOException
+    {
+        selecteur = Selector.open();
+
+        Thread thread = new Thread(this, "BoucleNIO-" + numero);
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Permet d'executer une tache dans le thread de la boucle
+     *
+     * @param tache la tache
+     */
+    public void executer(Runnable tache)
+    {
+        taches.add(tache);
+        selecteur.wakeup();
+    }
+
+    /**
+     * @return le selecteur de la boucle (a n'utiliser que dans son thread)
+     */
+    Selector getSelecteur()
+    {
+        return selecteur;
+    }
+
+    /**
+     * Boucle d'evenements
+     */
+    public void run()
+    {
+        while(true)
+        {
+            try
+            {
+                selecteur.select();
+
+                Runnable tache;
+                while((tache = taches.poll()) != null)
+                {
+                    try
+                    {
+                        tache.run();
+                    }
+                    catch(RuntimeException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+
+                Iterator<SelectionKey> iCles = selecteur.selectedKeys().iterator();
+                while(iCles.hasNext())
+                {
+                    SelectionKey cle = iCles.next();
+                    iCles.remove();
+
+                    if(!cle.isValid())
+                        continue;
+
+                    try
+                    {
+                        ((ElementNIO) cle.attachment()).pret(cle);
+                    }
+                    catch(RuntimeException e)
+                    {
+                        e.printStackTrace();
+                    }
+                }
+            }
+            catch(IOException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+}
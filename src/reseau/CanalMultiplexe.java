@@ -0,0 +1,227 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+import java.io.*;
+import java.net.ConnectException;
+import java.net.Socket;
+import java.util.concurrent.LinkedBlockingQueue;
+
+/**
+ * Canal multiplexe cote client (voir {@link ConnexionNIO}).
+ * <p>
+ * Le client reste bloquant : un thread lit la connexion et range chaque
+ * trame dans la file de sa voie. Les reponses aux requetes et les messages
+ * de mise a jour sont donc lus independamment, comme s'il y avait deux
+ * canaux, sur une seule connexion.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class CanalMultiplexe implements Runnable
+{
+    /**
+     * Marque de fin de la connexion dans les files
+     */
+    private static final byte[] FIN = new byte[0];
+
+    /**
+     * La socket
+     */
+    private final Socket socket;
+
+    /**
+     * Les flux de la socket
+     */
+    private final DataInputStream canalIn;
+    private final DataOutputStream canalOut;
+
+    /**
+     * Trames recues par voie
+     */
+    private final LinkedBlockingQueue<byte[]> requetes  = new LinkedBlockingQueue<byte[]>();
+    private final LinkedBlockingQueue<byte[]> miseAJour = new LinkedBlockingQueue<byte[]>();
+
+    /**
+     * Constructeur, se connecte au serveur
+     *
+     * @param adresseIp l'adresse du serveur
+     * @param numeroPort le port du serveur
+     * @throws ConnectException si la connexion est refusee
+     * @throws CanalException si une erreur de connexion survient
+     */
+    public CanalMultiplexe(String adresseIp, int numeroPort)
+        throws ConnectException, CanalException
+    {
+        try
+        {
+            socket = new Socket(adresseIp, numeroPort);
+            socket.setTcpNoDelay(true);
+
+            canalIn  = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            canalOut = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        }
+        catch (ConnectException e)
+        {
+            throw e;
+        }
+        catch (IOException e)
+        {
+            throw new CanalException(e);
+        }
+
+        Thread thread = new Thread(this, "CanalMultiplexe");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Permet d'envoyer une trame
+     *
+     * @param voie la voie
+     * @param donnees le contenu
+     * @throws CanalException si la connexion est rompue
+     */
+    public void envoyer(byte voie, byte[] donnees) throws CanalException
+    {
+        synchronized (canalOut)
+        {
+            try
+            {
+                canalOut.writeInt(donnees.length + 1);
+                canalOut.writeByte(voie);
+                canalOut.write(donnees);
+                canalOut.flush();
+            }
+            catch (IOException e)
+            {
+                throw new CanalException(e);
+            }
+        }
+    }
+
+    /**
+     * Permet d'envoyer une chaine de caracteres (UTF-8)
+     *
+     * @param voie la voie
+     * @param message la chaine
+     * @throws CanalException si la connexion est rompue
+     */
+    public void envoyerString(byte voie, String message) throws CanalException
+    {
+        envoyer(voie, ConnexionNIO.versOctets(message));
+    }
+
+    /**
+     * Permet d'attendre la prochaine trame d'une voie
+     *
+     * @param voie la voie
+     * @return le contenu de la trame
+     * @throws CanalException si la connexion est rompue
+     */
+    public byte[] recevoir(byte voie) throws CanalException
+    {
+        LinkedBlockingQueue<byte[]> file = getFile(voie);
+
+        try
+        {
+            byte[] donnees = file.take();
+
+            if(donnees == FIN)
+            {
+                // les autres lecteurs de la voie doivent aussi le savoir
+                file.add(FIN);
+                throw new CanalException("Connexion fermee");
+            }
+
+            return donnees;
+        }
+        catch (InterruptedException e)
+        {
+            throw new CanalException(e);
+        }
+    }
+
+    /**
+     * Permet d'attendre la prochaine chaine de caracteres d'une voie
+     *
+     * @param voie la voie
+     * @return la chaine
+     * @throws CanalException si la connexion est rompue
+     */
+    public String recevoirString(byte voie) throws CanalException
+    {
+        return ConnexionNIO.versString(recevoir(voie));
+    }
+
+    /**
+     * Permet de fermer le canal
+     */
+    public void fermer()
+    {
+        try
+        {
+            socket.close();
+        }
+        catch (IOException e)
+        {
+            // deja ferme
+        }
+    }
+
+    /**
+     * Tache de lecture de la connexion
+     */
+    public void run()
+    {
+        try
+        {
+            while(true)
+            {
+                int taille = canalIn.readInt();
+
+                if(taille <= 0 || taille > ConnexionNIO.TAILLE_MAX_TRAME)
+                    throw new IOException("Taille de trame invalide : " + taille);
+
+                byte voie = canalIn.readByte();
+                byte[] donnees = new byte[taille - 1];
+                canalIn.readFully(donnees);
+
+                getFile(voie).add(donnees);
+            }
+        }
+        catch (IOException e)
+        {
+            // fin de la connexion
+        }
+        finally
+        {
+            fermer();
+
+            requetes.add(FIN);
+            miseAJour.add(FIN);
+        }
+    }
+
+    private LinkedBlockingQueue<byte[]> getFile(byte voie)
+    {
+        return voie == ConnexionNIO.VOIE_MISE_A_JOUR ? miseAJour : requetes;
+    }
+}
@@ -25,6 +25,10 @@ import java.util.*;
 /**
  * Cette classe implémente un canal de transmission sur lequel on peut envoyer
  * diverses données ainsi qu'en lire.
+ * <p>
+ * Les données sont écrites telles quelles (DataOutputStream bufferisé) : 
+ * pas d'en-tête ni de blocs de sérialisation, seuls les paquets sont 
+ * sérialisés. Chaque envoi vide le tampon une seule fois.
  * 
  * @author Lazhar Farjallah
  * 
@@ -36,8 +40,8 @@ public class CanalTCP
    private Socket socket;
    
    // Les flux In/Out sont utilisés pour lire/écrire depuis/sur le canal.
-   private ObjectInputStream canalIn;
-   private ObjectOutputStream canalOut;
+   private DataInputStream canalIn;
+   private DataOutputStream canalOut;
    
    // Pour savoir si on affiche les messages de debug dans la console
    // (pratique...).
@@ -177,26 +181,19 @@ public class CanalTCP
    {
       try
       {
+         // Les messages sont petits et en requête / réponse : les envois
+         // sont regroupés par le tampon, l'algorithme de Nagle ne ferait que
+         // retarder chaque réponse.
+         socket.setTcpNoDelay(true);
+         
          // Récupérer les flux déjà associés à la socket créée.
          InputStream generalIn = socket.getInputStream();
          OutputStream generalOut = socket.getOutputStream();
          
-         // Nous voulons écrire toutes sortes d'informations sur le canal. Le
-         // filtre le
-         // plus approprié est donc Object.
-         // On crée d'abord le flux de sortie puis on le flush() avant de
-         // créer le flux
-         // d'entrée, sinon le constructeur du flux d'entrée peut bloquer
-         // (voir la doc
-         // de l'API pour plus d'infos). Cela ne convient qu'aux flux
-         // d'objets, et non
-         // aux flux de données (Data Streams).
-         // Il ne faut enfin pas oublier d'envoyer des objets sur le flux de
-         // sortie qui
-         // sont sérialisés (ils doivent implémenter java.io.Serializable).
-         canalOut = new ObjectOutputStream(generalOut);
-         canalOut.flush();
-         canalIn = new ObjectInputStream(generalIn);
+         // Flux de données bufferisés : les types de base sont écrits tels
+         // quels et le tampon n'est vidé qu'à la fin d'un envoi.
+         canalOut = new DataOutputStream(new BufferedOutputStream(generalOut));
+         canalIn = new DataInputStream(new BufferedInputStream(generalIn));
       } catch (Exception e)
       {
          logErreur("Survenue pendant la configuration des flux In/Out");
@@ -220,8 +217,6 @@ public class CanalTCP
       try
       {
          canalOut.writeUTF(message);
-         // Ne pas oublier de vider le flux de sortie après avoir écrit
-         // dessus!
          canalOut.flush();
       } catch (Exception e)
       {
@@ -273,8 +268,6 @@ public class CanalTCP
       try
       {
          canalOut.writeInt(i);
-         // Ne pas oublier de vider le flux de sortie après avoir écrit
-         // dessus!
          canalOut.flush();
       } 
       catch (Exception e)
@@ -326,8 +319,6 @@ public class CanalTCP
       try
       {
          canalOut.writeDouble(d);
-         // Ne pas oublier de vider le flux de sortie après avoir écrit
-         // dessus!
          canalOut.flush();
       } catch (Exception e)
       {
@@ -377,8 +368,6 @@ public class CanalTCP
       try
       {
          canalOut.write(b);
-         // Ne pas oublier de vider le flux de sortie après avoir écrit
-         // dessus!
          canalOut.flush();
       } catch (Exception e)
       {
@@ -415,6 +404,59 @@ public class CanalTCP
       return bytesRecus;
    }
    
+   /**
+    * Cette méthode envoie une trame sur le canal de transmission : sa taille
+    * (int) suivie de ses octets, avec un seul flush.
+    * 
+    * @param trame les octets de la trame
+    * @throws CanalException
+    *            Si un problème de transmission survient.
+    */
+   public void envoyerTrame(byte[] trame) throws CanalException
+   {
+      log("Canal: envoi d'une trame de " + trame.length + " bytes");
+      
+      try
+      {
+         canalOut.writeInt(trame.length);
+         canalOut.write(trame);
+         canalOut.flush();
+      } 
+      catch (Exception e)
+      {
+         logErreur("Survenue pendant l'envoi de la trame");
+         throw new CanalException(e);
+      }
+   }
+   
+   /**
+    * Cette méthode permet d'attendre de recevoir une trame envoyée avec
+    * {@link #envoyerTrame(byte[])}.
+    * 
+    * @return les octets de la trame
+    * @throws CanalException
+    */
+   public byte[] recevoirTrame() throws CanalException
+   {
+      log("Canal: en attente d'une trame ...");
+      
+      try
+      {
+         byte[] trame = new byte[canalIn.readInt()];
+         canalIn.readFully(trame);
+         
+         log("Canal: réception d'une trame de " + trame.length + " bytes");
+         
+         return trame;
+      } 
+      catch (Exception e)
+      {
+         // On laisse le choix d'affichage au programme client dans la gestion des
+         // exceptions associée.
+         throw new CanalException(e);
+      }
+   }
+   
    /**
     * Cette méthode envoie un message sur le canal de transmission sous forme de
     * Paquet (objet de la classe Paquet).
@@ -426,19 +468,26 @@ public class CanalTCP
    {
       log("Canal: envoi du paquet " + p);
 
+      byte[] octets;
+      
       try
       {
-         canalOut.writeObject(p);
-         // Ne pas oublier de vider le flux de sortie après avoir écrit
-         // dessus!
-         canalOut.flush();
+         // Seuls les paquets sont sérialisés, dans une trame à part : le
+         // reste du canal n'a pas à porter un flux d'objets.
+         ByteArrayOutputStream tampon = new ByteArrayOutputStream();
+         ObjectOutputStream objetOut = new ObjectOutputStream(tampon);
+         objetOut.writeObject(p);
+         objetOut.close();
+         
+         octets = tampon.toByteArray();
       }
-
       catch (Exception e)
       {
-         logErreur("Survenue pendant l'envoi du paquet");
+         logErreur("Survenue pendant la sérialisation du paquet");
          throw new CanalException(e);
       }
+      
+      envoyerTrame(octets);
    }
    
    /**
@@ -456,7 +505,9 @@ public class CanalTCP
       
       try
       {
-         paquetRecu = (Paquet) (canalIn.readObject());
+         ObjectInputStream objetIn = new ObjectInputStream(
+               new ByteArrayInputStream(recevoirTrame()));
+         paquetRecu = (Paquet) (objetIn.readObject());
          
          if (paquetRecu != null)
          {
@@ -512,7 +563,7 @@ public class CanalTCP
    /**
     * @return the canalIn
     */
-   public ObjectInputStream getCanalIn()
+   public DataInputStream getCanalIn()
    {
       return canalIn;
    }
@@ -520,7 +571,7 @@ public class CanalTCP
    /**
     * @return the canalOut
     */
-   public ObjectOutputStream getCanalOut()
+   public DataOutputStream getCanalOut()
    {
       return canalOut;
    }
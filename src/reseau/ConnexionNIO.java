@@ -0,0 +1,648 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.*;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Connexion multiplexee non bloquante cote serveur.
+ * <p>
+ * Une seule connexion TCP par client transporte des trames : un entier
+ * (taille), un octet (voie) puis le contenu. La voie separe les requetes
+ * et leurs reponses ({@link #VOIE_REQUETES}) des messages envoyes par le
+ * serveur de sa propre initiative ({@link #VOIE_MISE_A_JOUR}).
+ * <p>
+ * L'envoi ne bloque jamais : la trame est mise en file et ecrite par la
+ * boucle de la connexion quand le canal est pret. La file est bornee
+ * ({@link #TAILLE_MAX_FILE}) : un client trop lent pour la vider est
+ * deconnecte plutot que de retarder les autres. Un message remplacable
+ * (l'etat du jeu) dont les trames ne sont pas encore parties est abandonne
+ * quand un message remplacable plus recent est envoye.
+ * <p>
+ * Au format {@link #FORMAT_CHAINES_UTF}, la connexion parle le protocole
+ * de {@link CanalTCP} : chaque trame est une chaine ecrite par
+ * {@link DataOutputStream#writeUTF(String)} (deux octets de taille puis la 
+ * chaine en UTF-8 modifie), sans voie. Les trames recues arrivent sur la 
+ * voie {@link #VOIE_REQUETES}.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see CanalMultiplexe
+ */
+public class ConnexionNIO implements ElementNIO
+{
+    /**
+     * Voie des requetes et des reponses
+     */
+    public static final byte VOIE_REQUETES = 0;
+
+    /**
+     * Voie des messages de mise a jour
+     */
+    public static final byte VOIE_MISE_A_JOUR = 1;
+
+    /**
+     * Format des trames : taille, voie et contenu
+     */
+    public static final int FORMAT_TRAMES = 0;
+
+    /**
+     * Format des trames : chaines de {@link DataOutputStream#writeUTF(String)}
+     */
+    public static final int FORMAT_CHAINES_UTF = 1;
+
+    /**
+     * Taille maximum d'une chaine au format {@link #FORMAT_CHAINES_UTF}
+     */
+    public static final int TAILLE_MAX_CHAINE = 65535;
+
+    /**
+     * Taille maximum d'une trame
+     */
+    public static final int TAILLE_MAX_TRAME = 16 * 1024 * 1024;
+
+    /**
+     * Taille maximum des trames en attente d'ecriture, en octets
+     */
+    public static final int TAILLE_MAX_FILE = 2 * 1024 * 1024;
+
+    /**
+     * Taille initiale du tampon de lecture
+     */
+    private static final int TAILLE_TAMPON = 8192;
+
+    /**
+     * Le canal du client
+     */
+    private final SocketChannel canal;
+
+    /**
+     * La boucle de la connexion
+     */
+    private final BoucleNIO boucle;
+
+    /**
+     * L'ecouteur de la connexion
+     */
+    private final EcouteurDeConnexion ecouteur;
+
+    /**
+     * Le format des trames
+     */
+    private final int format;
+
+    /**
+     * La cle du canal (thread de la boucle)
+     */
+    private SelectionKey cle;
+
+    /**
+     * Tampon de lecture (thread de la boucle)
+     */
+    private ByteBuffer lecture = ByteBuffer.allocate(TAILLE_TAMPON);
+
+    /**
+     * Trames en attente d'ecriture (protegee par elle-meme)
+     */
+    private final ArrayDeque<Trame> aEcrire = new ArrayDeque<Trame>();
+
+    /**
+     * Taille des trames en attente d'ecriture, en octets
+     */
+    private int tailleFile = 0;
+
+    /**
+     * Une ecriture est deja demandee a la boucle
+     */
+    private final AtomicBoolean ecritureDemandee = new AtomicBoolean(false);
+
+    /**
+     * La connexion est fermee
+     */
+    private volatile boolean fermee = false;
+
+    /**
+     * Objet associe a la connexion par l'ecouteur
+     */
+    private volatile Object attachement;
+
+    /**
+     * Ecriture des trames en attente, dans le thread de la boucle
+     */
+    private final Runnable tacheEcriture = new Runnable()
+    {
+        public void run()
+        {
+            ecritureDemandee.set(false);
+            ecrire();
+        }
+    };
+
+    /**
+     * Constructeur
+     *
+     * @param canal le canal accepte
+     * @param boucle la boucle de la connexion
+     * @param ecouteur l'ecouteur de la connexion
+     * @param format le format des trames
+     * @throws IOException si le canal ne peut pas etre configure
+     */
+    ConnexionNIO(SocketChannel canal, BoucleNIO boucle, EcouteurDeConnexion ecouteur, 
+                 int format) throws IOException
+    {
+        this.canal    = canal;
+        this.boucle   = boucle;
+        this.ecouteur = ecouteur;
+        this.format   = format;
+
+        canal.configureBlocking(false);
+        canal.socket().setTcpNoDelay(true);
+
+        boucle.executer(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    cle = ConnexionNIO.this.canal.register(
+                            ConnexionNIO.this.boucle.getSelecteur(),
+                            SelectionKey.OP_READ, ConnexionNIO.this);
+
+                    ConnexionNIO.this.ecouteur.connexionOuverte(ConnexionNIO.this);
+                }
+                catch (ClosedChannelException e)
+                {
+                    fermerMaintenant();
+                }
+            }
+        });
+    }
+
+    /**
+     * Permet d'envoyer une trame
+     *
+     * @param voie la voie
+     * @param donnees le contenu
+     * @throws CanalException si la connexion est fermee ou si la file 
+     *         d'envoi deborde (la connexion est alors fermee)
+     */
+    public void envoyer(byte voie, byte[] donnees) throws CanalException
+    {
+        envoyer(voie, donnees, null);
+    }
+
+    /**
+     * Permet d'envoyer une trame qui peut etre remplacee
+     *
+     * @param voie la voie
+     * @param donnees le contenu
+     * @param message le message remplacable dont la trame fait partie 
+     *        (un message peut tenir en plusieurs trames) ou null. Les 
+     *        trames d'un autre message remplacable qui ne sont pas encore
+     *        parties sont abandonnees.
+     * @throws CanalException si la connexion est fermee ou si la file 
+     *         d'envoi deborde (la connexion est alors fermee)
+     */
+    public void envoyer(byte voie, byte[] donnees, Object message) throws CanalException
+    {
+        if(fermee)
+            throw new CanalException("Connexion fermee");
+
+        if(format == FORMAT_CHAINES_UTF && donnees.length > TAILLE_MAX_CHAINE)
+            throw new CanalException("Chaine trop longue : " + donnees.length + " octets");
+
+        Trame trame = new Trame(format, voie, donnees, message);
+
+        synchronized (aEcrire)
+        {
+            // abandon des trames remplacees qui ne sont pas encore parties
+            if(message != null)
+            {
+                Iterator<Trame> iTrames = aEcrire.iterator();
+                while(iTrames.hasNext())
+                {
+                    Trame ancienne = iTrames.next();
+
+                    if(ancienne.message != null && ancienne.message != message 
+                    && ancienne.octets.position() == 0)
+                    {
+                        tailleFile -= ancienne.octets.limit();
+                        iTrames.remove();
+                    }
+                }
+            }
+
+            // client trop lent
+            if(tailleFile + trame.octets.limit() > TAILLE_MAX_FILE)
+            {
+                fermer();
+                throw new CanalException("File d'envoi pleine");
+            }
+
+            aEcrire.add(trame);
+            tailleFile += trame.octets.limit();
+        }
+
+        if(ecritureDemandee.compareAndSet(false, true))
+            boucle.executer(tacheEcriture);
+    }
+
+    /**
+     * Permet d'envoyer une chaine de caracteres (UTF-8, ou UTF-8 modifie 
+     * au format {@link #FORMAT_CHAINES_UTF})
+     *
+     * @param voie la voie
+     * @param message la chaine
+     * @throws CanalException si la connexion est fermee
+     */
+    public void envoyerString(byte voie, String message) throws CanalException
+    {
+        if(format == FORMAT_CHAINES_UTF)
+            envoyer(voie, versOctetsUTF(message));
+        else
+            envoyer(voie, versOctets(message));
+    }
+
+    /**
+     * Permet de fermer la connexion
+     */
+    public void fermer()
+    {
+        boucle.executer(new Runnable()
+        {
+            public void run()
+            {
+                fermerMaintenant();
+            }
+        });
+    }
+
+    /**
+     * @return true si la connexion est fermee
+     */
+    public boolean estFermee()
+    {
+        return fermee;
+    }
+
+    /**
+     * @return l'adresse du client
+     */
+    public String getIpClient()
+    {
+        return canal.socket().getInetAddress().getHostAddress();
+    }
+
+    /**
+     * @return l'objet associe a la connexion
+     */
+    public Object getAttachement()
+    {
+        return attachement;
+    }
+
+    /**
+     * @param attachement l'objet a associer a la connexion
+     */
+    public void setAttachement(Object attachement)
+    {
+        this.attachement = attachement;
+    }
+
+    @Override
+    public void pret(SelectionKey cle)
+    {
+        if(cle.isReadable())
+            lire();
+
+        if(!fermee && cle.isValid() && cle.isWritable())
+            ecrire();
+    }
+
+    /**
+     * Lit les donnees disponibles et transmet les trames completes
+     */
+    private void lire()
+    {
+        try
+        {
+            if(canal.read(lecture) == -1)
+            {
+                fermerMaintenant();
+                return;
+            }
+        }
+        catch (IOException e)
+        {
+            fermerMaintenant();
+            return;
+        }
+
+        lecture.flip();
+
+        int entete = format == FORMAT_CHAINES_UTF ? 2 : 4;
+        int besoin = 0;
+        while(!fermee && lecture.remaining() >= entete)
+        {
+            int taille;
+
+            if(format == FORMAT_CHAINES_UTF)
+                taille = lecture.getShort(lecture.position()) & 0xFFFF;
+            else
+            {
+                taille = lecture.getInt(lecture.position());
+
+                if(taille <= 0 || taille > TAILLE_MAX_TRAME)
+                {
+                    fermerMaintenant();
+                    return;
+                }
+            }
+
+            if(lecture.remaining() < entete + taille)
+            {
+                besoin = entete + taille;
+                break;
+            }
+
+            lecture.position(lecture.position() + entete);
+
+            // les chaines n'ont pas de voie
+            byte voie = VOIE_REQUETES;
+            if(format == FORMAT_TRAMES)
+            {
+                voie = lecture.get();
+                taille--;
+            }
+
+            byte[] donnees = new byte[taille];
+            lecture.get(donnees);
+
+            try
+            {
+                ecouteur.trameRecue(this, voie, donnees);
+            }
+            catch(RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+        }
+
+        lecture.compact();
+
+        // trame plus grande que le tampon
+        if(besoin > lecture.capacity())
+        {
+            ByteBuffer tampon = ByteBuffer.allocate(besoin);
+            lecture.flip();
+            tampon.put(lecture);
+            lecture = tampon;
+        }
+    }
+
+    /**
+     * Ecrit les trames en attente tant que le canal les accepte
+     */
+    private void ecrire()
+    {
+        if(fermee || cle == null)
+            return;
+
+        try
+        {
+            synchronized (aEcrire)
+            {
+                Trame trame;
+                while((trame = aEcrire.peek()) != null)
+                {
+                    canal.write(trame.octets);
+    
+                    // tampon d'envoi plein, on attend que le canal soit pret
+                    if(trame.octets.hasRemaining())
+                    {
+                        cle.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+                        return;
+                    }
+    
+                    aEcrire.poll();
+                    tailleFile -= trame.octets.limit();
+                }
+            }
+
+            cle.interestOps(SelectionKey.OP_READ);
+        }
+        catch (IOException e)
+        {
+            fermerMaintenant();
+        }
+        catch (CancelledKeyException e)
+        {
+            fermerMaintenant();
+        }
+    }
+
+    /**
+     * Ferme la connexion, dans le thread de la boucle
+     */
+    private void fermerMaintenant()
+    {
+        if(fermee)
+            return;
+
+        fermee = true;
+
+        synchronized (aEcrire)
+        {
+            aEcrire.clear();
+            tailleFile = 0;
+        }
+
+        if(cle != null)
+            cle.cancel();
+
+        try
+        {
+            canal.close();
+        }
+        catch (IOException e)
+        {
+            // deja fermee
+        }
+
+        ecouteur.connexionFermee(this);
+    }
+
+    /**
+     * Trame en attente d'ecriture
+     */
+    private static class Trame
+    {
+        /**
+         * La trame complete (taille, voie, contenu ou taille, chaine), 
+         * position = octets ecrits
+         */
+        final ByteBuffer octets;
+
+        /**
+         * Le message remplacable dont la trame fait partie ou null
+         */
+        final Object message;
+
+        Trame(int format, byte voie, byte[] donnees, Object message)
+        {
+            if(format == FORMAT_CHAINES_UTF)
+            {
+                octets = ByteBuffer.allocate(2 + donnees.length);
+                octets.putShort((short) donnees.length);
+            }
+            else
+            {
+                octets = ByteBuffer.allocate(5 + donnees.length);
+                octets.putInt(donnees.length + 1);
+                octets.put(voie);
+            }
+
+            octets.put(donnees);
+            octets.flip();
+
+            this.message = message;
+        }
+    }
+
+    /**
+     * Permet de convertir une chaine en octets (UTF-8)
+     *
+     * @param message la chaine
+     * @return les octets
+     */
+    public static byte[] versOctets(String message)
+    {
+        try
+        {
+            return message.getBytes("UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // UTF-8 est toujours supporte
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Permet de convertir des octets (UTF-8) en chaine
+     *
+     * @param donnees les octets
+     * @return la chaine
+     */
+    public static String versString(byte[] donnees)
+    {
+        try
+        {
+            return new String(donnees, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // UTF-8 est toujours supporte
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Permet de convertir une chaine en octets (UTF-8 modifie de 
+     * {@link DataOutputStream#writeUTF(String)}, sans la taille)
+     *
+     * @param message la chaine
+     * @return les octets
+     */
+    public static byte[] versOctetsUTF(String message)
+    {
+        try
+        {
+            ByteArrayOutputStream octets = new ByteArrayOutputStream(message.length() + 2);
+            new DataOutputStream(octets).writeUTF(message);
+
+            byte[] chaine = octets.toByteArray();
+            byte[] donnees = new byte[chaine.length - 2];
+            System.arraycopy(chaine, 2, donnees, 0, donnees.length);
+
+            return donnees;
+        }
+        catch (IOException e)
+        {
+            // chaine trop longue
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    /**
+     * Permet de calculer la taille d'une chaine convertie par 
+     * {@link #versOctetsUTF(String)}
+     *
+     * @param message la chaine
+     * @return le nombre d'octets
+     */
+    public static int longueurUTF(String message)
+    {
+        int longueur = 0;
+
+        for(int i = 0; i < message.length(); i++)
+        {
+            char c = message.charAt(i);
+
+            if(c >= 0x0001 && c <= 0x007F)
+                longueur += 1;
+            else if(c <= 0x07FF)
+                longueur += 2;
+            else
+                longueur += 3;
+        }
+
+        return longueur;
+    }
+
+    /**
+     * Permet de convertir des octets (UTF-8 modifie, sans la taille) en chaine
+     *
+     * @param donnees les octets
+     * @return la chaine
+     * @throws CanalException si les octets ne forment pas une chaine valide
+     */
+    public static String versStringUTF(byte[] donnees) throws CanalException
+    {
+        byte[] chaine = new byte[donnees.length + 2];
+        chaine[0] = (byte) (donnees.length >>> 8);
+        chaine[1] = (byte) donnees.length;
+        System.arraycopy(donnees, 0, chaine, 2, donnees.length);
+
+        try
+        {
+            return new DataInputStream(new ByteArrayInputStream(chaine)).readUTF();
+        }
+        catch (IOException e)
+        {
+            throw new CanalException(e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+import static org.junit.Assert.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.util.Vector;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class ConnexionNIOTest
+{
+   private static final int NB_MESSAGES = 200;
+   private static final int TAILLE_GROS_MESSAGE = 30 * 1024;
+   private static final int DELAI = 10;
+
+   private ServeurNIO serveur;
+   private final BlockingQueue<ConnexionNIO> ouvertes = new LinkedBlockingQueue<ConnexionNIO>();
+   private final BlockingQueue<byte[]> recues = new LinkedBlockingQueue<byte[]>();
+   private final CountDownLatch fermeture = new CountDownLatch(1);
+   private final Vector<ConnexionNIO> connexions = new Vector<ConnexionNIO>();
+   private CanalMultiplexe canal;
+   private Socket socket;
+
+   @Before
+   public void setUp() throws IOException
+   {
+      serveur = new ServeurNIO(0, new EcouteurDeConnexion()
+      {
+         public void connexionOuverte(ConnexionNIO connexion)
+         {
+            ouvertes.add(connexion);
+         }
+
+         public void trameRecue(ConnexionNIO connexion, byte voie, byte[] donnees)
+         {
+            recues.add(donnees);
+         }
+
+         public void connexionFermee(ConnexionNIO connexion)
+         {
+            fermeture.countDown();
+         }
+      });
+   }
+
+   @After
+   public void tearDown() throws IOException
+   {
+      if(canal != null)
+         canal.fermer();
+
+      if(socket != null)
+         socket.close();
+
+      for(ConnexionNIO connexion : connexions)
+         connexion.fermer();
+
+      serveur.fermer();
+   }
+
+   /**
+    * Test method for {@link reseau.ConnexionNIO#envoyer(byte, byte[])}.
+    * <p>
+    * Les trames arrivent dans l'ordre d'envoi sur chaque voie, dans les 
+    * deux sens.
+    */
+   @Test
+   public void testOrdreDesTrames() throws Exception
+   {
+      canal = new CanalMultiplexe("127.0.0.1", serveur.getPort());
+      ConnexionNIO connexion = connexionAcceptee();
+
+      for(int i = 0; i < NB_MESSAGES; i++)
+      {
+         connexion.envoyer(ConnexionNIO.VOIE_REQUETES, entier(i));
+         connexion.envoyer(ConnexionNIO.VOIE_MISE_A_JOUR, entier(-i));
+         canal.envoyer(ConnexionNIO.VOIE_REQUETES, entier(i));
+      }
+
+      for(int i = 0; i < NB_MESSAGES; i++)
+      {
+         assertEquals(i, entier(canal.recevoir(ConnexionNIO.VOIE_REQUETES)));
+         assertEquals(-i, entier(canal.recevoir(ConnexionNIO.VOIE_MISE_A_JOUR)));
+
+         byte[] donnees = recues.poll(DELAI, TimeUnit.SECONDS);
+         assertNotNull(donnees);
+         assertEquals(i, entier(donnees));
+      }
+   }
+
+   /**
+    * Test method for {@link reseau.ConnexionNIO#envoyer(byte, byte[], Object)}.
+    * <p>
+    * Un client qui ne lit pas ne fait pas deborder la file avec des etats 
+    * remplacables : les etats en attente sont abandonnes et le dernier 
+    * arrive quand le client se remet a lire.
+    */
+   @Test
+   public void testMessagesRemplacables() throws Exception
+   {
+      DataInputStream canalIn = connecterClientLent();
+      ConnexionNIO connexion = connexionAcceptee();
+
+      // bien plus que la taille maximale de la file
+      int nbEtats = 4 * ConnexionNIO.TAILLE_MAX_FILE / TAILLE_GROS_MESSAGE;
+
+      for(int i = 0; i < nbEtats; i++)
+         connexion.envoyer(ConnexionNIO.VOIE_MISE_A_JOUR, 
+               grosMessage(i), new Object());
+
+      assertFalse(connexion.estFermee());
+
+      // le client se remet a lire
+      int nbRecus = 0;
+      int dernier;
+      do
+      {
+         int taille = canalIn.readInt();
+         assertEquals(ConnexionNIO.VOIE_MISE_A_JOUR, canalIn.readByte());
+
+         byte[] donnees = new byte[taille - 1];
+         canalIn.readFully(donnees);
+
+         dernier = entier(donnees);
+         nbRecus++;
+      }
+      while(dernier != nbEtats - 1);
+
+      assertTrue(nbRecus < nbEtats);
+   }
+
+   /**
+    * Test method for {@link reseau.ConnexionNIO#envoyer(byte, byte[])}.
+    * <p>
+    * Les messages non remplacables d'un client qui ne lit pas font 
+    * deborder la file : l'envoi echoue et la connexion est fermee.
+    */
+   @Test
+   public void testFileBornee() throws Exception
+   {
+      connecterClientLent();
+      ConnexionNIO connexion = connexionAcceptee();
+
+      int nbMax = 16 * ConnexionNIO.TAILLE_MAX_FILE / TAILLE_GROS_MESSAGE;
+      int i = 0;
+
+      try
+      {
+         for(; i < nbMax; i++)
+            connexion.envoyer(ConnexionNIO.VOIE_MISE_A_JOUR, grosMessage(i));
+
+         fail("File d'envoi non bornee");
+      }
+      catch(CanalException e)
+      {
+         // attendu
+      }
+
+      assertTrue(i >= ConnexionNIO.TAILLE_MAX_FILE / TAILLE_GROS_MESSAGE - 1);
+      assertTrue(fermeture.await(DELAI, TimeUnit.SECONDS));
+      assertTrue(connexion.estFermee());
+
+      try
+      {
+         connexion.envoyer(ConnexionNIO.VOIE_MISE_A_JOUR, entier(0));
+         fail("Envoi sur une connexion fermee");
+      }
+      catch(CanalException e)
+      {
+         // attendu
+      }
+   }
+
+   /**
+    * Connecte un client qui ne lit pas, avec un petit tampon de reception
+    * 
+    * @return le flux de lecture du client
+    */
+   private DataInputStream connecterClientLent() throws IOException
+   {
+      socket = new Socket();
+      socket.setReceiveBufferSize(4096);
+      socket.connect(new InetSocketAddress("127.0.0.1", serveur.getPort()));
+      socket.setSoTimeout(DELAI * 1000);
+
+      return new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+   }
+
+   private ConnexionNIO connexionAcceptee() throws InterruptedException
+   {
+      ConnexionNIO connexion = ouvertes.poll(DELAI, TimeUnit.SECONDS);
+      assertNotNull(connexion);
+      connexions.add(connexion);
+      return connexion;
+   }
+
+   private static byte[] entier(int valeur)
+   {
+      return ByteBuffer.allocate(4).putInt(valeur).array();
+   }
+
+   private static int entier(byte[] donnees)
+   {
+      return ByteBuffer.wrap(donnees).getInt();
+   }
+
+   private static byte[] grosMessage(int numero)
+   {
+      byte[] donnees = new byte[TAILLE_GROS_MESSAGE];
+      ByteBuffer.wrap(donnees).putInt(numero);
+      return donnees;
+   }
+}
@@ -0,0 +1,55 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+/**
+ * Interface d'ecoute des connexions d'un {@link ServeurNIO}.
+ * <p>
+ * Les methodes sont appelees depuis le thread de la boucle de la connexion :
+ * elles ne doivent pas bloquer.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public interface EcouteurDeConnexion
+{
+    /**
+     * Appelee lorsqu'un client se connecte
+     *
+     * @param connexion la connexion
+     */
+    void connexionOuverte(ConnexionNIO connexion);
+
+    /**
+     * Appelee lorsqu'une trame complete est recue
+     *
+     * @param connexion la connexion
+     * @param voie la voie de la trame
+     * @param donnees le contenu de la trame
+     */
+    void trameRecue(ConnexionNIO connexion, byte voie, byte[] donnees);
+
+    /**
+     * Appelee lorsque la connexion est fermee
+     *
+     * @param connexion la connexion
+     */
+    void connexionFermee(ConnexionNIO connexion);
+}
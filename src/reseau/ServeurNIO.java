@@ -0,0 +1,155 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.*;
+
+/**
+ * Serveur TCP non bloquant.
+ * <p>
+ * Le port d'ecoute est enregistre aupres d'une {@link BoucleNIO} et chaque
+ * client accepte devient une {@link ConnexionNIO} attribuee a une boucle du
+ * groupe. Aucun thread n'est cree par serveur ni par client.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class ServeurNIO implements ElementNIO
+{
+    /**
+     * Le canal d'ecoute
+     */
+    private final ServerSocketChannel canal;
+
+    /**
+     * La boucle du canal d'ecoute
+     */
+    private final BoucleNIO boucle;
+
+    /**
+     * L'ecouteur des connexions acceptees
+     */
+    private final EcouteurDeConnexion ecouteur;
+
+    /**
+     * Le format des trames des connexions
+     */
+    private final int format;
+
+    /**
+     * Constructeur, reserve le port et commence a accepter les clients
+     *
+     * @param port le port d'ecoute
+     * @param ecouteur l'ecouteur des connexions
+     * @throws IOException si le port ne peut pas etre reserve
+     */
+    public ServeurNIO(int port, EcouteurDeConnexion ecouteur) throws IOException
+    {
+        this(port, ecouteur, ConnexionNIO.FORMAT_TRAMES);
+    }
+
+    /**
+     * Constructeur, reserve le port et commence a accepter les clients
+     *
+     * @param port le port d'ecoute
+     * @param ecouteur l'ecouteur des connexions
+     * @param format le format des trames des connexions 
+     *        ({@link ConnexionNIO#FORMAT_TRAMES} ou 
+     *        {@link ConnexionNIO#FORMAT_CHAINES_UTF})
+     * @throws IOException si le port ne peut pas etre reserve
+     */
+    public ServeurNIO(int port, EcouteurDeConnexion ecouteur, int format) throws IOException
+    {
+        this.ecouteur = ecouteur;
+        this.format   = format;
+
+        canal = ServerSocketChannel.open();
+        canal.socket().setReuseAddress(true);
+        canal.socket().bind(new InetSocketAddress(port));
+        canal.configureBlocking(false);
+
+        boucle = BoucleNIO.getBoucle();
+        boucle.executer(new Runnable()
+        {
+            public void run()
+            {
+                try
+                {
+                    canal.register(boucle.getSelecteur(), SelectionKey.OP_ACCEPT, ServeurNIO.this);
+                }
+                catch (ClosedChannelException e)
+                {
+                    // serveur deja ferme
+                }
+            }
+        });
+    }
+
+    @Override
+    public void pret(SelectionKey cle)
+    {
+        if(!cle.isAcceptable())
+            return;
+
+        try
+        {
+            SocketChannel client;
+            while((client = canal.accept()) != null)
+                new ConnexionNIO(client, BoucleNIO.getBoucle(), ecouteur, format);
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @return le port d'ecoute
+     */
+    public int getPort()
+    {
+        return canal.socket().getLocalPort();
+    }
+
+    /**
+     * Permet de liberer le port d'ecoute.
+     * <br>
+     * Les connexions deja acceptees restent ouvertes.
+     */
+    public void fermer()
+    {
+        try
+        {
+            canal.close();
+        }
+        catch (IOException e)
+        {
+            e.printStackTrace();
+        }
+
+        // la fermeture annule la cle, le selecteur l'oublie au prochain tour
+        boucle.executer(new Runnable()
+        {
+            public void run(){}
+        });
+    }
+}
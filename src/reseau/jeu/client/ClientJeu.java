@@ -20,17 +20,31 @@ package reseau.jeu.client;
 
 import i18n.Langue;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.net.ConnectException;
-import reseau.CanalTCP;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import reseau.CanalException;
+import reseau.CanalMultiplexe;
+import reseau.ConnexionNIO;
 import reseau.jeu.serveur.ConstantesServeurJeu;
+import reseau.jeu.serveur.EtatCreature;
 import reseau.jeu.serveur.Protocole;
+import reseau.jeu.serveur.ProtocoleBinaire;
+import reseau.jeu.serveur.ReplicationDesCreatures;
+import reseau.jeu.serveur.ServeurJeu;
 import models.animations.GainDePiecesOr;
 import models.creatures.*;
 import models.jeu.Jeu_Client;
 import models.joueurs.*;
+import models.maillage.ChampDeVecteurs;
+import models.maillage.PathNotFoundException;
 import models.terrains.Terrain;
 import models.tours.*;
 import exceptions.*;
@@ -48,14 +62,10 @@ import org.json.*;
 public class ClientJeu implements ConstantesServeurJeu, Runnable{
 	
     /**
-     * Canal de ping-pong envoie / reception
+     * Connexion avec le serveur : voie de ping-pong envoie / reception et
+     * voie d'écoute asynchrone
      */
-	private CanalTCP canalEnvoi;
-	
-	/**
-	 * Canal d'écoute asynchrone du serveur
-	 */
-	private CanalTCP canalEcoute;
+	private CanalMultiplexe canal;
 	
 	/**
 	 * Le jeu du client
@@ -72,6 +82,56 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      */
     private EcouteurDeClientJeu edcj;
     
+    /**
+     * Le canal d'écoute reçoit des trames du protocole binaire
+     */
+    private volatile boolean protocoleBinaire = false;
+    
+    /**
+     * Etats des créatures reçus qui peuvent servir de base aux prochains 
+     * états, par numéro
+     */
+    private HashMap<Integer, HashMap<Integer, EtatCreature>> etatsRecus 
+        = new HashMap<Integer, HashMap<Integer, EtatCreature>>();
+    
+    /**
+     * Etat des créatures en cours de réception et son numéro
+     */
+    private HashMap<Integer, EtatCreature> etatEnCours;
+    private int numeroEtatEnCours = ReplicationDesCreatures.AUCUNE_BASE;
+    
+    /**
+     * Créatures présentes dans les messages de l'état en cours
+     */
+    private HashSet<Integer> creaturesRecues = new HashSet<Integer>();
+    
+    /**
+     * Dernier état des créatures appliqué au jeu
+     */
+    private HashMap<Integer, EtatCreature> etatApplique = new HashMap<Integer, EtatCreature>();
+    
+    /**
+     * Requêtes envoyées dont la réponse n'est pas encore arrivée, 
+     * dans l'ordre d'envoi
+     */
+    private final LinkedHashMap<Integer, Requete> requetesEnCours = new LinkedHashMap<Integer, Requete>();
+    
+    /**
+     * Identificateur de la dernière requête envoyée
+     */
+    private int idDerniereRequete = 0;
+    
+    /**
+     * Tours posées localement en attendant la réponse du serveur
+     */
+    private final ArrayList<Tour> toursEnAttente = new ArrayList<Tour>();
+    
+    /**
+     * Identificateur de la dernière tour posée localement. Ces 
+     * identificateurs sont négatifs, le serveur ne les utilise jamais.
+     */
+    private int idDerniereTourEnAttente = 0;
+    
     /**
      * Constructeur
      * 
@@ -96,17 +156,52 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 	    throws ConnectException, CanalException, AucunEmplacementDisponibleException 
     {
        
-	    // création du canal 1 (Requête / réponse)
-        canalEnvoi = new CanalTCP(IP, port);
+	    // création de la connexion (requêtes et mises à jour)
+        canal = new CanalMultiplexe(IP, port);
         
-        // demande de connexion au serveur (canal 1)
-        canalEnvoi.envoyerString(jeu.getJoueurPrincipal().getPseudo());
+        initialiserConnexion();
+    }
+	
+	/**
+     * Permet d'établir une connexion avec une partie d'un hébergeur de 
+     * parties
+     * 
+     * @param IP l'ip de l'hébergeur
+     * @param port le port de l'hébergeur
+     * @param idPartie l'identificateur de la partie chez l'hébergeur
+     * 
+     * @throws ConnectException
+     * @throws CanalException
+     * @throws AucunEmplacementDisponibleException
+     */
+    public void etablirConnexion(String IP, int port, int idPartie) 
+        throws ConnectException, CanalException, AucunEmplacementDisponibleException 
+    {
+        canal = new CanalMultiplexe(IP, port);
+        
+        // choix de la partie avant l'inscription
+        envoyer(Protocole.construireMsgRejoindrePartie(idPartie));
+        
+        initialiserConnexion();
+    }
+	
+    /**
+     * Permet de s'inscrire auprès du serveur une fois connecté
+     * 
+     * @throws CanalException
+     * @throws AucunEmplacementDisponibleException
+     */
+    private void initialiserConnexion() 
+        throws CanalException, AucunEmplacementDisponibleException
+    {
+        // demande de connexion au serveur
+        envoyer(jeu.getJoueurPrincipal().getPseudo());
         
         // le serveur nous retourne notre identificateur
         JSONObject msg;
         
         try{
-            msg = new JSONObject(canalEnvoi.recevoirString());
+            msg = new JSONObject(recevoirReponse());
             receptionJoueurInitialisation(msg);
         } 
         catch (JSONException e1){
@@ -114,17 +209,147 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
         } 
         
         // reception de la version du serveur
-        String version = canalEnvoi.recevoirString();
+        String version = recevoirReponse();
         log("Version du jeu : "+version);
-        
-        // reception du port du canal 2
-        int portCanal2 = canalEnvoi.recevoirInt();
-        
-        // création du canal 2 (Reception asynchrone)
-        canalEcoute = new CanalTCP(IP, portCanal2);
 
-        // lancement de la tache d'écoute du canal 2
+        // même version que le serveur : demande du protocole binaire,
+        // le serveur annonce le passage sur la voie de mise à jour
+        if(ServeurJeu.VERSION.equals(version))
+            envoyer(Protocole.construireMsgProtocoleBinaire());
+        
+        // lancement de la tache d'écoute des mises à jour
         (new Thread(this)).start();
+        
+        // lancement de la tache de réception des réponses aux requêtes
+        (new Thread(new Runnable()
+        {
+            public void run()
+            {
+                recevoirReponses();
+            }
+        })).start();
+    }
+	
+    /**
+     * Permet d'envoyer un message sur la voie des requêtes.
+     * <br>
+     * Les acquittements des états du jeu partent du thread d'écoute, 
+     * le canal sérialise les écritures.
+     * 
+     * @param message le message
+     * @throws CanalException
+     */
+    private void envoyer(String message) throws CanalException
+    {
+        canal.envoyerString(ConnexionNIO.VOIE_REQUETES, message);
+    }
+    
+    /**
+     * Permet d'attendre la réponse du serveur à une requête
+     * 
+     * @return la réponse
+     * @throws CanalException
+     */
+    private String recevoirReponse() throws CanalException
+    {
+        return canal.recevoirString(ConnexionNIO.VOIE_REQUETES);
+    }
+    
+    /**
+     * Permet d'envoyer une requête sans attendre la réponse.
+     * <br>
+     * La requête porte un identificateur que le serveur renvoie avec 
+     * la réponse, plusieurs requêtes peuvent donc être en cours.
+     * 
+     * @param json le message de la requête
+     * @return la requête en cours
+     * @throws JSONException
+     * @throws CanalException
+     */
+    private Requete envoyerRequete(JSONObject json) throws JSONException, CanalException
+    {
+        // l'ordre d'envoi doit être celui de la file
+        synchronized (requetesEnCours)
+        {
+            Requete requete = new Requete(++idDerniereRequete, json.getInt("TYPE"));
+            json.put("ID_REQUETE", requete.getId());
+            
+            requetesEnCours.put(requete.getId(), requete);
+            
+            try
+            {
+                envoyer(json.toString());
+            }
+            catch (CanalException e)
+            {
+                requetesEnCours.remove(requete.getId());
+                throw e;
+            }
+            
+            return requete;
+        }
+    }
+    
+    /**
+     * Tache de réception des réponses aux requêtes
+     */
+    private void recevoirReponses()
+    {
+        try
+        {
+            while(true)
+            {
+                String reponse = recevoirReponse();
+                
+                try
+                {
+                    terminerRequete(new JSONObject(reponse));
+                }
+                catch (JSONException e) {
+                    logErreur("Format JSON erroné",e);
+                }
+            }
+        }
+        catch (CanalException e)
+        {
+            // les réponses attendues n'arriveront plus
+            ArrayList<Requete> requetes;
+            
+            synchronized (requetesEnCours)
+            {
+                requetes = new ArrayList<Requete>(requetesEnCours.values());
+                requetesEnCours.clear();
+            }
+            
+            for(Requete requete : requetes)
+                requete.echouer(e);
+        }
+    }
+    
+    /**
+     * Permet de terminer la requête à laquelle le serveur répond
+     * 
+     * @param reponse la réponse
+     * @throws JSONException
+     */
+    private void terminerRequete(JSONObject reponse) throws JSONException
+    {
+        Requete requete = null;
+        
+        synchronized (requetesEnCours)
+        {
+            if(reponse.has("ID_REQUETE"))
+                requete = requetesEnCours.remove(reponse.getInt("ID_REQUETE"));
+            
+            // serveur sans identificateurs : il répond dans l'ordre
+            else if(!requetesEnCours.isEmpty())
+                requete = requetesEnCours.remove(requetesEnCours.keySet().iterator().next());
+        }
+        
+        if(requete != null)
+            requete.terminer(reponse.getInt("STATUS"));
+        else
+            logErreur("Réponse sans requête : "+reponse);
     }
 	
     /**
@@ -143,18 +368,17 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 	    if(message.indexOf('<') != -1 || message.indexOf('>') != -1)
 	        throw new MessageChatInvalide("Quotes interdites");
 
-	    canalEnvoi.envoyerString(Protocole.construireMsgChat(message, cible));
+	    envoyer(Protocole.construireMsgChat(message, cible));
 	}
 	
 	/**
 	 * Permet d'envoyer une vague de créatures
 	 * 
-	 * @param nbCreatures le nombre de créatures
-	 * @param typeCreature le type des créatures
-	 * @throws ArgentInsuffisantException 
+	 * @param vague la vague
+	 * @return la requête en cours (voir {@link #verifierVague(int)})
 	 * @throws CanalException 
 	 */
-	public void envoyerVague(VagueDeCreatures vague) throws ArgentInsuffisantException, CanalException
+	public Requete envoyerVague(VagueDeCreatures vague) throws CanalException
 	{
 		try
 		{
@@ -163,35 +387,39 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 			json.put("TYPE_CREATURE", TypeDeCreature.getTypeCreature(vague.getNouvelleCreature()));
 			json.put("NB_CREATURES", vague.getNbCreatures());
 			
-			canalEnvoi.envoyerString(json.toString());
-			
-			// attente de la réponse
-            String resultat = canalEnvoi.recevoirString();
-            JSONObject resultatJSON = new JSONObject(resultat);
-            switch(resultatJSON.getInt("STATUS"))
-            {
-                case ARGENT_INSUFFISANT :
-                    throw new ArgentInsuffisantException("Pas assez d'argent");
-                case JOUEUR_INCONNU :
-                    logErreur("Joueur inconnu");
-            }	
+			return envoyerRequete(json);
 		} 
 		catch (JSONException e) {
-			e.printStackTrace();
+			throw new CanalException(e);
 		}
 	}
 	
+	/**
+	 * Permet de traduire la réponse à l'envoi d'une vague
+	 * 
+	 * @param status le code d'état de la réponse
+	 * @throws ArgentInsuffisantException 
+	 */
+	public static void verifierVague(int status) throws ArgentInsuffisantException
+	{
+	    switch(status)
+        {
+            case ARGENT_INSUFFISANT :
+                throw new ArgentInsuffisantException("Pas assez d'argent");
+        }
+	}
+	
 	/**
 	 * Permet de demander au serveur de jeu la pose d'une tour
+	 * <br>
+	 * La tour est posée localement sans attendre la réponse. Elle est 
+	 * retirée si le serveur refuse et remplacée par celle du serveur sinon.
 	 * 
 	 * @param tour la tour a poser
-	 * 
-	 * @throws ArgentInsuffisantException si pas assez d'argent
-	 * @throws ZoneInaccessibleException si la pose est impossible 
+	 * @return la requête en cours (voir {@link #verifierPoseTour(int)})
 	 * @throws CanalException 
 	 */
-	public void demanderPoseTour(Tour tour) 
-	    throws ArgentInsuffisantException, ZoneInaccessibleException, CanalException
+	public Requete demanderPoseTour(final Tour tour) throws CanalException
 	{
 		try 
 		{
@@ -204,82 +432,159 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 			
             log("Envoye d'une demande de pose d'une tour");
 			
-			canalEnvoi.envoyerString(json.toString());
+            // pose locale, si elle est possible ici
+            boolean poseeLocalement = jeu.laTourPeutEtrePosee(tour);
+            if(poseeLocalement)
+            {
+                synchronized (toursEnAttente)
+                {
+                    // remplacé par celui du serveur à l'acceptation
+                    tour.setId(--idDerniereTourEnAttente);
+                    toursEnAttente.add(tour);
+                }
+                
+                jeu.poserTourDirect(tour);
+            }
+            
+            Requete requete;
+            try
+            {
+                requete = envoyerRequete(json);
+            }
+            catch (CanalException e)
+            {
+                retirerTourEnAttente(tour);
+                throw e;
+            }
 			
-			// attente de la réponse
-			String resultat = canalEnvoi.recevoirString();
-			JSONObject resultatJSON = new JSONObject(resultat);
-			switch(resultatJSON.getInt("STATUS"))
-			{
-			    case ARGENT_INSUFFISANT : 
-			        throw new ArgentInsuffisantException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_PAS_ASSEZ_D_ARGENT));
-			    case ZONE_INACCESSIBLE :
-                    throw new ZoneInaccessibleException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_ZONE_INACCESSIBLE));
-			    case CHEMIN_BLOQUE :
-                    throw new ZoneInaccessibleException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_CHEMIN_BLOQUE));
-                // TODO case JOUEUR_HORS_JEU:
-                //   throw new JoueurHorsJeu("Tour inconnue");
-			}
+			// annulation de la pose locale si le serveur refuse
+            if(poseeLocalement)
+                requete.ajouterEcouteurDeRequete(new EcouteurDeRequete()
+                {
+                    public void requeteTerminee(Requete requete)
+                    {
+                        try
+                        {
+                            if(requete.getStatus() == OK)
+                                return;
+                        }
+                        catch (CanalException e)
+                        {
+                            // connexion rompue
+                        }
+                        
+                        retirerTourEnAttente(tour);
+                    }
+                });
+			
+			return requete;
 		} 
 		catch (JSONException e) {
-			e.printStackTrace();
+			throw new CanalException(e);
 		} 
 	}
 	
+	/**
+     * Permet de retirer une tour posée localement que le serveur n'a pas 
+     * acceptée
+     * 
+     * @param tour la tour
+     */
+	private void retirerTourEnAttente(Tour tour)
+	{
+	    synchronized (toursEnAttente)
+        {
+	        if(!toursEnAttente.remove(tour))
+	            return;
+        }
+	    
+	    jeu.supprimerTourDirect(tour);
+	}
+	
+	/**
+     * Permet de traduire la réponse à une demande de pose de tour
+     * 
+     * @param status le code d'état de la réponse
+     * @throws ArgentInsuffisantException si pas assez d'argent
+     * @throws ZoneInaccessibleException si la pose est impossible 
+     * @throws JoueurHorsJeu si le joueur a deja perdu
+     */
+	public static void verifierPoseTour(int status) 
+	    throws ArgentInsuffisantException, ZoneInaccessibleException, JoueurHorsJeu
+	{
+	    switch(status)
+        {
+            case ARGENT_INSUFFISANT : 
+                throw new ArgentInsuffisantException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_PAS_ASSEZ_D_ARGENT));
+            case ZONE_INACCESSIBLE :
+                throw new ZoneInaccessibleException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_ZONE_INACCESSIBLE));
+            case CHEMIN_BLOQUE :
+                throw new ZoneInaccessibleException(Langue.getTexte(Langue.ID_ERROR_POSE_IMPOSSIBLE_CHEMIN_BLOQUE));
+            case JOUEUR_HORS_JEU:
+                throw new JoueurHorsJeu("Player out of game");
+        }
+	}
+	
 	/**
 	 * Permet de demander au serveur de jeu d'améliorer une tour
 	 * 
 	 * @param tour la tour
-	 * @throws ArgentInsuffisantException
-	 * @throws ActionNonAutoriseeException 
+	 * @return la requête en cours (voir {@link #verifierAmeliorationTour(int)})
 	 * @throws CanalException 
-	 * @throws NiveauMaxAtteintException 
-	 * @throws JoueurHorsJeu 
 	 */
-	public void demanderAmeliorationTour(Tour tour) throws ArgentInsuffisantException, ActionNonAutoriseeException, CanalException, NiveauMaxAtteintException, JoueurHorsJeu
+	public Requete demanderAmeliorationTour(Tour tour) throws CanalException
 	{
 		try 
 		{
-		    // envoye de la requete de vente
+		    // envoye de la requete d'amélioration
 		    JSONObject json = new JSONObject();
 			json.put("TYPE", TOUR_AMELIORATION);
 			json.put("ID_TOWER", tour.getId());
 			
-			log("Envoye d'une demande de vente d'une tour");
+			log("Envoye d'une demande d'amélioration d'une tour");
                 
-			canalEnvoi.envoyerString(json.toString());
-			
-			String resultat = canalEnvoi.recevoirString(); // pas d'erreur possible...
-
-			JSONObject resultatJSON = new JSONObject(resultat);
-            switch(resultatJSON.getInt("STATUS"))
-            {
-                case TOUR_INCONNUE:
-                    throw new NullPointerException("Unknown tower");
-                case ARGENT_INSUFFISANT :
-                    throw new ArgentInsuffisantException(Langue.getTexte(Langue.ID_ERROR_AMELIORATON_IMPOSSIBLE_PAS_ASSEZ_D_ARGENT));
-                case   NIVEAU_MAX_ATTEINT:
-                    throw new NiveauMaxAtteintException(Langue.getTexte(Langue.ID_ERROR_AMELIORATON_IMPOSSIBLE_NIVEAU_MAX_ATTEINT));
-                case ACTION_NON_AUTORISEE :
-                    throw new ActionNonAutoriseeException("Non authorized");
-                case JOUEUR_HORS_JEU:
-                    throw new JoueurHorsJeu("Unknown tower");
-            }
-			
+			return envoyerRequete(json);
 		} 
 		catch (JSONException e) {
-			e.printStackTrace();
+			throw new CanalException(e);
 		}
 	}
 	
+	/**
+     * Permet de traduire la réponse à une demande d'amélioration de tour
+     * 
+     * @param status le code d'état de la réponse
+     * @throws ArgentInsuffisantException
+     * @throws ActionNonAutoriseeException 
+     * @throws NiveauMaxAtteintException 
+     * @throws JoueurHorsJeu 
+     */
+	public static void verifierAmeliorationTour(int status) 
+	    throws ArgentInsuffisantException, ActionNonAutoriseeException, NiveauMaxAtteintException, JoueurHorsJeu
+	{
+	    switch(status)
+        {
+            case TOUR_INCONNUE:
+                throw new NullPointerException("Unknown tower");
+            case ARGENT_INSUFFISANT :
+                throw new ArgentInsuffisantException(Langue.getTexte(Langue.ID_ERROR_AMELIORATON_IMPOSSIBLE_PAS_ASSEZ_D_ARGENT));
+            case   NIVEAU_MAX_ATTEINT:
+                throw new NiveauMaxAtteintException(Langue.getTexte(Langue.ID_ERROR_AMELIORATON_IMPOSSIBLE_NIVEAU_MAX_ATTEINT));
+            case ACTION_NON_AUTORISEE :
+                throw new ActionNonAutoriseeException("Non authorized");
+            case JOUEUR_HORS_JEU:
+                throw new JoueurHorsJeu("Unknown tower");
+        }
+	}
+	
 	/**
      * Permet de demander au serveur de jeu la vente d'une tour
      * 
      * @param tour la tour a vendre
-	 * @throws ActionNonAutoriseeException 
+     * @return la requête en cours (voir {@link #verifierVenteTour(int)})
 	 * @throws CanalException 
      */
-	public void demanderVenteTour(Tour tour) throws ActionNonAutoriseeException, CanalException
+	public Requete demanderVenteTour(Tour tour) throws CanalException
 	{
 		try 
 		{
@@ -287,25 +592,31 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 		    JSONObject json = new JSONObject();
 			json.put("TYPE", TOUR_SUPRESSION);
 			json.put("ID_TOWER", tour.getId());
-			canalEnvoi.envoyerString(json.toString());
 			
-			// reponse
-			String resultat = canalEnvoi.recevoirString();
-            JSONObject resultatJSON = new JSONObject(resultat);
-            switch(resultatJSON.getInt("STATUS"))
-            {
-                case ACTION_NON_AUTORISEE :
-                    throw new ActionNonAutoriseeException("Non authorized");
-                    
-                // TODO case JOUEUR_HORS_JEU:
-                //   throw new JoueurHorsJeu("Tour inconnue");
-            
-            }
+			return envoyerRequete(json);
 		} 
 		catch (JSONException e) {
-			e.printStackTrace();
+			throw new CanalException(e);
 		}
 	}
+	
+	/**
+     * Permet de traduire la réponse à une demande de vente de tour
+     * 
+     * @param status le code d'état de la réponse
+     * @throws ActionNonAutoriseeException 
+     * @throws JoueurHorsJeu si le joueur a deja perdu
+     */
+	public static void verifierVenteTour(int status) throws ActionNonAutoriseeException, JoueurHorsJeu
+	{
+	    switch(status)
+        {
+            case ACTION_NON_AUTORISEE :
+                throw new ActionNonAutoriseeException("Non authorized");
+            case JOUEUR_HORS_JEU:
+                throw new JoueurHorsJeu("Player out of game");
+        }
+	}
 
 	/**
      * Analyse d'un message d'ajout d'une tour
@@ -315,22 +626,39 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      */
 	private void receptionTourAjoutee(JSONObject message) throws JSONException
 	{
-	   
+	    ajouterTour(message.getInt("TYPE_TOUR"), message.getInt("ID_TOUR"), 
+	                message.getInt("ID_PROPRIETAIRE"), 
+	                message.getInt("X"), message.getInt("Y"));
+	}
+	
+	private void ajouterTour(int typeTour, int idTour, int idJoueur, int x, int y)
+	{
 	    log("Réception d'un objet de type : Tour.");
 	    
+	    // c'est une tour déjà posée localement
+	    synchronized (toursEnAttente)
+        {
+	        for(Tour tourEnAttente : toursEnAttente)
+	            if(tourEnAttente.x == x && tourEnAttente.y == y
+	            && tourEnAttente.getPrioprietaire() == jeu.getJoueur(idJoueur))
+	            {
+	                tourEnAttente.setId(idTour);
+	                toursEnAttente.remove(tourEnAttente);
+	                return;
+	            }
+        }
+	    
 	    Tour tour = null;
 
 	    // création de la tour en fonction de son type
         try
         {
-            int typeDeCreature = message.getInt("TYPE_TOUR");
-            tour = TypeDeTour.getTour(typeDeCreature);
+            tour = TypeDeTour.getTour(typeTour);
             
             // initialisation des tours
-            tour.x = message.getInt("X");
-            tour.y = message.getInt("Y");
-            tour.setId(message.getInt("ID_TOUR"));
-            int idJoueur = message.getInt("ID_PROPRIETAIRE");
+            tour.x = x;
+            tour.y = y;
+            tour.setId(idTour);
             tour.setProprietaire(jeu.getJoueur(idJoueur));
             
             jeu.poserTourDirect(tour);  
@@ -364,10 +692,31 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
 
     private void attendreMessageCanalAsynchrone() throws CanalException, JSONException
     {
-	    JSONObject resultat = new JSONObject(canalEcoute.recevoirString());
+	    JSONObject resultat;
+	    
+	    if(protocoleBinaire)
+	    {
+	        byte[] trame = canal.recevoir(ConnexionNIO.VOIE_MISE_A_JOUR);
+	        
+	        if(trame[0] != ProtocoleBinaire.JSON)
+	        {
+	            receptionTrame(trame);
+	            return;
+	        }
+	        
+	        resultat = new JSONObject(ProtocoleBinaire.lireTrameJSON(trame));
+	    }
+	    else
+	        resultat = new JSONObject(canal.recevoirString(ConnexionNIO.VOIE_MISE_A_JOUR));
         
         switch(resultat.getInt("TYPE"))
         {
+            // PROTOCOLE
+            case PROTOCOLE_BINAIRE :
+                log("Passage au protocole binaire");
+                protocoleBinaire = true;
+                break;
+                
             
             // PARTIE
             case PARTIE_ETAT : 
@@ -426,11 +775,124 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
                 receptionCreatureArrivee(resultat);
                 break;
                 
+            // ETAT DU JEU
+            case ETAT_DU_JEU :
+                receptionEtatDuJeu(resultat);
+                break;
+                
             default :
                 logErreur("Réception d'un objet de type : Inconnu.");      
         }
     }
 
+    /**
+     * Analyse d'une trame du protocole binaire
+     * 
+     * @param trame la trame
+     */
+    private void receptionTrame(byte[] trame) throws CanalException
+    {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(trame));
+        
+        try
+        {
+            switch(in.readByte())
+            {
+                case ProtocoleBinaire.TOUR_AJOUT :
+                {
+                    int idJoueur = in.readInt();
+                    int idTour   = in.readInt();
+                    int x        = in.readInt();
+                    int y        = in.readInt();
+                    ajouterTour(in.readInt(), idTour, idJoueur, x, y);
+                    break;
+                }
+                    
+                case ProtocoleBinaire.CREATURE_AJOUT :
+                {
+                    int typeCreature = in.readInt();
+                    int id           = in.readInt();
+                    int idProprio    = in.readInt();
+                    int idEquipe     = in.readInt();
+                    int x            = in.readInt();
+                    int y            = in.readInt();
+                    long santeMax    = in.readLong();
+                    int nbPiecesDOr  = in.readInt();
+                    ajouterCreature(typeCreature, id, idProprio, idEquipe, x, y, 
+                                    santeMax, nbPiecesDOr, in.readDouble());
+                    break;
+                }
+                    
+                case ProtocoleBinaire.CREATURE_ETAT :
+                {
+                    int idCreature = in.readInt();
+                    int x          = in.readInt();
+                    int y          = in.readInt();
+                    long sante     = in.readLong();
+                    modifierEtatCreature(idCreature, x, y, (int) sante, 
+                                         in.readInt() / EtatCreature.PRECISION_ANGLE);
+                    break;
+                }
+                    
+                case ProtocoleBinaire.CREATURE_SUPPRESSION :
+                {
+                    int idCreature = in.readInt();
+                    tuerCreature(idCreature, in.readInt());
+                    break;
+                }
+                    
+                case ProtocoleBinaire.JOUEUR_ETAT :
+                    lireEtatJoueur(in);
+                    break;
+                    
+                case ProtocoleBinaire.ETAT_DU_JEU :
+                {
+                    int numero = in.readInt();
+                    commencerEtatDuJeu(numero, in.readInt());
+                    
+                    int nbCreatures = in.readInt();
+                    for(int i = 0; i < nbCreatures; i++)
+                    {
+                        EtatCreature etat = getEtatCreatureAModifier(in.readInt());
+                        int masque = in.readByte();
+                        
+                        if((masque & ProtocoleBinaire.CHAMP_X) != 0)
+                            etat.x = in.readInt();
+                        if((masque & ProtocoleBinaire.CHAMP_Y) != 0)
+                            etat.y = in.readInt();
+                        if((masque & ProtocoleBinaire.CHAMP_SANTE) != 0)
+                            etat.sante = in.readLong();
+                        if((masque & ProtocoleBinaire.CHAMP_ANGLE) != 0)
+                            etat.angle = in.readInt();
+                    }
+                    
+                    int nbJoueurs = in.readInt();
+                    for(int i = 0; i < nbJoueurs; i++)
+                        lireEtatJoueur(in);
+                    
+                    terminerEtatDuJeu(numero);
+                    break;
+                }
+                    
+                default :
+                    logErreur("Réception d'une trame de type : Inconnu.");
+            }
+        }
+        catch (IOException e)
+        {
+            logErreur("Trame erronée", e);
+        }
+    }
+    
+    private void lireEtatJoueur(DataInputStream in) throws IOException
+    {
+        int idJoueur        = in.readInt();
+        double nbPiecesDOr  = in.readDouble();
+        int nbViesRestantes = in.readInt();
+        double revenu       = in.readDouble();
+        modifierEtatJoueur(idJoueur, nbPiecesDOr, in.readInt(), revenu, nbViesRestantes);
+    }
+    
     private void receptionEquipeAPerdue(JSONObject resultat) throws JSONException
     {
         int idEquipe = resultat.getInt("ID_EQUIPE");
@@ -528,13 +990,16 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
             case PARTIE_INITIALISEE :
                 
                 log("Partie initialisée");
+                
+                // les maillages servent a simuler les creatures localement
+                jeu.getTerrain().initialiser();
                 jeu.initialiser();
                 
                 // envoye de la requete d'ajout
                 JSONObject json = new JSONObject();
                 json.put("TYPE", JOUEUR_PRET);
 
-                canalEnvoi.envoyerString(json.toString());
+                envoyer(json.toString());
  
                 break;
             
@@ -657,6 +1122,10 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
             case PAS_DE_PLACE :    
                 log("Reception d'un refu");
                 throw new AucunEmplacementDisponibleException("Aucun emplacement disponible");
+                
+            case PARTIE_INCONNUE :    
+                log("Reception d'un refu");
+                throw new AucunEmplacementDisponibleException("Partie inconnue");
         } 
     }
 	
@@ -667,15 +1136,18 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      */
 	private void receptionJoueurEtatChange(JSONObject message) throws JSONException
     {
-        int idJoueur = message.getInt("ID_JOUEUR");
-        
+        modifierEtatJoueur(message.getInt("ID_JOUEUR"), 
+                           message.getDouble("NB_PIECES_OR"), 
+                           message.getInt("SCORE"), 
+                           message.getDouble("REVENU"), 
+                           message.getInt("NB_VIES_RESTANTES_EQUIPE"));
+    }
+	
+	private void modifierEtatJoueur(int idJoueur, double nbPiecesDOr, int score, 
+	                                double revenu, int nbViesRestantes)
+    {
         log("Réception de l'état d'un joueur (id:"+idJoueur+")");
         
-        double nbPiecesDOr = message.getDouble("NB_PIECES_OR");
-        int score = message.getInt("SCORE");
-        double revenu = message.getDouble("REVENU");
-        int nbViesRestantes = message.getInt("NB_VIES_RESTANTES_EQUIPE");
-        
         Joueur joueur = jeu.getJoueur(idJoueur);
         
         if(joueur != null)
@@ -732,24 +1204,23 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      * @param message le message
      */
     private void receptionCreatureAjoutee(JSONObject message) throws JSONException
+    {
+        ajouterCreature(message.getInt("TYPE_CREATURE"),
+                        message.getInt("ID_CREATURE"),
+                        message.getInt("ID_PROPRIETAIRE"),
+                        message.getInt("ID_EQUIPE_CIBLEE"),
+                        message.getInt("X"),
+                        message.getInt("Y"),
+                        message.getLong("SANTE_MAX"),
+                        message.getInt("NB_PIECES_OR"),
+                        message.getDouble("VITESSE"));
+    }
+    
+    private void ajouterCreature(int typeCreature, int id, int idProprio, int idEquipe,
+            int x, int y, long santeMax, int nbPiecesDOr, double vitesse)
     {
         log("Réception de l'ajout d'une créature.");
         
-        int id = message.getInt("ID_CREATURE");
-        int typeCreature = message.getInt("TYPE_CREATURE");
-        
-        int idProprio = message.getInt("ID_PROPRIETAIRE");
-        int idEquipe = message.getInt("ID_EQUIPE_CIBLEE");
-        
-        int x = message.getInt("X");
-        int y = message.getInt("Y");
-        long santeMax = message.getLong("SANTE_MAX");
-        int nbPiecesDOr = message.getInt("NB_PIECES_OR");
-        double vitesse = message.getDouble("VITESSE");
-        
-        
-        
-        
         Creature creature   = TypeDeCreature.getCreature(typeCreature, 1, true);
         Equipe equipeCiblee = jeu.getEquipe(idEquipe);
         Joueur proprio      = jeu.getJoueur(idProprio);
@@ -765,6 +1236,12 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
             creature.setSanteMax(santeMax);
             creature.setNbPiecesDOr(nbPiecesDOr);
             creature.setVitesse(vitesse);
+            creature.setSimulationLocale(true);
+            
+            // la creature avance localement comme sur le serveur, 
+            // les etats recus ne font que la recaler
+            if(equipeCiblee != null)
+                assignerChemin(creature, equipeCiblee);
             
             jeu.ajouterCreatureDirect(creature);
         }
@@ -772,6 +1249,40 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
             logErreur("Ajout d'une créature : Créature de type inconnu (type : "+typeCreature+")");
     }
     
+    /**
+     * Permet de donner a une creature le chemin qu'elle suit sur le serveur
+     * 
+     * @param creature la creature
+     * @param equipeCiblee l'equipe ciblee par la creature
+     */
+    private void assignerChemin(Creature creature, Equipe equipeCiblee)
+    {
+        Terrain terrain = jeu.getTerrain();
+        
+        ChampDeVecteurs champ = null;
+        if(creature.getType() == Creature.TYPE_TERRIENNE)
+            champ = terrain.getChampDeVecteurs(equipeCiblee);
+        
+        if(champ != null)
+            creature.setChampDeVecteurs(champ);
+        else if(equipeCiblee.getZoneArriveeCreatures() != null)
+        {
+            try
+            {
+                creature.setChemin(terrain.getCheminLePlusCourt(
+                        (int) creature.getCenterX(), 
+                        (int) creature.getCenterY(), 
+                        (int) equipeCiblee.getZoneArriveeCreatures().getCenterX(),
+                        (int) equipeCiblee.getZoneArriveeCreatures().getCenterY(), 
+                        creature.getType()));
+            }
+            catch (PathNotFoundException e)
+            {
+                // la creature reste sur place, le serveur la deplacera
+            }
+        }
+    }
+    
     /**
      * Analyse d'un message d'état d'une créature
      * 
@@ -779,19 +1290,21 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      */
     private void receptionCreatureEtatChange(JSONObject message) throws JSONException
     {
-        int idCreature = message.getInt("ID_CREATURE");
-        int x = message.getInt("X");
-        int y = message.getInt("Y");
-        int sante = message.getInt("SANTE");
-        double angle = message.getDouble("ANGLE");
-        
+        modifierEtatCreature(message.getInt("ID_CREATURE"), 
+                             message.getInt("X"), 
+                             message.getInt("Y"), 
+                             message.getInt("SANTE"), 
+                             message.getDouble("ANGLE"));
+    }
+    
+    private void modifierEtatCreature(int idCreature, int x, int y, int sante, double angle)
+    {
         Creature creature = jeu.getCreature(idCreature);
         
         // Elle peut avoir été détruite entre-temps.
         if(creature != null)
         {
-            creature.x = x;
-            creature.y = y;
+            creature.corrigerPosition(x, y);
             creature.setSante(sante);
             creature.setAngle(angle);
             creature.misAJour();
@@ -800,6 +1313,154 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
            logErreur("Etat d'une créature : Créature inconnue (id : "+idCreature+")");
     }
     
+    /**
+     * Analyse d'un message d'état du jeu
+     * <br>
+     * L'état des créatures est reconstruit à partir de l'état de base 
+     * reçu précédemment, puis appliqué et acquitté une fois complet.
+     * 
+     * @param message le message
+     */
+    private void receptionEtatDuJeu(JSONObject message) throws JSONException, CanalException
+    {
+        int numero = message.getInt("NUMERO");
+        
+        commencerEtatDuJeu(numero, message.getInt("BASE"));
+        
+        // application des differences
+        JSONArray creatures = message.getJSONArray("CREATURES");
+        for (int i = 0; i < creatures.length(); i++)
+        {
+            JSONObject JSONcreature = creatures.getJSONObject(i);
+            
+            EtatCreature etat = getEtatCreatureAModifier(JSONcreature.getInt("ID_CREATURE"));
+            
+            if(JSONcreature.has("X"))
+                etat.x = JSONcreature.getInt("X");
+            if(JSONcreature.has("Y"))
+                etat.y = JSONcreature.getInt("Y");
+            if(JSONcreature.has("SANTE"))
+                etat.sante = JSONcreature.getLong("SANTE");
+            if(JSONcreature.has("ANGLE"))
+                etat.angle = JSONcreature.getInt("ANGLE");
+        }
+        
+        JSONArray joueurs = message.getJSONArray("JOUEURS");
+        for (int i = 0; i < joueurs.length(); i++)
+            receptionJoueurEtatChange(joueurs.getJSONObject(i));
+        
+        if(message.getBoolean("DERNIER"))
+            terminerEtatDuJeu(numero);
+    }
+    
+    /**
+     * Permet de commencer la réception d'un état du jeu : un nouvel état 
+     * part d'une copie de sa base.
+     */
+    private void commencerEtatDuJeu(int numero, int numeroBase)
+    {
+        if(numero != numeroEtatEnCours)
+        {
+            HashMap<Integer, EtatCreature> base = null;
+            if(numeroBase != ReplicationDesCreatures.AUCUNE_BASE)
+            {
+                base = etatsRecus.get(numeroBase);
+                
+                if(base == null)
+                    logErreur("Etat du jeu : Base inconnue (numero : "+numeroBase+")");
+            }
+            
+            etatEnCours = (base == null) ? new HashMap<Integer, EtatCreature>() 
+                                         : new HashMap<Integer, EtatCreature>(base);
+            numeroEtatEnCours = numero;
+            creaturesRecues.clear();
+        }
+    }
+    
+    /**
+     * Permet de recuperer une copie modifiable de l'état d'une créature 
+     * dans l'état du jeu en cours de réception.
+     */
+    private EtatCreature getEtatCreatureAModifier(int idCreature)
+    {
+        EtatCreature etat = etatEnCours.get(idCreature);
+        etat = (etat == null) ? new EtatCreature(idCreature) : new EtatCreature(etat);
+        
+        etatEnCours.put(idCreature, etat);
+        creaturesRecues.add(idCreature);
+        
+        return etat;
+    }
+    
+    /**
+     * Permet de terminer la réception d'un état du jeu : il est appliqué,
+     * conservé comme base possible et acquitté.
+     */
+    private void terminerEtatDuJeu(int numero) throws CanalException
+    {
+        appliquerEtatDesCreatures(etatEnCours);
+        
+        // conservation des bases possibles
+        etatsRecus.put(numero, etatEnCours);
+        
+        Iterator<Integer> iNumeros = etatsRecus.keySet().iterator();
+        while(iNumeros.hasNext())
+            if(numero - iNumeros.next() >= ReplicationDesCreatures.FENETRE)
+                iNumeros.remove();
+        
+        // acquittement
+        envoyer(Protocole.construireMsgEtatDuJeuRecu(numero));
+    }
+    
+    /**
+     * Permet d'appliquer un état complet aux créatures du jeu.
+     * <br>
+     * Les positions recalent la simulation locale des créatures, le reste 
+     * n'est mis à jour que pour les créatures dont l'état a changé. Les 
+     * créatures qui ne sont plus en jeu sont oubliées. Une créature reçue
+     * dans cet état est gardée même si son ajout n'est pas encore arrivé.
+     * 
+     * @param etat l'état des créatures
+     */
+    private void appliquerEtatDesCreatures(HashMap<Integer, EtatCreature> etat)
+    {
+        HashMap<Integer, EtatCreature> nouvelEtatApplique = new HashMap<Integer, EtatCreature>();
+        
+        for(Creature creature : jeu.getCreatures())
+        {
+            EtatCreature etatCreature = etat.get(creature.getId());
+            
+            if(etatCreature == null)
+                continue;
+            
+            nouvelEtatApplique.put(creature.getId(), etatCreature);
+            
+            // la simulation locale a pu s'ecarter meme si l'etat est inchange
+            creature.corrigerPosition(etatCreature.x, etatCreature.y);
+            
+            EtatCreature etatPrecedent = etatApplique.get(creature.getId());
+            if(etatPrecedent != null && etatPrecedent.estEgal(etatCreature))
+                continue;
+            
+            creature.setSante((int) etatCreature.sante);
+            creature.setAngle(etatCreature.getAngle());
+            creature.misAJour();
+        }
+        
+        // les créatures disparues ne servent plus de base
+        Iterator<Integer> iCreatures = etat.keySet().iterator();
+        while(iCreatures.hasNext())
+        {
+            Integer idCreature = iCreatures.next();
+            
+            if(!nouvelEtatApplique.containsKey(idCreature) 
+            && !creaturesRecues.contains(idCreature))
+                iCreatures.remove();
+        }
+        
+        etatApplique = nouvelEtatApplique;
+    }
+    
     /**
      * Analyse d'un message de suppression d'une creature
      * 
@@ -807,10 +1468,12 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
      */
     private void receptionCreatureTuee(JSONObject message) throws JSONException
     {
-        int idCreature = message.getInt("ID_CREATURE");
+        tuerCreature(message.getInt("ID_CREATURE"), message.getInt("ID_TUEUR"));
+    }
+    
+    private void tuerCreature(int idCreature, int idTueur)
+    {
         Creature creature = jeu.getCreature(idCreature);
-        
-        int idTueur = message.getInt("ID_TUEUR");
         Joueur joueur = jeu.getJoueur(idTueur);
          
         if(creature != null)
@@ -869,11 +1532,7 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
             
             log("Envoye d'une demande de changement d'équipe");
                 
-            canalEnvoi.envoyerString(json.toString());
-            
-            String resultat = canalEnvoi.recevoirString();
-            JSONObject resultatJSON = new JSONObject(resultat);
-            switch(resultatJSON.getInt("STATUS"))
+            switch(envoyerRequete(json).getStatus())
             {
                 case PAS_DE_PLACE :
                     throw new AucunEmplacementDisponibleException("Pas de place dans cette équipe");
@@ -899,7 +1558,7 @@ public class ClientJeu implements ConstantesServeurJeu, Runnable{
         
         log("Envoye d'une deconnexion");
             
-        canalEnvoi.envoyerString(json.toString());
+        envoyer(json.toString());
   
         } 
         catch (JSONException e) {
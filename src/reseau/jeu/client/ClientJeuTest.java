@@ -0,0 +1,168 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.client;
+
+import static org.junit.Assert.*;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import exceptions.JoueurHorsJeu;
+import models.jeu.Jeu_Client;
+import models.jeu.Jeu_Serveur;
+import models.joueurs.Equipe;
+import models.joueurs.Joueur;
+import models.terrains.ElementTD_Versus_4;
+import models.terrains.Terrain;
+import models.tours.Tour;
+import models.tours.TourArcher;
+import org.junit.*;
+import reseau.jeu.serveur.ConstantesServeurJeu;
+import reseau.jeu.serveur.HebergeurDeParties;
+
+/**
+ * @author agent
+ * 
+ */
+public class ClientJeuTest implements ConstantesServeurJeu
+{
+   private static final int NB_REQUETES = 30;
+   private static final int DELAI = 10;
+   
+   Jeu_Serveur jeuServeur;
+   HebergeurDeParties hebergeur;
+   Jeu_Client jeuClient;
+   Joueur joueur;
+   
+   @Before
+   public void setUp() throws Exception
+   {
+      jeuServeur = new Jeu_Serveur();
+      
+      Terrain terrain = new ElementTD_Versus_4(jeuServeur);
+      terrain.initialiser();
+      jeuServeur.setTerrain(terrain);
+      
+      // port libre choisi par le systeme
+      hebergeur = new HebergeurDeParties(0);
+      int idPartie = jeuServeur.etablissementDuServeur(hebergeur);
+      
+      // deux listes des joueurs : celle de la validation et celle de 
+      // l'arrivee du joueur
+      final CountDownLatch joueursRecus = new CountDownLatch(2);
+      
+      jeuClient = new Jeu_Client(new Joueur("client"));
+      jeuClient.setEcouteurDeClientJeu(new EcouteurDeClientJeu()
+      {
+         public void joueurInitialise(){}
+         
+         public void joueursMisAJour()
+         {
+            joueursRecus.countDown();
+         }
+         
+         public void messageRecu(String message, Joueur auteur){}
+         public void joueurDeconnecte(Joueur joueur){}
+         public void receptionEquipeAPerdue(Equipe equipe){}
+      });
+      jeuClient.connexionAvecLeServeur("127.0.0.1", hebergeur.getPort(), idPartie);
+      
+      // le joueur principal est recree a la reception des joueurs
+      assertTrue(joueursRecus.await(DELAI, TimeUnit.SECONDS));
+      joueur = jeuClient.getJoueurPrincipal();
+      
+      // assez d'or pour les poses locales
+      joueur.setNbPiecesDOr(1000000);
+   }
+   
+   @After
+   public void tearDown() throws Exception
+   {
+      jeuClient.annoncerDeconnexion();
+      hebergeur.fermer();
+      jeuServeur.detruire();
+   }
+   
+   /**
+    * Test method for {@link reseau.jeu.client.ClientJeu#demanderPoseTour(models.tours.Tour)}.
+    * <br>
+    * Les requetes envoyees sans attendre les reponses sont toutes 
+    * terminees avec la reponse du serveur. Les tours posees localement
+    * et refusees par le serveur sont retirees.
+    */
+   @Test
+   public void testPosesEnParallele() throws Exception
+   {
+      final CountDownLatch fin = new CountDownLatch(NB_REQUETES);
+      ArrayList<Requete> requetes = new ArrayList<Requete>();
+      
+      Rectangle zone = joueur.getEmplacement().getZoneDeConstruction();
+      
+      for(int i = 0; i < NB_REQUETES; i++)
+      {
+         Tour tour = new TourArcher();
+         tour.setProprietaire(joueur);
+         tour.x = zone.x + 40 * (i % 10) + 40;
+         tour.y = zone.y + 40 * (i / 10) + 200;
+         
+         Requete requete = jeuClient.demanderPoseTour(tour);
+         requetes.add(requete);
+         
+         // appele apres l'ecouteur de la pose locale
+         requete.ajouterEcouteurDeRequete(new EcouteurDeRequete()
+         {
+            public void requeteTerminee(Requete requete)
+            {
+               fin.countDown();
+            }
+         });
+      }
+      
+      assertTrue(fin.await(DELAI, TimeUnit.SECONDS));
+      
+      // le joueur n'est pas encore en jeu : toutes les poses sont refusees
+      for(int i = 0; i < NB_REQUETES; i++)
+      {
+         assertEquals(i + 1, requetes.get(i).getId());
+         assertEquals(TOUR_AJOUT, requetes.get(i).getType());
+         assertEquals(JOUEUR_HORS_JEU, requetes.get(i).getStatus());
+      }
+      
+      assertTrue(jeuClient.getTours().isEmpty());
+   }
+   
+   /**
+    * Test method for {@link models.jeu.Jeu_Client#poserTour(models.tours.Tour)}.
+    * <br>
+    * L'appel bloquant attend la reponse et traduit son code d'etat.
+    */
+   @Test(expected = JoueurHorsJeu.class)
+   public void testPoseBloquante() throws Exception
+   {
+      Rectangle zone = joueur.getEmplacement().getZoneDeConstruction();
+      
+      Tour tour = new TourArcher();
+      tour.setProprietaire(joueur);
+      tour.x = zone.x + 40;
+      tour.y = zone.y + 200;
+      
+      jeuClient.poserTour(tour);
+   }
+}
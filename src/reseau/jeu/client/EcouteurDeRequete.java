@@ -0,0 +1,41 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.client;
+
+/**
+ * Interface d'ecoute de la reponse du serveur a une {@link Requete}.
+ * <p>
+ * La methode est appelee depuis le thread de reception des reponses : 
+ * elle ne doit pas bloquer.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Requete
+ */
+public interface EcouteurDeRequete
+{
+    /**
+     * Appelee lorsque la requete est terminee (reponse recue ou 
+     * connexion rompue)
+     * 
+     * @param requete la requete
+     */
+    public void requeteTerminee(Requete requete);
+}
@@ -0,0 +1,265 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.client;
+
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import reseau.CanalException;
+
+/**
+ * Requete envoyee au serveur de jeu dont la reponse n'est pas encore 
+ * forcement arrivee.
+ * <p>
+ * Le client n'attend plus la reponse apres l'envoi : plusieurs requetes
+ * peuvent etre en cours en meme temps. Le resultat est le code d'etat 
+ * (STATUS) renvoye par le serveur. Il peut etre attendu avec 
+ * {@link #getStatus()} ou recu par un {@link EcouteurDeRequete}.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see ClientJeu
+ */
+public class Requete implements Future<Integer>
+{
+    /**
+     * Identificateur de la requete, renvoye par le serveur avec la reponse
+     */
+    private final int id;
+    
+    /**
+     * Type du message de la requete
+     */
+    private final int type;
+    
+    /**
+     * Code d'etat de la reponse
+     */
+    private int status;
+    
+    /**
+     * Erreur de la connexion si la reponse n'arrivera jamais
+     */
+    private CanalException erreur;
+    
+    /**
+     * La requete est terminee
+     */
+    private boolean terminee = false;
+    
+    /**
+     * Ecouteurs a prevenir a la fin de la requete
+     */
+    private ArrayList<EcouteurDeRequete> ecouteurs = new ArrayList<EcouteurDeRequete>();
+    
+    /**
+     * Constructeur
+     * 
+     * @param id l'identificateur de la requete
+     * @param type le type du message
+     */
+    Requete(int id, int type)
+    {
+        this.id   = id;
+        this.type = type;
+    }
+    
+    /**
+     * @return l'identificateur de la requete
+     */
+    public int getId()
+    {
+        return id;
+    }
+    
+    /**
+     * @return le type du message de la requete
+     */
+    public int getType()
+    {
+        return type;
+    }
+    
+    /**
+     * Permet d'ajouter un ecouteur de la requete.
+     * <br>
+     * Si la requete est deja terminee, l'ecouteur est appele tout de suite.
+     * 
+     * @param edr l'ecouteur
+     */
+    public void ajouterEcouteurDeRequete(EcouteurDeRequete edr)
+    {
+        synchronized (this)
+        {
+            if(!terminee)
+            {
+                ecouteurs.add(edr);
+                return;
+            }
+        }
+        
+        edr.requeteTerminee(this);
+    }
+    
+    /**
+     * Permet d'attendre le code d'etat de la reponse
+     * 
+     * @return le code d'etat
+     * @throws CanalException si la connexion a ete rompue avant la reponse
+     */
+    public synchronized int getStatus() throws CanalException
+    {
+        boolean interrompu = false;
+        
+        while(!terminee)
+        {
+            try
+            {
+                wait();
+            } 
+            catch (InterruptedException e)
+            {
+                interrompu = true;
+            }
+        }
+        
+        if(interrompu)
+            Thread.currentThread().interrupt();
+        
+        if(erreur != null)
+            throw erreur;
+        
+        return status;
+    }
+    
+    @Override
+    public Integer get() throws InterruptedException, ExecutionException
+    {
+        synchronized (this)
+        {
+            while(!terminee)
+                wait();
+        }
+        
+        return resultat();
+    }
+
+    @Override
+    public Integer get(long timeout, TimeUnit unite) 
+        throws InterruptedException, ExecutionException, TimeoutException
+    {
+        long fin = System.nanoTime() + unite.toNanos(timeout);
+        
+        synchronized (this)
+        {
+            while(!terminee)
+            {
+                long reste = fin - System.nanoTime();
+                
+                if(reste <= 0)
+                    throw new TimeoutException();
+                
+                TimeUnit.NANOSECONDS.timedWait(this, reste);
+            }
+        }
+        
+        return resultat();
+    }
+    
+    private synchronized Integer resultat() throws ExecutionException
+    {
+        if(erreur != null)
+            throw new ExecutionException(erreur);
+        
+        return status;
+    }
+    
+    /**
+     * Une requete envoyee ne peut pas etre annulee
+     * 
+     * @return false
+     */
+    @Override
+    public boolean cancel(boolean interrompre)
+    {
+        return false;
+    }
+
+    @Override
+    public boolean isCancelled()
+    {
+        return false;
+    }
+
+    @Override
+    public synchronized boolean isDone()
+    {
+        return terminee;
+    }
+    
+    /**
+     * Permet de terminer la requete avec la reponse du serveur
+     * 
+     * @param status le code d'etat de la reponse
+     */
+    void terminer(int status)
+    {
+        terminer(status, null);
+    }
+    
+    /**
+     * Permet de terminer la requete sans reponse
+     * 
+     * @param erreur l'erreur de la connexion
+     */
+    void echouer(CanalException erreur)
+    {
+        terminer(0, erreur);
+    }
+    
+    /**
+     * Termine la requete une seule fois : la premiere reponse ou erreur 
+     * est gardee, les suivantes sont ignorees.
+     */
+    private void terminer(int status, CanalException erreur)
+    {
+        ArrayList<EcouteurDeRequete> aPrevenir;
+        
+        synchronized (this)
+        {
+            if(terminee)
+                return;
+            
+            this.status = status;
+            this.erreur = erreur;
+            
+            terminee   = true;
+            aPrevenir  = ecouteurs;
+            ecouteurs  = null;
+            
+            notifyAll();
+        }
+        
+        for(EcouteurDeRequete edr : aPrevenir)
+            edr.requeteTerminee(this);
+    }
+}
@@ -0,0 +1,114 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.client;
+
+import static org.junit.Assert.*;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.*;
+import reseau.CanalException;
+import reseau.jeu.serveur.ConstantesServeurJeu;
+
+/**
+ * @author agent
+ * 
+ */
+public class RequeteTest implements ConstantesServeurJeu
+{
+   Requete requete;
+   AtomicInteger nbAppels;
+   
+   @Before
+   public void setUp()
+   {
+      requete = new Requete(1, TOUR_AJOUT);
+      nbAppels = new AtomicInteger();
+      
+      requete.ajouterEcouteurDeRequete(new EcouteurDeRequete()
+      {
+         public void requeteTerminee(Requete requete)
+         {
+            nbAppels.incrementAndGet();
+         }
+      });
+   }
+   
+   /**
+    * Test method for {@link reseau.jeu.client.Requete#terminer(int)}.
+    * <br>
+    * Une erreur apres la reponse ne la remplace pas.
+    */
+   @Test
+   public void testReponsePuisErreur() throws Exception
+   {
+      requete.terminer(OK);
+      requete.echouer(new CanalException("Connexion fermee"));
+      
+      assertTrue(requete.isDone());
+      assertEquals(OK, requete.getStatus());
+      assertEquals(OK, requete.get().intValue());
+      assertEquals(1, nbAppels.get());
+   }
+   
+   /**
+    * Test method for {@link reseau.jeu.client.Requete#echouer(CanalException)}.
+    * <br>
+    * Une reponse apres l'erreur ne la remplace pas.
+    */
+   @Test
+   public void testErreurPuisReponse() throws Exception
+   {
+      requete.echouer(new CanalException("Connexion fermee"));
+      requete.terminer(OK);
+      
+      try
+      {
+         requete.get();
+         fail("Erreur remplacee par la reponse");
+      }
+      catch(ExecutionException e)
+      {
+         assertTrue(e.getCause() instanceof CanalException);
+      }
+      
+      assertEquals(1, nbAppels.get());
+   }
+   
+   /**
+    * Test method for {@link reseau.jeu.client.Requete#ajouterEcouteurDeRequete(EcouteurDeRequete)}.
+    * <br>
+    * Un ecouteur ajoute apres la fin est appele tout de suite.
+    */
+   @Test
+   public void testEcouteurApresLaFin()
+   {
+      requete.terminer(ARGENT_INSUFFISANT);
+      
+      requete.ajouterEcouteurDeRequete(new EcouteurDeRequete()
+      {
+         public void requeteTerminee(Requete requete)
+         {
+            nbAppels.incrementAndGet();
+         }
+      });
+      
+      assertEquals(2, nbAppels.get());
+   }
+}
@@ -214,6 +214,24 @@ public interface ConstantesServeurJeu
 	 */
 	public final int OBJET = 350;
 	
+	/**
+	 * Type de message : etat des creatures et des joueurs (un par mise a jour)
+	 * ou, du client vers le serveur, acquittement d'un etat
+	 */
+	public final int ETAT_DU_JEU = 351;
+	
+	/**
+	 * Type de message : demande (client) puis annonce (serveur) du passage 
+	 * au protocole binaire sur le canal de mise a jour
+	 */
+	public final int PROTOCOLE_BINAIRE = 352;
+	
+	/**
+	 * Type de message : choix de la partie a rejoindre, premier message 
+	 * d'un client chez un hebergeur de parties
+	 */
+	public final int PARTIE_REJOINDRE = 353;
+	
 	
 
 	// ERREURS 400-499
@@ -273,6 +291,11 @@ public interface ConstantesServeurJeu
      */
     public final int TYPE_TOUR_INVALIDE = 410;
     
+    /**
+     * Code d'erreur : partie inconnue chez l'hebergeur
+     */
+    public final int PARTIE_INCONNUE = 411;
+    
 	/**
 	 * Code d'erreur : erreur quelconque
 	 */
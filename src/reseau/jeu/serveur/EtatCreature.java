@@ -0,0 +1,131 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import models.creatures.Creature;
+
+/**
+ * Etat quantifie d'une creature, tel qu'il est replique chez les clients.
+ * <p>
+ * Les valeurs sont entieres : deux etats sont egaux si et seulement si
+ * le client afficherait la meme chose. C'est ce qui permet de n'envoyer
+ * que les champs qui ont change (voir {@link ReplicationDesCreatures}).
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class EtatCreature
+{
+    /**
+     * Nombre de pas d'angle par radian
+     */
+    public static final double PRECISION_ANGLE = 100.0;
+
+    /**
+     * Identificateur de la creature
+     */
+    public final int id;
+
+    /**
+     * Position en pixels
+     */
+    public int x, y;
+
+    /**
+     * Sante
+     */
+    public long sante;
+
+    /**
+     * Angle en centiemes de radian
+     */
+    public int angle;
+
+    /**
+     * Constructeur d'un etat vide
+     *
+     * @param id l'identificateur de la creature
+     */
+    public EtatCreature(int id)
+    {
+        this.id = id;
+    }
+
+    /**
+     * Constructeur a partir d'une creature
+     *
+     * @param creature la creature
+     */
+    public EtatCreature(Creature creature)
+    {
+        id    = creature.getId();
+        x     = creature.x;
+        y     = creature.y;
+        sante = creature.getSante();
+        angle = quantifierAngle(creature.getAngle());
+    }
+
+    /**
+     * Constructeur par copie
+     *
+     * @param etat l'etat a copier
+     */
+    public EtatCreature(EtatCreature etat)
+    {
+        id    = etat.id;
+        x     = etat.x;
+        y     = etat.y;
+        sante = etat.sante;
+        angle = etat.angle;
+    }
+
+    /**
+     * Permet de savoir si deux etats sont identiques
+     *
+     * @param etat l'autre etat
+     * @return true s'ils le sont, false sinon
+     */
+    public boolean estEgal(EtatCreature etat)
+    {
+        return id == etat.id && x == etat.x && y == etat.y
+            && sante == etat.sante && angle == etat.angle;
+    }
+
+    /**
+     * Permet de quantifier un angle
+     *
+     * @param angle l'angle en radians
+     * @return l'angle en centiemes de radian
+     */
+    public static int quantifierAngle(double angle)
+    {
+        return (int) Math.round(angle * PRECISION_ANGLE);
+    }
+
+    /**
+     * Permet de recuperer l'angle en radians
+     *
+     * @return l'angle
+     */
+    public double getAngle()
+    {
+        return angle / PRECISION_ANGLE;
+    }
+}
@@ -0,0 +1,233 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import org.json.JSONException;
+import org.json.JSONObject;
+import reseau.CanalException;
+import reseau.ConnexionNIO;
+import reseau.EcouteurDeConnexion;
+import reseau.ServeurNIO;
+
+/**
+ * Hebergeur de plusieurs parties derriere un seul port.
+ * <p>
+ * Le premier message d'un client designe la partie a rejoindre 
+ * (PARTIE_REJOINDRE), la connexion est ensuite confiee au 
+ * {@link ServeurJeu} de cette partie comme s'il avait accepte le client
+ * lui-meme.
+ * <p>
+ * Les parties hebergees n'ont ni port ni thread : les connexions sont 
+ * gerees par les boucles reseau du processus et les simulations par 
+ * l'ordonnanceur commun des boucles de jeu (voir 
+ * {@link models.jeu.BoucleDeJeu#utiliserOrdonnanceurCommun(int)}).
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class HebergeurDeParties implements ConstantesServeurJeu, EcouteurDeConnexion
+{
+    /**
+     * Le port d'ecoute commun
+     */
+    private final ServeurNIO serveurNIO;
+    
+    /**
+     * Les parties hebergees par identificateur
+     */
+    private final HashMap<Integer, ServeurJeu> parties = new HashMap<Integer, ServeurJeu>();
+    
+    /**
+     * Identificateur de la derniere partie ajoutee
+     */
+    private int idDernierePartie = 0;
+    
+    /**
+     * La partie de chaque connexion, une fois choisie
+     */
+    private final HashMap<ConnexionNIO, ServeurJeu> routes = new HashMap<ConnexionNIO, ServeurJeu>();
+    
+    /**
+     * Constructeur, reserve le port
+     * 
+     * @param port le port d'ecoute commun
+     * @throws IOException si le port ne peut pas etre reserve
+     */
+    public HebergeurDeParties(int port) throws IOException
+    {
+        serveurNIO = new ServeurNIO(port, this);
+    }
+    
+    /**
+     * @return le port d'ecoute commun
+     */
+    public int getPort()
+    {
+        return serveurNIO.getPort();
+    }
+    
+    /**
+     * Permet d'ajouter une partie
+     * 
+     * @param serveur le serveur de la partie
+     * @return l'identificateur de la partie
+     */
+    synchronized int ajouterPartie(ServeurJeu serveur)
+    {
+        parties.put(++idDernierePartie, serveur);
+        
+        return idDernierePartie;
+    }
+    
+    /**
+     * Permet de retirer une partie, les nouveaux clients ne peuvent plus 
+     * la rejoindre.
+     * 
+     * @param idPartie l'identificateur de la partie
+     */
+    public synchronized void retirerPartie(int idPartie)
+    {
+        parties.remove(idPartie);
+    }
+    
+    /**
+     * Permet de recuperer les parties hebergees
+     * 
+     * @return une copie de la liste des parties
+     */
+    public synchronized ArrayList<ServeurJeu> getParties()
+    {
+        return new ArrayList<ServeurJeu>(parties.values());
+    }
+    
+    /**
+     * Permet de connaitre la charge de chaque partie
+     * 
+     * @return une ligne par partie : identificateur, nombre de clients et
+     *         part du temps de simulation utilisee
+     */
+    public String getRapportDeCharge()
+    {
+        StringBuilder rapport = new StringBuilder();
+        double chargeTotale = 0.0;
+        
+        for(ServeurJeu partie : getParties())
+        {
+            double charge = partie.getJeu().getCharge();
+            chargeTotale += charge;
+            
+            rapport.append(String.format("partie %d : %d client(s), charge %.1f %%%n", 
+                    partie.getIdPartie(), partie.getNbClients(), charge * 100.0));
+        }
+        
+        rapport.append(String.format("total : %.1f %% d'un processeur%n", chargeTotale * 100.0));
+        
+        return rapport.toString();
+    }
+    
+    /**
+     * Permet de liberer le port commun
+     */
+    public void fermer()
+    {
+        serveurNIO.fermer();
+    }
+
+    @Override
+    public void connexionOuverte(ConnexionNIO connexion)
+    {
+        // la partie n'est connue qu'au premier message
+    }
+
+    @Override
+    public void trameRecue(ConnexionNIO connexion, byte voie, byte[] donnees)
+    {
+        ServeurJeu partie;
+        
+        synchronized (routes)
+        {
+            partie = routes.get(connexion);
+        }
+        
+        if(partie != null)
+        {
+            partie.trameRecue(connexion, voie, donnees);
+            return;
+        }
+        
+        // premier message : choix de la partie
+        try
+        {
+            JSONObject message = new JSONObject(ConnexionNIO.versString(donnees));
+            
+            if(message.getInt("TYPE") == PARTIE_REJOINDRE)
+            {
+                synchronized (this)
+                {
+                    partie = parties.get(message.getInt("ID_PARTIE"));
+                }
+            }
+        }
+        catch (JSONException e)
+        {
+            // pas un choix de partie
+        }
+        
+        if(partie == null)
+        {
+            try
+            {
+                connexion.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+                        Protocole.construireMsgJoueurInitialisation(PARTIE_INCONNUE));
+            }
+            catch (CanalException e)
+            {
+                // la connexion est fermee juste apres
+            }
+            
+            connexion.fermer();
+            return;
+        }
+        
+        synchronized (routes)
+        {
+            routes.put(connexion, partie);
+        }
+        
+        partie.connexionOuverte(connexion);
+    }
+
+    @Override
+    public void connexionFermee(ConnexionNIO connexion)
+    {
+        ServeurJeu partie;
+        
+        synchronized (routes)
+        {
+            partie = routes.remove(connexion);
+        }
+        
+        if(partie != null)
+            partie.connexionFermee(connexion);
+    }
+}
@@ -0,0 +1,197 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import models.jeu.Jeu_Serveur;
+import models.terrains.ElementTD_Versus_4;
+import models.terrains.Terrain;
+import org.json.JSONObject;
+import org.junit.*;
+import reseau.CanalException;
+import reseau.CanalMultiplexe;
+import reseau.ConnexionNIO;
+
+/**
+ * @author agent
+ * 
+ */
+public class HebergeurDePartiesTest implements ConstantesServeurJeu
+{
+   HebergeurDeParties hebergeur;
+   ArrayList<Jeu_Serveur> jeux = new ArrayList<Jeu_Serveur>();
+   ArrayList<CanalMultiplexe> canaux = new ArrayList<CanalMultiplexe>();
+   
+   @Before
+   public void setUp() throws Exception
+   {
+      // port libre choisi par le systeme
+      hebergeur = new HebergeurDeParties(0);
+   }
+   
+   @After
+   public void tearDown()
+   {
+      for(CanalMultiplexe canal : canaux)
+         canal.fermer();
+      
+      hebergeur.fermer();
+      
+      for(Jeu_Serveur jeu : jeux)
+         jeu.detruire();
+   }
+   
+   /**
+    * Test method for {@link HebergeurDeParties#trameRecue(ConnexionNIO, byte, byte[])}.
+    * <br>
+    * Chaque client arrive dans la partie qu'il a choisie, sur le port 
+    * commun.
+    */
+   @Test
+   public void testRoutageDesParties() throws Exception
+   {
+      int idPartie1 = creerPartie();
+      int idPartie2 = creerPartie();
+      assertTrue(idPartie1 != idPartie2);
+      
+      ServeurJeu partie1 = hebergeur.getParties().get(0);
+      ServeurJeu partie2 = hebergeur.getParties().get(1);
+      if(partie1.getIdPartie() != idPartie1)
+      {
+         ServeurJeu tmp = partie1;
+         partie1 = partie2;
+         partie2 = tmp;
+      }
+      
+      assertEquals(OK, rejoindre(idPartie1).getInt("STATUS"));
+      assertEquals(OK, rejoindre(idPartie2).getInt("STATUS"));
+      assertEquals(OK, rejoindre(idPartie1).getInt("STATUS"));
+      
+      assertEquals(2, partie1.getNbClients());
+      assertEquals(1, partie2.getNbClients());
+   }
+   
+   /**
+    * Test method for {@link HebergeurDeParties#trameRecue(ConnexionNIO, byte, byte[])}.
+    * <br>
+    * Un client qui demande une partie inconnue est refuse puis deconnecte.
+    */
+   @Test
+   public void testPartieInconnue() throws Exception
+   {
+      int idPartie = creerPartie();
+      
+      CanalMultiplexe canal = connecter();
+      canal.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+            Protocole.construireMsgRejoindrePartie(idPartie + 1000));
+      
+      verifierRefus(canal);
+      assertEquals(0, hebergeur.getParties().get(0).getNbClients());
+   }
+   
+   /**
+    * Test method for {@link HebergeurDeParties#trameRecue(ConnexionNIO, byte, byte[])}.
+    * <br>
+    * Un client qui ne choisit pas de partie est refuse puis deconnecte.
+    */
+   @Test
+   public void testSansChoixDePartie() throws Exception
+   {
+      creerPartie();
+      
+      CanalMultiplexe canal = connecter();
+      canal.envoyerString(ConnexionNIO.VOIE_REQUETES, "joueur");
+      
+      verifierRefus(canal);
+   }
+   
+   /**
+    * Test method for {@link HebergeurDeParties#retirerPartie(int)}.
+    * <br>
+    * Une partie retiree ne peut plus etre rejointe.
+    */
+   @Test
+   public void testRetirerPartie() throws Exception
+   {
+      int idPartie = creerPartie();
+      hebergeur.retirerPartie(idPartie);
+      
+      assertTrue(hebergeur.getParties().isEmpty());
+      
+      CanalMultiplexe canal = connecter();
+      canal.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+            Protocole.construireMsgRejoindrePartie(idPartie));
+      
+      verifierRefus(canal);
+   }
+   
+   private int creerPartie()
+   {
+      Jeu_Serveur jeu = new Jeu_Serveur();
+      jeux.add(jeu);
+      
+      // plusieurs emplacements de joueurs
+      Terrain terrain = new ElementTD_Versus_4(jeu);
+      terrain.initialiser();
+      jeu.setTerrain(terrain);
+      
+      return jeu.etablissementDuServeur(hebergeur);
+   }
+   
+   private CanalMultiplexe connecter() throws Exception
+   {
+      CanalMultiplexe canal = new CanalMultiplexe("127.0.0.1", hebergeur.getPort());
+      canaux.add(canal);
+      return canal;
+   }
+   
+   /**
+    * Rejoint une partie et attend l'initialisation du joueur
+    */
+   private JSONObject rejoindre(int idPartie) throws Exception
+   {
+      CanalMultiplexe canal = connecter();
+      canal.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+            Protocole.construireMsgRejoindrePartie(idPartie));
+      canal.envoyerString(ConnexionNIO.VOIE_REQUETES, "joueur");
+      
+      JSONObject init = new JSONObject(canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+      assertEquals(ServeurJeu.VERSION, canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+      
+      return init;
+   }
+   
+   private void verifierRefus(CanalMultiplexe canal) throws Exception
+   {
+      JSONObject reponse = new JSONObject(canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+      assertEquals(PARTIE_INCONNUE, reponse.getInt("STATUS"));
+      
+      try
+      {
+         canal.recevoir(ConnexionNIO.VOIE_REQUETES);
+         fail("Connexion non fermee");
+      }
+      catch(CanalException e)
+      {
+         // attendu
+      }
+   }
+}
@@ -18,25 +18,28 @@
 
 package reseau.jeu.serveur;
 
-import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
 
 import models.joueurs.Joueur;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
-import outils.Configuration;
-import reseau.CanalTCP;
 import reseau.CanalException;
-import reseau.Port;
+import reseau.ConnexionNIO;
 
 /**
  * Une classe qui modélise coté serveur un joueur.
+ * <p>
+ * Le joueur n'a pas de thread : les messages du client sont décodés par 
+ * la boucle réseau de sa connexion (voir {@link #traiterMessage(String)})
+ * puis exécutés par la file d'actions de la partie.
  * 
  * @author Pierre-Dominique Putallaz
  * @author Da Campo Aurélien
  */
-public class JoueurDistant implements Runnable, ConstantesServeurJeu
+public class JoueurDistant implements ConstantesServeurJeu
 {
 	// Constantes pour les états de la connexion avec le joueur distant
 	private final static int EN_ATTENTE = 0;
@@ -47,14 +50,9 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	private final static int PARTIE_TERMINEE = 5;
 
 	/** 
-	 * Canal de dialogue commun
+	 * Connexion multiplexée avec le client (requêtes et mises à jour)
 	 */
-	private CanalTCP canal;
-	
-	/**
-	 * Canal de mise à jour
-	 */
-	private CanalTCP canal_update;
+	private ConnexionNIO connexion;
 	
 	/**
 	 * identificateur du jeu
@@ -71,16 +69,23 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	 */
 	private int etat = VALIDATION;
 	
-	/** 
-	 * Message du client;
+	/**
+	 * Le canal de mise à jour utilise le protocole binaire
 	 */
-	private String str = "";
+	private boolean protocoleBinaire = false;
 	
-	/** 
-	 * Offset pour les ports temporaires
+	/**
+	 * Replication de l'état des créatures chez le client
 	 */
-	private static int offset_port = Configuration.getPortSJ_JD();
-
+	private ReplicationDesCreatures replication = new ReplicationDesCreatures();
+	
+	/**
+	 * Identificateur de la requête en cours de traitement, renvoyé avec 
+	 * la réponse. Le client peut ainsi avoir plusieurs requêtes en cours.
+	 */
+	private int idRequete = AUCUNE_REQUETE;
+	private static final int AUCUNE_REQUETE = -1;
+	
 	/**
 	 * Niveau d'affichage des messages
 	 */
@@ -91,103 +96,110 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	 * 
 	 * @param ID
 	 *            L'ID associée au joueur.
-	 * @param canal
-	 *            Le canal de communication.
+	 * @param connexion
+	 *            La connexion avec le client.
 	 * @param serveur
 	 *            Le serveur de jeu associé au joueur.
+	 * @throws CanalException 
 	 */
-	public JoueurDistant(Joueur joueur, CanalTCP canal, ServeurJeu serveur)
+	public JoueurDistant(Joueur joueur, ConnexionNIO connexion, ServeurJeu serveur) 
+	    throws CanalException
 	{
-		this.canal    = canal;
-		this.joueur   = joueur;
-		this.serveur  = serveur;
+		this.connexion = connexion;
+		this.joueur    = joueur;
+		this.serveur   = serveur;
 
 		log("Nouveau client +"+joueur.getId());
-		(new Thread(this)).start();
-	}
-
-	@Override
-	protected void finalize() throws Throwable
-	{
-		// En cas de déréférencement de l'objet, on aura tendance à couper le
-		// canal de communication
-		fermerCanal();
+		
+		// les messages suivants de la connexion sont pour ce joueur
+		connexion.setAttachement(this);
+		
+		actionsEtatValidation();
 	}
 
 	/**
-	 * Tache d'écoute du canal
+	 * Traite un message du client.
+	 * <br>
+	 * Appelée par la boucle réseau de la connexion : le message y est 
+	 * seulement décodé, l'action est confiée à la file d'actions de la 
+	 * partie (voir {@link ServeurJeu#executerAction(Runnable)}).
+	 * 
+	 * @param message le message reçu
 	 */
-	public void run()
+	public void traiterMessage(final String message)
 	{
-		while (true)
-		{
-			try 
-			{
-				actionsEtats();
-			}
-			catch (JSONException e) 
-			{
-				logErreur("Récéption inconnue \"" + str + "\"",e);
-			}
-			catch (CanalException e) {
-			    
-			    serveur.joueurDeconnecte(joueur);
-			    
-			    logErreur("Canal erroné \"" + str + "\"",e);
-                return;
-            }
-			catch (IOException e)
+	    log("Récéption de " + message);
+	    
+	    final JSONObject json;
+	    
+	    try 
+        {
+            json = new JSONObject(message);
+        }
+        catch (JSONException e) 
+        {
+            logErreur("Récéption inconnue \"" + message + "\"",e);
+            return;
+        }
+        
+        serveur.executerAction(new Runnable()
+        {
+            public void run()
             {
-			    serveur.joueurDeconnecte(joueur);
-			    
-			    logErreur("ERROR : canal erroné \"" + str + "\"",e);
-                return;
+                executerMessage(json, message);
             }
-		}
+        });
 	}
-
+	
 	/**
-	 * Ecoute un message du client.
+	 * Exécute l'action d'un message décodé.
+	 * <br>
+	 * Appelée par la file d'actions de la partie, un message à la fois.
 	 * 
-	 * @return Une chaine de caractère.
-	 * @throws CanalException 
+	 * @param json le message décodé
+	 * @param message le message reçu
 	 */
-	private String attendreMessage() throws CanalException
+	private void executerMessage(JSONObject json, String message)
 	{
-		// Récéption du message du client
-		synchronized (canal)
-		{
-			str = canal.recevoirString();
-			log("Récéption de " + str);
-			return str;
-		}
+	    try 
+        {
+            idRequete = json.optInt("ID_REQUETE", AUCUNE_REQUETE);
+            
+            actionsEtats(json);
+        }
+        catch (JSONException e) 
+        {
+            logErreur("Récéption inconnue \"" + message + "\"",e);
+        }
+        catch (CanalException e) {
+            
+            serveur.joueurDeconnecte(joueur);
+            
+            logErreur("Canal erroné \"" + message + "\"",e);
+        }
 	}
 	
 	/**
 	 * Machine d'état du client
 	 * 
+	 * @param json le message reçu
 	 * @throws JSONException
 	 *             Erreur levée si la chaine de caractère reçu du serveur n'est
 	 *             pas un format JSON
 	 * @throws CanalException 
-	 * @throws IOException 
 	 */
-	private void actionsEtats() throws JSONException, CanalException, IOException
+	private void actionsEtats(JSONObject json) throws JSONException, CanalException
 	{
 		log("Etat : " + getNomEtat(etat));
 
 		switch (etat)
     	{
-        	case VALIDATION: 
-        	    actionsEtatValidation();                   
-        		break;
-    			
         	case EN_ATTENTE:
-        		actionsEtatEnAttente();
+        		actionsEtatEnAttente(json);
         		break;
     			
         	case EN_JEU:
-        	    actionsEtatEnJeu();
+        	    actionsEtatEnJeu(json);
         	    break;
  
         	default:
@@ -195,26 +207,11 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 		} 
 	}
 
-	private void actionsEtatValidation() throws CanalException, IOException
+	private void actionsEtatValidation() throws CanalException
     {
 	    // Envoi de la version du serveur au client
         envoyer(ServeurJeu.VERSION);
         
-        // Réservation du port pour le canal temporaire
-        Port port = new Port(offset_port++);
-        port.reserver();
-        
-        // Envoi du numéro de port utilisé
-        envoyer(port.getNumeroPort());
-        
-        // Création du canal de mise à jour et attente de la connexion
-        log("Création du canal de synchronisation");
-        
-        // Création du canal
-        canal_update = new CanalTCP(port);
-    
-        log("Canal crée");
-        
         // envoie de l'etat de la partie
         envoyerSurCanalMAJ(Protocole.construireMsgJoueursEtat(serveur.getJoueurs()));
         
@@ -228,11 +225,8 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	 * @throws JSONException
 	 * @throws CanalException
 	 */
-	private void actionsEtatEnAttente() throws JSONException, CanalException
+	private void actionsEtatEnAttente(JSONObject json) throws JSONException, CanalException
     {
-	    // Attente d'un message
-        JSONObject json = new JSONObject(attendreMessage());
-        
         // Extraction du type du message
         int type = json.getInt("TYPE");
         log("Récéption d'un message de type " + type + " dans l'état : "+ etat);
@@ -249,6 +243,11 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
                 receptionMsgChangementEquipe(json);
                 break;
                 
+            // Passage au protocole binaire
+            case PROTOCOLE_BINAIRE:
+                receptionMsgProtocoleBinaire(json);
+                break;
+                
              // Changement d'equipe
             case JOUEUR_PRET:
                 
@@ -268,6 +267,11 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
                 fermerCanal();
                 
                 break;      
+                
+            // requête hors jeu (tour, vague...) : le client attend une réponse
+            default:
+                if(idRequete != AUCUNE_REQUETE)
+                    repondreEtat(type, JOUEUR_HORS_JEU);
         }
     }
 
@@ -278,11 +282,27 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
         
         // joueur identique ou admin
         if(idJoueur2 == joueur.getId() || joueur.getId() == serveur.getIdCreateur())
-            envoyer(serveur.changerEquipe(idJoueur2,idEquipe));
+            repondre(new JSONObject(serveur.changerEquipe(idJoueur2,idEquipe)));
         else
             repondreEtat(JOUEUR_CHANGER_EQUIPE, ACTION_NON_AUTORISEE);
     }
 
+    /**
+     * Le client sait utiliser le protocole binaire : s'il a la même 
+     * version que le serveur, le passage est annoncé sur le canal de mise
+     * à jour et tous les messages suivants sont des trames.
+     */
+    private synchronized void receptionMsgProtocoleBinaire(JSONObject json) throws JSONException, CanalException
+    {
+        if(!ServeurJeu.VERSION.equals(json.getString("VERSION")) || protocoleBinaire)
+            return;
+        
+        log("Passage au protocole binaire");
+        
+        envoyerSurCanalMAJ(Protocole.construireMsgProtocoleBinaire());
+        protocoleBinaire = true;
+    }
+
     /**
 	 * Envoi un message au client
 	 * 
@@ -293,23 +313,11 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	public synchronized void envoyer(final String msg) throws CanalException
 	{
 		log("Envoi du String " + msg);
-		canal.envoyerString(msg);
-	}
-
-	public synchronized void envoyer(final int msg) throws CanalException
-	{
-		synchronized (canal)
-		{
-			log("Envoi de l'int " + msg);
-			canal.envoyerInt(msg);
-		}
+		connexion.envoyerString(ConnexionNIO.VOIE_REQUETES, msg);
 	}
 
-	private void actionsEtatEnJeu() throws JSONException, CanalException
+	private void actionsEtatEnJeu(JSONObject json) throws JSONException, CanalException
 	{
-		// Attente d'un message
-		JSONObject json = new JSONObject(attendreMessage());
-		
 		// Extraction du type du message
 		int type = json.getInt("TYPE");
 		
@@ -322,6 +330,11 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
     		    receptionMsgDemandeEnvoieMessage(json);
     			break;
     		
+    		// Acquittement d'un état du jeu
+    		case ETAT_DU_JEU:
+    		    replication.acquitter(json.getInt("NUMERO"));
+    		    break;
+    		
     		// Action sur une vague
     		case VAGUE:
     		    receptionMsgDemandeLancementVague(json);
@@ -449,16 +462,31 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 		message.put("TYPE", type);
 		message.put("STATUS", code);
 		// Envoi de la structure à travers le réseau
-		envoyer(message.toString());
+		repondre(message);
+	}
+	
+	/**
+	 * Répond à la requête en cours de traitement
+	 * 
+	 * @param message la réponse
+	 * @throws JSONException 
+	 * @throws CanalException 
+	 */
+	private void repondre(JSONObject message)
+	    throws JSONException, CanalException
+	{
+	    if(idRequete != AUCUNE_REQUETE)
+	        message.put("ID_REQUETE", idRequete);
+	    
+	    envoyer(message.toString());
 	}
 
 	/**
 	 * Termine la liaison avec le client
-	 * @throws CanalException 
 	 */
-	private void fermerCanal() throws CanalException
+	private void fermerCanal()
 	{
-		canal.fermer();
+		connexion.fermer();
 	}
 
 	/**
@@ -500,10 +528,64 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
 	public synchronized void envoyerSurCanalMAJ(String message) 
 	    throws CanalException
 	{
-		if(canal_update != null)
-		    canal_update.envoyerString(message);
-		else
-		    logErreur("Canal_update null",null);
+	    envoyerSurCanalMAJ(message, null);
+	}
+	
+	/**
+     * Envoi sur le canal de mise à jour un message qui a aussi un format 
+     * binaire
+     * 
+     * @param message le message JSON
+     * @param trame le message au format binaire ou null
+     * @throws CanalException 
+     */
+    public synchronized void envoyerSurCanalMAJ(String message, byte[] trame) 
+        throws CanalException
+    {
+        envoyerSurCanalMAJ(message, trame, null);
+    }
+    
+    /**
+     * Envoi sur le canal de mise à jour d'un message éventuellement 
+     * remplaçable (voir {@link ConnexionNIO#envoyer(byte, byte[], Object)})
+     */
+    private void envoyerSurCanalMAJ(String message, byte[] trame, Object remplacable) 
+        throws CanalException
+    {
+        byte[] donnees;
+        
+        if(!protocoleBinaire)
+            donnees = ConnexionNIO.versOctets(message);
+        else if(trame != null)
+            donnees = trame;
+        else
+            donnees = ProtocoleBinaire.construireTrameJSON(message);
+        
+        connexion.envoyer(ConnexionNIO.VOIE_MISE_A_JOUR, donnees, remplacable);
+    }
+	
+	/**
+	 * Envoi sur le canal de mise à jour l'état du jeu, exprimé par rapport
+	 * au dernier état acquitté par le client.
+	 * <br>
+	 * Si l'état précédent attend encore dans la file d'envoi, il est 
+	 * remplacé : un client lent reçoit moins d'états, pas des états en 
+	 * retard.
+	 * 
+	 * @param etats l'état des créatures
+	 * @param joueurs les joueurs
+	 * @throws CanalException 
+	 */
+	public synchronized void envoyerEtatDuJeu(HashMap<Integer, EtatCreature> etats, 
+	        ArrayList<Joueur> joueurs) throws CanalException
+	{
+	    Object etatDuJeu = new Object();
+	    
+	    if(protocoleBinaire)
+	        envoyerSurCanalMAJ(null, replication.construireTrameEtatDuJeu(etats, joueurs), etatDuJeu);
+	    else
+	        for(String message : replication.construireMsgsEtatDuJeu(etats, joueurs))
+	            envoyerSurCanalMAJ(message, null, etatDuJeu);
 	}
 	
 	/**
@@ -534,4 +616,9 @@ public class JoueurDistant implements Runnable, ConstantesServeurJeu
     {
         return joueur.getId();
     }
+
+    public Joueur getJoueur()
+    {
+        return joueur;
+    }
 }
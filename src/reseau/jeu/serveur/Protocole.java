@@ -19,6 +19,7 @@
 package reseau.jeu.serveur;
 
 import java.util.ArrayList;
+import java.util.List;
 import models.creatures.*;
 import models.jeu.Jeu;
 import models.joueurs.Equipe;
@@ -148,11 +149,78 @@ public class Protocole implements ConstantesServeurJeu
         try
         {
             msg.put("TYPE", JOUEUR_ETAT);
-            msg.put("ID_JOUEUR", joueur.getId());
-            msg.put("NB_PIECES_OR", joueur.getNbPiecesDOr());
-            msg.put("NB_VIES_RESTANTES_EQUIPE", joueur.getEquipe().getNbViesRestantes());
-            msg.put("REVENU", joueur.getRevenu());
-            msg.put("SCORE", joueur.getScore());
+            ajouterEtatJoueur(msg, joueur);
+        }
+        catch (JSONException e)
+        {
+            e.printStackTrace();
+        }
+        
+        return msg.toString(); 
+    }
+    
+    /**
+     * Permet de construire un message d'état du jeu.
+     * <br>
+     * Il regroupe l'état des créatures et de tous les joueurs : un seul 
+     * message (et un seul flush) par client à chaque mise à jour. 
+     * <br>
+     * L'état des créatures est exprimé par rapport à l'état de base : 
+     * seuls les champs qui diffèrent de la base sont présents (tous si la
+     * créature n'a pas de base). Un état peut être découpé en plusieurs 
+     * messages, le dernier porte DERNIER à true.
+     * 
+     * @param numero le numéro de l'état
+     * @param base le numéro de l'état de base ou 
+     *        {@link ReplicationDesCreatures#AUCUNE_BASE}
+     * @param dernier si c'est le dernier message de l'état
+     * @param etats les états des créatures à envoyer
+     * @param bases les états de base correspondants (null si aucun)
+     * @param joueurs les joueurs
+     * @return Une structure JSONObject
+     */
+    public static String construireMsgEtatDuJeu(int numero, int base, boolean dernier, 
+            List<EtatCreature> etats, List<EtatCreature> bases, ArrayList<Joueur> joueurs)
+    {
+        JSONObject msg = new JSONObject();
+        
+        try
+        {
+            msg.put("TYPE", ETAT_DU_JEU);
+            msg.put("NUMERO", numero);
+            msg.put("BASE", base);
+            msg.put("DERNIER", dernier);
+            
+            JSONArray JSONcreatures = new JSONArray();
+            for(int i=0; i < etats.size(); i++)
+            {
+                EtatCreature etat     = etats.get(i);
+                EtatCreature etatBase = bases.get(i);
+                
+                JSONObject JSONcreature = new JSONObject();
+                JSONcreature.put("ID_CREATURE", etat.id);
+                
+                if(etatBase == null || etat.x != etatBase.x)
+                    JSONcreature.put("X", etat.x);
+                if(etatBase == null || etat.y != etatBase.y)
+                    JSONcreature.put("Y", etat.y);
+                if(etatBase == null || etat.sante != etatBase.sante)
+                    JSONcreature.put("SANTE", etat.sante);
+                if(etatBase == null || etat.angle != etatBase.angle)
+                    JSONcreature.put("ANGLE", etat.angle);
+                
+                JSONcreatures.put(JSONcreature);
+            }
+            msg.put("CREATURES", JSONcreatures);
+            
+            JSONArray JSONjoueurs = new JSONArray();
+            for(Joueur joueur : joueurs)
+            {
+                JSONObject JSONjoueur = new JSONObject();
+                ajouterEtatJoueur(JSONjoueur, joueur);
+                JSONjoueurs.put(JSONjoueur);
+            }
+            msg.put("JOUEURS", JSONjoueurs);
         }
         catch (JSONException e)
         {
@@ -162,6 +230,24 @@ public class Protocole implements ConstantesServeurJeu
         return msg.toString(); 
     }
     
+    private static void ajouterEtatJoueur(JSONObject msg, Joueur joueur) throws JSONException
+    {
+        msg.put("ID_JOUEUR", joueur.getId());
+        msg.put("NB_PIECES_OR", joueur.getNbPiecesDOr());
+        msg.put("NB_VIES_RESTANTES_EQUIPE", joueur.getEquipe().getNbViesRestantes());
+        msg.put("REVENU", joueur.getRevenu());
+        msg.put("SCORE", joueur.getScore());
+    }
+    
+    private static void ajouterEtatCreature(JSONObject msg, Creature creature) throws JSONException
+    {
+        msg.put("ID_CREATURE", creature.getId());
+        msg.put("X", creature.x);
+        msg.put("Y", creature.y);
+        msg.put("SANTE", creature.getSante());
+        msg.put("ANGLE", creature.getAngle());
+    }
+    
     
     /**
      * Permet de construire le message de demande d'ajout d'une tour
@@ -282,12 +368,76 @@ public class Protocole implements ConstantesServeurJeu
         try
         {
             msg.put("TYPE", CREATURE_ETAT);
-            msg.put("ID_CREATURE", creature.getId());
-           
-            msg.put("X", creature.x);
-            msg.put("Y", creature.y);
-            msg.put("SANTE", creature.getSante());
-            msg.put("ANGLE", creature.getAngle());
+            ajouterEtatCreature(msg, creature);
+        } 
+        catch (JSONException e)
+        {
+            e.printStackTrace();
+        }
+        
+        return msg.toString();
+    }
+    
+    /**
+     * Permet de construire le message d'acquittement d'un état du jeu
+     * 
+     * @param numero le numéro de l'état reçu
+     * @return Une structure JSONObject
+     */
+    public static String construireMsgEtatDuJeuRecu(int numero)
+    {
+        JSONObject msg = new JSONObject();
+        
+        try
+        {
+            msg.put("TYPE", ETAT_DU_JEU);
+            msg.put("NUMERO", numero);
+        } 
+        catch (JSONException e)
+        {
+            e.printStackTrace();
+        }
+        
+        return msg.toString();
+    }
+    
+    /**
+     * Permet de construire le message de demande ou d'annonce du protocole
+     * binaire
+     * 
+     * @return Une structure JSONObject
+     */
+    public static String construireMsgProtocoleBinaire()
+    {
+        JSONObject msg = new JSONObject();
+        
+        try
+        {
+            msg.put("TYPE", PROTOCOLE_BINAIRE);
+            msg.put("VERSION", ServeurJeu.VERSION);
+        } 
+        catch (JSONException e)
+        {
+            e.printStackTrace();
+        }
+        
+        return msg.toString();
+    }
+    
+    /**
+     * Permet de construire le message de choix de la partie a rejoindre
+     * 
+     * @param idPartie l'identificateur de la partie chez l'hebergeur
+     * @return Une structure JSONObject
+     */
+    public static String construireMsgRejoindrePartie(int idPartie)
+    {
+        JSONObject msg = new JSONObject();
+        
+        try
+        {
+            msg.put("TYPE", PARTIE_REJOINDRE);
+            msg.put("ID_PARTIE", idPartie);
         } 
         catch (JSONException e)
         {
@@ -0,0 +1,352 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import models.creatures.*;
+import models.joueurs.Joueur;
+import models.tours.*;
+
+/**
+ * Classe de definition du protocole binaire.
+ * <p>
+ * Une fois negocie (voir {@link ConstantesServeurJeu#PROTOCOLE_BINAIRE}),
+ * le canal de mise a jour transporte des trames (voir
+ * {@link reseau.CanalTCP#envoyerTrame(byte[])}). Le premier octet d'une
+ * trame est son type, suivi de champs de taille fixe ecrits avec un
+ * DataOutputStream. Les messages frequents ont leur format binaire, les
+ * autres (salon, chat, etat de la partie) restent en JSON dans une trame
+ * de type {@link #JSON}.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see Protocole
+ */
+public class ProtocoleBinaire
+{
+    /**
+     * Trame : message JSON (UTF-8)
+     */
+    public static final byte JSON = 0;
+
+    /**
+     * Trame : ajout d'une creature
+     */
+    public static final byte CREATURE_AJOUT = 1;
+
+    /**
+     * Trame : etat d'une creature
+     */
+    public static final byte CREATURE_ETAT = 2;
+
+    /**
+     * Trame : suppression d'une creature
+     */
+    public static final byte CREATURE_SUPPRESSION = 3;
+
+    /**
+     * Trame : etat d'un joueur
+     */
+    public static final byte JOUEUR_ETAT = 4;
+
+    /**
+     * Trame : ajout d'une tour
+     */
+    public static final byte TOUR_AJOUT = 5;
+
+    /**
+     * Trame : etat du jeu
+     */
+    public static final byte ETAT_DU_JEU = 6;
+
+    /**
+     * Champs presents dans l'etat d'une creature (masque)
+     */
+    public static final byte CHAMP_X = 1, CHAMP_Y = 2, CHAMP_SANTE = 4, CHAMP_ANGLE = 8;
+
+    /**
+     * Permet d'encapsuler un message JSON dans une trame
+     *
+     * @param message le message JSON
+     * @return la trame
+     */
+    public static byte[] construireTrameJSON(String message)
+    {
+        try
+        {
+            byte[] octets = message.getBytes("UTF-8");
+            byte[] trame  = new byte[octets.length + 1];
+
+            trame[0] = JSON;
+            System.arraycopy(octets, 0, trame, 1, octets.length);
+
+            return trame;
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // UTF-8 est toujours supporte
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Permet de recuperer le message JSON d'une trame de type {@link #JSON}
+     *
+     * @param trame la trame
+     * @return le message JSON
+     */
+    public static String lireTrameJSON(byte[] trame)
+    {
+        try
+        {
+            return new String(trame, 1, trame.length - 1, "UTF-8");
+        }
+        catch (UnsupportedEncodingException e)
+        {
+            // UTF-8 est toujours supporte
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Permet de construire la trame d'ajout d'une creature
+     *
+     * @param creature la creature
+     * @return la trame
+     */
+    public static byte[] construireTrameCreatureAjout(Creature creature)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(41);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            trame.writeByte(CREATURE_AJOUT);
+            trame.writeInt(TypeDeCreature.getTypeCreature(creature));
+            trame.writeInt(creature.getId());
+            trame.writeInt(creature.getProprietaire().getId());
+            trame.writeInt(creature.getEquipeCiblee().getId());
+            trame.writeInt(creature.x);
+            trame.writeInt(creature.y);
+            trame.writeLong(creature.getSanteMax());
+            trame.writeInt(creature.getNbPiecesDOr());
+            trame.writeDouble(creature.getVitesseNormale());
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    /**
+     * Permet de construire la trame d'etat d'une creature
+     *
+     * @param creature la creature
+     * @return la trame
+     */
+    public static byte[] construireTrameCreatureEtat(Creature creature)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(25);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            EtatCreature etat = new EtatCreature(creature);
+
+            trame.writeByte(CREATURE_ETAT);
+            trame.writeInt(etat.id);
+            trame.writeInt(etat.x);
+            trame.writeInt(etat.y);
+            trame.writeLong(etat.sante);
+            trame.writeInt(etat.angle);
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    /**
+     * Permet de construire la trame de suppression d'une creature
+     *
+     * @param creature la creature
+     * @param tueur le joueur qui l'a tuee
+     * @return la trame
+     */
+    public static byte[] construireTrameCreatureSuppression(Creature creature, Joueur tueur)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(9);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            trame.writeByte(CREATURE_SUPPRESSION);
+            trame.writeInt(creature.getId());
+            trame.writeInt(tueur.getId());
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    /**
+     * Permet de construire la trame d'etat d'un joueur
+     *
+     * @param joueur le joueur
+     * @return la trame
+     */
+    public static byte[] construireTrameJoueurEtat(Joueur joueur)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(29);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            trame.writeByte(JOUEUR_ETAT);
+            ecrireEtatJoueur(trame, joueur);
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    /**
+     * Permet de construire la trame d'ajout d'une tour
+     *
+     * @param tour la tour
+     * @return la trame
+     */
+    public static byte[] construireTrameTourAjout(Tour tour)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(21);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            trame.writeByte(TOUR_AJOUT);
+            trame.writeInt(tour.getPrioprietaire().getId());
+            trame.writeInt(tour.getId());
+            trame.writeInt(tour.x);
+            trame.writeInt(tour.y);
+            trame.writeInt(TypeDeTour.getTypeDeTour(tour));
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    /**
+     * Permet de construire la trame d'etat du jeu.
+     * <br>
+     * Meme contenu que {@link Protocole#construireMsgEtatDuJeu}, en une
+     * seule trame : un masque indique les champs presents pour chaque
+     * creature.
+     *
+     * @param numero le numero de l'etat
+     * @param base le numero de l'etat de base ou
+     *        {@link ReplicationDesCreatures#AUCUNE_BASE}
+     * @param etats les etats des creatures a envoyer
+     * @param bases les etats de base correspondants (null si aucun)
+     * @param joueurs les joueurs
+     * @return la trame
+     */
+    public static byte[] construireTrameEtatDuJeu(int numero, int base,
+            List<EtatCreature> etats, List<EtatCreature> bases, ArrayList<Joueur> joueurs)
+    {
+        ByteArrayOutputStream octets = new ByteArrayOutputStream(11 + etats.size() * 13);
+        DataOutputStream trame = new DataOutputStream(octets);
+
+        try
+        {
+            trame.writeByte(ETAT_DU_JEU);
+            trame.writeInt(numero);
+            trame.writeInt(base);
+
+            trame.writeInt(etats.size());
+            for(int i=0; i < etats.size(); i++)
+            {
+                EtatCreature etat     = etats.get(i);
+                EtatCreature etatBase = bases.get(i);
+
+                int masque = 0;
+                if(etatBase == null || etat.x != etatBase.x)
+                    masque |= CHAMP_X;
+                if(etatBase == null || etat.y != etatBase.y)
+                    masque |= CHAMP_Y;
+                if(etatBase == null || etat.sante != etatBase.sante)
+                    masque |= CHAMP_SANTE;
+                if(etatBase == null || etat.angle != etatBase.angle)
+                    masque |= CHAMP_ANGLE;
+
+                trame.writeInt(etat.id);
+                trame.writeByte(masque);
+
+                if((masque & CHAMP_X) != 0)
+                    trame.writeInt(etat.x);
+                if((masque & CHAMP_Y) != 0)
+                    trame.writeInt(etat.y);
+                if((masque & CHAMP_SANTE) != 0)
+                    trame.writeLong(etat.sante);
+                if((masque & CHAMP_ANGLE) != 0)
+                    trame.writeInt(etat.angle);
+            }
+
+            trame.writeInt(joueurs.size());
+            for(Joueur joueur : joueurs)
+                ecrireEtatJoueur(trame, joueur);
+        }
+        catch (IOException e)
+        {
+            // impossible en memoire
+            e.printStackTrace();
+        }
+
+        return octets.toByteArray();
+    }
+
+    private static void ecrireEtatJoueur(DataOutputStream trame, Joueur joueur) throws IOException
+    {
+        trame.writeInt(joueur.getId());
+        trame.writeDouble(joueur.getNbPiecesDOr());
+        trame.writeInt(joueur.getEquipe().getNbViesRestantes());
+        trame.writeDouble(joueur.getRevenu());
+        trame.writeInt(joueur.getScore());
+    }
+}
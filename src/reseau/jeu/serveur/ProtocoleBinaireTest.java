@@ -0,0 +1,192 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import models.creatures.Creature;
+import models.creatures.Mouton;
+import models.joueurs.Joueur;
+import models.tours.Tour;
+import models.tours.TourArcher;
+import models.tours.TypeDeTour;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class ProtocoleBinaireTest
+{
+   private DataInputStream lire(byte[] trame)
+   {
+      return new DataInputStream(new ByteArrayInputStream(trame));
+   }
+   
+   /**
+    * Test method for {@link ProtocoleBinaire#construireTrameJSON(String)} et
+    * {@link ProtocoleBinaire#lireTrameJSON(byte[])}.
+    */
+   @Test
+   public void testTrameJSON()
+   {
+      String message = "{\"MESSAGE\":\"réponse à l'équipe\"}";
+      
+      byte[] trame = ProtocoleBinaire.construireTrameJSON(message);
+      
+      assertEquals(ProtocoleBinaire.JSON, trame[0]);
+      assertEquals(message, ProtocoleBinaire.lireTrameJSON(trame));
+   }
+   
+   /**
+    * Test method for {@link ProtocoleBinaire#construireTrameCreatureEtat(Creature)}.
+    */
+   @Test
+   public void testTrameCreatureEtat() throws Exception
+   {
+      Creature creature = new Mouton(12, 34, 100, 5, 40);
+      EtatCreature etat = new EtatCreature(creature);
+      
+      DataInputStream in = lire(ProtocoleBinaire.construireTrameCreatureEtat(creature));
+      
+      assertEquals(ProtocoleBinaire.CREATURE_ETAT, in.readByte());
+      assertEquals(creature.getId(), in.readInt());
+      assertEquals(12, in.readInt());
+      assertEquals(34, in.readInt());
+      assertEquals(creature.getSante(), in.readLong());
+      assertEquals(etat.angle, in.readInt());
+      assertEquals(0, in.available());
+   }
+   
+   /**
+    * Test method for {@link ProtocoleBinaire#construireTrameCreatureSuppression(Creature, Joueur)}.
+    */
+   @Test
+   public void testTrameCreatureSuppression() throws Exception
+   {
+      Creature creature = new Mouton(0, 0, 100, 5, 40);
+      Joueur tueur = new Joueur("tueur");
+      
+      DataInputStream in = lire(ProtocoleBinaire.construireTrameCreatureSuppression(creature, tueur));
+      
+      assertEquals(ProtocoleBinaire.CREATURE_SUPPRESSION, in.readByte());
+      assertEquals(creature.getId(), in.readInt());
+      assertEquals(tueur.getId(), in.readInt());
+      assertEquals(0, in.available());
+   }
+   
+   /**
+    * Test method for {@link ProtocoleBinaire#construireTrameTourAjout(Tour)}.
+    */
+   @Test
+   public void testTrameTourAjout() throws Exception
+   {
+      Joueur proprietaire = new Joueur("proprietaire");
+      Tour tour = new TourArcher();
+      tour.setLocation(120, 80);
+      tour.setProprietaire(proprietaire);
+      
+      DataInputStream in = lire(ProtocoleBinaire.construireTrameTourAjout(tour));
+      
+      assertEquals(ProtocoleBinaire.TOUR_AJOUT, in.readByte());
+      assertEquals(proprietaire.getId(), in.readInt());
+      assertEquals(tour.getId(), in.readInt());
+      assertEquals(120, in.readInt());
+      assertEquals(80, in.readInt());
+      assertEquals(TypeDeTour.getTypeDeTour(tour), in.readInt());
+      assertEquals(0, in.available());
+   }
+   
+   /**
+    * Test method for {@link ProtocoleBinaire#construireTrameEtatDuJeu(int, int, List, List, ArrayList)}.
+    * <br>
+    * Seuls les champs differents de la base sont ecrits, l'etat relu sur
+    * la base est celui envoye.
+    */
+   @Test
+   public void testTrameEtatDuJeu() throws Exception
+   {
+      EtatCreature base = etat(7, 10, 20, 300, 157);
+      
+      EtatCreature deplacee = new EtatCreature(base);
+      deplacee.x = 11;
+      deplacee.angle = 160;
+      
+      EtatCreature nouvelle = etat(8, 1, 2, 3, 4);
+      
+      List<EtatCreature> etats = Arrays.asList(deplacee, nouvelle);
+      List<EtatCreature> bases = Arrays.asList(base, null);
+      
+      byte[] trame = ProtocoleBinaire.construireTrameEtatDuJeu(42, 40, etats, bases, new ArrayList<Joueur>());
+      DataInputStream in = lire(trame);
+      
+      assertEquals(ProtocoleBinaire.ETAT_DU_JEU, in.readByte());
+      assertEquals(42, in.readInt());
+      assertEquals(40, in.readInt());
+      assertEquals(2, in.readInt());
+      
+      // creature deplacee : x et angle seulement
+      EtatCreature relue = new EtatCreature(base);
+      assertEquals(7, in.readInt());
+      int masque = in.readByte();
+      assertEquals(ProtocoleBinaire.CHAMP_X | ProtocoleBinaire.CHAMP_ANGLE, masque);
+      lireChamps(in, masque, relue);
+      assertTrue(relue.estEgal(deplacee));
+      
+      // nouvelle creature : tous les champs
+      relue = new EtatCreature(8);
+      assertEquals(8, in.readInt());
+      masque = in.readByte();
+      assertEquals(ProtocoleBinaire.CHAMP_X | ProtocoleBinaire.CHAMP_Y 
+                 | ProtocoleBinaire.CHAMP_SANTE | ProtocoleBinaire.CHAMP_ANGLE, masque);
+      lireChamps(in, masque, relue);
+      assertTrue(relue.estEgal(nouvelle));
+      
+      // aucun joueur
+      assertEquals(0, in.readInt());
+      assertEquals(0, in.available());
+   }
+   
+   private static EtatCreature etat(int id, int x, int y, long sante, int angle)
+   {
+      EtatCreature etat = new EtatCreature(id);
+      etat.x     = x;
+      etat.y     = y;
+      etat.sante = sante;
+      etat.angle = angle;
+      return etat;
+   }
+   
+   private static void lireChamps(DataInputStream in, int masque, EtatCreature etat) throws Exception
+   {
+      if((masque & ProtocoleBinaire.CHAMP_X) != 0)
+         etat.x = in.readInt();
+      if((masque & ProtocoleBinaire.CHAMP_Y) != 0)
+         etat.y = in.readInt();
+      if((masque & ProtocoleBinaire.CHAMP_SANTE) != 0)
+         etat.sante = in.readLong();
+      if((masque & ProtocoleBinaire.CHAMP_ANGLE) != 0)
+         etat.angle = in.readInt();
+   }
+}
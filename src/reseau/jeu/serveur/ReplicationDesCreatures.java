@@ -0,0 +1,213 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import java.util.*;
+import models.creatures.Creature;
+import models.joueurs.Joueur;
+
+/**
+ * Replication par differences de l'etat des creatures chez un client.
+ * <p>
+ * Chaque etat envoye est numerote et le client acquitte ceux qu'il a
+ * recus. Un nouvel etat est exprime par rapport au dernier etat acquitte
+ * (la base) : seuls les champs qui ont change depuis la base sont envoyes
+ * et les creatures immobiles ne coutent rien. Le client reconstruit l'etat
+ * complet a partir de sa copie de la base.
+ * <p>
+ * Si le client n'a encore rien acquitte ou que son dernier acquittement
+ * est trop ancien, l'etat est envoye complet.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see JoueurDistant
+ */
+public class ReplicationDesCreatures
+{
+    /**
+     * Nombre maximum d'etats entre la base et l'etat envoye.
+     * Au dela, le client est en retard et l'etat est envoye complet.
+     */
+    public static final int FENETRE = 25;
+
+    /**
+     * Numero de base d'un etat complet
+     */
+    public static final int AUCUNE_BASE = -1;
+
+    /**
+     * Nombre maximum de creatures par message.
+     * <br>
+     * Un message est limite a 64 Ko (writeUTF) : au dela, l'etat est
+     * envoye en plusieurs messages.
+     */
+    private static final int NB_CREATURES_MAX_PAR_MESSAGE = 300;
+
+    /**
+     * Numero du dernier etat envoye
+     */
+    private int numero = 0;
+
+    /**
+     * Numero du dernier etat acquitte par le client
+     */
+    private int numeroAcquitte = AUCUNE_BASE;
+
+    /**
+     * Etats envoyes qui peuvent encore servir de base, par numero
+     */
+    private HashMap<Integer, HashMap<Integer, EtatCreature>> etatsEnvoyes
+        = new HashMap<Integer, HashMap<Integer, EtatCreature>>();
+
+    /**
+     * Permet de capturer l'etat des creatures vivantes.
+     * <br>
+     * L'etat capture est partage par les replications de tous les clients
+     * et ne doit plus etre modifie.
+     *
+     * @param creatures les creatures
+     * @return les etats des creatures, par identificateur
+     */
+    public static HashMap<Integer, EtatCreature> capturer(Vector<Creature> creatures)
+    {
+        HashMap<Integer, EtatCreature> etats = new HashMap<Integer, EtatCreature>();
+
+        for(Creature creature : creatures)
+            if(!creature.estMorte())
+                etats.put(creature.getId(), new EtatCreature(creature));
+
+        return etats;
+    }
+
+    /**
+     * Permet d'indiquer que le client a recu un etat
+     *
+     * @param numero le numero de l'etat
+     */
+    synchronized public void acquitter(int numero)
+    {
+        if(numero > numeroAcquitte && numero <= this.numero)
+            numeroAcquitte = numero;
+    }
+
+    /**
+     * Permet de construire les messages du prochain etat du jeu.
+     *
+     * @param etats l'etat des creatures (voir {@link #capturer(Vector)})
+     * @param joueurs les joueurs
+     * @return les messages a envoyer, dans l'ordre
+     */
+    synchronized public ArrayList<String> construireMsgsEtatDuJeu(
+            HashMap<Integer, EtatCreature> etats, ArrayList<Joueur> joueurs)
+    {
+        ArrayList<EtatCreature> aEnvoyer = new ArrayList<EtatCreature>();
+        ArrayList<EtatCreature> bases    = new ArrayList<EtatCreature>();
+        
+        int numeroBase = preparer(etats, aEnvoyer, bases);
+        
+        // decoupage en messages
+        ArrayList<String> messages = new ArrayList<String>();
+
+        int debut = 0;
+        do
+        {
+            int fin = Math.min(aEnvoyer.size(), debut + NB_CREATURES_MAX_PAR_MESSAGE);
+
+            messages.add(Protocole.construireMsgEtatDuJeu(numero, numeroBase,
+                    fin == aEnvoyer.size(), aEnvoyer.subList(debut, fin),
+                    bases.subList(debut, fin), joueurs));
+
+            debut = fin;
+        }
+        while(debut < aEnvoyer.size());
+
+        return messages;
+    }
+    
+    /**
+     * Permet de construire la trame du prochain etat du jeu 
+     * (protocole binaire).
+     *
+     * @param etats l'etat des creatures (voir {@link #capturer(Vector)})
+     * @param joueurs les joueurs
+     * @return la trame a envoyer
+     */
+    synchronized public byte[] construireTrameEtatDuJeu(
+            HashMap<Integer, EtatCreature> etats, ArrayList<Joueur> joueurs)
+    {
+        ArrayList<EtatCreature> aEnvoyer = new ArrayList<EtatCreature>();
+        ArrayList<EtatCreature> bases    = new ArrayList<EtatCreature>();
+        
+        int numeroBase = preparer(etats, aEnvoyer, bases);
+        
+        return ProtocoleBinaire.construireTrameEtatDuJeu(numero, numeroBase, 
+                aEnvoyer, bases, joueurs);
+    }
+    
+    /**
+     * Numerote le prochain etat et selectionne les creatures qui ont 
+     * change depuis sa base.
+     * 
+     * @return le numero de la base
+     */
+    private int preparer(HashMap<Integer, EtatCreature> etats, 
+            ArrayList<EtatCreature> aEnvoyer, ArrayList<EtatCreature> bases)
+    {
+        numero++;
+
+        // base de la difference
+        int numeroBase = AUCUNE_BASE;
+        HashMap<Integer, EtatCreature> base = null;
+
+        if(numeroAcquitte != AUCUNE_BASE && numero - numeroAcquitte <= FENETRE)
+        {
+            base = etatsEnvoyes.get(numeroAcquitte);
+
+            if(base != null)
+                numeroBase = numeroAcquitte;
+        }
+
+        // les etats plus anciens que la base ne serviront plus
+        Iterator<Integer> iNumeros = etatsEnvoyes.keySet().iterator();
+        while(iNumeros.hasNext())
+        {
+            int n = iNumeros.next();
+
+            if(n < numeroAcquitte || numero - n >= FENETRE)
+                iNumeros.remove();
+        }
+
+        etatsEnvoyes.put(numero, etats);
+
+        // selection des creatures qui ont change depuis la base
+        for(EtatCreature etat : etats.values())
+        {
+            EtatCreature etatBase = (base == null) ? null : base.get(etat.id);
+
+            if(etatBase != null && etatBase.estEgal(etat))
+                continue;
+
+            aEnvoyer.add(etat);
+            bases.add(etatBase);
+        }
+
+        return numeroBase;
+    }
+}
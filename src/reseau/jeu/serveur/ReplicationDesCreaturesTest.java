@@ -0,0 +1,306 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import static org.junit.Assert.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import models.joueurs.Joueur;
+import org.junit.*;
+
+/**
+ * @author agent
+ * 
+ */
+public class ReplicationDesCreaturesTest
+{
+   ReplicationDesCreatures replication;
+   ArrayList<Joueur> joueurs = new ArrayList<Joueur>();
+   
+   /**
+    * Etats recus par le client, par numero
+    */
+   HashMap<Integer, HashMap<Integer, EtatCreature>> etatsRecus;
+   
+   @Before
+   public void setUp()
+   {
+      replication = new ReplicationDesCreatures();
+      etatsRecus  = new HashMap<Integer, HashMap<Integer, EtatCreature>>();
+   }
+   
+   private static EtatCreature etat(int id, int x, int y)
+   {
+      EtatCreature etat = new EtatCreature(id);
+      etat.x     = x;
+      etat.y     = y;
+      etat.sante = 100;
+      return etat;
+   }
+   
+   private static HashMap<Integer, EtatCreature> etats(EtatCreature... etats)
+   {
+      HashMap<Integer, EtatCreature> resultat = new HashMap<Integer, EtatCreature>();
+      
+      for(EtatCreature etat : etats)
+         resultat.put(etat.id, etat);
+      
+      return resultat;
+   }
+   
+   /**
+    * Etat recu par le client : numero, base et creatures envoyees
+    */
+   private static class Reception
+   {
+      int numero, base;
+      HashMap<Integer, EtatCreature> etat;
+      HashSet<Integer> envoyees = new HashSet<Integer>();
+   }
+   
+   /**
+    * Reconstruit, comme le client, l'etat complet d'une trame a partir de 
+    * sa base
+    */
+   private Reception recevoir(byte[] trame) throws Exception
+   {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(trame));
+      Reception r = new Reception();
+      
+      assertEquals(ProtocoleBinaire.ETAT_DU_JEU, in.readByte());
+      r.numero = in.readInt();
+      r.base   = in.readInt();
+      
+      if(r.base == ReplicationDesCreatures.AUCUNE_BASE)
+         r.etat = new HashMap<Integer, EtatCreature>();
+      else
+      {
+         assertTrue("base inconnue du client", etatsRecus.containsKey(r.base));
+         r.etat = new HashMap<Integer, EtatCreature>(etatsRecus.get(r.base));
+      }
+      
+      int nbCreatures = in.readInt();
+      for(int i = 0; i < nbCreatures; i++)
+      {
+         int id = in.readInt();
+         EtatCreature etat = r.etat.get(id);
+         etat = (etat == null) ? new EtatCreature(id) : new EtatCreature(etat);
+         r.etat.put(id, etat);
+         r.envoyees.add(id);
+         
+         int masque = in.readByte();
+         if((masque & ProtocoleBinaire.CHAMP_X) != 0)
+            etat.x = in.readInt();
+         if((masque & ProtocoleBinaire.CHAMP_Y) != 0)
+            etat.y = in.readInt();
+         if((masque & ProtocoleBinaire.CHAMP_SANTE) != 0)
+            etat.sante = in.readLong();
+         if((masque & ProtocoleBinaire.CHAMP_ANGLE) != 0)
+            etat.angle = in.readInt();
+      }
+      
+      assertEquals(0, in.readInt());
+      
+      etatsRecus.put(r.numero, r.etat);
+      return r;
+   }
+   
+   private Reception envoyer(HashMap<Integer, EtatCreature> etats) throws Exception
+   {
+      return recevoir(replication.construireTrameEtatDuJeu(etats, joueurs));
+   }
+   
+   private static void assertMemeEtat(Map<Integer, EtatCreature> attendu, Map<Integer, EtatCreature> obtenu)
+   {
+      assertEquals(attendu.keySet(), obtenu.keySet());
+      
+      for(EtatCreature etat : attendu.values())
+         assertTrue(etat.estEgal(obtenu.get(etat.id)));
+   }
+   
+   /**
+    * Sans acquittement, chaque etat est envoye complet.
+    */
+   @Test
+   public void testEtatCompletSansAcquittement() throws Exception
+   {
+      HashMap<Integer, EtatCreature> etats = etats(etat(1, 0, 0), etat(2, 5, 5));
+      
+      Reception r = envoyer(etats);
+      assertEquals(1, r.numero);
+      assertEquals(ReplicationDesCreatures.AUCUNE_BASE, r.base);
+      assertEquals(2, r.envoyees.size());
+      
+      r = envoyer(etats);
+      assertEquals(2, r.numero);
+      assertEquals(ReplicationDesCreatures.AUCUNE_BASE, r.base);
+      assertEquals(2, r.envoyees.size());
+   }
+   
+   /**
+    * Apres un acquittement, seules les creatures qui ont change depuis la
+    * base sont envoyees.
+    */
+   @Test
+   public void testDifferenceDepuisLaBase() throws Exception
+   {
+      envoyer(etats(etat(1, 0, 0), etat(2, 5, 5)));
+      replication.acquitter(1);
+      
+      HashMap<Integer, EtatCreature> etats = etats(etat(1, 0, 0), etat(2, 6, 5), etat(3, 9, 9));
+      Reception r = envoyer(etats);
+      
+      assertEquals(1, r.base);
+      assertEquals(new HashSet<Integer>(Arrays.asList(2, 3)), r.envoyees);
+      assertMemeEtat(etats, r.etat);
+      
+      // l'etat 2 n'est pas acquitte : la base reste la 1
+      r = envoyer(etats);
+      assertEquals(1, r.base);
+      assertEquals(2, r.envoyees.size());
+      
+      replication.acquitter(3);
+      r = envoyer(etats);
+      assertEquals(3, r.base);
+      assertTrue(r.envoyees.isEmpty());
+   }
+   
+   /**
+    * Test method for {@link ReplicationDesCreatures#acquitter(int)}.
+    * <br>
+    * Un acquittement plus ancien que le dernier ou d'un etat jamais 
+    * envoye est ignore.
+    */
+   @Test
+   public void testAcquittementIgnore() throws Exception
+   {
+      HashMap<Integer, EtatCreature> etats = etats(etat(1, 0, 0));
+      
+      envoyer(etats);
+      envoyer(etats);
+      
+      replication.acquitter(2);
+      replication.acquitter(1);
+      replication.acquitter(10);
+      
+      assertEquals(2, envoyer(etats).base);
+   }
+   
+   /**
+    * Un client dont le dernier acquittement sort de la fenetre recoit un 
+    * etat complet.
+    */
+   @Test
+   public void testFenetreDepassee() throws Exception
+   {
+      HashMap<Integer, EtatCreature> etats = etats(etat(1, 0, 0));
+      
+      envoyer(etats);
+      replication.acquitter(1);
+      
+      for(int i = 0; i < ReplicationDesCreatures.FENETRE; i++)
+         assertEquals(1, envoyer(etats).base);
+      
+      Reception r = envoyer(etats);
+      assertEquals(ReplicationDesCreatures.AUCUNE_BASE, r.base);
+      assertEquals(1, r.envoyees.size());
+   }
+   
+   /**
+    * Simulation : des creatures apparaissent, bougent et meurent, une 
+    * partie des etats n'arrive pas (etats remplaces dans la file d'envoi)
+    * et une partie des acquittements est retardee ou perdue. L'etat 
+    * reconstruit par le client est toujours celui du serveur.
+    */
+   @Test
+   public void testSimulation() throws Exception
+   {
+      Random alea = new Random(12);
+      HashMap<Integer, EtatCreature> serveur = new HashMap<Integer, EtatCreature>();
+      ArrayList<Integer> acquittementsEnRetard = new ArrayList<Integer>();
+      int idSuivant = 1;
+      
+      for(int tick = 0; tick < 1200; tick++)
+      {
+         // nouvel etat du serveur, les etats envoyes ne sont plus modifies
+         HashMap<Integer, EtatCreature> etats = new HashMap<Integer, EtatCreature>();
+         
+         for(EtatCreature etat : serveur.values())
+         {
+            // mort
+            if(alea.nextInt(100) < 2)
+               continue;
+            
+            EtatCreature suivant = new EtatCreature(etat);
+            
+            if(alea.nextInt(100) < 40)
+            {
+               suivant.x += alea.nextInt(5) - 2;
+               suivant.y += alea.nextInt(5) - 2;
+               suivant.angle = alea.nextInt(628);
+            }
+            
+            if(alea.nextInt(100) < 10)
+               suivant.sante -= alea.nextInt(10);
+            
+            etats.put(suivant.id, suivant);
+         }
+         
+         if(alea.nextInt(100) < 30)
+            for(int i = alea.nextInt(5); i > 0; i--)
+            {
+               EtatCreature etat = etat(idSuivant++, alea.nextInt(500), alea.nextInt(500));
+               etats.put(etat.id, etat);
+            }
+         
+         serveur = etats;
+         byte[] trame = replication.construireTrameEtatDuJeu(serveur, joueurs);
+         
+         // etat remplace avant d'etre parti
+         if(alea.nextInt(100) < 30)
+            continue;
+         
+         Reception r = recevoir(trame);
+         
+         // les creatures mortes sont retirees par leur message de 
+         // suppression, les autres doivent etre celles du serveur
+         r.etat.keySet().retainAll(serveur.keySet());
+         assertMemeEtat(serveur, r.etat);
+         
+         // acquittement perdu, retarde ou recu
+         int sort = alea.nextInt(100);
+         if(sort < 15)
+            continue;
+         else if(sort < 30)
+            acquittementsEnRetard.add(r.numero);
+         else
+            replication.acquitter(r.numero);
+         
+         if(!acquittementsEnRetard.isEmpty() && alea.nextInt(100) < 20)
+            replication.acquitter(acquittementsEnRetard.remove(0));
+      }
+   }
+}
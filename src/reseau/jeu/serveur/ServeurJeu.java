@@ -21,6 +21,12 @@ package reseau.jeu.serveur;
 import java.io.IOException;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 import org.json.JSONException;
 import outils.Configuration;
 import exceptions.*;
@@ -35,22 +41,39 @@ import reseau.*;
 /**
  * Cette classe contiendra le serveur de jeu sur lequel se connecteront tout les
  * cliens.
+ * <p>
+ * Chaque client a une seule connexion multiplexée (voir {@link ConnexionNIO})
+ * gérée par les boucles réseau partagées du processus : le serveur n'a 
+ * aucun thread d'écoute ni de thread par client.
+ * <p>
+ * Le serveur peut aussi être une partie d'un {@link HebergeurDeParties} :
+ * il partage alors le port de l'hébergeur.
  * 
  * @author Pierre-Do
  * @author Aurelien Da Campo
  * @version 1.0 | mai 2010
  */
-public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
+public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, EcouteurDeConnexion
 {
 	/**
 	 * La version courante du serveur
 	 */
-	public static final String VERSION = "2_0_beta";
+	public static final String VERSION = "2_2_beta";
 
 	/**
      * Temps de rafraichissement des éléments
+     * <br>
+     * Les clients simulent les créatures entre deux états, les états
+     * ne servent qu'à les recaler.
      */
-	private long TEMPS_DE_RAFFRAICHISSEMENT = 80;
+	private long TEMPS_DE_RAFFRAICHISSEMENT = 200;
+	
+	/**
+	 * Permet de savoir si la tache de mise à jour des clients tourne.
+	 * <br>
+	 * Pendant ce temps, l'état des joueurs part avec l'état du jeu.
+	 */
+	private volatile boolean miseAJourEnCours = false;
 	
 	/**
 	 * Fanion pour le mode debug
@@ -67,22 +90,54 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	 */
 	private Jeu jeuServeur;
 
-	
 	/**
-	 * Canal d'attente de connexion de joueur
+	 * Serveur d'écoute des connexions
 	 */
-	private CanalTCP canalAttenteConnexion = null;
+	private ServeurNIO serveurNIO;
 	
 	/**
-	 * Port du canal
+	 * L'hébergeur de la partie et son identificateur chez lui, si le 
+	 * serveur n'a pas son propre port
 	 */
-	private Port port;
+	private HebergeurDeParties hebergeur;
+	private int idPartie;
 	
 	/**
 	 * Référence vers le créateur du jeu
 	 */
 	private Joueur createur;
 	
+	/**
+	 * Actions des joueurs en attente d'exécution.
+	 * <br>
+	 * Les boucles réseau ne font que décoder les messages. Les actions
+	 * (pose de tour, vague, changement d'équipe...) sont exécutées ensuite,
+	 * une à la fois et dans l'ordre d'arrivée, par l'ordonnanceur commun 
+	 * des parties ou par {@link #EXECUTION_DES_ACTIONS}.
+	 */
+	private final LinkedList<Runnable> actionsEnAttente = new LinkedList<Runnable>();
+	private boolean actionsEnCours = false;
+	
+	/**
+	 * Nombre maximum d'actions exécutées avant de laisser la place aux 
+	 * autres parties de l'ordonnanceur
+	 */
+	private static final int NB_ACTIONS_PAR_TOUR = 16;
+	
+	/**
+	 * Threads d'exécution des actions des parties sans ordonnanceur commun
+	 */
+	private static final ExecutorService EXECUTION_DES_ACTIONS = 
+	    Executors.newCachedThreadPool(new ThreadFactory()
+	    {
+	        public Thread newThread(Runnable r)
+	        {
+	            Thread t = new Thread(r, "Actions des joueurs");
+	            t.setDaemon(true);
+	            return t;
+	        }
+	    });
+	
 	/**
 	 * 
 	 * @param jeuServeur
@@ -97,67 +152,194 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 		jeuServeur.setEcouteurDeJeu(this);
 		
         // Réservation du port d'écoute
-        port = new Port(Configuration.getPortSJ());
+        serveurNIO = new ServeurNIO(Configuration.getPortSJ(), this);
         
-        // reservation du port
-        port.reserver();
-          
-		// Lancement du thread serveur.
-		(new Thread(this)).start();
+        log("Ecoute sur le port " + Configuration.getPortSJ());
+	}
+	
+	/**
+	 * Constructeur d'une partie hébergée : les connexions arrivent par 
+	 * l'hébergeur.
+	 * 
+	 * @param jeuServeur le jeu
+	 * @param hebergeur l'hébergeur
+	 */
+	public ServeurJeu(final Jeu jeuServeur, HebergeurDeParties hebergeur)
+	{
+	    this.jeuServeur = jeuServeur;
+	    this.hebergeur  = hebergeur;
+	    
+	    jeuServeur.setEcouteurDeJeu(this);
+	    
+	    idPartie = hebergeur.ajouterPartie(this);
+	    
+	    log("Partie " + idPartie + " hébergée sur le port " + hebergeur.getPort());
+	}
+	
+	/**
+	 * @return l'identificateur de la partie chez son hébergeur
+	 */
+	public int getIdPartie()
+	{
+	    return idPartie;
+	}
+	
+	/**
+	 * @return le jeu du serveur
+	 */
+	public Jeu getJeu()
+	{
+	    return jeuServeur;
+	}
+	
+	/**
+	 * @return le nombre de clients connectés
+	 */
+	public int getNbClients()
+	{
+	    synchronized (clients)
+        {
+	        return clients.size();
+        }
 	}
 
-	@Override
-	public void run()
-	{  
+    @Override
+    public void connexionOuverte(ConnexionNIO connexion)
+    {
+        log("Récéption de " + connexion.getIpClient()); 
+    }
+
+    @Override
+    public void trameRecue(ConnexionNIO connexion, byte voie, byte[] donnees)
+    {
+        String message = ConnexionNIO.versString(donnees);
+        JoueurDistant jd = (JoueurDistant) connexion.getAttachement();
+        
+        // message d'un joueur enregistré
+        if(jd != null)
+        {
+            jd.traiterMessage(message);
+            return;
+        }
+        
+        // sinon, c'est le pseudo d'un nouveau joueur
         try
         {
-    	    // Boucle d'attente de connections
-            while (true)
+            try
             {
-                try
+                enregistrerClient(new Joueur(message), connexion);
+            } 
+            catch (JeuEnCoursException e){
+                
+                log("Joueur refusé - jeu est en cours");
+                
+                // Envoye de la réponse
+                connexion.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+                        Protocole.construireMsgJoueurInitialisation(JEU_EN_COURS));   
+            }
+            catch (AucunePlaceDisponibleException e){
+                
+                log("Joueur refusé - aucune place disponible");
+                
+                // Envoye de la réponse
+                connexion.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+                        Protocole.construireMsgJoueurInitialisation(PAS_DE_PLACE));
+            }
+        }
+        catch (CanalException e)
+        {
+            canalErreur(connexion, e);
+        }
+    }
+
+    @Override
+    public void connexionFermee(ConnexionNIO connexion)
+    {
+        final JoueurDistant jd = (JoueurDistant) connexion.getAttachement();
+        
+        // après les actions du joueur encore en attente
+        if(jd != null)
+            executerAction(new Runnable()
+            {
+                public void run()
                 {
-                    // On attend qu'un joueur se présente
-                    log("Ecoute sur le port " + Configuration.getPortSJ());
-                    
-                    // Bloquant en attente d'une connexion
-                    canalAttenteConnexion = new CanalTCP(port);
-                    
-                    String ip = canalAttenteConnexion.getIpClient();
-                    
-                    // Log
-                    log("Récéption de " + ip); 
-                    
-                    // Récéption du pseudo du joueur
-                    String pseudo = canalAttenteConnexion.recevoirString();
-                    
-                    // Création du joueur
-                    Joueur joueur = new Joueur(pseudo);
-                    
-                    enregistrerClient(joueur, canalAttenteConnexion);
-                } 
-                catch (JeuEnCoursException e){
+                    joueurDeconnecte(jd.getJoueur());
+                }
+            });
+    }
+    
+    /**
+     * Permet d'exécuter une action d'un joueur hors de la boucle réseau.
+     * <br>
+     * Les actions d'une partie sont exécutées une à la fois, dans l'ordre
+     * de leur arrivée.
+     * 
+     * @param action l'action
+     */
+    void executerAction(Runnable action)
+    {
+        synchronized (actionsEnAttente)
+        {
+            actionsEnAttente.add(action);
+            
+            // la tache en cours s'en chargera
+            if(actionsEnCours)
+                return;
+            
+            actionsEnCours = true;
+        }
+        
+        lancerTacheDesActions();
+    }
     
-                    log("Joueur refusé - jeu est en cours");
+    private void lancerTacheDesActions()
+    {
+        ExecutorService executeur = BoucleDeJeu.getOrdonnanceurCommun();
+        
+        if(executeur == null)
+            executeur = EXECUTION_DES_ACTIONS;
+        
+        executeur.execute(tacheDesActions);
+    }
+    
+    /**
+     * Tache d'exécution des actions en attente
+     */
+    private final Runnable tacheDesActions = new Runnable()
+    {
+        public void run()
+        {
+            for(int i = 0; i < NB_ACTIONS_PAR_TOUR; i++)
+            {
+                Runnable action;
+                
+                synchronized (actionsEnAttente)
+                {
+                    action = actionsEnAttente.poll();
                     
-                    // Envoye de la réponse
-                    canalAttenteConnexion.envoyerString(Protocole.construireMsgJoueurInitialisation(JEU_EN_COURS));   
+                    if(action == null)
+                    {
+                        actionsEnCours = false;
+                        return;
+                    }
                 }
-                catch (AucunePlaceDisponibleException e){
-                    
-                    log("Joueur refusé - aucune place disponible");
-    
-                    // Envoye de la réponse
-                    canalAttenteConnexion.envoyerString(Protocole.construireMsgJoueurInitialisation(PAS_DE_PLACE));
+                
+                try
+                {
+                    action.run();
+                }
+                catch(RuntimeException e)
+                {
+                    logErreur("Action d'un joueur", e);
                 }
             }
-        }  
-        catch (CanalException e)
-        {
-            canalErreur(e);
-        }       
-	}
+            
+            // la suite plus tard, à la place des autres parties
+            lancerTacheDesActions();
+        }
+    };
 
-    private synchronized void enregistrerClient(Joueur joueur, CanalTCP canal) 
+    private synchronized void enregistrerClient(Joueur joueur, ConnexionNIO canal) 
         throws JeuEnCoursException, AucunePlaceDisponibleException
 	{
         try
@@ -183,11 +365,15 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
                     createur = joueur;
     		    
     		    // Envoye de la réponse
-                canal.envoyerString(Protocole.construireMsgJoueurInitialisation(joueur, jeuServeur.getTerrain()));
+                canal.envoyerString(ConnexionNIO.VOIE_REQUETES, 
+                        Protocole.construireMsgJoueurInitialisation(joueur, jeuServeur.getTerrain()));
     
     		    // On inscrit le joueur à la partie
                 JoueurDistant jd = new JoueurDistant(joueur, canal, this);
-    			clients.put(joueur.getId(), jd);
+    			synchronized(clients)
+    			{
+    			    clients.put(joueur.getId(), jd);
+    			}
     			
     			// Notification des clients 
     	        envoyerATous(Protocole.construireMsgJoueursEtat(jeuServeur.getJoueurs()));
@@ -196,7 +382,7 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
         } 
         catch (CanalException e)
         {
-            canalErreur(e);
+            canalErreur(canal, e);
         }
 	}
 
@@ -219,7 +405,8 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	public void creatureTuee(Creature creature,Joueur tueur)
 	{
 	    // Multicast aux clients
-	    envoyerATous(Protocole.construireMsgCreatureSuppression(creature,tueur));
+	    envoyerATous(Protocole.construireMsgCreatureSuppression(creature,tueur),
+	            ProtocoleBinaire.construireTrameCreatureSuppression(creature,tueur));
 	}
 
     @Override
@@ -229,6 +416,9 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	@Override
 	public void partieTerminee(ResultatJeu resultatJeu)
 	{
+	    // dernier état des joueurs
+	    envoyerEtatDuJeu();
+	    
 	    envoyerATous(Protocole.construireMsgPartieTerminee(jeuServeur));
 	}
 
@@ -245,7 +435,8 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	public void creatureAjoutee(Creature creature)
 	{ 
 	    // Multicast aux clients
-	    envoyerATous(Protocole.construireMsgCreatureAjout(creature));
+	    envoyerATous(Protocole.construireMsgCreatureAjout(creature),
+	            ProtocoleBinaire.construireTrameCreatureAjout(creature));
 	}
 
     @Override
@@ -267,6 +458,24 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	    //--------------------------------------
         //-- tache de mise a jour des clients --
         //--------------------------------------
+        miseAJourEnCours = true;
+	    
+        // partie hébergée : l'ordonnanceur commun des parties s'en charge
+        ScheduledExecutorService ordonnanceur = BoucleDeJeu.getOrdonnanceurCommun();
+        if(ordonnanceur != null)
+        {
+            TacheDeMiseAJour tache = new TacheDeMiseAJour();
+            
+            // la tache peut s'executer avant le retour de l'ordonnanceur
+            synchronized (tache)
+            {
+                tache.execution = ordonnanceur.scheduleWithFixedDelay(tache, 
+                        TEMPS_DE_RAFFRAICHISSEMENT, TEMPS_DE_RAFFRAICHISSEMENT, 
+                        TimeUnit.MILLISECONDS);
+            }
+            return;
+        }
+        
         Thread t = new Thread(new Runnable()
         {
             @Override
@@ -274,11 +483,7 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
             {
                 while(!jeuServeur.estTermine())
                 {
-                    for(Creature creature : jeuServeur.getCreatures())
-                    {
-                        if(!creature.estMorte())
-                            envoyerATous(Protocole.construireMsgCreatureEtat(creature));
-                    }
+                    envoyerEtatDuJeu();
                     
                     try{
                         Thread.sleep(TEMPS_DE_RAFFRAICHISSEMENT);
@@ -287,11 +492,73 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
                         e.printStackTrace();
                     }
                 }
+                
+                miseAJourEnCours = false;
             }
         });
         
         t.start();
     }
+	
+	/**
+	 * Tache de mise à jour des clients exécutée par l'ordonnanceur commun
+	 */
+	private class TacheDeMiseAJour implements Runnable
+	{
+	    /**
+	     * Execution planifiee, affectee sous le verrou de la tache
+	     */
+	    private ScheduledFuture<?> execution;
+	    
+	    public void run()
+	    {
+	        if(!jeuServeur.estTermine())
+	        {
+	            envoyerEtatDuJeu();
+	            return;
+	        }
+	        
+	        miseAJourEnCours = false;
+	        
+	        synchronized (this)
+	        {
+	            execution.cancel(false);
+	        }
+	    }
+	}
+	
+	/**
+	 * Permet d'envoyer l'état des créatures et des joueurs à tous les clients.
+	 * <br>
+	 * L'état est capturé une fois, chaque client reçoit ensuite les 
+	 * différences par rapport au dernier état qu'il a acquitté.
+	 */
+	private void envoyerEtatDuJeu()
+	{
+	    HashMap<Integer, EtatCreature> etats = ReplicationDesCreatures.capturer(jeuServeur.getCreatures());
+	    ArrayList<Joueur> joueurs = getJoueurs();
+	    
+	    ArrayList<Integer> joueurSupprimes = new ArrayList<Integer>();
+	    
+	    synchronized(clients)
+        {
+            for (Entry<Integer, JoueurDistant> joueur : clients.entrySet())
+                try
+                {
+                    joueur.getValue().envoyerEtatDuJeu(etats, joueurs);
+                }
+                catch (CanalException e)
+                {
+                    // le joueur à un canal corrompu
+                    joueurSupprimes.add(joueur.getValue().getId());
+                }
+        }
+	    
+	    // pour chaque suppression on indique aux autres joueurs 
+	    // la deconnexion du joueur
+	    for (Integer integer : joueurSupprimes) 
+	        joueurDeconnecte(jeuServeur.getJoueur(integer));
+	}
 
     @Override
 	public void tourAmelioree(Tour tour)
@@ -304,7 +571,8 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	public void tourPosee(Tour tour)
 	{
 	    // Multicast aux clients
-        envoyerATous(Protocole.construireMsgTourAjout(tour).toString());
+        envoyerATous(Protocole.construireMsgTourAjout(tour),
+                ProtocoleBinaire.construireTrameTourAjout(tour));
 	}
 
 	@Override
@@ -317,8 +585,13 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	@Override
     public void joueurMisAJour(Joueur joueur)
     {
+	    // envoyé avec l'état du jeu à la prochaine mise à jour
+	    if(miseAJourEnCours)
+	        return;
+	    
 	    // Multicast aux clients
-        envoyerATous(Protocole.construireMsgJoueurEtat(joueur));
+        envoyerATous(Protocole.construireMsgJoueurEtat(joueur),
+                ProtocoleBinaire.construireTrameJoueurEtat(joueur));
     }
 	
 	/**
@@ -448,6 +721,9 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 		catch (CheminBloqueException e){
 			return CHEMIN_BLOQUE; 
 		} 
+		catch (JoueurHorsJeu e){
+			return JOUEUR_HORS_JEU; 
+		} 
   
 		return OK;
 	}
@@ -529,6 +805,9 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
             jeuServeur.vendreTour(tour);
         } 
 		catch (ActionNonAutoriseeException e){}
+		catch (JoueurHorsJeu e){
+		    return JOUEUR_HORS_JEU;
+		}
 		
 		return OK;
 	}
@@ -547,8 +826,7 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	{
 		log("Le joueur " + idJoueur + " dit : " + message);
 		
-		for (Entry<Integer, JoueurDistant> joueur : clients.entrySet())
-			joueur.getValue().envoyerSurCanalMAJ(Protocole.construireMsgMessage(idJoueur, message));
+		envoyerATous(Protocole.construireMsgMessage(idJoueur, message));
 	}
 
 	/**
@@ -576,7 +854,23 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	 * @param message le message à diffuser
 	 * @throws CanalException 
 	 */
-	private synchronized void envoyerATous(String message)
+	private void envoyerATous(String message)
+	{   
+	    envoyerATous(message, null);
+	}
+	
+	/**
+     * Permet de Mutli-caster a tous les clients un message qui a aussi
+     * un format binaire.
+     * <br>
+     * Le message est mis dans la file d'envoi de chaque client, rien ne 
+     * bloque : un client lent ne retarde ni les autres ni les actions.
+     * 
+     * @param message le message JSON
+     * @param trame le message au format binaire (pour les clients qui 
+     *        utilisent le protocole binaire) ou null
+     */
+	private void envoyerATous(String message, byte[] trame)
 	{   
 	    ArrayList<Integer> joueurSupprimes = new ArrayList<Integer>();
 	    
@@ -585,33 +879,37 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 	        for (Entry<Integer, JoueurDistant> joueur : clients.entrySet())
                 try
                 {
-                    joueur.getValue().envoyerSurCanalMAJ(message);
+                    joueur.getValue().envoyerSurCanalMAJ(message, trame);
                 }
                 catch (CanalException e)
                 {
                     // le joueur à un canal corrompu
                     joueurSupprimes.add(joueur.getValue().getId());
                 }
-                
+	    }
 
-            // pour chaque suppression on indique aux autres joueurs 
-            // la deconnexion du joueur
-            for (Integer integer : joueurSupprimes) 
-            {
-                Joueur joueur = jeuServeur.getJoueur(integer);
-                
-                joueurDeconnecte(joueur);
-            }
-        }
+	    // pour chaque suppression on indique aux autres joueurs 
+	    // la deconnexion du joueur (client trop lent ou canal corrompu)
+	    for (Integer integer : joueurSupprimes) 
+	    {
+	        Joueur joueur = jeuServeur.getJoueur(integer);
+	        
+	        joueurDeconnecte(joueur);
+	    }
 	}
 	
 	
     public void joueurDeconnecte(Joueur joueur)
     { 
         // si il est pas déjà deconnecte ?
-        if(clients.containsKey(joueur.getId()))
+        JoueurDistant jd;
+        synchronized(clients)
+        {
+            jd = clients.remove(joueur.getId());
+        }
+        
+        if(jd != null)
         {
-            clients.remove(joueur.getId());
             
             // l'hote met fin à la partie
             //if(joueur.getId() == createur.getId())
@@ -664,18 +962,26 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
 
     public void stopper()
     {
-        port.liberer();
+        if(serveurNIO != null)
+            serveurNIO.fermer();
+        else
+            hebergeur.retirerPartie(idPartie);
         
         envoyerATous(Protocole.construireMsgPartieChangementEtat(PARTIE_STOPPEE_BRUTALEMENT));
     }
     
-    private void canalErreur(Exception e)
+    /**
+     * Un client dont la connexion est corrompue est déconnecté, le 
+     * serveur continue d'écouter les autres.
+     * 
+     * @param connexion la connexion du client
+     * @param e l'erreur
+     */
+    private void canalErreur(ConnexionNIO connexion, Exception e)
     {
-        System.out.println("ServeurJeu.canalErreur");
-        e.printStackTrace();
+        logErreur("Canal erroné " + connexion.getIpClient(), e);
         
-        // libération du port
-        port.liberer(); 
+        connexion.fermer();
     }
 
     public ArrayList<Joueur> getJoueurs()
@@ -703,7 +1009,6 @@ public class ServeurJeu implements ConstantesServeurJeu, EcouteurDeJeu, Runnable
      * 
      * @param msg le message
      */
-    @SuppressWarnings("unused")
     private void logErreur(String msg,Exception e)
     {
         System.out.println("[SERVEUR][ERREUR] "+ msg);
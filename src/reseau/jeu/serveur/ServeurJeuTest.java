@@ -0,0 +1,182 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package reseau.jeu.serveur;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import models.jeu.Jeu_Serveur;
+import models.terrains.ElementTD;
+import models.terrains.Terrain;
+import org.json.JSONObject;
+import org.junit.*;
+import reseau.CanalMultiplexe;
+import reseau.ConnexionNIO;
+
+/**
+ * @author agent
+ * 
+ */
+public class ServeurJeuTest implements ConstantesServeurJeu
+{
+   Jeu_Serveur jeu;
+   HebergeurDeParties hebergeur;
+   ServeurJeu serveur;
+   int idPartie;
+   
+   @Before
+   public void setUp() throws Exception
+   {
+      jeu = new Jeu_Serveur();
+      
+      Terrain terrain = new ElementTD(jeu);
+      terrain.initialiser();
+      jeu.setTerrain(terrain);
+      
+      // port libre choisi par le systeme
+      hebergeur = new HebergeurDeParties(0);
+      idPartie = jeu.etablissementDuServeur(hebergeur);
+      serveur = hebergeur.getParties().get(0);
+   }
+   
+   @After
+   public void tearDown()
+   {
+      hebergeur.fermer();
+      jeu.detruire();
+   }
+   
+   /**
+    * Test method for {@link ServeurJeu#executerAction(Runnable)}.
+    * <br>
+    * Les actions d'une partie sont executees une a la fois, dans l'ordre
+    * d'arrivee de chaque emetteur, hors des boucles reseau.
+    */
+   @Test
+   public void testExecuterActionDansLOrdre() throws Exception
+   {
+      final int NB_EMETTEURS = 4;
+      final int NB_ACTIONS   = 500;
+      
+      final AtomicInteger enCours = new AtomicInteger();
+      final AtomicInteger chevauchements = new AtomicInteger();
+      final CountDownLatch fin = new CountDownLatch(NB_EMETTEURS * NB_ACTIONS);
+      final List<List<Integer>> ordres = new ArrayList<List<Integer>>();
+      
+      ArrayList<Thread> emetteurs = new ArrayList<Thread>();
+      
+      for(int e = 0; e < NB_EMETTEURS; e++)
+      {
+         final List<Integer> ordre = Collections.synchronizedList(new ArrayList<Integer>());
+         ordres.add(ordre);
+         
+         emetteurs.add(new Thread(new Runnable()
+         {
+            public void run()
+            {
+               for(int i = 0; i < NB_ACTIONS; i++)
+               {
+                  final int numero = i;
+                  
+                  serveur.executerAction(new Runnable()
+                  {
+                     public void run()
+                     {
+                        if(enCours.incrementAndGet() != 1
+                        || Thread.currentThread().getName().startsWith("BoucleNIO-"))
+                           chevauchements.incrementAndGet();
+                        
+                        ordre.add(numero);
+                        
+                        enCours.decrementAndGet();
+                        fin.countDown();
+                     }
+                  });
+               }
+            }
+         }));
+      }
+      
+      for(Thread t : emetteurs)
+         t.start();
+      
+      assertTrue(fin.await(10, TimeUnit.SECONDS));
+      assertEquals(0, chevauchements.get());
+      
+      for(List<Integer> ordre : ordres)
+         for(int i = 0; i < NB_ACTIONS; i++)
+            assertEquals(i, ordre.get(i).intValue());
+   }
+   
+   /**
+    * Test en boucle locale : les requetes envoyees sans attendre les 
+    * reponses sont toutes repondues, dans l'ordre et avec leur 
+    * identificateur.
+    */
+   @Test
+   public void testRequetesRepondues() throws Exception
+   {
+      final int NB_REQUETES = 50;
+      
+      CanalMultiplexe canal = new CanalMultiplexe("127.0.0.1", hebergeur.getPort());
+      
+      try
+      {
+         canal.envoyerString(ConnexionNIO.VOIE_REQUETES, Protocole.construireMsgRejoindrePartie(idPartie));
+         canal.envoyerString(ConnexionNIO.VOIE_REQUETES, "joueur");
+         
+         JSONObject init = new JSONObject(canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+         assertEquals(OK, init.getInt("STATUS"));
+         assertEquals(ServeurJeu.VERSION, canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+         
+         // le joueur n'est pas encore en jeu : les poses sont refusees
+         for(int i = 1; i <= NB_REQUETES; i++)
+         {
+            JSONObject requete = new JSONObject();
+            requete.put("TYPE", TOUR_AJOUT);
+            requete.put("ID_REQUETE", i);
+            requete.put("TYPE_TOUR", 0);
+            requete.put("X", 0);
+            requete.put("Y", 0);
+            
+            canal.envoyerString(ConnexionNIO.VOIE_REQUETES, requete.toString());
+         }
+         
+         for(int i = 1; i <= NB_REQUETES; i++)
+         {
+            JSONObject reponse = new JSONObject(canal.recevoirString(ConnexionNIO.VOIE_REQUETES));
+            
+            assertEquals(TOUR_AJOUT, reponse.getInt("TYPE"));
+            assertEquals(i, reponse.getInt("ID_REQUETE"));
+            assertEquals(JOUEUR_HORS_JEU, reponse.getInt("STATUS"));
+         }
+         
+         assertEquals(1, serveur.getNbClients());
+      }
+      finally
+      {
+         canal.fermer();
+      }
+   }
+}
@@ -21,6 +21,12 @@ package serveur.enregistrement;
 import reseau.*;
 
 /**
+ * Partie enregistree aupres du serveur d'enregistrement.
+ * <p>
+ * Une partie est identifiee par l'adresse et le port de son serveur de jeu
+ * (voir {@link #getCle()}).
+ * L'enregistrement est un bail : il expire s'il n'est pas renouvele (par une
+ * mise a jour) avant sa date d'expiration.
  * 
  * @author lazhar
  *
@@ -31,9 +37,10 @@ public class Enregistrement {
    private String adresseIp;
    private Port port;
    private int capacite;
-   private int placesRestantes;
+   private volatile int placesRestantes;
    private String nomTerrain;
    private String mode;
+   private volatile long dateExpiration;
    
    /**
     * 
@@ -144,6 +151,48 @@ public class Enregistrement {
       this.port = port;
    }
 
+   /**
+    * Permet de recuperer la cle de l'enregistrement (adresse et port)
+    * 
+    * @param adresseIp l'adresse du serveur de jeu
+    * @param numeroPort le port du serveur de jeu
+    * @return la cle
+    */
+   public static String getCle(String adresseIp, int numeroPort) {
+      return adresseIp + ":" + numeroPort;
+   }
+   
+   /**
+    * @return la cle de l'enregistrement (adresse et port)
+    */
+   public String getCle() {
+      return getCle(adresseIp, port.getNumeroPort());
+   }
+   
+   /**
+    * Permet de renouveler le bail de l'enregistrement
+    * 
+    * @param duree la duree du bail en millisecondes
+    */
+   public void renouvelerBail(long duree) {
+      dateExpiration = System.currentTimeMillis() + duree;
+   }
+   
+   /**
+    * @return la date d'expiration du bail (ms)
+    */
+   public long getDateExpiration() {
+      return dateExpiration;
+   }
+   
+   /**
+    * @param maintenant la date courante (ms)
+    * @return true si le bail a expire
+    */
+   public boolean estExpire(long maintenant) {
+      return maintenant >= dateExpiration;
+   }
+
    /* (non-Javadoc)
     * @see java.lang.Object#toString()
     */
@@ -24,154 +24,160 @@ import reseau.*;
 
 
 /**
+ * Traitement des requetes d'un client du serveur d'enregistrement.
+ * <p>
+ * Les messages sont traites dans le thread de la boucle NIO de la 
+ * connexion, qui est partage avec d'autres clients : aucun traitement 
+ * ne bloque.
  * 
  * @author lazhar
  *
  */
-public class SEConnexion implements Runnable, CodeEnregistrement {
+public class SEConnexion implements CodeEnregistrement {
    
-   private CanalTCP canal;
+   private ConnexionNIO connexion;
    private Enregistrement enregisrementCourant;
-   private JSONObject messageJsonRecu;
-   private JSONObject contenu;
-   private int code;
-   private String jsonString;
-   private String messageRecu;
    
    /**
     * 
-    * @param canal
-    * @param SEInscription
+    * @param connexion la connexion du client
     */
-   public SEConnexion(CanalTCP canal)
+   public SEConnexion(ConnexionNIO connexion)
    {
-      this.canal = canal;
+      this.connexion = connexion;
    }
    
    /**
+    * Permet de traiter un message du client
     * 
+    * @param donnees le message (UTF-8 modifie)
     */
-   @Override
-   public void run() {
+   public void traiterMessage(byte[] donnees) {
       
-          
       try 
       {   
-          bouclePrincipale: 
-          
-          while (true)
-          {
-        
-            messageRecu = canal.recevoirString();
-            messageJsonRecu = new JSONObject(messageRecu);
-            code = messageJsonRecu.getJSONObject("donnees").getInt("code");
+         JSONObject messageJsonRecu = new JSONObject(ConnexionNIO.versStringUTF(donnees));
+         JSONObject contenu;
+         int code = messageJsonRecu.getJSONObject("donnees").getInt("code");
             
-            switch(code)
-            {
-               case STOP :
-                  canal.envoyerString("{\"status\" :" + OK + "}");
-                  canal.fermer();
-                  break bouclePrincipale;
-                  
-               case TEST :
-                  canal.envoyerString("{\"status\" :" + OK + "}");
+         switch(code)
+         {
+            case STOP :
+               envoyer("{\"status\" :" + OK + "}");
+               connexion.fermer();
+               break;
+               
+            case TEST :
+               envoyer("{\"status\" :" + OK + "}");
+               break;
+               
+            case ENREGISTRER :
+               contenu = messageJsonRecu.getJSONObject("donnees")
+                                        .getJSONObject("contenu");
+               Enregistrement enregistrement = new Enregistrement(
+                           contenu.getString("nomPartie"),
+                           connexion.getIpClient(),
+                           new Port(contenu.getInt("numeroPort")),
+                           contenu.getInt("capacite"),
+                           contenu.getString("nomTerrain"),
+                           contenu.getString("mode"));
+               
+               if (SEInscription.ajouterEnregistrement(enregistrement))
+               {
+                   enregisrementCourant = enregistrement;
+                   envoyer("{\"status\" :" + OK + "}");
+               }
+               else
+               {
+                  envoyer("{\"status\" : " + ERREUR + "," +
+                          "\"message\" : \"Cette partie existe deja!\"}");
+               }
+               break;
+               
+            case DESENREGISTRER :
+               if (enregisrementCourant != null)
+               {
+                  SEInscription.enleverEnregistrement(enregisrementCourant);
+                  enregisrementCourant = null;
+                  envoyer("{\"status\" :" + OK + "}");
+                  connexion.fermer();
                   break;
-                  
-               case ENREGISTRER :
+               }
+               envoyer("{\"status\" : " + ERREUR + "," +
+                       "\"message\" : \"Aucun enregistrement n'a ete fait!\"}");
+               break;
+               
+            case NOMBRE_PARTIES :
+               envoyer("{\"status\" : " + OK + "," +
+                       "\"nombreParties\" : " + 
+                           SEInscription.getNombreEnregistrements() + "}");
+               break;
+               
+            case INFOS_PARTIES :
+               // liste deja serialisee, partagee par tous les clients
+               connexion.envoyer(ConnexionNIO.VOIE_REQUETES, 
+                                 SEInscription.getInfosParties());
+               break;
+               
+            case MISE_A_JOUR :
+               // renouvellement du bail
+               if (enregisrementCourant != null)
+               {
                   contenu = messageJsonRecu.getJSONObject("donnees")
                                            .getJSONObject("contenu");
-                  enregisrementCourant = new Enregistrement(
-                              contenu.getString("nomPartie"),
-                              canal.getIpClient(),
-                              new Port(contenu.getInt("numeroPort")),
-                              contenu.getInt("capacite"),
-                              contenu.getString("nomTerrain"),
-                              contenu.getString("mode"));
-                  
-                  if (SEInscription.ajouterEnregistrement(enregisrementCourant))
-                  {
-                      canal.envoyerString("{\"status\" :" + OK + "}");
-                  }
-                  else
-                  {
-                     canal.envoyerString("{\"status\" : " + ERREUR + "," +
-                                         "\"message\" : \"Cette partie existe deja!\"}");
-                  }
-                  break;
-                  
-               case DESENREGISTRER :
-                  if (enregisrementCourant != null)
-                  {
-                     SEInscription.enleverEnregistrement(enregisrementCourant);
-                     canal.envoyerString("{\"status\" :" + OK + "}");
-                     break bouclePrincipale;
-                  }
-                  canal.envoyerString("{\"status\" : " + ERREUR + "," +
-                                      "\"message\" : \"Aucun enregistrement n'a ete fait!\"}");
-                  break;
-                  
-               case NOMBRE_PARTIES :
-                  canal.envoyerString("{\"status\" : " + OK + "," +
-                                      "\"nombreParties\" : " + 
-                                          SEInscription.getNombreEnregistrements() + "}");
-                  break;
                   
-               case INFOS_PARTIES :
-                  
-                  if (SEInscription.getNombreEnregistrements() > 0) 
+                  if (SEInscription.mettreAJourEnregistrement(enregisrementCourant, 
+                                        contenu.getInt("placesRestantes")))
                   {
-                     jsonString = "{\"status\" : " + OK + ", \"parties\" : [";
-                     for (Enregistrement e : SEInscription.getJeuxEnregistres())
-                     {
-                        jsonString = jsonString.concat("{");
-                        jsonString = jsonString.concat("\"nomPartie\" : \"" + e.getNomPartie() + "\",");
-                        jsonString = jsonString.concat("\"adresseIp\" : \"" + e.getAdresseIp() + "\",");
-                        jsonString = jsonString.concat("\"numeroPort\" : " + e.getPort().getNumeroPort() + ",");
-                        jsonString = jsonString.concat("\"capacite\" : " + e.getCapacite() + ",");
-                        jsonString = jsonString.concat("\"placesRestantes\" : " + e.getPlacesRestantes() + ",");
-                        jsonString = jsonString.concat("\"nomTerrain\" : \"" + e.getNomTerrain() + "\",");
-                        jsonString = jsonString.concat("\"mode\" : \"" + e.getMode() + "\"");
-                        jsonString = jsonString.concat("},");
-                     }
-                     
-                     jsonString = jsonString.concat("]}");
-                     
-                     System.out.println("\n\n\n" + jsonString + "\n\n\n");
-                     
-                     canal.envoyerString(jsonString);
+                     envoyer("{\"status\" :" + OK + "}");
                      break;
                   }
-                  canal.envoyerString("{\"status\" : " + ERREUR + "," +
-                                      "\"message\" : \"Aucun enregistrement n'a ete fait!\"}");
-                  break;
                   
-               case MISE_A_JOUR :
-                  if (enregisrementCourant != null)
-                  {
-                     canal.envoyerString("{\"status\" :" + OK + "}");
-                     contenu = messageJsonRecu.getJSONObject("donnees")
-                                              .getJSONObject("contenu");
-                     enregisrementCourant.setPlacesRestantes(contenu.getInt("placesRestantes"));
-                     break;
-                  }
-                  canal.envoyerString("{\"status\" : " + ERREUR + "," +
-                                      "\"message\" : \"Aucun enregistrement n'a ete fait!\"}");
-                  break;
-                  
-               default :
-                  canal.envoyerString("{\"status\" : " + ERREUR +"," +
-                                      "\"message\" : \"Code errone!\"}");
-                  break;
-            }
+                  enregisrementCourant = null;
+               }
+               envoyer("{\"status\" : " + ERREUR + "," +
+                       "\"message\" : \"Aucun enregistrement n'a ete fait!\"}");
+               break;
+               
+            default :
+               envoyer("{\"status\" : " + ERREUR +"," +
+                       "\"message\" : \"Code errone!\"}");
+               break;
          }
       }
       catch (JSONException e1) 
       {
          e1.printStackTrace();
+         connexion.fermer();
       } 
       catch (CanalException e)
       {
-         // canal erroné, on tue le client
+         // canal errone, on tue le client
+         connexion.fermer();
       }
    }
+   
+   /**
+    * Appelee lorsque la connexion du client est fermee
+    */
+   public void connexionFermee()
+   {
+      // une partie dont le serveur se deconnecte n'est plus joignable
+      if (enregisrementCourant != null)
+      {
+         SEInscription.enleverEnregistrement(enregisrementCourant);
+         enregisrementCourant = null;
+      }
+   }
+   
+   /**
+    * Permet d'envoyer une reponse au client
+    * 
+    * @param reponse la reponse
+    * @throws CanalException si la connexion est fermee
+    */
+   private void envoyer(String reponse) throws CanalException
+   {
+      connexion.envoyerString(ConnexionNIO.VOIE_REQUETES, reponse);
+   }
 }
@@ -20,135 +20,399 @@ package serveur.enregistrement;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.json.*;
 import reseau.*;
 
 /**
  * Classe de gestion d'un serveur d'enregistrement de parties reseaux
- * 
+ * <p>
+ * Le serveur ne cree aucun thread par client : les connexions sont servies
+ * par les boucles NIO partagees ({@link ServeurNIO}) et parlent le protocole
+ * de {@link CanalTCP}.
+ * <p>
+ * Les enregistrements sont indexes par l'adresse et le port du serveur de
+ * jeu. Ce sont des baux de {@link #DUREE_BAIL} ms renouveles par les mises
+ * a jour : une partie dont le serveur a disparu sans se desenregistrer finit
+ * par quitter la liste. La liste envoyee aux clients est serialisee une seule
+ * fois puis reutilisee tant qu'aucun enregistrement ne change ni n'expire.
+ *
  * @author lazhar
  * @author Aurelien Da Campo
  */
-public class SEInscription
+public class SEInscription implements EcouteurDeConnexion
 {
-   
-   private static ArrayList<Enregistrement> jeuxEnregistres = new ArrayList<Enregistrement>();
+   /**
+    * Duree d'un bail d'enregistrement en millisecondes
+    */
+   public static final long DUREE_BAIL = 60000;
+
+   /**
+    * Enregistrements par cle (adresse et port). Les retraits comparent les
+    * references : un enregistrement ne retire jamais celui qui l'a 
+    * remplace apres l'expiration de son bail.
+    */
+   private static final ConcurrentHashMap<String, Enregistrement> jeuxEnregistres =
+       new ConcurrentHashMap<String, Enregistrement>();
+
+   /**
+    * Version des enregistrements, incrementee a chaque modification
+    */
+   private static final AtomicInteger version = new AtomicInteger();
+
+   /**
+    * Taille maximum des parties dans la reponse a 
+    * {@link CodeEnregistrement#INFOS_PARTIES}. Une chaine ne depasse pas
+    * {@link ConnexionNIO#TAILLE_MAX_CHAINE} octets, la place du reste de la
+    * reponse est reservee.
+    */
+   private static final int TAILLE_MAX_PARTIES = ConnexionNIO.TAILLE_MAX_CHAINE - 128;
+
+   /**
+    * La derniere liste serialisee
+    */
+   private static volatile Liste liste;
+   private static final Object verrouListe = new Object();
+
    private Port port;
    private static final boolean debug = true;
-   private CanalTCP canal;
-   
+   private ServeurNIO serveur;
+   private final CountDownLatch arret = new CountDownLatch(1);
+
    /**
     * Constructeur
-    * 
+    *
     * @param port
-    * @param debug
     */
    public SEInscription(Port port)
    {
       this.port = port;
    }
-   
+
    /**
     * Permet de lancer le serveur
-    * 
+    *
     * 1) reservation du port
-    * 2) attente de connexion d'un client
-    *   2.1) Creation d'une tache de traitement du client
+    * 2) attente de l'arret du serveur, les clients sont servis par les
+    *    boucles NIO
     */
    public void lancer()
    {
       try
       {
-         port.reserver();
-         
+         serveur = new ServeurNIO(port.getNumeroPort(), this,
+                                  ConnexionNIO.FORMAT_CHAINES_UTF);
+
          System.out.println("Le serveur d'enregistrement a bien ete lance.");
          System.out.println("Attente de connexions...");
-         
-         while (true)
-         {
-             // Fonction bloquante qui attend que quelqu'un se connecte
-            creerCanal();
-            
-            if(debug)
-                System.out.println("\n+ Connexion d'un client!");
-            
-            (new Thread(new SEConnexion(canal))).start();
-         }
-      } 
+
+         arret.await();
+      }
       catch (IOException e)
       {
          System.err.println("Serveur d'enregistrement deja lance !");
       }
+      catch (InterruptedException e)
+      {
+         serveur.fermer();
+      }
    }
-   
+
    /**
-    * Permet de creer un canal
-    * 
-    * Methode bloquante sur l'arrive d'un client
+    * Permet d'arreter le serveur
     */
-   private void creerCanal()
+   public void arreter()
    {
-      try{
-         canal = new CanalTCP(port);
-      } 
-      catch (CanalException ce){
-        
-          System.err.println("\tProbleme de connexion : " + ce.getMessage());
-      }
+      if(serveur != null)
+         serveur.fermer();
+
+      arret.countDown();
    }
-   
+
+   @Override
+   public void connexionOuverte(ConnexionNIO connexion)
+   {
+      if(debug)
+         System.out.println("\n+ Connexion d'un client!");
+
+      connexion.setAttachement(new SEConnexion(connexion));
+   }
+
+   @Override
+   public void trameRecue(ConnexionNIO connexion, byte voie, byte[] donnees)
+   {
+      ((SEConnexion) connexion.getAttachement()).traiterMessage(donnees);
+   }
+
+   @Override
+   public void connexionFermee(ConnexionNIO connexion)
+   {
+      SEConnexion seConnexion = (SEConnexion) connexion.getAttachement();
+
+      if(seConnexion != null)
+         seConnexion.connexionFermee();
+   }
+
    /**
     * Permet d'ajouter un serveur de jeu.
-    * 
+    *
     * @param e l'enregistrement (serveur de jeu)
-    * @return
+    * @return true si l'enregistrement a ete ajoute, false si une partie
+    *         est deja enregistree avec la meme adresse et le meme port
     */
-   public static synchronized boolean ajouterEnregistrement(Enregistrement e)
+   public static boolean ajouterEnregistrement(Enregistrement e)
    {
-      // TODO : surcharger les contains() pour pas que ce soit les réf. qui sont
-      // comparées
-      if (!jeuxEnregistres.contains(e))
+      String cle = e.getCle();
+
+      // une partie dont le bail a expire laisse sa place
+      Enregistrement ancien = jeuxEnregistres.get(cle);
+      if(ancien != null && ancien.estExpire(System.currentTimeMillis()))
+         jeuxEnregistres.remove(cle, ancien);
+
+      e.renouvelerBail(DUREE_BAIL);
+
+      if (jeuxEnregistres.putIfAbsent(cle, e) == null)
       {
-         jeuxEnregistres.add(e);
-         
+         version.incrementAndGet();
+
          if(debug)
-             System.out.println("+ Ajout d'un enregistrement, nb enr. : " 
+             System.out.println("+ Ajout d'un enregistrement, nb enr. : "
                      + jeuxEnregistres.size());
-         
+
          return true;
       }
       return false;
    }
-   
+
    /**
     * Permet de supprimer un enregistrement
-    * 
+    *
     * @param e l'enregistrement a supprimer
     */
-   public static synchronized void enleverEnregistrement(Enregistrement e)
+   public static void enleverEnregistrement(Enregistrement e)
    {
-      if(debug)
-          System.out.println("- Suppression d'un enregistrement");
-      
-      jeuxEnregistres.remove(e);
+      if(jeuxEnregistres.remove(e.getCle(), e))
+      {
+         version.incrementAndGet();
+
+         if(debug)
+            System.out.println("- Suppression d'un enregistrement");
+      }
+   }
+
+   /**
+    * Permet de renouveler le bail d'un enregistrement et de mettre a jour
+    * ses places restantes.
+    * <br>
+    * Un enregistrement expire entre temps est de nouveau ajoute.
+    *
+    * @param e l'enregistrement
+    * @param placesRestantes les places restantes
+    * @return true si l'enregistrement est (de nouveau) actif, false si une
+    *         autre partie a pris sa place
+    */
+   public static boolean mettreAJourEnregistrement(Enregistrement e, int placesRestantes)
+   {
+      e.renouvelerBail(DUREE_BAIL);
+
+      if(e.getPlacesRestantes() != placesRestantes)
+      {
+         e.setPlacesRestantes(placesRestantes);
+         version.incrementAndGet();
+      }
+
+      if(jeuxEnregistres.get(e.getCle()) == e)
+         return true;
+
+      return ajouterEnregistrement(e);
    }
-   
+
    /**
     * Permet de recuperer le nombre d'enregistrements
-    * 
+    *
     * @return le nombre d'enregistrements
     */
-   public static synchronized int getNombreEnregistrements()
+   public static int getNombreEnregistrements()
    {
-      return jeuxEnregistres.size();
+      return getListe().nombre;
    }
-   
+
    /**
-    * Permet de recuperer les jeux enregistres
-    * 
+    * Permet de recuperer une copie des jeux enregistres
+    *
     * @return les jeux enregistres
     */
-   public static synchronized ArrayList<Enregistrement> getJeuxEnregistres()
+   public static ArrayList<Enregistrement> getJeuxEnregistres()
+   {
+      purger(System.currentTimeMillis());
+
+      return new ArrayList<Enregistrement>(jeuxEnregistres.values());
+   }
+
+   /**
+    * Permet de recuperer la reponse serialisee a la requete
+    * {@link CodeEnregistrement#INFOS_PARTIES}
+    *
+    * @return la reponse (UTF-8 modifie, voir {@link ConnexionNIO#versOctetsUTF(String)})
+    */
+   public static byte[] getInfosParties()
+   {
+      return getListe().octets;
+   }
+
+   /**
+    * Supprime les enregistrements dont le bail a expire
+    *
+    * @param maintenant la date courante (ms)
+    */
+   private static void purger(long maintenant)
    {
-      return jeuxEnregistres;
+      for(Enregistrement e : jeuxEnregistres.values())
+         if(e.estExpire(maintenant) && jeuxEnregistres.remove(e.getCle(), e))
+         {
+            version.incrementAndGet();
+
+            if(debug)
+               System.out.println("- Expiration de l'enregistrement " + e);
+         }
+   }
+
+   /**
+    * Permet de recuperer la liste serialisee, reconstruite seulement si un
+    * enregistrement a change ou si un bail a pu expirer depuis
+    *
+    * @return la liste
+    */
+   private static Liste getListe()
+   {
+      Liste l = liste;
+
+      if(l != null && l.estValide())
+         return l;
+
+      synchronized (verrouListe)
+      {
+         l = liste;
+
+         if(l != null && l.estValide())
+            return l;
+
+         long maintenant = System.currentTimeMillis();
+         purger(maintenant);
+
+         int versionListe = version.get();
+         long expiration  = Long.MAX_VALUE;
+         int nombre       = 0;
+         int taille       = 0;
+         boolean tronquee = false;
+         String reponse;
+
+         try
+         {
+            JSONArray parties = new JSONArray();
+
+            for (Enregistrement e : jeuxEnregistres.values())
+            {
+               expiration = Math.min(expiration, e.getDateExpiration());
+               nombre++;
+
+               JSONObject partie = new JSONObject();
+               partie.put("nomPartie", e.getNomPartie());
+               partie.put("adresseIp", e.getAdresseIp());
+               partie.put("numeroPort", e.getPort().getNumeroPort());
+               partie.put("capacite", e.getCapacite());
+               partie.put("placesRestantes", e.getPlacesRestantes());
+               partie.put("nomTerrain", e.getNomTerrain());
+               partie.put("mode", e.getMode());
+
+               // la reponse doit tenir dans une chaine : les parties
+               // suivantes ne sont pas listees
+               int taillePartie = ConnexionNIO.longueurUTF(partie.toString()) + 1;
+
+               if (taille + taillePartie > TAILLE_MAX_PARTIES)
+               {
+                  tronquee = true;
+                  continue;
+               }
+
+               taille += taillePartie;
+               parties.put(partie);
+            }
+
+            JSONObject json = new JSONObject();
+
+            if (nombre > 0)
+            {
+               json.put("status", CodeEnregistrement.OK);
+               json.put("parties", parties);
+
+               if (tronquee)
+                  json.put("tronquee", true);
+            }
+            else
+            {
+               json.put("status", CodeEnregistrement.ERREUR);
+               json.put("message", "Aucun enregistrement n'a ete fait!");
+            }
+
+            reponse = json.toString();
+         }
+         catch (JSONException e)
+         {
+            // les valeurs sont toujours valides
+            throw new RuntimeException(e);
+         }
+
+         liste = l = new Liste(versionListe, expiration, nombre,
+                               ConnexionNIO.versOctetsUTF(reponse));
+
+         return l;
+      }
+   }
+
+   /**
+    * Liste serialisee des enregistrements
+    */
+   private static class Liste
+   {
+      /**
+       * Version des enregistrements serialises
+       */
+      final int version;
+
+      /**
+       * Premiere expiration d'un bail de la liste (ms)
+       */
+      final long expiration;
+
+      /**
+       * Nombre d'enregistrements
+       */
+      final int nombre;
+
+      /**
+       * La reponse serialisee
+       */
+      final byte[] octets;
+
+      Liste(int version, long expiration, int nombre, byte[] octets)
+      {
+         this.version    = version;
+         this.expiration = expiration;
+         this.nombre     = nombre;
+         this.octets     = octets;
+      }
+
+      /**
+       * @return true si aucun enregistrement n'a change ni expire depuis
+       *         la serialisation
+       */
+      boolean estValide()
+      {
+         return version == SEInscription.version.get()
+             && System.currentTimeMillis() < expiration;
+      }
    }
 }
@@ -0,0 +1,199 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package serveur.enregistrement;
+
+import static org.junit.Assert.*;
+
+import org.json.JSONObject;
+import org.junit.*;
+import reseau.CanalTCP;
+import reseau.ConnexionNIO;
+import reseau.Port;
+import reseau.ServeurNIO;
+
+/**
+ * @author agent
+ * 
+ */
+public class SEInscriptionTest implements CodeEnregistrement
+{
+   ServeurNIO serveur;
+   
+   @Before
+   public void setUp() throws Exception
+   {
+      // port libre choisi par le systeme
+      serveur = new ServeurNIO(0, new SEInscription(null), ConnexionNIO.FORMAT_CHAINES_UTF);
+   }
+   
+   @After
+   public void tearDown()
+   {
+      serveur.fermer();
+      
+      for(Enregistrement e : SEInscription.getJeuxEnregistres())
+         SEInscription.enleverEnregistrement(e);
+   }
+   
+   private CanalTCP connecter() throws Exception
+   {
+      return new CanalTCP("127.0.0.1", serveur.getPort());
+   }
+   
+   private JSONObject requete(CanalTCP canal, String requete) throws Exception
+   {
+      canal.envoyerString(requete);
+      return new JSONObject(canal.recevoirString());
+   }
+   
+   /**
+    * Test en boucle locale de l'enregistrement d'une partie, de la liste
+    * des parties et du desenregistrement.
+    */
+   @Test
+   public void testEnregistrement() throws Exception
+   {
+      CanalTCP partie = connecter();
+      CanalTCP client = connecter();
+      
+      try
+      {
+         String enregistrer = RequeteEnregistrement.getRequeteEnregistrer(
+               "partie", 1234, 4, "terrain", "mode");
+         
+         assertEquals(OK, requete(partie, enregistrer).getInt("status"));
+         
+         // meme adresse et meme port
+         assertEquals(ERREUR, requete(client, enregistrer).getInt("status"));
+         
+         JSONObject infos = requete(client, RequeteEnregistrement.INFOS_PARTIES);
+         assertEquals(OK, infos.getInt("status"));
+         assertEquals(1, infos.getJSONArray("parties").length());
+         assertEquals("partie", infos.getJSONArray("parties").getJSONObject(0).getString("nomPartie"));
+         
+         assertEquals(OK, requete(partie, RequeteEnregistrement.getRequeteMiseAJour(2)).getInt("status"));
+         
+         infos = requete(client, RequeteEnregistrement.INFOS_PARTIES);
+         assertEquals(2, infos.getJSONArray("parties").getJSONObject(0).getInt("placesRestantes"));
+         
+         assertEquals(OK, requete(partie, RequeteEnregistrement.DESENREGISTRER).getInt("status"));
+         
+         JSONObject nombre = requete(client, RequeteEnregistrement.NOMBRE_PARTIES);
+         assertEquals(0, nombre.getInt("nombreParties"));
+      }
+      finally
+      {
+         client.fermer();
+         partie.fermer();
+      }
+   }
+   
+   /**
+    * L'enregistrement d'une partie dont la connexion se ferme est supprime.
+    */
+   @Test
+   public void testFermetureConnexion() throws Exception
+   {
+      CanalTCP partie = connecter();
+      
+      try
+      {
+         assertEquals(OK, requete(partie, RequeteEnregistrement.getRequeteEnregistrer(
+               "partie", 1234, 4, "terrain", "mode")).getInt("status"));
+         assertEquals(1, SEInscription.getNombreEnregistrements());
+      }
+      finally
+      {
+         partie.fermer();
+      }
+      
+      long fin = System.currentTimeMillis() + 5000;
+      while(SEInscription.getNombreEnregistrements() > 0 && System.currentTimeMillis() < fin)
+         Thread.sleep(10);
+      
+      assertEquals(0, SEInscription.getNombreEnregistrements());
+   }
+   
+   /**
+    * Test method for {@link SEInscription#enleverEnregistrement(Enregistrement)}.
+    * <br>
+    * Un enregistrement expire puis remplace ne retire pas son remplacant.
+    */
+   @Test
+   public void testEnleverEnregistrementRemplace()
+   {
+      Enregistrement ancien = new Enregistrement("ancien", "10.0.0.1", 
+            new Port(1234), 4, "terrain", "mode");
+      Enregistrement nouveau = new Enregistrement("nouveau", "10.0.0.1", 
+            new Port(1234), 4, "terrain", "mode");
+      
+      assertTrue(SEInscription.ajouterEnregistrement(ancien));
+      
+      // bail expire
+      ancien.renouvelerBail(-1);
+      
+      assertTrue(SEInscription.ajouterEnregistrement(nouveau));
+      
+      SEInscription.enleverEnregistrement(ancien);
+      
+      assertEquals(1, SEInscription.getNombreEnregistrements());
+      assertSame(nouveau, SEInscription.getJeuxEnregistres().get(0));
+   }
+   
+   /**
+    * Test method for {@link SEInscription#getInfosParties()}.
+    * <br>
+    * Une liste plus grande qu'une chaine est tronquee : le client recoit 
+    * toujours une reponse.
+    */
+   @Test
+   public void testListeTropGrande() throws Exception
+   {
+      final int NB_PARTIES = 3000;
+      
+      StringBuilder nom = new StringBuilder();
+      for(int i = 0; i < 100; i++)
+         nom.append('é');
+      
+      for(int i = 0; i < NB_PARTIES; i++)
+         assertTrue(SEInscription.ajouterEnregistrement(new Enregistrement(
+               nom.toString(), "10.0.0.1", new Port(i + 1), 4, "terrain", "mode")));
+      
+      assertTrue(SEInscription.getInfosParties().length <= ConnexionNIO.TAILLE_MAX_CHAINE);
+      
+      CanalTCP client = connecter();
+      
+      try
+      {
+         JSONObject infos = requete(client, RequeteEnregistrement.INFOS_PARTIES);
+         
+         assertEquals(OK, infos.getInt("status"));
+         assertTrue(infos.getBoolean("tronquee"));
+         assertTrue(infos.getJSONArray("parties").length() > 0);
+         assertTrue(infos.getJSONArray("parties").length() < NB_PARTIES);
+         
+         JSONObject nombre = requete(client, RequeteEnregistrement.NOMBRE_PARTIES);
+         assertEquals(NB_PARTIES, nombre.getInt("nombreParties"));
+      }
+      finally
+      {
+         client.fermer();
+      }
+   }
+}
@@ -0,0 +1,204 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package serveur.jeu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import models.jeu.BoucleDeJeu;
+import models.jeu.Jeu_Serveur;
+import models.terrains.Terrain;
+import outils.Configuration;
+import reseau.jeu.serveur.HebergeurDeParties;
+
+/**
+ * Serveur dedie : heberge plusieurs parties derriere un seul port.
+ * <p>
+ * Les parties demarrent des qu'elles sont completes et sont remplacees 
+ * par une nouvelle partie une fois terminees. La charge de chaque partie
+ * est affichee regulierement.
+ * <p>
+ * Usage : ServeurDeParties [port] [nombre de parties] [terrain]
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ * @see HebergeurDeParties
+ */
+public class ServeurDeParties
+{
+    /**
+     * Terrain utilise si aucun n'est precise
+     */
+    private static final String TERRAIN_PAR_DEFAUT = "ElementTD_Versus_4.map";
+    
+    /**
+     * Periode d'affichage de la charge (secondes)
+     */
+    private static final int PERIODE_RAPPORT = 30;
+    
+    private final HebergeurDeParties hebergeur;
+    private final File fichierTerrain;
+    private final ArrayList<Jeu_Serveur> parties = new ArrayList<Jeu_Serveur>();
+    private final ArrayList<Integer> idsParties = new ArrayList<Integer>();
+    
+    /**
+     * Constructeur, cree les parties
+     * 
+     * @param port le port commun
+     * @param nbParties le nombre de parties ouvertes en meme temps
+     * @param fichierTerrain le fichier du terrain des parties
+     * @throws IOException si le port ou le terrain ne sont pas disponibles
+     */
+    public ServeurDeParties(int port, int nbParties, File fichierTerrain) throws IOException
+    {
+        this.fichierTerrain = fichierTerrain;
+        
+        // toutes les parties partagent les memes threads de simulation
+        BoucleDeJeu.utiliserOrdonnanceurCommun(Runtime.getRuntime().availableProcessors());
+        
+        hebergeur = new HebergeurDeParties(port);
+        
+        for(int i = 0; i < nbParties; i++)
+            creerPartie(i);
+    }
+    
+    /**
+     * Permet de creer une partie chez l'hebergeur
+     * 
+     * @param indice l'indice de la partie dans la liste
+     * @throws IOException si le terrain ne peut pas etre charge
+     */
+    private void creerPartie(int indice) throws IOException
+    {
+        Terrain terrain;
+        
+        try
+        {
+            terrain = Terrain.charger(fichierTerrain);
+        } 
+        catch (ClassNotFoundException e)
+        {
+            throw new IOException("Terrain invalide : " + fichierTerrain);
+        }
+        
+        terrain.initialiser();
+        
+        Jeu_Serveur jeu = new Jeu_Serveur();
+        jeu.setTerrain(terrain);
+        terrain.setJeu(jeu);
+        
+        int idPartie = jeu.etablissementDuServeur(hebergeur);
+        
+        System.out.println("Partie " + idPartie + " ouverte sur le port " + hebergeur.getPort());
+        
+        if(indice < parties.size())
+        {
+            parties.set(indice, jeu);
+            idsParties.set(indice, idPartie);
+        }
+        else
+        {
+            parties.add(jeu);
+            idsParties.add(idPartie);
+        }
+    }
+    
+    /**
+     * Permet de demarrer les parties completes et de remplacer les 
+     * parties terminees
+     */
+    private synchronized void gererLesParties()
+    {
+        for(int i = 0; i < parties.size(); i++)
+        {
+            Jeu_Serveur jeu = parties.get(i);
+            
+            try
+            {
+                // les joueurs d'une partie terminee restent connectes
+                // jusqu'a ce qu'ils la quittent
+                if(jeu.estTermine())
+                {
+                    hebergeur.retirerPartie(idsParties.get(i));
+                    creerPartie(i);
+                }
+                else if(!jeu.estDemarre() 
+                     && jeu.getJoueurs().size() == jeu.getTerrain().getNbJoueursMax())
+                {
+                    jeu.initialiser();
+                    jeu.demarrer();
+                }
+            }
+            catch (IOException e)
+            {
+                e.printStackTrace();
+            }
+            catch (RuntimeException e)
+            {
+                e.printStackTrace();
+            }
+        }
+    }
+    
+    /**
+     * Permet de lancer la gestion des parties et les rapports de charge
+     */
+    public void lancer()
+    {
+        ScheduledExecutorService ordonnanceur = BoucleDeJeu.getOrdonnanceurCommun();
+        
+        ordonnanceur.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                gererLesParties();
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+        
+        ordonnanceur.scheduleWithFixedDelay(new Runnable()
+        {
+            public void run()
+            {
+                System.out.print(hebergeur.getRapportDeCharge());
+            }
+        }, PERIODE_RAPPORT, PERIODE_RAPPORT, TimeUnit.SECONDS);
+    }
+    
+    /**
+     * Programme principal du serveur dedie.
+     * 
+     * @param args [port] [nombre de parties] [terrain]
+     * @throws Exception 
+     */
+    public static void main(String[] args) throws Exception
+    {
+        int port          = args.length > 0 ? Integer.parseInt(args[0]) : Configuration.getPortSJ();
+        int nbParties     = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        String nomTerrain = args.length > 2 ? args[2] : TERRAIN_PAR_DEFAUT;
+        
+        new ServeurDeParties(port, nbParties, 
+                new File(Terrain.EMPLACEMENT_TERRAINS_MULTI + nomTerrain)).lancer();
+        
+        // les threads de l'ordonnanceur et du reseau sont des demons
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,143 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package vues.commun;
+
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferStrategy;
+import javax.swing.SwingUtilities;
+
+/**
+ * Canevas du rendu actif d'un {@link Panel_Terrain}.
+ * <p>
+ * Le terrain n'est plus dessine par Swing (repaint puis paintComponent dans
+ * le thread de l'EDT) mais directement par le thread d'affichage du panel,
+ * dans les tampons d'une {@link BufferStrategy}. L'affichage ne depend plus
+ * du regroupement des repaint ni de la charge de l'EDT, qui sert aussi les
+ * autres panels de la fenetre.
+ * <p>
+ * Les couches dessinees sont celles de {@link Panel_Terrain#paintComponent}.
+ * La souris est renvoyee au panel et le clavier lui reste : ses ecouteurs
+ * (et ceux des fenetres) fonctionnent comme en rendu passif.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+class Canvas_Terrain extends Canvas
+{
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Nombre de tampons : un affiche, un en cours de dessin
+     */
+    private static final int NB_TAMPONS = 2;
+
+    /**
+     * Le panel du terrain
+     */
+    private final Panel_Terrain panel;
+
+    /**
+     * Constructeur
+     *
+     * @param panel le panel du terrain a dessiner
+     */
+    Canvas_Terrain(Panel_Terrain panel)
+    {
+        this.panel = panel;
+
+        // seul le thread d'affichage dessine
+        setIgnoreRepaint(true);
+
+        // le clavier reste au panel
+        setFocusable(false);
+
+        enableEvents(AWTEvent.MOUSE_EVENT_MASK
+                   | AWTEvent.MOUSE_MOTION_EVENT_MASK
+                   | AWTEvent.MOUSE_WHEEL_EVENT_MASK);
+    }
+
+    @Override
+    public void addNotify()
+    {
+        super.addNotify();
+
+        // les tampons necessitent un canevas affichable
+        createBufferStrategy(NB_TAMPONS);
+    }
+
+    /**
+     * Les evenements de la souris sont traites par le panel
+     */
+    @Override
+    protected void processEvent(AWTEvent e)
+    {
+        if(e instanceof MouseEvent)
+            panel.dispatchEvent(SwingUtilities.convertMouseEvent(this, (MouseEvent) e, panel));
+        else
+            super.processEvent(e);
+    }
+
+    /**
+     * Permet de dessiner une image du terrain et de l'afficher.
+     * <br>
+     * Appelee par le thread d'affichage du panel uniquement.
+     */
+    void afficher()
+    {
+        BufferStrategy strategie = getBufferStrategy();
+
+        // pas encore affiche
+        if(strategie == null)
+            return;
+
+        try
+        {
+            // le contenu des tampons peut etre perdu a tout moment
+            do
+            {
+                do
+                {
+                    Graphics2D g2 = (Graphics2D) strategie.getDrawGraphics();
+
+                    try
+                    {
+                        g2.setColor(panel.getBackground());
+                        g2.fillRect(0, 0, getWidth(), getHeight());
+
+                        panel.paintComponent(g2);
+                    }
+                    finally
+                    {
+                        g2.dispose();
+                    }
+                }
+                while(strategie.contentsRestored());
+
+                strategie.show();
+            }
+            while(strategie.contentsLost());
+        }
+        catch(IllegalStateException e)
+        {
+            // canevas retire de l'ecran pendant le dessin
+        }
+    }
+}
@@ -0,0 +1,290 @@
+/*
+  Copyright (C) 2026 agent
+
+  This program is free software; you can redistribute it and/or modify
+  it under the terms of the GNU General Public License as published by
+  the Free Software Foundation; either version 3 of the License, or
+  (at your option) any later version.
+
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+  GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License
+  along with this program; if not, write to the Free Software
+  Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA 02111-1307 USA
+*/
+
+package vues.commun;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+
+/**
+ * Classe de gestion des sprites pre-tournes.
+ * <p>
+ * Dessiner une image avec une rotation et une mise a l'echelle est lent en
+ * Java2D et empeche l'acceleration des images. Chaque image est donc
+ * dessinee une fois par angle (les angles sont arrondis a
+ * {@link #NB_ANGLES} directions), a l'echelle du rendu, dans un atlas : une
+ * image compatible avec l'ecran decoupee en cases. Afficher une creature ou
+ * une tour revient alors a copier une case de l'atlas, sans transformation.
+ * <p>
+ * Les cases sont dessinees a la premiere demande. Les atlas sont oublies
+ * quand l'echelle change.
+ *
+ * @author agent
+ * @version 1.0 | octobre 2026
+ * @since jdk1.6.0_16
+ */
+public class GestionnaireDesSprites
+{
+    /**
+     * Nombre d'angles par image
+     */
+    public static final int NB_ANGLES = 64;
+
+    /**
+     * Nombre de colonnes d'un atlas
+     */
+    private static final int NB_COLONNES = 8;
+
+    /**
+     * Cote maximum d'une case, en pixels. Au dela, l'atlas serait trop
+     * grand : l'image doit etre dessinee avec une transformation.
+     */
+    private static final int COTE_MAX = 128;
+
+    /**
+     * Les sprites par image et par taille
+     */
+    private final HashMap<CleSprite, Sprite> sprites = new HashMap<CleSprite, Sprite>();
+
+    /**
+     * L'echelle du rendu
+     */
+    private double echelle = 1.0;
+
+    /**
+     * Permet de modifier l'echelle du rendu
+     *
+     * @param echelle l'echelle (nombre de pixels par unite du terrain)
+     */
+    public void setEchelle(double echelle)
+    {
+        if(echelle != this.echelle)
+        {
+            vider();
+            this.echelle = echelle;
+        }
+    }
+
+    /**
+     * Permet d'oublier tous les atlas
+     */
+    public void vider()
+    {
+        for(Sprite sprite : sprites.values())
+            sprite.atlas.flush();
+
+        sprites.clear();
+    }
+
+    /**
+     * Permet de dessiner une image tournee, sans transformation.
+     *
+     * @param g2 le Graphics2D, en pixels de l'ecran (sans transformation)
+     * @param image l'image
+     * @param largeur la largeur de l'image sur le terrain
+     * @param hauteur la hauteur de l'image sur le terrain
+     * @param angle l'angle de rotation (radians), autour du centre de l'image
+     * @param centreX la position du centre a l'ecran
+     * @param centreY la position du centre a l'ecran
+     * @return false si l'image n'a pas pu etre dessinee (image trop grande
+     *         ou pas encore chargee), il faut alors la dessiner autrement
+     */
+    public boolean dessiner(Graphics2D g2, Image image, int largeur, int hauteur,
+                            double angle, double centreX, double centreY)
+    {
+        Sprite sprite = getSprite(g2, image, largeur, hauteur);
+
+        if(sprite == null)
+            return false;
+
+        int indice = getIndiceAngle(angle);
+
+        if(!sprite.dessine[indice] && !sprite.dessinerAngle(indice))
+            return false;
+
+        int cote = sprite.cote;
+        int sx   = (indice % NB_COLONNES) * cote;
+        int sy   = (indice / NB_COLONNES) * cote;
+        int dx   = (int) Math.round(centreX - cote / 2.0);
+        int dy   = (int) Math.round(centreY - cote / 2.0);
+
+        g2.drawImage(sprite.atlas, dx, dy, dx + cote, dy + cote,
+                     sx, sy, sx + cote, sy + cote, null);
+
+        return true;
+    }
+
+    /**
+     * Permet de recuperer l'indice de la direction la plus proche d'un angle
+     *
+     * @param angle l'angle en radians
+     * @return l'indice de la direction, entre 0 et NB_ANGLES - 1
+     */
+    private static int getIndiceAngle(double angle)
+    {
+        double tour = 2 * Math.PI;
+
+        angle %= tour;
+        if(angle < 0)
+            angle += tour;
+
+        return (int) Math.round(angle * NB_ANGLES / tour) % NB_ANGLES;
+    }
+
+    /**
+     * Permet de recuperer (ou de creer) le sprite d'une image
+     *
+     * @return le sprite ou null si l'image est trop grande a cette echelle
+     */
+    private Sprite getSprite(Graphics2D g2, Image image, int largeur, int hauteur)
+    {
+        CleSprite cle = new CleSprite(image, largeur, hauteur);
+        Sprite sprite = sprites.get(cle);
+
+        if(sprite == null)
+        {
+            // la case contient l'image quel que soit l'angle
+            int cote = (int) Math.ceil(Math.sqrt(largeur * largeur + hauteur * hauteur)
+                                       * echelle) + 2;
+
+            if(cote > COTE_MAX)
+                return null;
+
+            sprite = new Sprite(g2.getDeviceConfiguration(), image, largeur, hauteur, cote);
+            sprites.put(cle, sprite);
+        }
+
+        return sprite;
+    }
+
+    /**
+     * Atlas des angles d'une image
+     */
+    private class Sprite
+    {
+        final Image image;
+        final int largeur, hauteur;
+
+        /**
+         * Cote d'une case, en pixels
+         */
+        final int cote;
+
+        /**
+         * L'atlas, une case par angle
+         */
+        final BufferedImage atlas;
+
+        /**
+         * Les cases deja dessinees
+         */
+        final boolean[] dessine = new boolean[NB_ANGLES];
+
+        Sprite(GraphicsConfiguration gc, Image image, int largeur, int hauteur, int cote)
+        {
+            this.image   = image;
+            this.largeur = largeur;
+            this.hauteur = hauteur;
+            this.cote    = cote;
+
+            int lignes = (NB_ANGLES + NB_COLONNES - 1) / NB_COLONNES;
+
+            // image compatible avec l'ecran, acceleree par Java2D
+            if(gc != null)
+                atlas = gc.createCompatibleImage(NB_COLONNES * cote, lignes * cote,
+                                                 Transparency.TRANSLUCENT);
+            else
+                atlas = new BufferedImage(NB_COLONNES * cote, lignes * cote,
+                                          BufferedImage.TYPE_INT_ARGB_PRE);
+        }
+
+        /**
+         * Dessine l'image tournee dans la case d'un angle
+         *
+         * @param indice l'indice de l'angle
+         * @return false si l'image n'est pas encore chargee
+         */
+        boolean dessinerAngle(int indice)
+        {
+            int sx = (indice % NB_COLONNES) * cote;
+            int sy = (indice / NB_COLONNES) * cote;
+
+            Graphics2D g2 = atlas.createGraphics();
+
+            // dessinee une seule fois, la qualite ne coute rien
+            g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION,
+                                RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2.setRenderingHint(RenderingHints.KEY_RENDERING,
+                                RenderingHints.VALUE_RENDER_QUALITY);
+
+            g2.clipRect(sx, sy, cote, cote);
+
+            // effacement de la case
+            g2.setComposite(AlphaComposite.Clear);
+            g2.fillRect(sx, sy, cote, cote);
+            g2.setComposite(AlphaComposite.SrcOver);
+
+            g2.translate(sx + cote / 2.0, sy + cote / 2.0);
+            g2.rotate(indice * 2 * Math.PI / NB_ANGLES);
+            g2.scale(echelle, echelle);
+            g2.translate(-largeur / 2.0, -hauteur / 2.0);
+
+            dessine[indice] = g2.drawImage(image, 0, 0, largeur, hauteur, null);
+
+            g2.dispose();
+
+            return dessine[indice];
+        }
+    }
+
+    /**
+     * Cle d'un sprite : l'image et sa taille sur le terrain
+     */
+    private static class CleSprite
+    {
+        final Image image;
+        final int largeur, hauteur;
+
+        CleSprite(Image image, int largeur, int hauteur)
+        {
+            this.image   = image;
+            this.largeur = largeur;
+            this.hauteur = hauteur;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if(!(o instanceof CleSprite))
+                return false;
+
+            CleSprite cle = (CleSprite) o;
+
+            return image == cle.image
+                && largeur == cle.largeur
+                && hauteur == cle.hauteur;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return (System.identityHashCode(image) * 31 + largeur) * 31 + hauteur;
+        }
+    }
+}
@@ -22,6 +22,7 @@ import java.awt.*;
 import java.awt.event.*;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
 import java.util.*;
 import javax.swing.*;
 import outils.Configuration;
@@ -32,6 +33,7 @@ import models.creatures.Creature;
 import models.jeu.Jeu;
 import models.joueurs.Equipe;
 import models.joueurs.Joueur;
+import models.maillage.ChampDeVecteurs;
 import models.maillage.Noeud;
 import models.outils.Timer;
 import models.tours.Tour;
@@ -103,6 +105,11 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	 */
 	private static final int MARGES_CHATEAU = 5;
 	
+	/**
+	 * Nombre maximum de noeuds dessines en suivant un champ de vecteurs
+	 */
+	private static final int MAX_PAS_CHAMP_DE_VECTEURS = 1000;
+	
 	//---------------------------
 	//-- preferences de dessin --
 	//---------------------------
@@ -158,15 +165,44 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	private Thread thread;
 	
 	/**
-	 * Temps de repose dans la boucle d'affichage
+	 * Canevas du rendu actif, null en rendu passif (par Swing)
 	 */
-	private static final int TEMPS_REPOS_THREAD = 20;
+	private Canvas_Terrain canvas;
+	
+	/**
+	 * Nombre maximum d'images par seconde par defaut
+	 */
+	public static final int FPS_MAX_DEFAUT = 50;
+	
+	/**
+	 * Temps maximum entre deux images, meme si rien n'a change (ms). 
+	 * Rattrape les changements de l'affichage qui ne passent ni par la 
+	 * partie ni par {@link #demanderRafraichissement()}.
+	 */
+	private static final long PERIODE_RAFRAICHISSEMENT_MAX = 250;
 
 	/**
 	 * Marge autour du terrain pour éviter des bugs de déplacements en 
 	 * dehors de la zone de dessin
 	 */
     private static final int MARGE_UNIVERS = 3000;
+    
+    /**
+     * Marge autour de la zone visible pour ce qui depasse des elements 
+     * (barres de sante, rotation des images)
+     */
+    private static final int MARGE_ZONE_VISIBLE = 50;
+    
+    /**
+     * Ordre d'affichage des creatures : celui de leur creation
+     */
+    private static final Comparator<Creature> ORDRE_CREATURES = new Comparator<Creature>()
+    {
+        public int compare(Creature c1, Creature c2)
+        {
+            return c1.getId() < c2.getId() ? -1 : (c1.getId() == c2.getId() ? 0 : 1);
+        }
+    };
 
     /**
      * Décalage lors de déplacement avec le clavier
@@ -295,10 +331,56 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     private boolean repeterImageDeFond = true;
 
+    /**
+     * Permet de garder le decor dans une image plutot que de le redessiner
+     * a chaque affichage (desactive lorsque le decor est modifie en continu)
+     */
+    protected boolean decorEnCache = true;
+    
+    /**
+     * Taille maximum de l'image du decor, en pixels
+     */
+    private static final int MAX_PIXELS_DECOR = 2048 * 2048;
+    
+    /**
+     * Image du decor et etat du rendu qu'elle represente
+     */
+    private BufferedImage imageDecor;
+    private double echelleDecor;
+    private int versionDecor = -1;
+    private boolean modeDebugDecor;
+    private boolean zonesDepartArriveeDecor;
+    private int nbEquipesDecor;
+
+    /**
+     * Images pre-tournees des creatures et des tours
+     */
+    private final GestionnaireDesSprites sprites = new GestionnaireDesSprites();
+    
+    /**
+     * Transformation du rendu du terrain (echelle et decalage) et position
+     * a l'ecran d'un point du terrain
+     */
+    private AffineTransform transformTerrain;
+    private final double[] pointEcran = new double[2];
+    
+    /**
+     * Zone du terrain visible a l'ecran (avec la marge)
+     */
+    private final Rectangle zoneVisible = new Rectangle();
+    private static final AffineTransform IDENTITE = new AffineTransform();
+
     // FPS
     private Timer timer;
     private int fps;
     private boolean afficherFps = true;
+    
+    // ordonnancement du rendu
+    private volatile boolean vueModifiee = true;
+    private volatile int fpsMax = FPS_MAX_DEFAUT;
+    private volatile boolean synchroVerticale;
+    private volatile int nbImages;
+    private double dureeImage; // ms, moyenne glissante
 
 	// curseurs
 	private static Cursor curRedimDroite   = new Cursor(Cursor.E_RESIZE_CURSOR);
@@ -325,11 +407,28 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	}
 
 	/**
-	 * Constructeur du panel du terrain
+	 * Constructeur du panel du terrain, en rendu passif
 	 * 
 	 * @param jeu Le jeu a gerer
 	 */
 	public Panel_Terrain(Jeu jeu, EcouteurDePanelTerrain edpt)
+	{
+	    this(jeu, edpt, false);
+	}
+	
+	/**
+	 * Constructeur du panel du terrain
+	 * <p>
+	 * En rendu actif, le terrain est dessine par le thread d'affichage dans
+	 * un {@link Canvas_Terrain} et non par Swing. Les couches, la souris et 
+	 * le clavier sont les memes qu'en rendu passif.
+	 * 
+	 * @param jeu Le jeu a gerer
+	 * @param edpt l'ecouteur du panel
+	 * @param renduActif true pour le rendu actif, false pour le rendu par
+	 *        Swing (repaint)
+	 */
+	public Panel_Terrain(Jeu jeu, EcouteurDePanelTerrain edpt, boolean renduActif)
 	{ 
 	    // sauvegarde du jeu
         this.jeu      = jeu;
@@ -354,6 +453,14 @@ public class Panel_Terrain extends JPanel implements Runnable,
         addMouseMotionListener(this);
         addMouseWheelListener(this);
         
+        // canevas du rendu actif, il occupe tout le panel
+        if(renduActif)
+        {
+            setLayout(new BorderLayout());
+            canvas = new Canvas_Terrain(this);
+            add(canvas, BorderLayout.CENTER);
+        }
+        
         // demarrage du thread de rafraichissement de l'affichage
         thread = new Thread(this);
         thread.start();
@@ -367,6 +474,7 @@ public class Panel_Terrain extends JPanel implements Runnable,
     public void setTourSelectionnee(Tour tour)
     {
         tourSelectionnee = tour;
+        demanderRafraichissement();
     }
 	
 	/**
@@ -388,6 +496,8 @@ public class Panel_Terrain extends JPanel implements Runnable,
 		// s'il y a un tour a ajouter, il n'y pas de tour selectionnee !
 		if(tourAAjouter != null)
 			tourSelectionnee = null;
+		
+		demanderRafraichissement();
 	}
 	
 	/**
@@ -408,6 +518,7 @@ public class Panel_Terrain extends JPanel implements Runnable,
     public void setCreatureSelectionnee(Creature creature)
     {
         creatureSelectionnee = creature;
+        demanderRafraichissement();
     }
 	
 	/**
@@ -417,6 +528,7 @@ public class Panel_Terrain extends JPanel implements Runnable,
     {
         tourAAjouter        = null;
         tourSelectionnee    = null;
+        demanderRafraichissement();
     }
     
     /**
@@ -425,7 +537,9 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculerAffichageMaillage()
     {
-        return afficherMaillage = !afficherMaillage;
+        afficherMaillage = !afficherMaillage;
+        demanderRafraichissement();
+        return afficherMaillage;
     }
     
     /**
@@ -435,7 +549,9 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculerAffichageRayonPortee()
     {
-        return afficherRayonsDePortee = !afficherRayonsDePortee;
+        afficherRayonsDePortee = !afficherRayonsDePortee;
+        demanderRafraichissement();
+        return afficherRayonsDePortee;
     }
     
     /**
@@ -445,7 +561,9 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculeraffichageZonesDepartArrivee()
     {
-        return afficherZonesDepartArrivee = !afficherZonesDepartArrivee;
+        afficherZonesDepartArrivee = !afficherZonesDepartArrivee;
+        demanderRafraichissement();
+        return afficherZonesDepartArrivee;
     }
 
     /**
@@ -455,7 +573,9 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculerModeDebug()
     {
-        return modeDebug = !modeDebug;
+        modeDebug = !modeDebug;
+        demanderRafraichissement();
+        return modeDebug;
     }
     
     /**
@@ -463,7 +583,9 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculerAffichageZonesJoueurs()
     {
-        return afficherZonesJoueurs = !afficherZonesJoueurs;
+        afficherZonesJoueurs = !afficherZonesJoueurs;
+        demanderRafraichissement();
+        return afficherZonesJoueurs;
     }
 
     /**
@@ -471,13 +593,80 @@ public class Panel_Terrain extends JPanel implements Runnable,
      */
     public boolean basculerAffichageFPS()
     {
-        return afficherFps = !afficherFps;
+        afficherFps = !afficherFps;
+        demanderRafraichissement();
+        return afficherFps;
+    }
+    
+    /**
+     * Permet de demander l'affichage d'une nouvelle image.
+     * <br>
+     * Le terrain n'est redessine que si la partie a avance d'un pas ou si 
+     * la vue a change. Les evenements du panel (souris, clavier) sont pris
+     * en compte automatiquement, tout autre changement de ce qui est 
+     * affiche doit appeler cette methode.
+     */
+    public void demanderRafraichissement()
+    {
+        vueModifiee = true;
+    }
+    
+    /**
+     * Permet de modifier le nombre maximum d'images par seconde
+     * 
+     * @param fpsMax le nombre maximum d'images par seconde (au moins 1)
+     */
+    public void setFpsMax(int fpsMax)
+    {
+        this.fpsMax = Math.max(1, fpsMax);
+    }
+    
+    /**
+     * Permet de recuperer le nombre maximum d'images par seconde
+     * 
+     * @return le nombre maximum d'images par seconde
+     */
+    public int getFpsMax()
+    {
+        return fpsMax;
+    }
+    
+    /**
+     * Permet d'activer / désactiver la synchronisation verticale : les 
+     * images sont limitees a la frequence de l'ecran (si elle est connue)
+     * et envoyees a l'ecran des qu'elles sont dessinees.
+     * 
+     * @param synchroVerticale true pour activer la synchronisation
+     */
+    public void setSynchroVerticale(boolean synchroVerticale)
+    {
+        this.synchroVerticale = synchroVerticale;
+    }
+    
+    /**
+     * @return true si la synchronisation verticale est activee, false sinon
+     */
+    public boolean getSynchroVerticale()
+    {
+        return synchroVerticale;
     }
 
 	@Override
 	public void paintComponent(Graphics g)
 	{
+	    // en rendu actif, seul le thread d'affichage dessine (dans le canevas)
+	    if(canvas != null && Thread.currentThread() != thread)
+	        return;
+	    
+	    long debutImage = System.nanoTime();
+	    
 	    Graphics2D g2 = (Graphics2D) g;
+	    
+	    // en rendu actif, la selection peut changer pendant le dessin : 
+	    // l'image est dessinee avec celle du debut
+	    final Tour tourSelectionnee         = this.tourSelectionnee;
+	    final Tour tourAAjouter             = this.tourAAjouter;
+	    final Creature creatureSelectionnee = this.creatureSelectionnee;
 
 	    // proprietes du panel
         final int LARGEUR = jeu.getTerrain().getLargeur();
@@ -507,9 +696,24 @@ public class Panel_Terrain extends JPanel implements Runnable,
             decaleX -= DECALAGE_CLAVIER;    
 	    
 	    // echelle du rendu et positionnement
+	    AffineTransform transformOrigine = g2.getTransform();
 	    g2.scale(coeffTaille, coeffTaille);
 	    g2.translate(decaleX, decaleY);
 	    
+	    // les sprites sont copies pixel a pixel, sans rotation ni echelle
+	    transformTerrain = g2.getTransform();
+	    if((transformTerrain.getType() & (AffineTransform.TYPE_GENERAL_ROTATION 
+	                                    | AffineTransform.TYPE_QUADRANT_ROTATION
+	                                    | AffineTransform.TYPE_FLIP
+	                                    | AffineTransform.TYPE_GENERAL_TRANSFORM)) != 0
+	    || transformTerrain.getScaleX() != transformTerrain.getScaleY())
+	        transformTerrain = null;
+	    else
+	        sprites.setEchelle(transformTerrain.getScaleX());
+	    
+	    // les elements hors de la zone visible ne sont pas dessines
+	    calculerZoneVisible();
+	    
 	    //---------------------------
         //-- affichage de l'espace --
         //---------------------------
@@ -520,104 +724,15 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	            jeu.getTerrain().getLargeur()+2*MARGE_UNIVERS, 
 	            jeu.getTerrain().getHauteur()+2*MARGE_UNIVERS);
 
-		//---------------------------------------------
-		//-- affichage de l'image ou couleur de fond --
-		//---------------------------------------------
-	    if(jeu.getTerrain().getImageDeFond() != null && !modeDebug)
-		{	
-	        Image image = jeu.getTerrain().getImageDeFond();
-	        
-			if(repeterImageDeFond)
-			    for(int l=0;l<jeu.getTerrain().getLargeur();l+=image.getWidth(null))
-			        for(int h=0;h<jeu.getTerrain().getHauteur();h+=image.getHeight(null))
-			            g2.drawImage(image, l, h, null);
-			else
-			    g2.drawImage(image, 0, 0, null);
-		}
-		else
-		{
-			// couleur de fond
-			g2.setColor(jeu.getTerrain().getCouleurDeFond());
-			g2.fillRect(0, 0, LARGEUR, HAUTEUR);
-		}
-
+		//--------------------------------------------------------
+		//-- affichage du decor (fond, zones, chateaux et murs) --
+		//--------------------------------------------------------
+		afficherDecor(g2, transformOrigine);
+		
 		//-------------------------------------
         //-- affichage des animations au sol --
         //-------------------------------------
-        jeu.dessinerAnimations(g2, Animation.HAUTEUR_SOL);
-		
-		
-		//-------------------------------------------------
-		//-- Affichage de la zone de depart et d'arrivee --
-		//-------------------------------------------------
-		
-		// affichages des zones de départ et arrivée
-	    for(Equipe equipe : jeu.getEquipes())
-	    {
-	        Rectangle r;
-	        
-	        if(modeDebug || afficherZonesDepartArrivee)
-	        {
-		        // dessin de la zone de depart
-		        
-		        for(int i=0;i<equipe.getNbZonesDepart();i++)    
-		        {
-		            r = equipe.getZoneDepartCreatures(i);
-		            
-		            setTransparence(ALPHA_SURFACE_ZONE_DA, g2);
-		            g2.setColor(COULEUR_ZONE_DEPART);
-                    dessinerZone(r,g2);
-                    
-                    // numero
-                    setTransparence(1.f, g2);
-                    g2.setColor(equipe.getCouleur());
-                    g2.drawString(i+"", r.x+r.width/2-5, r.y+r.height/2-5);
-                    
-                    // tour de couleur
-                    Stroke tmp = g2.getStroke();
-                    g2.setStroke(TRAIT_TILLE_EPAIS);
-                    g2.drawRect(r.x, r.y, r.width, r.height);
-                    g2.setStroke(tmp);
-		        }
-	        }
-	        
-	        // dessin de la zone d'arrivee
-	        if(equipe.getZoneArriveeCreatures() != null)
-	        {
-	            r = equipe.getZoneArriveeCreatures();
-	           
-	            if(modeDebug)
-	            {
-	                g2.setColor(COULEUR_ZONE_ARRIVEE);
-	                dessinerZone(r,g2);
-	                
-	                // tour de couleur
-	                setTransparence(1.f, g2);
-	                g2.setColor(equipe.getCouleur());
-	                g2.drawRect(r.x, r.y, r.width, r.height); 
-	            }
-	            else
-	            {
-	                // sol de couleur
-                    g2.setColor(equipe.getCouleur());
-                    g2.fillRect(r.x+MARGES_CHATEAU, r.y+MARGES_CHATEAU, r.width-(2*MARGES_CHATEAU), r.height-(2*MARGES_CHATEAU)); 
-	                g2.drawImage(I_CHATEAU, r.x, r.y, r.width, r.height, null);
-	            }
-	        }
-		}
-		
-		
-		if(modeDebug)
-		    setTransparence(ALPHA_SURFACE_MUR_DEBUG, g2);
-		else
-		    setTransparence(jeu.getTerrain().getOpaciteMurs(), g2);
-		
-	    ArrayList<Rectangle> murs = jeu.getTerrain().getMurs();
-        g2.setColor(jeu.getTerrain().getCouleurMurs());
-        for(Rectangle mur : murs)
-            dessinerZone(mur,g2);
-        
-        setTransparence(1.f, g2);
+        jeu.dessinerAnimations(g2, Animation.HAUTEUR_SOL, zoneVisible);
 		
 		
 		
@@ -711,12 +826,10 @@ public class Panel_Terrain extends JPanel implements Runnable,
 		//----------------------------------------
 		//-- affichage des creatures terrestres --
 		//----------------------------------------
-		Creature creature;
-        Enumeration<Creature> eCreatures = jeu.getCreatures().elements();
-        while(eCreatures.hasMoreElements())
+		Collection<Creature> creaturesVisibles = getCreaturesVisibles();
+		
+        for(Creature creature : creaturesVisibles)
         {
-            creature = eCreatures.nextElement();
-                
             // affichage des creatures terriennes uniquement
             if(creature.getType() == Creature.TYPE_TERRIENNE)
                 dessinerCreature(creature,g2);
@@ -726,16 +839,14 @@ public class Panel_Terrain extends JPanel implements Runnable,
 		//-- affichage des tours --
 		//-------------------------
 		for(Tour tour : jeu.getTours())
-			dessinerTour(tour,g2,false);
+		    if(tour.intersects(zoneVisible))
+		        dessinerTour(tour,g2,false);
 		
 	    //--------------------------------------
         //-- affichage des creatures aerienne --
         //--------------------------------------
-		eCreatures = jeu.getCreatures().elements();
-        while(eCreatures.hasMoreElements())
+        for(Creature creature : creaturesVisibles)
         {
-            creature = eCreatures.nextElement();
-            
             // dessine toutes les barres de sante
             dessinerBarreDeSante(creature, g2);
             
@@ -790,12 +901,13 @@ public class Panel_Terrain extends JPanel implements Runnable,
 		//------------------------------------
 		if(afficherRayonsDePortee)
 			for(Tour tour : jeu.getTours())
-				dessinerPortee(tour,g2,COULEUR_RAYON_PORTEE);
+			    if(porteeVisible(tour))
+			        dessinerPortee(tour,g2,COULEUR_RAYON_PORTEE);
 		
 		//------------------------------------------------
 		//-- affichage des animations au-dessus de tout --
 		//------------------------------------------------
-		jeu.dessinerAnimations(g2, Animation.HAUTEUR_AIR);
+		jeu.dessinerAnimations(g2, Animation.HAUTEUR_AIR, zoneVisible);
 		
 		
 		
@@ -855,12 +967,18 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	    }
 		
 		
+		// duree de l'image (moyenne glissante sur une dizaine d'images)
+		dureeImage += ((System.nanoTime() - debutImage) / 1e6 - dureeImage) / 10.0;
+		nbImages++;
+		
 		if(afficherFps)
         {
+		    String sFps = "fps : "+fps+" ("+String.format("%.1f", dureeImage)+" ms)";
+		    
 		    g2.setColor(Color.BLACK);
-		    g2.drawString("fps : "+fps, 0, 12);
+		    g2.drawString(sFps, 0, 12);
 		    g2.setColor(Color.WHITE);
-		    g2.drawString("fps : "+fps, 1, 12+1);
+		    g2.drawString(sFps, 1, 12+1);
         }
 		
 	}
@@ -895,6 +1013,234 @@ public class Panel_Terrain extends JPanel implements Runnable,
     }
 	*/
 
+	/**
+	 * Permet d'afficher le decor du terrain.
+	 * <p>
+	 * Le decor ne change pas pendant une partie : il est dessine une fois 
+	 * dans une image a l'echelle du rendu, puis copie a chaque affichage.
+	 * L'image est refaite quand le terrain est modifie, quand l'echelle 
+	 * change ou quand une option d'affichage du decor change.
+	 * 
+	 * @param g2 le Graphics2D pour dessiner (echelle et decalage appliques)
+	 * @param transformOrigine la transformation du Graphics2D sans echelle
+	 *        ni decalage
+	 */
+	private void afficherDecor(Graphics2D g2, AffineTransform transformOrigine)
+	{
+	    if(!decorEnCache)
+	    {
+	        dessinerDecor(g2);
+	        return;
+	    }
+	    
+	    final int LARGEUR = jeu.getTerrain().getLargeur();
+        final int HAUTEUR = jeu.getTerrain().getHauteur();
+	    
+        // au dela d'une taille maximum, l'image est agrandie lors de la copie
+        double echelle = Math.min(coeffTaille, 
+                Math.sqrt(MAX_PIXELS_DECOR / ((double) LARGEUR * HAUTEUR)));
+        
+        if(!decorAJour(echelle))
+            construireDecor(g2, echelle);
+        
+        if(echelle == coeffTaille)
+        {
+            // copie pixel a pixel, sans echelle
+            AffineTransform tx = g2.getTransform();
+            g2.setTransform(transformOrigine);
+            g2.drawImage(imageDecor, 
+                         (int) Math.round(decaleX * coeffTaille), 
+                         (int) Math.round(decaleY * coeffTaille), null);
+            g2.setTransform(tx);
+        }
+        else
+            g2.drawImage(imageDecor, 0, 0, LARGEUR, HAUTEUR, null);
+	}
+	
+	/**
+	 * Permet de savoir si l'image du decor correspond encore au terrain et
+	 * aux options d'affichage
+	 * 
+	 * @param echelle l'echelle de l'image voulue
+	 * @return true si l'image peut etre copiee telle quelle
+	 */
+	private boolean decorAJour(double echelle)
+	{
+	    return imageDecor != null
+	        && echelleDecor == echelle
+	        && versionDecor == jeu.getTerrain().getVersionDecor()
+	        && modeDebugDecor == modeDebug
+	        && zonesDepartArriveeDecor == afficherZonesDepartArrivee
+	        && nbEquipesDecor == jeu.getEquipes().size();
+	}
+	
+	/**
+	 * Permet de dessiner le decor dans son image
+	 * 
+	 * @param g2 le Graphics2D du panel (pour les preferences de dessin)
+	 * @param echelle l'echelle de l'image
+	 */
+	private void construireDecor(Graphics2D g2, double echelle)
+	{
+	    int largeur = (int) Math.ceil(jeu.getTerrain().getLargeur() * echelle);
+	    int hauteur = (int) Math.ceil(jeu.getTerrain().getHauteur() * echelle);
+	    
+	    if(imageDecor == null 
+	    || imageDecor.getWidth() != largeur 
+	    || imageDecor.getHeight() != hauteur)
+	    {
+	        if(imageDecor != null)
+	            imageDecor.flush();
+	        
+	        // image compatible avec l'ecran, acceleree par Java2D
+	        GraphicsConfiguration gc = getGraphicsConfiguration();
+	        if(gc != null)
+	            imageDecor = gc.createCompatibleImage(largeur, hauteur, Transparency.OPAQUE);
+	        else
+	            imageDecor = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_RGB);
+	    }
+	    
+	    Graphics2D gDecor = imageDecor.createGraphics();
+	    gDecor.setRenderingHints(g2.getRenderingHints());
+	    gDecor.setFont(g2.getFont());
+	    
+	    // l'espace sous les parties non couvertes par le fond
+	    gDecor.setColor(LookInterface.COULEUR_DE_FOND_SEC);
+	    gDecor.fillRect(0, 0, largeur, hauteur);
+	    
+	    gDecor.scale(echelle, echelle);
+	    boolean complet = dessinerDecor(gDecor);
+	    gDecor.dispose();
+	    
+	    echelleDecor            = echelle;
+	    modeDebugDecor          = modeDebug;
+	    zonesDepartArriveeDecor = afficherZonesDepartArrivee;
+	    nbEquipesDecor          = jeu.getEquipes().size();
+	    
+	    // une image pas encore chargee, il faudra recommencer
+	    versionDecor = complet ? jeu.getTerrain().getVersionDecor() : -1;
+	}
+	
+	/**
+	 * Permet d'invalider l'image du decor, qui sera redessinee au prochain 
+	 * affichage
+	 */
+	public void invaliderDecor()
+	{
+	    versionDecor = -1;
+	    demanderRafraichissement();
+	}
+	
+	/**
+	 * Permet de dessiner le decor : l'image ou la couleur de fond, les zones
+	 * de depart et d'arrivee, les chateaux et les murs.
+	 * 
+	 * @param g2 le Graphics2D pour dessiner
+	 * @return false si une image n'etait pas encore chargee
+	 */
+	private boolean dessinerDecor(Graphics2D g2)
+	{
+	    final int LARGEUR = jeu.getTerrain().getLargeur();
+        final int HAUTEUR = jeu.getTerrain().getHauteur();
+        
+        boolean complet = true;
+        
+		//---------------------------------------------
+		//-- affichage de l'image ou couleur de fond --
+		//---------------------------------------------
+	    if(jeu.getTerrain().getImageDeFond() != null && !modeDebug)
+		{	
+	        Image image = jeu.getTerrain().getImageDeFond();
+	        
+			if(repeterImageDeFond)
+			    for(int l=0;l<jeu.getTerrain().getLargeur();l+=image.getWidth(null))
+			        for(int h=0;h<jeu.getTerrain().getHauteur();h+=image.getHeight(null))
+			            complet &= g2.drawImage(image, l, h, null);
+			else
+			    complet &= g2.drawImage(image, 0, 0, null);
+		}
+		else
+		{
+			// couleur de fond
+			g2.setColor(jeu.getTerrain().getCouleurDeFond());
+			g2.fillRect(0, 0, LARGEUR, HAUTEUR);
+		}
+
+		//-------------------------------------------------
+		//-- Affichage de la zone de depart et d'arrivee --
+		//-------------------------------------------------
+		
+		// affichages des zones de départ et arrivée
+	    for(Equipe equipe : jeu.getEquipes())
+	    {
+	        Rectangle r;
+	        
+	        if(modeDebug || afficherZonesDepartArrivee)
+	        {
+		        // dessin de la zone de depart
+		        
+		        for(int i=0;i<equipe.getNbZonesDepart();i++)    
+		        {
+		            r = equipe.getZoneDepartCreatures(i);
+		            
+		            setTransparence(ALPHA_SURFACE_ZONE_DA, g2);
+		            g2.setColor(COULEUR_ZONE_DEPART);
+                    dessinerZone(r,g2);
+                    
+                    // numero
+                    setTransparence(1.f, g2);
+                    g2.setColor(equipe.getCouleur());
+                    g2.drawString(i+"", r.x+r.width/2-5, r.y+r.height/2-5);
+                    
+                    // tour de couleur
+                    Stroke tmp = g2.getStroke();
+                    g2.setStroke(TRAIT_TILLE_EPAIS);
+                    g2.drawRect(r.x, r.y, r.width, r.height);
+                    g2.setStroke(tmp);
+		        }
+	        }
+	        
+	        // dessin de la zone d'arrivee
+	        if(equipe.getZoneArriveeCreatures() != null)
+	        {
+	            r = equipe.getZoneArriveeCreatures();
+	           
+	            if(modeDebug)
+	            {
+	                g2.setColor(COULEUR_ZONE_ARRIVEE);
+	                dessinerZone(r,g2);
+	                
+	                // tour de couleur
+	                setTransparence(1.f, g2);
+	                g2.setColor(equipe.getCouleur());
+	                g2.drawRect(r.x, r.y, r.width, r.height); 
+	            }
+	            else
+	            {
+	                // sol de couleur
+                    g2.setColor(equipe.getCouleur());
+                    g2.fillRect(r.x+MARGES_CHATEAU, r.y+MARGES_CHATEAU, r.width-(2*MARGES_CHATEAU), r.height-(2*MARGES_CHATEAU)); 
+	                complet &= g2.drawImage(I_CHATEAU, r.x, r.y, r.width, r.height, null);
+	            }
+	        }
+		}
+		
+		
+		if(modeDebug)
+		    setTransparence(ALPHA_SURFACE_MUR_DEBUG, g2);
+		else
+		    setTransparence(jeu.getTerrain().getOpaciteMurs(), g2);
+		
+	    ArrayList<Rectangle> murs = jeu.getTerrain().getMurs();
+        g2.setColor(jeu.getTerrain().getCouleurMurs());
+        for(Rectangle mur : murs)
+            dessinerZone(mur,g2);
+        
+        setTransparence(1.f, g2);
+        
+        return complet;
+	}
+	
 	/**
 	 * Permet de dessiner une zone rectangulaire sur le terrain.
 	 * 
@@ -909,6 +1255,61 @@ public class Panel_Terrain extends JPanel implements Runnable,
                     (int) zone.getHeight());
     }
 	
+	/**
+	 * Permet de calculer la zone du terrain visible a l'ecran, d'apres 
+	 * l'echelle et le decalage de la vue, elargie de 
+	 * {@link #MARGE_ZONE_VISIBLE}
+	 */
+	private void calculerZoneVisible()
+	{
+	    zoneVisible.setBounds(
+	            -decaleX - MARGE_ZONE_VISIBLE,
+	            -decaleY - MARGE_ZONE_VISIBLE,
+	            (int) Math.ceil(getWidth() / coeffTaille) + 2 * MARGE_ZONE_VISIBLE,
+	            (int) Math.ceil(getHeight() / coeffTaille) + 2 * MARGE_ZONE_VISIBLE);
+	}
+	
+	/**
+	 * Permet de recuperer les creatures a dessiner, dans l'ordre d'affichage.
+	 * <br>
+	 * Quand une partie du terrain seulement est visible, les creatures sont
+	 * cherchees dans l'index spatial des creatures plutot que parcourues.
+	 * 
+	 * @return les creatures de la zone visible
+	 */
+	private Collection<Creature> getCreaturesVisibles()
+	{
+	    // tout le terrain est visible ou les chemins de toutes les 
+	    // creatures sont affiches (maillage)
+	    if(afficherMaillage || zoneVisible.contains(0, 0, 
+	            jeu.getTerrain().getLargeur(), jeu.getTerrain().getHauteur()))
+	        return jeu.getCreatures();
+	    
+	    ArrayList<Creature> creatures = jeu.getCreaturesDansLaZone(
+	            zoneVisible.getMinX(), zoneVisible.getMinY(), 
+	            zoneVisible.getMaxX(), zoneVisible.getMaxY());
+	    
+	    // l'index ne conserve pas l'ordre de la collection
+	    Collections.sort(creatures, ORDRE_CREATURES);
+	    
+	    return creatures;
+	}
+	
+	/**
+	 * Permet de savoir si le rayon de portee d'une tour est visible
+	 * 
+	 * @param tour la tour
+	 * @return true si le cercle de portee touche la zone visible
+	 */
+	private boolean porteeVisible(Tour tour)
+	{
+	    double rayon = tour.getRayonPortee();
+	    
+	    return zoneVisible.intersects(tour.getCenterX() - rayon, 
+	                                  tour.getCenterY() - rayon, 
+	                                  2 * rayon, 2 * rayon);
+	}
+	
 	/**
 	 * Permet de dessiner une creature sur le terrain.
 	 * 
@@ -919,16 +1320,22 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	{  
 	    if(creature.getImage() != null)
 	    {
-	        // rotation des créatures
-	        AffineTransform tx = new AffineTransform();
-	        
-	        tx.translate(creature.getCenterX(), creature.getCenterY());
-	        tx.rotate(creature.getAngle()+Math.PI/2);
-	        tx.translate(-creature.getWidth()/2, -creature.getHeight()/2);
-	        tx.scale(creature.getWidth() / (double) creature.getImage().getWidth(null), creature.getHeight() / (double) creature.getImage().getHeight(null));
-
-	        // dessin de la créature avec rotation
-	        g2.drawImage(creature.getImage(), tx, this);
+	        // rotation des créatures, depuis les images pre-tournees
+	        if(!dessinerSprite(creature.getImage(), 
+	                           (int) creature.getWidth(), (int) creature.getHeight(),
+	                           creature.getAngle()+Math.PI/2,
+	                           creature.getCenterX(), creature.getCenterY(), g2))
+	        {
+    	        AffineTransform tx = new AffineTransform();
+    	        
+    	        tx.translate(creature.getCenterX(), creature.getCenterY());
+    	        tx.rotate(creature.getAngle()+Math.PI/2);
+    	        tx.translate(-creature.getWidth()/2, -creature.getHeight()/2);
+    	        tx.scale(creature.getWidth() / (double) creature.getImage().getWidth(null), creature.getHeight() / (double) creature.getImage().getHeight(null));
+    
+    	        // dessin de la créature avec rotation
+    	        g2.drawImage(creature.getImage(), tx, this);
+	        }
 	    }
         else
         {
@@ -949,6 +1356,39 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	}
 	
 	
+	/**
+	 * Permet de dessiner une image tournee depuis les images pre-tournees,
+	 * sans transformation.
+	 * 
+	 * @param image l'image
+	 * @param largeur la largeur de l'image sur le terrain
+	 * @param hauteur la hauteur de l'image sur le terrain
+	 * @param angle l'angle de rotation autour du centre
+	 * @param centreX la position du centre sur le terrain
+	 * @param centreY la position du centre sur le terrain
+	 * @param g2 le Graphics2D pour dessiner (transformation du terrain)
+	 * @return false si l'image doit etre dessinee avec une transformation
+	 */
+	private boolean dessinerSprite(Image image, int largeur, int hauteur, 
+	                               double angle, double centreX, double centreY,
+	                               Graphics2D g2)
+	{
+	    if(transformTerrain == null || largeur <= 0 || hauteur <= 0)
+	        return false;
+	    
+	    // position du centre a l'ecran
+	    pointEcran[0] = centreX;
+	    pointEcran[1] = centreY;
+	    transformTerrain.transform(pointEcran, 0, pointEcran, 0, 1);
+	    
+	    g2.setTransform(IDENTITE);
+	    boolean dessine = sprites.dessiner(g2, image, largeur, hauteur, angle, 
+	                                       pointEcran[0], pointEcran[1]);
+	    g2.setTransform(transformTerrain);
+	    
+	    return dessine;
+	}
+	
 	/**
 	 * Permet de dessiner la barre de sante d'une creature.
 	 * 
@@ -1013,6 +1453,28 @@ public class Panel_Terrain extends JPanel implements Runnable,
                 }
             }
         }
+        // sinon, on suit le champ de vecteurs
+        else if(creature.getChampDeVecteurs() != null)
+        {
+            ChampDeVecteurs champ = creature.getChampDeVecteurs();
+            
+            Point PointPrecedent = new Point((int) creature.getCenterX(),
+                                             (int) creature.getCenterY());
+            Point point;
+            
+            // le nombre de pas est borne au cas ou le champ change
+            for(int i=0;i<MAX_PAS_CHAMP_DE_VECTEURS;i++)
+            {
+                point = champ.getNoeudSuivant(PointPrecedent.x, PointPrecedent.y);
+                
+                if(point == null || point.equals(PointPrecedent))
+                    break;
+                
+                g2.drawLine(PointPrecedent.x, PointPrecedent.y, 
+                            point.x, point.y);
+                PointPrecedent = point;
+            }
+        }
     }
 	
 	/**
@@ -1029,18 +1491,23 @@ public class Panel_Terrain extends JPanel implements Runnable,
 		// dessin de l'image
 		if(!modeDebug && tour.getImage() != null)
 		{
-		    AffineTransform tx = new AffineTransform();
-	        tx.translate(tour.getCenterX(), tour.getCenterY());
-	        tx.rotate(tour.getAngle());
-	        tx.translate((int) -tour.getWidth()/2.0, (int) -tour.getHeight()/2.0);
-
-	        
 	        setTransparence(.5f, g2);
 	        g2.setColor(tour.getPrioprietaire().getEquipe().getCouleur());
 	        g2.fillOval(tour.x-1, tour.y-1, (int) tour.getWidth()+2, (int) tour.getHeight()+2);
 	        setTransparence(1.f, g2);
 	        
-		    g2.drawImage(tour.getImage(), tx ,null);
+	        // rotation de la tour, depuis les images pre-tournees
+	        Image image = tour.getImage();
+	        if(!dessinerSprite(image, image.getWidth(null), image.getHeight(null),
+	                           tour.getAngle(), tour.getCenterX(), tour.getCenterY(), g2))
+	        {
+    		    AffineTransform tx = new AffineTransform();
+    	        tx.translate(tour.getCenterX(), tour.getCenterY());
+    	        tx.rotate(tour.getAngle());
+    	        tx.translate((int) -tour.getWidth()/2.0, (int) -tour.getHeight()/2.0);
+    	        
+    		    g2.drawImage(image, tx ,null);
+	        }
 		}
 		// dessin d'un forme de couleur
 		else
@@ -1110,6 +1577,12 @@ public class Panel_Terrain extends JPanel implements Runnable,
 	 * 
 	 * L'implémentation de Runnable nous force à définir cette méthode.
 	 * Celle-ci sera appelée lors du démarrage du thread.
+	 * <p>
+	 * Le panel n'est redessine que si la partie a avance d'un pas, si le 
+	 * decor ou les creatures ont change ou si la vue a ete modifiee 
+	 * (voir {@link #demanderRafraichissement()}), au plus {@link #fpsMax} 
+	 * fois par seconde. Une partie en pause ou pas encore demarree ne 
+	 * coute donc presque rien.
 	 * 
 	 * @see Runnable
 	 */
@@ -1121,39 +1594,127 @@ public class Panel_Terrain extends JPanel implements Runnable,
         
         long lastFPSlog = 0;
         int frames      = 0;
+        
+        long dernierPas          = -1;
+        int derniereVersionDecor = -1;
+        int derniereVersionCreatures = -1;
+        long derniereImage       = 0;
+        long prochaineImage      = System.nanoTime();
 	    
 	    // Tant que la partie est en cours...
 		while(!jeu.estDetruit())
 		{
-			// Raffraichissement du panel
-			repaint(); // -> appel paintComponent
+		    long maintenant = System.nanoTime();
+		    
+		    //-------------------------------------------------
+		    //-- la partie a avance ou la vue a ete modifiee --
+		    //-------------------------------------------------
+		    long nbPas           = jeu.getNbPas();
+		    int versionDecor     = jeu.getTerrain().getVersionDecor();
+		    int versionCreatures = jeu.getVersionCreatures();
+		    
+		    // le deplacement au clavier est applique a chaque image
+		    boolean defilement = toucheHautPressee || toucheGauchePressee
+		                      || toucheBasPressee  || toucheDroitePressee;
+		    
+		    if(vueModifiee || defilement
+		    || nbPas != dernierPas
+		    || versionDecor != derniereVersionDecor
+		    || versionCreatures != derniereVersionCreatures
+		    || maintenant - derniereImage > PERIODE_RAFRAICHISSEMENT_MAX * 1000000L)
+		    {
+		        vueModifiee              = false;
+		        dernierPas               = nbPas;
+		        derniereVersionDecor     = versionDecor;
+		        derniereVersionCreatures = versionCreatures;
+		        derniereImage            = maintenant;
+		        
+		        // Raffraichissement du panel
+		        if(isShowing())
+		        {
+		            if(canvas != null)
+		                canvas.afficher(); // -> appel paintComponent dans ce thread
+		            else
+		                repaint(); // -> appel paintComponent
+		        }
+		    }
 			
 			//-------------------------------
             //-- compute frames per second --
             //-------------------------------
-            if(afficherFps)
+            long time = timer.getTime();
+            
+            if (time > lastFPSlog+1000) 
             {
-                ++frames;
-    
-                long time = timer.getTime();
-                
-                if (time > lastFPSlog+1000) 
-                {
-                    fps         = frames;
-                    frames      = 0;
-                    lastFPSlog  = time;
-                }
+                // images reellement dessinees
+                int images  = nbImages;
+                fps         = images - frames;
+                frames      = images;
+                lastFPSlog  = time;
             }
+            
+            // envoi a l'ecran de la derniere image dessinee
+            if(synchroVerticale)
+                Toolkit.getDefaultToolkit().sync();
 			
-			// Endore le thread
-			try {
-				Thread.sleep(TEMPS_REPOS_THREAD);
+			//------------------------------------
+            //-- attente de la prochaine image --
+            //------------------------------------
+            long periode = getPeriodeImage();
+            
+            // le retard n'est pas rattrape
+            prochaineImage = Math.max(prochaineImage + periode, maintenant);
+            
+			try 
+			{
+			    long attente = (prochaineImage - System.nanoTime()) / 1000000L;
+			    
+			    if(attente > 0)
+			        Thread.sleep(attente);
 			} 
 			catch (InterruptedException e) {
 				e.printStackTrace();
 			}
 		}
 	}
+	
+	/**
+	 * Permet de recuperer la duree minimum entre deux images
+	 * 
+	 * @return la duree en nanosecondes
+	 */
+	private long getPeriodeImage()
+	{
+	    int max = fpsMax;
+	    
+	    // limite a la frequence de l'ecran
+	    if(synchroVerticale)
+	    {
+	        GraphicsConfiguration gc = getGraphicsConfiguration();
+	        
+	        if(gc != null)
+	        {
+	            int frequence = gc.getDevice().getDisplayMode().getRefreshRate();
+	            
+	            if(frequence != DisplayMode.REFRESH_RATE_UNKNOWN)
+	                max = Math.min(max, frequence);
+	        }
+	    }
+	    
+	    return 1000000000L / max;
+	}
+	
+	/**
+	 * Tout evenement du panel (souris, clavier, redimensionnement) peut 
+	 * modifier la vue : le terrain sera redessine.
+	 */
+	@Override
+	protected void processEvent(AWTEvent e)
+	{
+	    vueModifiee = true;
+	    
+	    super.processEvent(e);
+	}
 
 	/**
 	 * Métode de gestion des cliques de la souris
@@ -1567,6 +2128,7 @@ public class Panel_Terrain extends JPanel implements Runnable,
         // remise à l'échelle initiale et recentrage
         coeffTaille = 1.0;
         centrerSur(jeu.getTerrain().getLargeur()/2, jeu.getTerrain().getHauteur()/2);
+        demanderRafraichissement();
     }
 
     public void zoomer(int i)
@@ -1606,6 +2168,8 @@ public class Panel_Terrain extends JPanel implements Runnable,
                 centrerSur(pAvant.x, pAvant.y);
         }
         
+        demanderRafraichissement();
+        
         /*if(!sourisSurTerrain)
             // centrer sur le milieu du terrain
             centrerSur(jeu.getTerrain().getLargeur()/2, jeu.getTerrain().getHauteur()/2);
@@ -1620,5 +2184,6 @@ public class Panel_Terrain extends JPanel implements Runnable,
         
         decaleX = decaleY = 0;
         coeffTaille = maxTaillePanel / maxTaille;
+        demanderRafraichissement();
     }
 }
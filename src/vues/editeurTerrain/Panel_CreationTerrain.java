@@ -53,6 +53,9 @@ public class Panel_CreationTerrain extends Panel_Terrain {
         super(jeu, edpt);
 
         afficherQuadrillage = true;
+
+        // le decor est modifie en continu dans l'editeur
+        decorEnCache = false;
     }
 
     private int taillePoignee = 6;
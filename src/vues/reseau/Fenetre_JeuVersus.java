@@ -26,9 +26,13 @@ import java.io.File;
 import javax.swing.*;
 import javax.swing.border.*;
 import exceptions.*;
+import outils.Configuration;
 import outils.myTimer;
 import reseau.CanalException;
+import reseau.jeu.client.ClientJeu;
 import reseau.jeu.client.EcouteurDeClientJeu;
+import reseau.jeu.client.EcouteurDeRequete;
+import reseau.jeu.client.Requete;
 import reseau.jeu.serveur.ServeurJeu;
 import vues.Fenetre_MenuPrincipal;
 import vues.GestionnaireDesPolices;
@@ -262,7 +266,9 @@ public class Fenetre_JeuVersus extends JFrame implements ActionListener,
         // creation des panels
 		JPanel conteneurTerrain = new JPanel(new BorderLayout());
 		conteneurTerrain.setBorder(new LineBorder(Color.BLACK,4));
-		panelTerrain = new Panel_Terrain(jeu, this);
+		panelTerrain = new Panel_Terrain(jeu, this, Configuration.getRenduActif());
+		panelTerrain.setFpsMax(Configuration.getFpsMax(Panel_Terrain.FPS_MAX_DEFAUT));
+		panelTerrain.setSynchroVerticale(Configuration.getSynchroVerticale());
 		panelTerrain.addKeyListener(this);
 		conteneurTerrain.setOpaque(false);
 		conteneurTerrain.add(panelTerrain,BorderLayout.CENTER);
@@ -525,7 +531,8 @@ public class Fenetre_JeuVersus extends JFrame implements ActionListener,
 	{
 	    try
 	    {
-	        jeu.poserTour(tour);
+	        // la tour est posée sans attendre le serveur
+	        Requete pose = jeu.demanderPoseTour(tour);
 	        
 	        panelTerrain.toutDeselectionner();
 	          
@@ -538,57 +545,129 @@ public class Fenetre_JeuVersus extends JFrame implements ActionListener,
             
             lblEtat.setForeground(LookInterface.COULEUR_SUCCES);
             lblEtat.setText(Langue.getTexte(Langue.ID_TXT_TOUR_POSEE));
+            
+            // le serveur peut encore refuser, la tour est alors retirée
+            pose.ajouterEcouteurDeRequete(new EcouteurDeRequete()
+            {
+                public void requeteTerminee(final Requete requete)
+                {
+                    // reponse recue hors de l'EDT
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                ClientJeu.verifierPoseTour(requete.getStatus());
+                            }
+                            catch(Exception e)
+                            {
+                                afficherErreur(e.getMessage());
+                            }
+                        }
+                    });
+                }
+            });
 	    }
 	    catch(Exception e)
 	    {
-	        lblEtat.setForeground(LookInterface.COULEUR_ERREUR);
-	        lblEtat.setText(e.getMessage());
+	        afficherErreur(e.getMessage());
 	    }
 	}
 	
 	@Override
-	public void ameliorerTour(Tour tour)
+	public void ameliorerTour(final Tour tour)
 	{
 	    try
         {
-	        jeu.ameliorerTour(tour);
-	          
-	        panelSelection.setSelection(tour, Panel_InfoTour.MODE_SELECTION);
-	        
-	        lblEtat.setForeground(LookInterface.COULEUR_SUCCES);
-            lblEtat.setText(Langue.getTexte(Langue.ID_TXT_TOUR_AMELIOREE));
+	        jeu.demanderAmeliorationTour(tour).ajouterEcouteurDeRequete(new EcouteurDeRequete()
+	        {
+	            public void requeteTerminee(final Requete requete)
+	            {
+	                // reponse recue hors de l'EDT
+	                SwingUtilities.invokeLater(new Runnable()
+	                {
+	                    public void run()
+	                    {
+	                        try
+	                        {
+	                            ClientJeu.verifierAmeliorationTour(requete.getStatus());
+	                            
+	                            panelSelection.setSelection(tour, Panel_InfoTour.MODE_SELECTION);
+	                            
+	                            lblEtat.setForeground(LookInterface.COULEUR_SUCCES);
+	                            lblEtat.setText(Langue.getTexte(Langue.ID_TXT_TOUR_AMELIOREE));
+	                        }
+	                        catch(Exception e)
+	                        {
+	                            afficherErreur(e.getMessage());
+	                        }
+	                    }
+	                });
+	            }
+	        });
         }
 	    catch(Exception e)
         {
-	        lblEtat.setForeground(LookInterface.COULEUR_ERREUR);
-	        lblEtat.setText(e.getMessage());
+	        afficherErreur(e.getMessage());
         }
 	}
 	
 	@Override
-    public void vendreTour(Tour tour)
+    public void vendreTour(final Tour tour)
     {
         try
         {
-            jeu.vendreTour(tour);
-            panelSelection.deselection();
-            panelTerrain.setTourSelectionnee(null);
-            
-            jeu.ajouterAnimation(
-                    new GainDePiecesOr((int)tour.getCenterX(),(int)tour.getCenterY(), 
-                            tour.getPrixDeVente())
-                    );
-            
-            lblEtat.setForeground(LookInterface.COULEUR_SUCCES);
-            lblEtat.setText(Langue.getTexte(Langue.ID_TXT_TOUR_VENDUE));
+            jeu.demanderVenteTour(tour).ajouterEcouteurDeRequete(new EcouteurDeRequete()
+            {
+                public void requeteTerminee(final Requete requete)
+                {
+                    // reponse recue hors de l'EDT
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                ClientJeu.verifierVenteTour(requete.getStatus());
+                                
+                                panelSelection.deselection();
+                                panelTerrain.setTourSelectionnee(null);
+                                
+                                jeu.ajouterAnimation(
+                                        new GainDePiecesOr((int)tour.getCenterX(),(int)tour.getCenterY(), 
+                                                tour.getPrixDeVente())
+                                        );
+                                
+                                lblEtat.setForeground(LookInterface.COULEUR_SUCCES);
+                                lblEtat.setText(Langue.getTexte(Langue.ID_TXT_TOUR_VENDUE));
+                            }
+                            catch(Exception e)
+                            {
+                                afficherErreur(e.getMessage());
+                            }
+                        }
+                    });
+                }
+            });
         } 
-        catch (ActionNonAutoriseeException e)
+        catch (CanalException e)
         {
-            lblEtat.setForeground(LookInterface.COULEUR_ERREUR);
-            lblEtat.setText(e.getMessage());
+            afficherErreur(e.getMessage());
         }
     }
 	
+	/**
+	 * Permet d'afficher une erreur dans la barre d'etat
+	 * 
+	 * @param message le message d'erreur
+	 */
+	private void afficherErreur(String message)
+	{
+	    lblEtat.setForeground(LookInterface.COULEUR_ERREUR);
+        lblEtat.setText(message);
+	}
+	
     /**
      * Permet d'ajouter du text HTML dans la console
      * 
@@ -732,7 +811,38 @@ public class Fenetre_JeuVersus extends JFrame implements ActionListener,
     @Override
     public void lancerVague(VagueDeCreatures vague) throws ArgentInsuffisantException
     {
-        jeu.lancerVague(jeu.getJoueurPrincipal(), jeu.getEquipeSuivanteNonVide(jeu.getJoueurPrincipal().getEquipe()),vague);
+        try
+        {
+            jeu.demanderLancementVague(vague).ajouterEcouteurDeRequete(new EcouteurDeRequete()
+            {
+                public void requeteTerminee(final Requete requete)
+                {
+                    // reponse recue hors de l'EDT
+                    SwingUtilities.invokeLater(new Runnable()
+                    {
+                        public void run()
+                        {
+                            try
+                            {
+                                ClientJeu.verifierVague(requete.getStatus());
+                            }
+                            catch (ArgentInsuffisantException e)
+                            {
+                                erreurPasAssezDArgent();
+                            }
+                            catch (CanalException e)
+                            {
+                                afficherErreur(e.getMessage());
+                            }
+                        }
+                    });
+                }
+            });
+        }
+        catch (CanalException e)
+        {
+            afficherErreur(e.getMessage());
+        }
     }
 
     @Override
@@ -315,7 +315,9 @@ public class Fenetre_JeuSolo extends JFrame implements ActionListener,
          
 		JPanel pConteneurTerrain = new JPanel(new BorderLayout());
 		pConteneurTerrain.setBorder(new LineBorder(Color.BLACK,4));
-		panelTerrain = new Panel_Terrain(jeu, this);
+		panelTerrain = new Panel_Terrain(jeu, this, Configuration.getRenduActif());
+		panelTerrain.setFpsMax(Configuration.getFpsMax(Panel_Terrain.FPS_MAX_DEFAUT));
+		panelTerrain.setSynchroVerticale(Configuration.getSynchroVerticale());
 		panelTerrain.addKeyListener(this);
 		//conteneurTerrain.setBorder(new EmptyBorder(new Insets(10, 10,10, 10)));
 		pConteneurTerrain.setOpaque(false);
@@ -664,6 +666,11 @@ public class Fenetre_JeuSolo extends JFrame implements ActionListener,
         {
             e.printStackTrace();
         }
+        catch (JoueurHorsJeu e)
+        {
+            ajouterTexteHTMLDansConsole("<font color='red'>" 
+                    + e.getMessage()+"</font><br />");
+        }
     }
 	
     /**